@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.batch.impl.spring.sharding;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+import org.trpr.platform.core.spi.persistence.PersistenceException;
+import org.trpr.platform.core.spi.persistence.PersistenceManager;
+import org.trpr.platform.core.spi.persistence.PersistentEntity;
+import org.trpr.platform.core.spi.persistence.sharding.KeyedShardingScheme;
+import org.trpr.platform.core.spi.persistence.sharding.ShardedEntity;
+
+/**
+ * The <code>DualReadEntityFinder</code> looks up sharded entities while they are being moved to new shards by the {@link ShardMigrationTasklet}.
+ * An entity is first looked up in the shard determined by the new {@link KeyedShardingScheme} and then, if not found, in the shard determined
+ * by the old one.
+ *
+ * @author Regunath B
+ */
+public class DualReadEntityFinder implements InitializingBean {
+
+	/** The PersistenceManager for reading entities*/
+	private PersistenceManager persistenceManager;
+
+	/** The sharding schemes before and after the shard change*/
+	private KeyedShardingScheme oldShardingScheme;
+	private KeyedShardingScheme newShardingScheme;
+
+	/**
+	 * Looks up the specified sharded entity in its new shard and falls back to its old shard if not found
+	 * @param entity the ShardedEntity to look up
+	 * @param shardKey the shard key of the entity
+	 * @return the PersistentEntity found or null
+	 * @throws PersistenceException in case of errors in look up
+	 */
+	public PersistentEntity findEntity(PersistentEntity entity, Object shardKey) throws PersistenceException {
+		ShardedEntity shardedEntity = (ShardedEntity)entity;
+		String newShard = this.newShardingScheme.getShardHint(shardKey);
+		shardedEntity.setShardHint(newShard);
+		PersistentEntity foundEntity = this.persistenceManager.findEntity(entity);
+		if (foundEntity == null) {
+			String oldShard = this.oldShardingScheme.getShardHint(shardKey);
+			if (!oldShard.equals(newShard)) {
+				shardedEntity.setShardHint(oldShard);
+				foundEntity = this.persistenceManager.findEntity(entity);
+			}
+		}
+		return foundEntity;
+	}
+
+	/**
+	 * Interface method implementation. Checks for mandatory dependencies
+	 * @see org.springframework.beans.factory.InitializingBean#afterPropertiesSet()
+	 */
+	public void afterPropertiesSet() throws Exception {
+		Assert.notNull(this.persistenceManager, "The 'persistenceManager' may not be null");
+		Assert.notNull(this.oldShardingScheme, "The 'oldShardingScheme' may not be null");
+		Assert.notNull(this.newShardingScheme, "The 'newShardingScheme' may not be null");
+	}
+
+	/** Getter/Setter methods*/
+	public PersistenceManager getPersistenceManager() {
+		return this.persistenceManager;
+	}
+	public void setPersistenceManager(PersistenceManager persistenceManager) {
+		this.persistenceManager = persistenceManager;
+	}
+	public KeyedShardingScheme getOldShardingScheme() {
+		return this.oldShardingScheme;
+	}
+	public void setOldShardingScheme(KeyedShardingScheme oldShardingScheme) {
+		this.oldShardingScheme = oldShardingScheme;
+	}
+	public KeyedShardingScheme getNewShardingScheme() {
+		return this.newShardingScheme;
+	}
+	public void setNewShardingScheme(KeyedShardingScheme newShardingScheme) {
+		this.newShardingScheme = newShardingScheme;
+	}
+}
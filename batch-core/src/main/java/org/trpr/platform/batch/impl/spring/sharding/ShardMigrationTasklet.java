@@ -0,0 +1,311 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.batch.impl.spring.sharding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+import org.trpr.platform.batch.common.BatchException;
+import org.trpr.platform.core.impl.logging.LogFactory;
+import org.trpr.platform.core.impl.persistence.sharding.RangeShardingScheme;
+import org.trpr.platform.core.spi.logging.Logger;
+import org.trpr.platform.core.spi.persistence.EntityCursor;
+import org.trpr.platform.core.spi.persistence.PersistenceManager;
+import org.trpr.platform.core.spi.persistence.PersistentEntity;
+import org.trpr.platform.core.spi.persistence.ResumableEntityCursor;
+import org.trpr.platform.core.spi.persistence.sharding.KeyedShardingScheme;
+import org.trpr.platform.core.spi.persistence.sharding.MultiShardAwareCriteria;
+import org.trpr.platform.core.spi.persistence.sharding.MultiShardedEntity;
+import org.trpr.platform.core.spi.persistence.sharding.ShardedEntity;
+
+/**
+ * The <code>ShardMigrationTasklet</code> is an implementation of the {@link Tasklet} that moves sharded entities to their new shards when shards are
+ * added or removed. Entities are read from each of the shard hints of the {@link MultiShardAwareCriteria}, one page at a time, using
+ * {@link PersistenceManager#streamEntities(org.trpr.platform.core.spi.persistence.Criteria)}. Entities whose shard hint as determined by the new
+ * {@link KeyedShardingScheme} differs from that determined by the old one are persisted to the new shard in a batch using
+ * {@link PersistenceManager#makePersistent(PersistentEntity[])} and then deleted from the shard they were read from. The PersistenceManager is
+ * flushed after the writes and again after the deletes, so that copies are durable before the originals are deleted even when the stores buffer
+ * writes, and the deletes are complete before the checkpoint is recorded.
+ *
+ * Each execution of this tasklet migrates one page and records the shard and the position to read next from in the step {@link ExecutionContext}. 
+ * The step therefore resumes where it stopped when the job is restarted. Entities are copied before they are deleted, so entities copied by an 
+ * interrupted execution are copied again on restart. The migration rate may be limited using {@link #setMaxEntitiesPerSecond(int)}.
+ *
+ * The position is the resume key of the last entity read if the cursor is a {@link ResumableEntityCursor}, as it is for HBase. The next page is then
+ * read from after that key, without re-reading earlier entities. For other cursors, the position is the offset of the next page, counting only the
+ * entities that were not moved, and pages are read by skipping that many entities. The offset is correct only if the criteria returns entities in a 
+ * stable, total order - queries must therefore order by a unique key, which is checked for query strings but not for named queries.
+ *
+ * Entities are copied to the new shard using {@link PersistenceManager#makePersistent(PersistentEntity[])}, which must therefore insert entities that do
+ * not exist in the target shard i.e. write as an upsert. This holds for HBase, where a write is always a put. It does not hold for Hibernate mapped
+ * entities that have identifiers, for which Hibernate issues an update that fails in the target shard. This tasklet is therefore meant for HBase and
+ * other stores with upsert semantics.
+ *
+ * The shard key of an entity is the value of the {@link #setShardKeyProperty(String)} bean property if specified, the entity's identifier otherwise.
+ * The shard key must be the key that the entity's own {@link ShardedEntity#getShardHint()} passes to the sharding scheme, else entities are moved to
+ * shards that they are not looked up in. The shard key property is mandatory for a {@link RangeShardingScheme}, which requires {@link Comparable}
+ * keys, as identifiers are not Comparable. Entities without a shard key are not migrated and fail the execution, as sharding schemes route such
+ * entities to an arbitrary shard.
+ * Use {@link DualReadEntityFinder} to look up entities while the migration is in progress. Multi-sharded entities are not migrated.
+ *
+ * @author Regunath B
+ */
+public class ShardMigrationTasklet implements Tasklet, InitializingBean {
+
+	/** The ExecutionContext keys for the checkpoint*/
+	public static final String SHARD_INDEX = "shardMigration.shardIndex";
+	public static final String SHARD_OFFSET = "shardMigration.offset";
+	public static final String SHARD_RESUME_KEY = "shardMigration.resumeKey";
+	public static final String SHARD_RESUME_KEY_PARAMETER = "shardMigration.resumeKeyParameter";
+
+	/** The default number of entities read per page*/
+	private static final int DEFAULT_PAGE_SIZE = 100;
+
+	/** The token that query strings must contain to order entities*/
+	private static final String ORDER_BY = "order by";
+
+	/** Logger instance for this class*/
+	private static final Logger LOGGER = LogFactory.getLogger(ShardMigrationTasklet.class);
+
+	/** The PersistenceManager for reading and writing entities*/
+	private PersistenceManager persistenceManager;
+
+	/** The criteria for reading entities. Entities are read from each of its shard hints*/
+	private MultiShardAwareCriteria criteria;
+
+	/** The sharding schemes before and after the shard change*/
+	private KeyedShardingScheme oldShardingScheme;
+	private KeyedShardingScheme newShardingScheme;
+
+	/** The bean property holding the shard key of entities, optional*/
+	private String shardKeyProperty;
+
+	/** The number of entities read per page*/
+	private int pageSize = DEFAULT_PAGE_SIZE;
+
+	/** The max number of entities read per second, zero for no limit*/
+	private int maxEntitiesPerSecond;
+
+	/**
+	 * Interface method implementation. Migrates the next page of entities and updates the checkpoint
+	 * @see org.springframework.batch.core.step.tasklet.Tasklet#execute(org.springframework.batch.core.StepContribution, org.springframework.batch.core.scope.context.ChunkContext)
+	 */
+	public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+		long startTime = System.currentTimeMillis();
+		ExecutionContext executionContext = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+		String[] shardHints = this.criteria.getShardHints();
+		int shardIndex = executionContext.getInt(SHARD_INDEX, 0);
+		int offset = executionContext.getInt(SHARD_OFFSET, 0);
+		if (shardIndex >= shardHints.length) {
+			return RepeatStatus.FINISHED;
+		}
+		String sourceShard = shardHints[shardIndex];
+		MultiShardAwareCriteria pageCriteria = this.criteria.copyForShard(sourceShard);
+		if (executionContext.containsKey(SHARD_RESUME_KEY)) {
+			pageCriteria.addParameter(executionContext.getString(SHARD_RESUME_KEY_PARAMETER), executionContext.get(SHARD_RESUME_KEY));
+		} else {
+			pageCriteria.setFirstResult(offset);
+		}
+		pageCriteria.setMaxResults(this.pageSize);
+		Collection<PersistentEntity> entities = new ArrayList<PersistentEntity>(this.pageSize);
+		Object resumeKey = null;
+		String resumeKeyParameter = null;
+		EntityCursor cursor = this.persistenceManager.streamEntities(pageCriteria);
+		try {
+			while (entities.size() < this.pageSize && cursor.hasNext()) {
+				entities.add(cursor.next());
+			}
+			if (cursor instanceof ResumableEntityCursor) {
+				resumeKey = ((ResumableEntityCursor)cursor).getResumeKey();
+				resumeKeyParameter = ((ResumableEntityCursor)cursor).getResumeKeyParameter();
+			}
+		} finally {
+			cursor.close();
+		}
+		if (entities.isEmpty()) {
+			// done with this shard, move on to the next
+			LOGGER.info("Completed migration of entities from shard : " + sourceShard);
+			executionContext.putInt(SHARD_INDEX, shardIndex + 1);
+			executionContext.putInt(SHARD_OFFSET, 0);
+			executionContext.remove(SHARD_RESUME_KEY);
+			executionContext.remove(SHARD_RESUME_KEY_PARAMETER);
+			return shardIndex + 1 < shardHints.length ? RepeatStatus.CONTINUABLE : RepeatStatus.FINISHED;
+		}
+		for (int i = 0; i < entities.size(); i++) {
+			contribution.incrementReadCount();
+		}
+		// group the entities to be moved by their new shard hint
+		Map<String, List<PersistentEntity>> movedEntities = new LinkedHashMap<String, List<PersistentEntity>>();
+		int movedCount = 0;
+		for (PersistentEntity entity : entities) {
+			if (!(entity instanceof ShardedEntity) || entity instanceof MultiShardedEntity) {
+				continue;
+			}
+			Object shardKey = getShardKey(entity);
+			String newShard = this.newShardingScheme.getShardHint(shardKey);
+			if (newShard.equals(this.oldShardingScheme.getShardHint(shardKey)) || newShard.equals(sourceShard)) {
+				continue;
+			}
+			List<PersistentEntity> shardEntities = movedEntities.get(newShard);
+			if (shardEntities == null) {
+				shardEntities = new ArrayList<PersistentEntity>();
+				movedEntities.put(newShard, shardEntities);
+			}
+			shardEntities.add(entity);
+			movedCount += 1;
+		}
+		for (Map.Entry<String, List<PersistentEntity>> entry : movedEntities.entrySet()) {
+			PersistentEntity[] shardEntities = entry.getValue().toArray(new PersistentEntity[entry.getValue().size()]);
+			moveEntities(shardEntities, sourceShard, entry.getKey());
+			contribution.incrementWriteCount(shardEntities.length);
+		}
+		contribution.incrementFilterCount(entities.size() - movedCount);
+		if (resumeKey != null && resumeKeyParameter != null) {
+			executionContext.put(SHARD_RESUME_KEY, resumeKey);
+			executionContext.putString(SHARD_RESUME_KEY_PARAMETER, resumeKeyParameter);
+		} else {
+			// moved entities no longer exist in the source shard, the next page therefore starts after the ones that were not moved
+			executionContext.putInt(SHARD_OFFSET, offset + entities.size() - movedCount);
+		}
+		throttle(entities.size(), startTime);
+		return RepeatStatus.CONTINUABLE;
+	}
+
+	/**
+	 * Interface method implementation. Checks for mandatory dependencies and that queries read entities in a stable order, as required by the
+	 * offset checkpoint
+	 * @see org.springframework.beans.factory.InitializingBean#afterPropertiesSet()
+	 */
+	public void afterPropertiesSet() throws Exception {
+		Assert.notNull(this.persistenceManager, "The 'persistenceManager' may not be null");
+		Assert.notNull(this.criteria, "The 'criteria' may not be null");
+		Assert.isTrue(this.criteria.getQuery() == null || this.criteria.getQueryType() == MultiShardAwareCriteria.NAMED_QUERY
+				|| this.criteria.getQuery().toLowerCase().replaceAll("\\s+", " ").contains(ORDER_BY), 
+				"The 'criteria' query must order entities by a unique key, as the checkpoint is an offset. Query is : " + this.criteria.getQuery());
+		Assert.notNull(this.oldShardingScheme, "The 'oldShardingScheme' may not be null");
+		Assert.notNull(this.newShardingScheme, "The 'newShardingScheme' may not be null");
+		Assert.isTrue(this.shardKeyProperty != null || !(this.oldShardingScheme instanceof RangeShardingScheme || this.newShardingScheme instanceof RangeShardingScheme),
+				"The 'shardKeyProperty' must be specified for a RangeShardingScheme, as entity identifiers are not Comparable");
+		Assert.isTrue(this.pageSize > 0, "The 'pageSize' must be greater than zero");
+	}
+
+	/**
+	 * Helper method to copy the specified entities to the target shard and delete them from the source shard. Flushes buffered writes after the copy,
+	 * as writes to different shards may be buffered and flushed independently, and after the deletes, so that they are visible to the next page read
+	 */
+	private void moveEntities(PersistentEntity[] entities, String sourceShard, String targetShard) throws BatchException {
+		try {
+			setShardHint(entities, targetShard);
+			this.persistenceManager.makePersistent(entities);
+			this.persistenceManager.flush();
+			setShardHint(entities, sourceShard);
+			this.persistenceManager.makeTransient(entities);
+			this.persistenceManager.flush();
+		} catch (Exception e) {
+			throw new BatchException("Error moving " + entities.length + " entities from shard : " + sourceShard + " to shard : " + targetShard, e);
+		}
+		LOGGER.debug("Moved " + entities.length + " entities from shard : " + sourceShard + " to shard : " + targetShard);
+	}
+
+	/**
+	 * Helper method to set the specified shard hint on the specified entities
+	 */
+	private void setShardHint(PersistentEntity[] entities, String shardHint) {
+		for (PersistentEntity entity : entities) {
+			((ShardedEntity)entity).setShardHint(shardHint);
+		}
+	}
+
+	/**
+	 * Helper method to return the shard key of the specified entity
+	 * @throws BatchException in case the entity does not have a shard key
+	 */
+	private Object getShardKey(PersistentEntity entity) throws BatchException {
+		Object shardKey = this.shardKeyProperty != null ? new BeanWrapperImpl(entity).getPropertyValue(this.shardKeyProperty) : entity.getIdentifier();
+		if (shardKey == null) {
+			throw new BatchException("Shard key is null for entity : " + entity + " . Shard key property is : " + this.shardKeyProperty);
+		}
+		return shardKey;
+	}
+
+	/**
+	 * Helper method to pause the current thread so that the specified number of entities read since the specified start time does not exceed
+	 * the max entities per second, if specified
+	 */
+	private void throttle(int entityCount, long startTime) throws InterruptedException {
+		if (this.maxEntitiesPerSecond > 0) {
+			long pauseMillis = (entityCount * 1000L / this.maxEntitiesPerSecond) - (System.currentTimeMillis() - startTime);
+			if (pauseMillis > 0) {
+				Thread.sleep(pauseMillis);
+			}
+		}
+	}
+
+	/** Getter/Setter methods*/
+	public PersistenceManager getPersistenceManager() {
+		return this.persistenceManager;
+	}
+	public void setPersistenceManager(PersistenceManager persistenceManager) {
+		this.persistenceManager = persistenceManager;
+	}
+	public MultiShardAwareCriteria getCriteria() {
+		return this.criteria;
+	}
+	public void setCriteria(MultiShardAwareCriteria criteria) {
+		this.criteria = criteria;
+	}
+	public KeyedShardingScheme getOldShardingScheme() {
+		return this.oldShardingScheme;
+	}
+	public void setOldShardingScheme(KeyedShardingScheme oldShardingScheme) {
+		this.oldShardingScheme = oldShardingScheme;
+	}
+	public KeyedShardingScheme getNewShardingScheme() {
+		return this.newShardingScheme;
+	}
+	public void setNewShardingScheme(KeyedShardingScheme newShardingScheme) {
+		this.newShardingScheme = newShardingScheme;
+	}
+	public String getShardKeyProperty() {
+		return this.shardKeyProperty;
+	}
+	public void setShardKeyProperty(String shardKeyProperty) {
+		this.shardKeyProperty = shardKeyProperty;
+	}
+	public int getPageSize() {
+		return this.pageSize;
+	}
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+	public int getMaxEntitiesPerSecond() {
+		return this.maxEntitiesPerSecond;
+	}
+	public void setMaxEntitiesPerSecond(int maxEntitiesPerSecond) {
+		this.maxEntitiesPerSecond = maxEntitiesPerSecond;
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.trpr.dataaccess.hbase.mappings.config.HBaseEntityAccessor;
+import org.trpr.dataaccess.hbase.mappings.config.HBaseMappingContainer;
+import org.trpr.dataaccess.hbase.model.config.ColumnDefinition;
+import org.trpr.dataaccess.hbase.model.config.HbaseClass;
+import org.trpr.dataaccess.hbase.model.config.HbaseMapping;
+import org.trpr.dataaccess.hbase.model.config.RowKeyDefinition;
+import org.trpr.dataaccess.hbase.persistence.entity.HBaseEntity;
+import org.trpr.dataaccess.hbase.serializer.SerializerRegistry;
+
+/**
+ * The <code>ResultRowDecodeBenchmark</code> compares decoding 10,000 HBase {@link Result} rows into entities through
+ * {@link HBaseHandlerDelegate#constructEntityFromResultRow(HbaseMapping, Result, HBaseEntity)}, which uses the compiled {@link HBaseEntityAccessor}
+ * plan, with decoding the same rows using {@link PropertyUtils} introspection as the delegate did before the accessor plan was introduced.
+ * This benchmark is in the delegate's package as the decode method is package private.
+ *
+ * Run using : java -jar target/benchmarks.jar ResultRowDecodeBenchmark
+ *
+ * @author Regunath B
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ResultRowDecodeBenchmark {
+
+	/** The number of rows decoded per benchmark invocation */
+	private static final int ROW_COUNT = 10000;
+
+	/** The column family of the mapped columns */
+	private static final String COLUMN_FAMILY = "data";
+
+	/** The mapped column attributes of the benchmark entity and their types, the attribute names are also used as column qualifiers */
+	private static final String[] COLUMN_ATTRIBUTES = {"name", "count", "amount", "active", "createdOn"};
+	private static final Class<?>[] COLUMN_TYPES = {String.class, Integer.class, Double.class, Boolean.class, Date.class};
+
+	/** The mapping of the benchmark entity and the delegate that decodes rows using it */
+	private HbaseMapping mapping;
+	private HBaseHandlerDelegate delegate;
+
+	/** Serializers used to create the rows and by the PropertyUtils based decode */
+	private SerializerRegistry serializerRegistry;
+
+	/** The rows decoded by the benchmarks */
+	private Result[] results;
+
+	/**
+	 * Creates the mapping, the delegate and the rows
+	 */
+	@Setup
+	public void setup() throws Exception {
+		HbaseClass hbaseClass = new HbaseClass();
+		hbaseClass.setName(BenchmarkEntity.class.getName());
+		hbaseClass.setTable("benchmark");
+		RowKeyDefinition rowKeyDefinition = new RowKeyDefinition();
+		rowKeyDefinition.setValueAttribute("rowKey");
+		rowKeyDefinition.setValueType(String.class.getName());
+		hbaseClass.setRowkeyDefinition(rowKeyDefinition);
+		for (int i = 0; i < COLUMN_ATTRIBUTES.length; i++) {
+			ColumnDefinition columnDefinition = new ColumnDefinition();
+			columnDefinition.setColumnFamily(COLUMN_FAMILY);
+			columnDefinition.setColumnQualifier(COLUMN_ATTRIBUTES[i]);
+			columnDefinition.setValueAttribute(COLUMN_ATTRIBUTES[i]);
+			columnDefinition.setValueType(COLUMN_TYPES[i].getName());
+			hbaseClass.getColumnDefinition().add(columnDefinition);
+		}
+		this.mapping = new HbaseMapping();
+		this.mapping.setHbaseClass(hbaseClass);
+		HBaseMappingContainer hbaseMappingContainer = new HBaseMappingContainer();
+		hbaseMappingContainer.addMapping(ResultRowDecodeBenchmark.class.getSimpleName(), this.mapping);
+		this.delegate = new HBaseHandlerDelegate(hbaseMappingContainer);
+
+		this.serializerRegistry = new SerializerRegistry();
+		byte[] family = Bytes.toBytes(COLUMN_FAMILY);
+		this.results = new Result[ROW_COUNT];
+		for (int i = 0; i < ROW_COUNT; i++) {
+			Object[] values = {"name-" + i, i, i * 1.5d, i % 2 == 0, new Date(i)};
+			byte[] rowKey = this.serializerRegistry.getSerializer(String.class).toBytes("row-" + i);
+			List<KeyValue> keyValues = new ArrayList<KeyValue>(COLUMN_ATTRIBUTES.length);
+			for (int j = 0; j < COLUMN_ATTRIBUTES.length; j++) {
+				keyValues.add(new KeyValue(rowKey, family, Bytes.toBytes(COLUMN_ATTRIBUTES[j]), this.serializerRegistry.getSerializer(COLUMN_TYPES[j]).toBytes(values[j])));
+			}
+			// cells of a Result are sorted, as when read from HBase
+			Collections.sort(keyValues, KeyValue.COMPARATOR);
+			this.results[i] = new Result(keyValues);
+		}
+	}
+
+	/**
+	 * Decodes all rows through the delegate, using the compiled accessor plan
+	 */
+	@Benchmark
+	public void decodeAccessorPlan(Blackhole blackhole) throws Exception {
+		for (Result result : this.results) {
+			blackhole.consume(this.delegate.constructEntityFromResultRow(this.mapping, result, new BenchmarkEntity()));
+		}
+	}
+
+	/**
+	 * Decodes all rows using PropertyUtils, matching cells to column definitions on the family and qualifier strings
+	 */
+	@Benchmark
+	public void decodePropertyUtils(Blackhole blackhole) throws Exception {
+		RowKeyDefinition rowKeyDefinition = this.mapping.getHbaseClass().getRowkeyDefinition();
+		for (Result result : this.results) {
+			BenchmarkEntity entity = new BenchmarkEntity();
+			PropertyUtils.setProperty(entity, rowKeyDefinition.getValueAttribute(), toObject(entity, rowKeyDefinition.getValueAttribute(), result.getRow()));
+			for (KeyValue keyValue : result.list()) {
+				String columnFamily = new String(keyValue.getFamily());
+				String columnQualifier = new String(keyValue.getQualifier());
+				for (ColumnDefinition columnDefinition : this.mapping.getHbaseClass().getColumnDefinition()) {
+					if (columnDefinition.getColumnFamily().equals(columnFamily) && columnDefinition.getColumnQualifier().equals(columnQualifier)) {
+						PropertyUtils.setProperty(entity, columnDefinition.getValueAttribute(), toObject(entity, columnDefinition.getValueAttribute(), keyValue.getValue()));
+						break;
+					}
+				}
+			}
+			blackhole.consume(entity);
+		}
+	}
+
+	/**
+	 * Deserializes the specified bytes to the type of the specified attribute, resolved using PropertyUtils
+	 */
+	private Object toObject(BenchmarkEntity entity, String attribute, byte[] bytes) throws Exception {
+		return this.serializerRegistry.getSerializer(PropertyUtils.getPropertyDescriptor(entity, attribute).getPropertyType()).toObject(bytes);
+	}
+
+	/**
+	 * HBase entity with attributes of the types commonly mapped to HBase columns
+	 */
+	public static class BenchmarkEntity extends HBaseEntity {
+		private String rowKey;
+		private String name;
+		private Integer count;
+		private Double amount;
+		private Boolean active;
+		private Date createdOn;
+
+		/** Getter/Setter methods */
+		public String getRowKey() {
+			return this.rowKey;
+		}
+		public void setRowKey(String rowKey) {
+			this.rowKey = rowKey;
+		}
+		public String getName() {
+			return this.name;
+		}
+		public void setName(String name) {
+			this.name = name;
+		}
+		public Integer getCount() {
+			return this.count;
+		}
+		public void setCount(Integer count) {
+			this.count = count;
+		}
+		public Double getAmount() {
+			return this.amount;
+		}
+		public void setAmount(Double amount) {
+			this.amount = amount;
+		}
+		public Boolean getActive() {
+			return this.active;
+		}
+		public void setActive(Boolean active) {
+			this.active = active;
+		}
+		public Date getCreatedOn() {
+			return this.createdOn;
+		}
+		public void setCreatedOn(Date createdOn) {
+			this.createdOn = createdOn;
+		}
+	}
+
+}
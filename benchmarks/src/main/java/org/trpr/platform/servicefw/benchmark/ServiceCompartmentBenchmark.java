@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.servicefw.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trpr.platform.service.model.common.platformservicerequest.PlatformServiceRequest;
+import org.trpr.platform.service.model.common.platformserviceresponse.PlatformServiceResponse;
+import org.trpr.platform.servicefw.common.ServiceException;
+import org.trpr.platform.servicefw.common.ServiceFrameworkConstants;
+import org.trpr.platform.servicefw.impl.ServiceCompartmentImpl;
+import org.trpr.platform.servicefw.impl.ServiceInfoImpl;
+import org.trpr.platform.servicefw.impl.ServiceKeyImpl;
+import org.trpr.platform.servicefw.impl.ServiceRequestImpl;
+import org.trpr.platform.servicefw.impl.ServiceResponseImpl;
+import org.trpr.platform.servicefw.spi.Service;
+import org.trpr.platform.servicefw.spi.ServiceCompartment;
+import org.trpr.platform.servicefw.spi.ServiceKey;
+import org.trpr.platform.servicefw.spi.ServiceRequest;
+import org.trpr.platform.servicefw.spi.ServiceResponse;
+
+/**
+ * The <code>ServiceCompartmentBenchmark</code> measures the overhead of routing service calls through a single {@link ServiceCompartmentImpl}
+ * from 64 concurrent threads. The benchmarked service does no work other than notifying the compartment of service execution start and end,
+ * as services do via the ServiceContext, so that the cost measured is that of keeping the compartment's invocation statistics.
+ *
+ * Run using : java -jar target/benchmarks.jar ServiceCompartmentBenchmark
+ *
+ * @author Regunath B
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@Threads(64)
+public class ServiceCompartmentBenchmark {
+
+	/** The key of the benchmarked service */
+	private static final ServiceKey SERVICE_KEY = new ServiceKeyImpl("benchmarkService", "1.0");
+
+	/**
+	 * The compartment shared by all benchmark threads
+	 */
+	@State(Scope.Benchmark)
+	public static class CompartmentState {
+		private ServiceCompartmentImpl<PlatformServiceRequest, PlatformServiceResponse> compartment;
+		@Setup
+		public void setup() {
+			this.compartment = new ServiceCompartmentImpl<PlatformServiceRequest, PlatformServiceResponse>(
+					new ServiceInfoImpl("benchmarks", "benchmarks", false, SERVICE_KEY), new NotifyingService());
+		}
+	}
+
+	/**
+	 * The request and response of a benchmark thread. Requests are not shared as the compartment sets the service version on them
+	 */
+	@State(Scope.Thread)
+	public static class RequestState {
+		private ServiceRequest<PlatformServiceRequest> request;
+		private ServiceResponse<PlatformServiceResponse> response;
+		@Setup
+		public void setup() {
+			this.request = new ServiceRequestImpl<PlatformServiceRequest>(null, SERVICE_KEY);
+			this.response = new ServiceResponseImpl<PlatformServiceResponse>(String.valueOf(ServiceFrameworkConstants.SUCCESS_STATUS_CODE));
+		}
+	}
+
+	/**
+	 * Calls the service through the shared compartment
+	 */
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public ServiceResponse<PlatformServiceResponse> processRequest(CompartmentState compartmentState, RequestState requestState) throws ServiceException {
+		return compartmentState.compartment.processRequest(requestState.request);
+	}
+
+	/**
+	 * Notifies the shared compartment of service execution start and end, without invoking the service
+	 */
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public void notifyServiceExecution(CompartmentState compartmentState, RequestState requestState) {
+		long startTime = System.currentTimeMillis();
+		compartmentState.compartment.notifyServiceExecutionStart(requestState.request);
+		compartmentState.compartment.notifyServiceExecutionEnd(requestState.request, requestState.response, startTime, System.currentTimeMillis());
+	}
+
+	/**
+	 * Service that notifies the compartment executing it of execution start and end and returns a success response
+	 */
+	private static class NotifyingService implements Service<PlatformServiceRequest, PlatformServiceResponse> {
+		@SuppressWarnings({"rawtypes", "unchecked"})
+		public ServiceResponse<PlatformServiceResponse> processRequest(ServiceRequest<PlatformServiceRequest> request) throws ServiceException {
+			ServiceCompartment compartment = ServiceCompartmentImpl.getCurrentCompartment();
+			long startTime = System.currentTimeMillis();
+			compartment.notifyServiceExecutionStart(request);
+			ServiceResponse<PlatformServiceResponse> response = new ServiceResponseImpl<PlatformServiceResponse>(
+					String.valueOf(ServiceFrameworkConstants.SUCCESS_STATUS_CODE));
+			compartment.notifyServiceExecutionEnd(request, response, startTime, System.currentTimeMillis());
+			return response;
+		}
+	}
+
+}
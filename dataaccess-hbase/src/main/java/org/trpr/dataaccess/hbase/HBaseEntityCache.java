@@ -0,0 +1,271 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.trpr.dataaccess.hbase.model.config.HbaseClass;
+import org.trpr.dataaccess.hbase.model.config.HbaseMapping;
+
+/**
+ * The <code>HBaseEntityCache</code> is a read-through cache of HBase rows (i.e. {@link Result} instances) read by row key from tables of a
+ * {@link HTablePool}. Rows are cached per mapped class, keyed by row key, and only for classes whose mapping specifies a positive
+ * {@link HbaseClass#getCacheTtlMillis()}. The cache has the following behavior:
+ * <pre><ul>
+ * <li>Each mapped class has its own cache region holding at most {@link HbaseClass#getCacheMaxSize()} rows (or {@link #DEFAULT_MAX_SIZE} if not
+ * specified). The least recently used row is evicted when the region is full</li>
+ * <li>Rows expire {@link HbaseClass#getCacheTtlMillis()} milliseconds after they are cached</li>
+ * <li>{@link #invalidate(String, byte[])} removes a row from all regions of the table. Rows read before an invalidation of the same table are not
+ * cached, see {@link #getGeneration(String)}</li>
+ * <li>Hits, misses and evictions (including expired rows) are counted</li>
+ * </ul><pre>
+ * Callers cache entries from a single HTablePool in an instance of this cache, so that rows of different shards never mix.
+ *
+ * @author Regunath B
+ */
+public class HBaseEntityCache {
+
+	/** The default max number of rows cached per mapped class*/
+	public static final int DEFAULT_MAX_SIZE = 10000;
+
+	/** The cache regions keyed by mapped class name*/
+	private ConcurrentMap<String, Region> regions = new ConcurrentHashMap<String, Region>();
+
+	/** The invalidation counts keyed by table name*/
+	private ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<String, AtomicLong>();
+
+	/** The cache metrics*/
+	private AtomicLong hitCount = new AtomicLong();
+	private AtomicLong missCount = new AtomicLong();
+	private AtomicLong evictionCount = new AtomicLong();
+
+	/**
+	 * Determines if rows of the specified mapping are cached
+	 * @param mapping the HBase mapping
+	 * @return true if the mapping specifies a positive cache TTL
+	 */
+	public static boolean isCacheable(HbaseMapping mapping) {
+		Long ttlMillis = mapping.getHbaseClass().getCacheTtlMillis();
+		return ttlMillis != null && ttlMillis > 0;
+	}
+
+	/**
+	 * Returns the cached row for the specified mapping and row key
+	 * @param mapping the HBase mapping of the class
+	 * @param rowKey the row key
+	 * @return the cached Result or null if not cached or if expired
+	 */
+	public Result get(HbaseMapping mapping, byte[] rowKey) {
+		Result result = getRegion(mapping).get(new RowKey(rowKey));
+		if (result == null) {
+			this.missCount.incrementAndGet();
+		} else {
+			this.hitCount.incrementAndGet();
+		}
+		return result;
+	}
+
+	/**
+	 * Caches the specified row, unless the table has been invalidated since the specified generation
+	 * @param mapping the HBase mapping of the class
+	 * @param rowKey the row key
+	 * @param result the row read from HBase
+	 * @param generation the generation of the table, obtained using {@link #getGeneration(String)} before reading the row
+	 */
+	public void put(HbaseMapping mapping, byte[] rowKey, Result result, long generation) {
+		if (getGeneration(mapping.getHbaseClass().getTable()) == generation) {
+			getRegion(mapping).put(new RowKey(rowKey), result);
+		}
+	}
+
+	/**
+	 * Returns the generation of the specified table. The generation changes each time a row of the table is invalidated
+	 * @param tableName the table name
+	 * @return the table generation
+	 */
+	public long getGeneration(String tableName) {
+		return getGenerationCounter(tableName).get();
+	}
+
+	/**
+	 * Removes the specified row from all cache regions of the specified table
+	 * @param tableName the table name
+	 * @param rowKey the row key
+	 */
+	public void invalidate(String tableName, byte[] rowKey) {
+		getGenerationCounter(tableName).incrementAndGet();
+		RowKey key = new RowKey(rowKey);
+		for (Region region : this.regions.values()) {
+			if (region.tableName.equals(tableName)) {
+				region.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Removes all cached rows
+	 */
+	public void clear() {
+		for (AtomicLong generation : this.generations.values()) {
+			generation.incrementAndGet();
+		}
+		for (Region region : this.regions.values()) {
+			region.clear();
+		}
+	}
+
+	/**
+	 * Returns the number of cached rows
+	 * @return the number of cached rows, including expired rows that are yet to be evicted
+	 */
+	public int getSize() {
+		int size = 0;
+		for (Region region : this.regions.values()) {
+			size += region.size();
+		}
+		return size;
+	}
+
+	/** Getter methods for the cache metrics*/
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+	public long getEvictionCount() {
+		return this.evictionCount.get();
+	}
+
+	/**
+	 * Helper method to return the region for the specified mapping, creating one if required
+	 */
+	private Region getRegion(HbaseMapping mapping) {
+		HbaseClass hbaseClass = mapping.getHbaseClass();
+		Region region = this.regions.get(hbaseClass.getName());
+		if (region == null) {
+			region = new Region(hbaseClass.getTable(), hbaseClass.getCacheMaxSize() == null ? DEFAULT_MAX_SIZE : hbaseClass.getCacheMaxSize(),
+					hbaseClass.getCacheTtlMillis());
+			Region existing = this.regions.putIfAbsent(hbaseClass.getName(), region);
+			if (existing != null) {
+				region = existing;
+			}
+		}
+		return region;
+	}
+
+	/**
+	 * Helper method to return the generation counter for the specified table, creating one if required
+	 */
+	private AtomicLong getGenerationCounter(String tableName) {
+		AtomicLong generation = this.generations.get(tableName);
+		if (generation == null) {
+			generation = new AtomicLong();
+			AtomicLong existing = this.generations.putIfAbsent(tableName, generation);
+			if (existing != null) {
+				generation = existing;
+			}
+		}
+		return generation;
+	}
+
+	/**
+	 * Cache region of a mapped class. An access ordered LinkedHashMap guarded by the region's monitor
+	 */
+	class Region {
+		String tableName;
+		int maxSize;
+		long ttlMillis;
+		LinkedHashMap<RowKey, CachedRow> rows;
+
+		Region(String tableName, final int maxSize, long ttlMillis) {
+			this.tableName = tableName;
+			this.maxSize = maxSize;
+			this.ttlMillis = ttlMillis;
+			this.rows = new LinkedHashMap<RowKey, CachedRow>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+				protected boolean removeEldestEntry(Map.Entry<RowKey, CachedRow> eldest) {
+					if (size() > maxSize) {
+						evictionCount.incrementAndGet();
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+		synchronized Result get(RowKey key) {
+			CachedRow row = this.rows.get(key);
+			if (row == null) {
+				return null;
+			}
+			if (row.expiresAt <= System.currentTimeMillis()) {
+				this.rows.remove(key);
+				evictionCount.incrementAndGet();
+				return null;
+			}
+			return row.result;
+		}
+		synchronized void put(RowKey key, Result result) {
+			this.rows.put(key, new CachedRow(result, System.currentTimeMillis() + this.ttlMillis));
+		}
+		synchronized void remove(RowKey key) {
+			this.rows.remove(key);
+		}
+		synchronized void clear() {
+			this.rows.clear();
+		}
+		synchronized int size() {
+			return this.rows.size();
+		}
+	}
+
+	/**
+	 * A cached row and its expiry time
+	 */
+	static class CachedRow {
+		Result result;
+		long expiresAt;
+		CachedRow(Result result, long expiresAt) {
+			this.result = result;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	/**
+	 * Row key wrapper with value based equality
+	 */
+	static class RowKey {
+		byte[] key;
+		int hash;
+		RowKey(byte[] key) {
+			this.key = key;
+			this.hash = Bytes.hashCode(key);
+		}
+		public int hashCode() {
+			return this.hash;
+		}
+		public boolean equals(Object other) {
+			return other instanceof RowKey && Bytes.equals(this.key, ((RowKey) other).key);
+		}
+	}
+
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Row;
+import org.trpr.platform.core.impl.logging.LogFactory;
+import org.trpr.platform.core.spi.logging.Logger;
+import org.trpr.platform.core.spi.persistence.PersistenceException;
+
+/**
+ * The <code>HBaseWriteBuffer</code> is a client side write buffer for mutations (i.e. {@link Put} and {@link Delete}) on tables of a {@link HTablePool}.
+ * It is similar in intent to the BufferedMutator of later HBase client versions and has the following behavior:
+ * <pre><ul>
+ * <li>Mutations are buffered in a bounded in-memory queue per table. Callers block for at most the configured max block time when the queue is full,
+ * and get a {@link PersistenceException} if space does not become available in that time</li>
+ * <li>Buffered mutations are written by a dedicated flusher thread when the number of buffered mutations for a table reaches the flush size, and
+ * at least once every flush interval</li>
+ * <li>Mutations for a table are written in the order in which they were buffered. Each flush ends with {@link HTableInterface#flushCommits()}</li>
+ * <li>Mutations that fail to be written are retained and written again, ahead of mutations buffered later, by the next flush. Failures during
+ * background flushes are logged and the mutations stay buffered, so that callers block once the buffer is full and get a {@link PersistenceException}
+ * caused by the last flush failure if space does not become available. Note that Puts and Deletes written again may have been partially applied by 
+ * the failed write</li>
+ * <li>{@link #flush()} writes all buffered mutations, including the ones retained from failed flushes, on the calling thread and reports failure to 
+ * write any of them. {@link #shutdown()} stops the flusher thread and then flushes</li>
+ * <li>An optional {@link FlushListener} is notified of the mutations of a table after they are written, for e.g. to invalidate cached rows</li>
+ * </ul><pre>
+ *
+ * @author Regunath B
+ */
+public class HBaseWriteBuffer {
+
+	/** The Log instance for this class */
+	private static final Logger LOGGER = LogFactory.getLogger(HBaseWriteBuffer.class);
+
+	/** Default values for the buffer configuration*/
+	public static final int DEFAULT_MAX_BUFFERED_MUTATIONS = 10000;
+	public static final int DEFAULT_FLUSH_SIZE = 1000;
+	public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+	public static final long DEFAULT_MAX_BLOCK_MILLIS = 30000;
+
+	/** The HTablePool to write to*/
+	private HTablePool tablePool;
+
+	/** The max number of mutations buffered per table*/
+	private int maxBufferedMutations;
+
+	/** The number of buffered mutations for a table that triggers a flush*/
+	private int flushSize;
+
+	/** The max time in milliseconds for which mutations stay buffered*/
+	private long flushIntervalMillis;
+
+	/** The max time in milliseconds a caller is blocked when the buffer is full*/
+	private long maxBlockMillis;
+
+	/** The buffers keyed by table name*/
+	private ConcurrentMap<String, TableBuffer> tableBuffers = new ConcurrentHashMap<String, TableBuffer>();
+
+	/** The monitor used to signal the flusher thread and the flag to indicate a flush has been requested*/
+	private final Object flushSignal = new Object();
+	private boolean flushRequested;
+
+	/** Flag to indicate this buffer has been shutdown*/
+	private volatile boolean shutdown;
+
+	/** The flusher thread*/
+	private Flusher flusher;
+
+	/** The listener notified of written mutations, if any*/
+	private volatile FlushListener flushListener;
+
+	/**
+	 * Constructor for this class
+	 * @param tablePool the HTablePool to write mutations to
+	 * @param maxBufferedMutations the max number of mutations buffered per table
+	 * @param flushSize the number of buffered mutations for a table that triggers a flush
+	 * @param flushIntervalMillis the max time in milliseconds for which mutations stay buffered
+	 * @param maxBlockMillis the max time in milliseconds a caller is blocked when the buffer for a table is full
+	 */
+	public HBaseWriteBuffer(HTablePool tablePool, int maxBufferedMutations, int flushSize, long flushIntervalMillis, long maxBlockMillis) {
+		if (maxBufferedMutations <= 0 || flushSize <= 0 || flushIntervalMillis <= 0 || maxBlockMillis < 0) {
+			throw new IllegalArgumentException("Invalid write buffer configuration. maxBufferedMutations, flushSize and flushIntervalMillis must be positive, maxBlockMillis must not be negative");
+		}
+		this.tablePool = tablePool;
+		this.maxBufferedMutations = maxBufferedMutations;
+		this.flushSize = Math.min(flushSize, maxBufferedMutations);
+		this.flushIntervalMillis = flushIntervalMillis;
+		this.maxBlockMillis = maxBlockMillis;
+		this.flusher = new Flusher();
+	}
+
+	/**
+	 * Buffers the specified mutation for writing to the specified table. Blocks if the buffer for the table is full.
+	 * @param tableName the HBase table name
+	 * @param mutation the Put or Delete to buffer
+	 * @throws PersistenceException in case the buffer is shutdown or remains full beyond the max block time
+	 */
+	public void mutate(String tableName, Row mutation) throws PersistenceException {
+		checkWritable();
+		TableBuffer buffer = getTableBuffer(tableName);
+		try {
+			if (!buffer.mutations.offer(mutation, this.maxBlockMillis, TimeUnit.MILLISECONDS)) {
+				throw new PersistenceException("Write buffer for table : " + tableName + " is full. Timed out after waiting for : " + this.maxBlockMillis + " ms",
+						buffer.lastFlushError);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new PersistenceException("Interrupted while waiting for space in write buffer of table : " + tableName, e);
+		}
+		if (buffer.mutations.size() >= this.flushSize) {
+			requestFlush();
+		}
+	}
+
+	/**
+	 * Writes all buffered mutations, including ones that failed to be written earlier, on the calling thread. Mutations buffered by other threads while 
+	 * this call is in progress may or may not be written.
+	 * @throws PersistenceException in case of errors writing the mutations. The mutations that could not be written stay buffered
+	 */
+	public void flush() throws PersistenceException {
+		for (TableBuffer buffer : this.tableBuffers.values()) {
+			try {
+				flushTable(buffer);
+			} catch (IOException e) {
+				throw new PersistenceException("Error flushing write buffer of table : " + buffer.tableName, e);
+			}
+		}
+	}
+
+	/**
+	 * Stops the flusher thread and writes all buffered mutations. Subsequent calls to {@link #mutate(String, Row)} will fail.
+	 * @throws PersistenceException in case of errors writing the buffered mutations, including ones that failed to be written by the flusher thread
+	 */
+	public void shutdown() throws PersistenceException {
+		if (this.shutdown) {
+			return;
+		}
+		this.shutdown = true;
+		requestFlush();
+		try {
+			this.flusher.join(this.flushIntervalMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+	}
+
+	/**
+	 * Returns the number of mutations that are currently buffered, across all tables. Includes mutations that failed to be written and are retained
+	 * @return the number of buffered mutations
+	 */
+	public int getBufferedMutationCount() {
+		int count = 0;
+		for (TableBuffer buffer : this.tableBuffers.values()) {
+			count += buffer.mutations.size() + buffer.pendingCount;
+		}
+		return count;
+	}
+
+	/**
+	 * Sets the listener to be notified of mutations after they are written
+	 * @param flushListener the FlushListener, may be null
+	 */
+	public void setFlushListener(FlushListener flushListener) {
+		this.flushListener = flushListener;
+	}
+
+	/**
+	 * Helper method to return the buffer for the specified table, creating one if required
+	 */
+	private TableBuffer getTableBuffer(String tableName) {
+		TableBuffer buffer = this.tableBuffers.get(tableName);
+		if (buffer == null) {
+			TableBuffer newBuffer = new TableBuffer(tableName, this.maxBufferedMutations);
+			buffer = this.tableBuffers.putIfAbsent(tableName, newBuffer);
+			if (buffer == null) {
+				buffer = newBuffer;
+			}
+		}
+		return buffer;
+	}
+
+	/**
+	 * Helper method to check that this buffer accepts mutations
+	 */
+	private void checkWritable() throws PersistenceException {
+		if (this.shutdown) {
+			throw new PersistenceException("Write buffer has been shutdown. Cannot accept mutations.");
+		}
+	}
+
+	/**
+	 * Helper method to wake up the flusher thread
+	 */
+	private void requestFlush() {
+		synchronized (this.flushSignal) {
+			this.flushRequested = true;
+			this.flushSignal.notify();
+		}
+	}
+
+	/**
+	 * Helper method to write the mutations buffered for a table. Mutations retained from a failed flush are written first, followed by the mutations
+	 * in the queue. Mutations that fail to be written are retained for the next flush. 
+	 */
+	private void flushTable(TableBuffer buffer) throws IOException {
+		buffer.flushLock.lock();
+		try {
+			// write mutations retained from a failed flush first, so that the order of mutations is preserved
+			writePendingMutations(buffer);
+			buffer.mutations.drainTo(buffer.pendingMutations);
+			writePendingMutations(buffer);
+		} finally {
+			buffer.pendingCount = buffer.pendingMutations.size();
+			buffer.flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Helper method to write the pending mutations of the specified table buffer and clear them if successful. Consecutive mutations of the same 
+	 * type are written using a single batch call, so that the order of mutations is preserved.
+	 */
+	private void writePendingMutations(TableBuffer buffer) throws IOException {
+		List<Row> rows = buffer.pendingMutations;
+		if (rows.isEmpty()) {
+			return;
+		}
+		buffer.pendingCount = rows.size();
+		try {
+			HTableInterface table = (HTableInterface) this.tablePool.getTable(buffer.tableName);
+			try {
+				int runStart = 0;
+				for (int i = 1; i <= rows.size(); i++) {
+					if (i == rows.size() || rows.get(i).getClass() != rows.get(runStart).getClass()) {
+						writeRun(table, rows.subList(runStart, i));
+						runStart = i;
+					}
+				}
+				table.flushCommits();
+			} finally {
+				table.close();
+			}
+		} catch (IOException e) {
+			throw new IOException("Failed to write " + rows.size() + " buffered mutations to table : " + buffer.tableName, e);
+		} catch (RuntimeException e) {
+			// for e.g. failure to borrow a table from the pool
+			throw new IOException("Failed to write " + rows.size() + " buffered mutations to table : " + buffer.tableName, e);
+		}
+		notifyFlushListener(buffer.tableName, rows);
+		rows.clear();
+		buffer.lastFlushError = null;
+	}
+
+	/**
+	 * Helper method to notify the flush listener, if any, of written mutations. Listener errors are logged and do not fail the flush as the mutations 
+	 * have been written
+	 */
+	private void notifyFlushListener(String tableName, List<Row> rows) {
+		FlushListener listener = this.flushListener;
+		if (listener == null) {
+			return;
+		}
+		try {
+			listener.mutationsFlushed(tableName, rows);
+		} catch (RuntimeException e) {
+			LOGGER.error("Error notifying flush listener of mutations written to table : " + tableName + " : " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Helper method to write a run of mutations of the same type
+	 */
+	@SuppressWarnings("unchecked")
+	private void writeRun(HTableInterface table, List<Row> run) throws IOException {
+		if (run.get(0) instanceof Put) {
+			table.put(new ArrayList<Put>((List<Put>)(List<?>)run));
+		} else if (run.get(0) instanceof Delete) {
+			table.delete(new ArrayList<Delete>((List<Delete>)(List<?>)run));
+		} else {
+			try {
+				table.batch(run);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while writing mutations", e);
+			}
+		}
+	}
+
+	/**
+	 * Listener notified of mutations written by a flush. Called on the flushing thread, while holding the flush lock of the table 
+	 */
+	public interface FlushListener {
+		/**
+		 * Called after the specified mutations have been written to the specified table
+		 * @param tableName the HBase table name
+		 * @param mutations the Puts and Deletes that were written, in the order in which they were buffered
+		 */
+		public void mutationsFlushed(String tableName, List<Row> mutations);
+	}
+
+	/**
+	 * Buffer of mutations for a single table
+	 */
+	class TableBuffer {
+		/** The table name*/
+		String tableName;
+		/** The buffered mutations*/
+		BlockingQueue<Row> mutations;
+		/** Lock that serializes flushes, so that mutations are written in order*/
+		ReentrantLock flushLock = new ReentrantLock();
+		/** Mutations drained from the queue and not yet written successfully, guarded by the flush lock*/
+		List<Row> pendingMutations = new ArrayList<Row>();
+		/** The number of pending mutations, for reading without the flush lock*/
+		volatile int pendingCount;
+		/** The last error encountered during background flush, cleared when pending mutations are written*/
+		volatile Exception lastFlushError;
+		TableBuffer(String tableName, int capacity) {
+			this.tableName = tableName;
+			this.mutations = new LinkedBlockingQueue<Row>(capacity);
+		}
+	}
+
+	/**
+	 * Flusher thread. Flushes all table buffers when signalled or at the end of each flush interval, until the buffer is shutdown.
+	 */
+	class Flusher extends Thread {
+		Flusher() {
+			setDaemon(true);
+			setName("HBaseWriteBufferFlusher_" + HBaseWriteBuffer.this.hashCode());
+			start();
+		}
+		public void run() {
+			while (!shutdown) {
+				synchronized (flushSignal) {
+					if (!flushRequested) {
+						try {
+							flushSignal.wait(flushIntervalMillis);
+						} catch (InterruptedException e) {
+							break;
+						}
+					}
+					flushRequested = false;
+				}
+				for (TableBuffer buffer : tableBuffers.values()) {
+					try {
+						flushTable(buffer);
+					} catch (Exception e) {
+						LOGGER.error("Error flushing write buffer of table : " + buffer.tableName + ". Mutations are retained for retry : " + e.getMessage(), e);
+						buffer.lastFlushError = e;
+					}
+				}
+			}
+		}
+	}
+
+}
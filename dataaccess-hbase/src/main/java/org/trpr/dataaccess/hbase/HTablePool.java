@@ -18,8 +18,17 @@ package org.trpr.dataaccess.hbase;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HBaseConfiguration;
@@ -27,6 +36,7 @@ import org.apache.hadoop.hbase.HTableDescriptor;
 import org.apache.hadoop.hbase.client.Append;
 import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.HTableFactory;
 import org.apache.hadoop.hbase.client.HTableInterface;
 import org.apache.hadoop.hbase.client.HTableInterfaceFactory;
@@ -41,11 +51,11 @@ import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.client.coprocessor.Batch;
 import org.apache.hadoop.hbase.ipc.CoprocessorProtocol;
 import org.apache.hadoop.hbase.util.Bytes;
-import org.apache.hadoop.hbase.util.PoolMap;
 import org.apache.hadoop.hbase.util.PoolMap.PoolType;
 import org.trpr.dataaccess.hbase.auth.AuthenticationProvider;
 import org.trpr.platform.core.impl.logging.LogFactory;
 import org.trpr.platform.core.spi.logging.Logger;
+import org.trpr.platform.core.spi.persistence.PersistenceException;
 
 
 /**
@@ -57,7 +67,17 @@ import org.trpr.platform.core.spi.logging.Logger;
  * <pre><ul>
  * <li>Cycles through all existing connections in the pool using a background thread and keeps them active by executing a 'ping' query</li>
  * <li>Authenticates using the specified {@link AuthenticationProvider}, if one exists, when new connections are created</li>
+ * <li>Provides the region start keys of tables, for use in splitting scans by region boundaries</li>
+ * <li>Idle tables are kept in a lock-free deque per table name and are reused most recently returned first. The pool size specified in the 
+ * constructors is the max number of idle tables retained per table name</li>
+ * <li>Optionally limits the number of tables in use per table name to {@link #getMaxTotal()}. Borrowers wait at most {@link #getBorrowTimeoutMillis()}
+ * for a table to be returned, after which a {@link PersistenceException} is thrown</li>
+ * <li>Optionally evicts tables that have been idle for longer than {@link #getMaxIdleMillis()}, when tables are returned and by the connection 
+ * validator thread</li>
+ * <li>Keeps counts of borrowed, idle, created and destroyed tables and the time taken to borrow tables, per table name</li>
  * </ul><pre>
+ * Deviation from original behavior : {@link PoolType#ThreadLocal} is not supported, tables are always reused across threads.
+ * 
  * @author Regunath B
  * @version 1.0, 08 Jan 2014
  * 
@@ -68,13 +88,24 @@ public class HTablePool implements Closeable {
 	/** The Log instance for this class */
 	private static final Logger LOGGER = LogFactory.getLogger(HTablePool.class);
 	
+	/** The default max time to wait for a table when max total tables are in use*/
+	public static final long DEFAULT_BORROW_TIMEOUT_MILLIS = 30000L;
+	
 	/** Protected non-final member variables providing access to modify implementation by sub-types, if needed*/
-	protected PoolMap<String, HTableInterface> tables;
+	protected ConcurrentMap<String, TablePool> tables = new ConcurrentHashMap<String, TablePool>();
 	protected int maxSize;
 	protected PoolType poolType;
 	protected Configuration config;
 	protected HTableInterfaceFactory tableFactory;
 	
+	/** The max number of tables in use per table name, the max time to wait for a table and the max time a table may be idle in the pool*/
+	protected int maxTotal = Integer.MAX_VALUE;
+	protected long borrowTimeoutMillis = DEFAULT_BORROW_TIMEOUT_MILLIS;
+	protected long maxIdleMillis = 0L;
+	
+	/** Permits for tables in use keyed by table name. Shared by the successive pools of a table name, so that max total holds across pool closures*/
+	protected ConcurrentMap<String, Semaphore> tablePermits = new ConcurrentHashMap<String, Semaphore>();
+	
 	/**The connection validity check interval in minutes*/
 	protected Integer callConnectionValidityCheckMinutes; 
 	
@@ -103,49 +134,41 @@ public class HTablePool implements Closeable {
 		this.maxSize = maxSize;
 		this.tableFactory = tableFactory == null ? new HTableFactory() : tableFactory;
 		this.callConnectionValidityCheckMinutes = callConnectionValidityCheckMinutes;
-		if (poolType == null) {
-			this.poolType = PoolType.Reusable;
-		} else {
-			switch (poolType) {
-			case Reusable:
-			case ThreadLocal:
-				this.poolType = poolType;
-				break;
-			default:
-				this.poolType = PoolType.Reusable;
-				break;
-			}
+		if (poolType != null && poolType != PoolType.Reusable) {
+			LOGGER.warn("Pool type : " + poolType + " is not supported. Using : " + PoolType.Reusable);
 		}
-		this.tables = new PoolMap<String, HTableInterface>(this.poolType,this.maxSize);
+		this.poolType = PoolType.Reusable;
 		// create and start the connection pool validator thread if connection validity check is turned on i.e. is not null
 		if (this.getCallConnectionValidityCheckMinutes() != null) {
 			new ConnectionValidator(this);
 		}
 	}
 
-	/** Methods copied from original implementation, private methods are made proptected to permit overriding by sub-types*/
+	/** Methods from the original implementation, modified to use the per table pools*/
 	public HTableInterface getTable(String tableName) {
-		HTableInterface table = findOrCreateTable(tableName);
-		return new PooledHTable(table);
+		TablePool tablePool = getTablePool(tableName);
+		return new PooledHTable(tablePool.borrow(), tablePool);
 	}	
 	public HTableInterface getTable(byte[] tableName) {
 		return getTable(Bytes.toString(tableName));
 	}
 	public void putTable(HTableInterface table) throws IOException {
 		if (table instanceof PooledHTable) {
-			returnTable(((PooledHTable) table).getWrappedTable());
+			table.close();
 		} else {
 			throw new IllegalArgumentException("not a pooled table: " + table);
 		}
 	}
+	/**
+	 * Closes the pool of the specified table name and releases its idle tables. Tables in use are released when returned. A new pool is created for 
+	 * the table name on the next call to {@link #getTable(String)}, which shares the permits of the closed pool so that the tables in use, including 
+	 * those borrowed from the closed pool, do not exceed {@link #getMaxTotal()}.
+	 */
 	public void closeTablePool(final String tableName) throws IOException {
-		Collection<HTableInterface> tables = this.tables.values(tableName);
-		if (tables != null) {
-			for (HTableInterface table : tables) {
-				this.tableFactory.releaseHTableInterface(table);
-			}
+		TablePool tablePool = this.tables.remove(tableName);
+		if (tablePool != null) {
+			tablePool.close();
 		}
-		this.tables.remove(tableName);
 	}
 	public void closeTablePool(final byte[] tableName) throws IOException {
 		closeTablePool(Bytes.toString(tableName));
@@ -154,27 +177,39 @@ public class HTablePool implements Closeable {
 		for (String tableName : tables.keySet()) {
 			closeTablePool(tableName);
 		}
-		this.tables.clear();
 	}
 	int getCurrentPoolSize(String tableName) {
-		return tables.size(tableName);
+		TablePool tablePool = this.tables.get(tableName);
+		return tablePool == null ? 0 : tablePool.idleCount.get();
 	}	
-	protected HTableInterface findOrCreateTable(String tableName) {
-		HTableInterface table = tables.get(tableName);
-		if (table == null) {
-			table = createHTable(tableName);
+	
+	/**
+	 * Returns the start keys of all regions of the specified table, in sorted order. The first region's start key is an empty byte array.
+	 * @param tableName the table name
+	 * @return the region start keys
+	 * @throws IOException in case of errors locating the regions of the table
+	 */
+	public byte[][] getRegionStartKeys(String tableName) throws IOException {
+		PooledHTable table = (PooledHTable)getTable(tableName);
+		try {
+			if (table.getWrappedTable() instanceof HTable) {
+				return ((HTable)table.getWrappedTable()).getStartKeys();
+			}
+		} finally {
+			table.close();
 		}
-		return table;
-	}
-	protected void returnTable(HTableInterface table) throws IOException {
-		String tableName = Bytes.toString(table.getTableName());
-		if (tables.size(tableName) >= maxSize) {
-			this.tables.remove(tableName, table);
-			this.tableFactory.releaseHTableInterface(table);
-			return;
+		// the table factory does not create HTable instances, use a new HTable to locate the regions
+		if (this.getAuthenticationProvider() != null) {
+			this.getAuthenticationProvider().authenticatePrincipal(this.config);
+		}		
+		HTable htable = new HTable(this.config, tableName);
+		try {
+			return htable.getStartKeys();
+		} finally {
+			htable.close();
 		}
-		tables.put(tableName, table);
 	}
+	
 	/**
 	 * Creates a new HTableInterface using the factory for the specified table name.
 	 * Authenticates the principal if an {@link AuthenticationProvider} has been specified
@@ -188,6 +223,147 @@ public class HTablePool implements Closeable {
 		return this.tableFactory.createHTableInterface(config,Bytes.toBytes(tableName));
 	}
 	
+	/**
+	 * Returns the pool for the specified table name, creating one if required
+	 * @param tableName the table name
+	 * @return the TablePool for the table name
+	 */
+	protected TablePool getTablePool(String tableName) {
+		TablePool tablePool = this.tables.get(tableName);
+		if (tablePool == null) {
+			tablePool = new TablePool(tableName);
+			TablePool existing = this.tables.putIfAbsent(tableName, tablePool);
+			if (existing != null) {
+				tablePool = existing;
+			}
+		}
+		return tablePool;
+	}
+	
+	/**
+	 * Returns the permits for tables in use for the specified table name, creating them if required
+	 * @param tableName the table name
+	 * @return the Semaphore holding the permits
+	 */
+	protected Semaphore getTablePermits(String tableName) {
+		Semaphore permits = this.tablePermits.get(tableName);
+		if (permits == null) {
+			permits = new Semaphore(this.maxTotal);
+			Semaphore existing = this.tablePermits.putIfAbsent(tableName, permits);
+			if (existing != null) {
+				permits = existing;
+			}
+		}
+		return permits;
+	}
+	
+	/**
+	 * Releases idle tables that have been idle for longer than {@link #getMaxIdleMillis()}, for all table names
+	 */
+	public void evictIdleTables() {
+		for (TablePool tablePool : this.tables.values()) {
+			tablePool.evictIdleTables();
+		}
+	}
+	
+	/**
+	 * Returns the names of tables that have been pooled
+	 * @return the table names
+	 */
+	public Collection<String> getTableNames() {
+		return this.tables.keySet();
+	}
+	
+	/**
+	 * Returns the number of tables in use, for the specified table name or for all tables if the name is null
+	 * @param tableName the table name, may be null
+	 * @return the number of borrowed tables
+	 */
+	public int getBorrowedCount(String tableName) {
+		int count = 0;
+		for (TablePool tablePool : getTablePools(tableName)) {
+			count += tablePool.borrowedCount.get();
+		}
+		return count;
+	}
+	
+	/**
+	 * Returns the number of idle tables, for the specified table name or for all tables if the name is null
+	 * @param tableName the table name, may be null
+	 * @return the number of idle tables
+	 */
+	public int getIdleCount(String tableName) {
+		int count = 0;
+		for (TablePool tablePool : getTablePools(tableName)) {
+			count += tablePool.idleCount.get();
+		}
+		return count;
+	}
+	
+	/**
+	 * Returns the number of tables created, for the specified table name or for all tables if the name is null
+	 * @param tableName the table name, may be null
+	 * @return the number of tables created
+	 */
+	public long getCreatedCount(String tableName) {
+		long count = 0;
+		for (TablePool tablePool : getTablePools(tableName)) {
+			count += tablePool.createdCount.get();
+		}
+		return count;
+	}
+	
+	/**
+	 * Returns the number of tables released, for the specified table name or for all tables if the name is null
+	 * @param tableName the table name, may be null
+	 * @return the number of tables released
+	 */
+	public long getDestroyedCount(String tableName) {
+		long count = 0;
+		for (TablePool tablePool : getTablePools(tableName)) {
+			count += tablePool.destroyedCount.get();
+		}
+		return count;
+	}
+	
+	/**
+	 * Returns the number of tables borrowed so far, for the specified table name or for all tables if the name is null
+	 * @param tableName the table name, may be null
+	 * @return the number of borrow calls
+	 */
+	public long getBorrowCount(String tableName) {
+		long count = 0;
+		for (TablePool tablePool : getTablePools(tableName)) {
+			count += tablePool.borrowCount.get();
+		}
+		return count;
+	}
+	
+	/**
+	 * Returns the total time in nanoseconds spent borrowing tables i.e. waiting for and creating tables, for the specified table name or 
+	 * for all tables if the name is null
+	 * @param tableName the table name, may be null
+	 * @return the total borrow time in nanoseconds
+	 */
+	public long getBorrowTimeNanos(String tableName) {
+		long time = 0;
+		for (TablePool tablePool : getTablePools(tableName)) {
+			time += tablePool.borrowTimeNanos.get();
+		}
+		return time;
+	}
+	
+	/**
+	 * Helper method to return the pools for the specified table name or all pools if the name is null
+	 */
+	private Collection<TablePool> getTablePools(String tableName) {
+		if (tableName == null) {
+			return this.tables.values();
+		}
+		TablePool tablePool = this.tables.get(tableName);
+		return tablePool == null ? Collections.<TablePool>emptyList() : Collections.singletonList(tablePool);
+	}
+	
 	/** Getter/Setter methods*/
 	public Integer getCallConnectionValidityCheckMinutes() {
 		return this.callConnectionValidityCheckMinutes;
@@ -198,10 +374,176 @@ public class HTablePool implements Closeable {
 	public AuthenticationProvider getAuthenticationProvider() {
 		return this.authenticationProvider;
 	}
+	public int getMaxTotal() {
+		return this.maxTotal;
+	}
+	/** Sets the max number of tables in use per table name. Applies to table names that are pooled subsequently*/
+	public void setMaxTotal(int maxTotal) {
+		this.maxTotal = maxTotal;
+	}
+	public long getBorrowTimeoutMillis() {
+		return this.borrowTimeoutMillis;
+	}
+	public void setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+		this.borrowTimeoutMillis = borrowTimeoutMillis;
+	}
+	public long getMaxIdleMillis() {
+		return this.maxIdleMillis;
+	}
+	/** Sets the max time a table may be idle in the pool. Idle tables are not evicted if the value is not positive*/
+	public void setMaxIdleMillis(long maxIdleMillis) {
+		this.maxIdleMillis = maxIdleMillis;
+	}
+	
+	/**
+	 * Pool of tables for a single table name. Idle tables are kept in a deque with the most recently returned table at the head. Tables in use 
+	 * are limited using a Semaphore only when max total is bounded. The Semaphore is shared with earlier, closed pools of the table name.
+	 */
+	class TablePool {
+		/** The table name*/
+		String tableName;
+		/** The idle tables*/
+		ConcurrentLinkedDeque<IdleTable> idleTables = new ConcurrentLinkedDeque<IdleTable>();
+		/** Permits for tables in use, null if unbounded. Shared across pools of the table name*/
+		Semaphore permits;
+		/** Flag to indicate this pool has been closed*/
+		volatile boolean closed;
+		/** Counts and borrow time*/
+		AtomicInteger idleCount = new AtomicInteger();
+		AtomicInteger borrowedCount = new AtomicInteger();
+		AtomicLong createdCount = new AtomicLong();
+		AtomicLong destroyedCount = new AtomicLong();
+		AtomicLong borrowCount = new AtomicLong();
+		AtomicLong borrowTimeNanos = new AtomicLong();
+		
+		TablePool(String tableName) {
+			this.tableName = tableName;
+			if (maxTotal < Integer.MAX_VALUE) {
+				this.permits = getTablePermits(tableName);
+			}
+		}
+		
+		/**
+		 * Borrows an idle table or creates one, waiting for a permit if max total tables are in use
+		 */
+		HTableInterface borrow() {
+			long start = System.nanoTime();
+			if (this.permits != null) {
+				try {
+					if (!this.permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+						throw new PersistenceException("Timed out waiting for a table from the pool for : " + this.tableName + " after : " + borrowTimeoutMillis + " ms");
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new PersistenceException("Interrupted waiting for a table from the pool for : " + this.tableName, e);
+				}
+			}
+			HTableInterface table = null;
+			try {
+				IdleTable idleTable = this.idleTables.pollFirst();
+				if (idleTable != null) {
+					this.idleCount.decrementAndGet();
+					table = idleTable.table;
+				} else {
+					table = createHTable(this.tableName);
+					this.createdCount.incrementAndGet();
+				}
+			} finally {
+				if (table == null && this.permits != null) {
+					this.permits.release();
+				}
+			}
+			this.borrowedCount.incrementAndGet();
+			this.borrowCount.incrementAndGet();
+			this.borrowTimeNanos.addAndGet(System.nanoTime() - start);
+			return table;
+		}
+		
+		/**
+		 * Returns a borrowed table to the idle tables, or releases it if max idle tables are already pooled or if this pool is closed
+		 */
+		void giveBack(HTableInterface table) throws IOException {
+			this.borrowedCount.decrementAndGet();
+			try {
+				if (!this.closed && this.idleCount.incrementAndGet() <= maxSize) {
+					IdleTable idleTable = new IdleTable(table);
+					this.idleTables.offerFirst(idleTable);
+					// a concurrent close() may have released the idle tables before the offer. Release the table if close() did not
+					if (this.closed && this.idleTables.removeFirstOccurrence(idleTable)) {
+						this.idleCount.decrementAndGet();
+						destroy(table);
+					}
+				} else {
+					if (!this.closed) {
+						this.idleCount.decrementAndGet();
+					}
+					destroy(table);
+				}
+			} finally {
+				if (this.permits != null) {
+					this.permits.release();
+				}
+			}
+			evictIdleTables();
+		}
+		
+		/**
+		 * Releases the least recently returned idle tables that have been idle for longer than max idle time
+		 */
+		void evictIdleTables() {
+			if (maxIdleMillis <= 0) {
+				return;
+			}
+			long evictBefore = System.currentTimeMillis() - maxIdleMillis;
+			IdleTable idleTable;
+			while ((idleTable = this.idleTables.peekLast()) != null && idleTable.idleSince < evictBefore) {
+				if (this.idleTables.removeLastOccurrence(idleTable)) {
+					this.idleCount.decrementAndGet();
+					try {
+						destroy(idleTable.table);
+					} catch (IOException e) {
+						LOGGER.info("Error releasing idle table for : " + this.tableName + " : " + e.getMessage());
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Releases all idle tables. Tables in use are released when returned
+		 */
+		void close() throws IOException {
+			this.closed = true;
+			IdleTable idleTable;
+			while ((idleTable = this.idleTables.pollFirst()) != null) {
+				this.idleCount.decrementAndGet();
+				destroy(idleTable.table);
+			}
+		}
+		
+		/**
+		 * Helper method to release a table
+		 */
+		private void destroy(HTableInterface table) throws IOException {
+			this.destroyedCount.incrementAndGet();
+			tableFactory.releaseHTableInterface(table);
+		}
+	}
+	
+	/**
+	 * An idle table and the time since when it is idle
+	 */
+	static class IdleTable {
+		HTableInterface table;
+		long idleSince;
+		IdleTable(HTableInterface table) {
+			this.table = table;
+			this.idleSince = System.currentTimeMillis();
+		}
+	}
 	
 	/**
 	 * Connection validator thread. Checks for connection validity periodically with period specified by the {@link HTablePool}. Closes broken
-	 * or otherwise invalid connections.
+	 * or otherwise invalid connections. Also evicts tables that have been idle for too long.
 	 */
 	class ConnectionValidator extends Thread {
 		/** The pool to validate connections for*/
@@ -218,22 +560,27 @@ public class HTablePool implements Closeable {
 				try {
 					Thread.sleep((long)(this.tablePool.getCallConnectionValidityCheckMinutes() * 60000));
 					long start = System.currentTimeMillis();
+					this.tablePool.evictIdleTables();
 					LOGGER.debug("Starting to validate connections for tablepool with size : " + this.tablePool.tables.keySet().size());
-					for (String tableName : this.tablePool.tables.keySet()) {
-						HTableInterface table = this.tablePool.tables.get(tableName); // pick up the first available table from the pool. Over time all connections will get picked up and validated
+					for (TablePool pool : this.tablePool.tables.values()) {
+						// pick up the least recently used idle table from the pool. Over time all connections will get picked up and validated
+						IdleTable idleTable = pool.idleTables.pollLast(); 
 						try {
 							// Validate the table/connection by calling a Get with row key as System.currentTimeMillis(). This call will exercise the 
 							// network components of the table's connection
-							if (table != null) { // we can get null if all connections have already been borrowed i.e. are being used
-								table.exists(new Get(Bytes.toBytes( System.currentTimeMillis())));
-								this.tablePool.returnTable(table); // return the table back to the pool
+							if (idleTable != null) { // we can get null if all connections have already been borrowed i.e. are being used
+								idleTable.table.exists(new Get(Bytes.toBytes( System.currentTimeMillis())));
+								// return the table back to the pool, retaining its idle time
+								pool.idleTables.offerLast(idleTable); 
 							}
 						} catch (Exception ex) {
-							LOGGER.info("Error validating connection for : " + tableName + " : " + ex.getMessage() + " . Invalidating all connections for this table.");
-							this.tablePool.closeTablePool(tableName);
-							LOGGER.info("Recreating a single connection for : " + tableName);
-							table = this.tablePool.createHTable(tableName);
-							table.close(); // calling close will simply return the valid connection to the pool
+							LOGGER.info("Error validating connection for : " + pool.tableName + " : " + ex.getMessage() + " . Invalidating all connections for this table.");
+							pool.idleCount.decrementAndGet();
+							pool.destroyedCount.incrementAndGet();
+							tableFactory.releaseHTableInterface(idleTable.table);
+							this.tablePool.closeTablePool(pool.tableName);
+							LOGGER.info("Recreating a single connection for : " + pool.tableName);
+							this.tablePool.getTable(pool.tableName).close(); // calling close will simply return the valid connection to the pool
 						}
 					}
 					LOGGER.debug("Completed validating connections. Connections size : " + tables.keySet().size() + 
@@ -250,9 +597,12 @@ public class HTablePool implements Closeable {
 	class PooledHTable implements HTableInterface {
 
 		private HTableInterface table;
+		private TablePool tablePool;
+		private AtomicBoolean returned = new AtomicBoolean();
 
-		public PooledHTable(HTableInterface table) {
+		public PooledHTable(HTableInterface table, TablePool tablePool) {
 			this.table = table;
+			this.tablePool = tablePool;
 		}
 		public byte[] getTableName() {
 			return table.getTableName();
@@ -326,7 +676,10 @@ public class HTablePool implements Closeable {
 			table.flushCommits();
 		}
 		public void close() throws IOException {
-			returnTable(table);
+			// return the table only once, to keep the pool counts correct
+			if (this.returned.compareAndSet(false, true)) {
+				this.tablePool.giveBack(table);
+			}
 		}
 		public RowLock lockRow(byte[] row) throws IOException {
 			return table.lockRow(row);
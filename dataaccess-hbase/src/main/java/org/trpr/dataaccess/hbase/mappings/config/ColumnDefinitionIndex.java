@@ -0,0 +1,185 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase.mappings.config;
+
+import java.util.List;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.trpr.dataaccess.hbase.model.config.ColumnDefinition;
+
+/**
+ * The <code>ColumnDefinitionIndex</code> finds the {@link ColumnDefinition} for a HBase cell given its column family and column qualifier bytes. Column
+ * families are looked up in a hash table and column qualifiers are matched against a prefix trie built from the fixed qualifier part (i.e.
+ * {@link ColumnDefinition#getColumnQualifier()}) of all column definitions of the family. A qualifier read from HBase matches a column definition if the
+ * fixed qualifier part is a prefix of it, in which case the remaining bytes are the value of the column qualifier attribute, if any. When more than one
+ * column definition matches, the one declared first in the mapping is returned.
+ *
+ * Lookups work on offsets in the backing array of a cell and do not create any objects.
+ *
+ * @author Regunath B
+ */
+public class ColumnDefinitionIndex {
+
+	/** The number of hash buckets for column families. A power of two, mapping definitions typically have very few column families*/
+	private static final int FAMILY_BUCKETS = 16;
+
+	/** Trie root nodes of the column families, hashed on the family bytes*/
+	private FamilyNode[] families = new FamilyNode[FAMILY_BUCKETS];
+
+	/**
+	 * Constructor for this class. Builds the index for the specified column definitions
+	 * @param columnDefinitions the column definitions in the order of declaration
+	 */
+	public ColumnDefinitionIndex(List<ColumnDefinition> columnDefinitions) {
+		for (int i = 0; i < columnDefinitions.size(); i++) {
+			ColumnDefinition columnDefinition = columnDefinitions.get(i);
+			byte[] family = Bytes.toBytes(columnDefinition.getColumnFamily());
+			FamilyNode familyNode = findFamily(family, 0, family.length);
+			if (familyNode == null) {
+				familyNode = new FamilyNode(family);
+				int bucket = hash(family, 0, family.length) & (FAMILY_BUCKETS - 1);
+				familyNode.next = this.families[bucket];
+				this.families[bucket] = familyNode;
+			}
+			byte[] qualifierPrefix = columnDefinition.getColumnQualifier() == null ? new byte[0] : Bytes.toBytes(columnDefinition.getColumnQualifier());
+			Node node = familyNode.root;
+			for (byte b : qualifierPrefix) {
+				node = node.addChild(b);
+			}
+			if (node.columnDefinition == null) {
+				// retain the first declared definition for the same prefix
+				node.columnDefinition = columnDefinition;
+				node.declarationIndex = i;
+			}
+		}
+	}
+
+	/**
+	 * Returns the ColumnDefinition for the cell with the specified column family and qualifier
+	 * @param buffer the array containing the column family and qualifier bytes, typically the backing array of a KeyValue
+	 * @param familyOffset the offset of the column family in the buffer
+	 * @param familyLength the length of the column family
+	 * @param qualifierOffset the offset of the column qualifier in the buffer
+	 * @param qualifierLength the length of the column qualifier
+	 * @return the matching ColumnDefinition or null if none matches
+	 */
+	public ColumnDefinition find(byte[] buffer, int familyOffset, int familyLength, int qualifierOffset, int qualifierLength) {
+		FamilyNode familyNode = findFamily(buffer, familyOffset, familyLength);
+		if (familyNode == null) {
+			return null;
+		}
+		Node node = familyNode.root;
+		ColumnDefinition match = node.columnDefinition;
+		int matchIndex = node.declarationIndex;
+		for (int i = 0; i < qualifierLength; i++) {
+			node = node.getChild(buffer[qualifierOffset + i]);
+			if (node == null) {
+				break;
+			}
+			if (node.columnDefinition != null && (match == null || node.declarationIndex < matchIndex)) {
+				match = node.columnDefinition;
+				matchIndex = node.declarationIndex;
+			}
+		}
+		return match;
+	}
+
+	/**
+	 * Helper method to find the trie root node for the specified column family bytes
+	 */
+	private FamilyNode findFamily(byte[] buffer, int offset, int length) {
+		for (FamilyNode familyNode = this.families[hash(buffer, offset, length) & (FAMILY_BUCKETS - 1)]; familyNode != null; familyNode = familyNode.next) {
+			if (Bytes.equals(familyNode.family, 0, familyNode.family.length, buffer, offset, length)) {
+				return familyNode;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Helper method to compute the hash of the specified bytes
+	 */
+	private static int hash(byte[] buffer, int offset, int length) {
+		int hash = 1;
+		for (int i = offset; i < offset + length; i++) {
+			hash = 31 * hash + buffer[i];
+		}
+		return hash;
+	}
+
+	/**
+	 * Trie root for a column family. Family nodes with the same hash are chained
+	 */
+	static class FamilyNode {
+		byte[] family;
+		Node root = new Node();
+		FamilyNode next;
+		FamilyNode(byte[] family) {
+			this.family = family;
+		}
+	}
+
+	/**
+	 * Trie node. Child nodes are kept sorted by their byte for binary search
+	 */
+	static class Node {
+		byte[] keys = new byte[0];
+		Node[] children = new Node[0];
+		ColumnDefinition columnDefinition;
+		int declarationIndex;
+
+		Node getChild(byte key) {
+			int index = indexOf(key);
+			return index >= 0 ? this.children[index] : null;
+		}
+
+		Node addChild(byte key) {
+			int index = indexOf(key);
+			if (index >= 0) {
+				return this.children[index];
+			}
+			int insertAt = -(index + 1);
+			byte[] newKeys = new byte[this.keys.length + 1];
+			Node[] newChildren = new Node[this.children.length + 1];
+			System.arraycopy(this.keys, 0, newKeys, 0, insertAt);
+			System.arraycopy(this.children, 0, newChildren, 0, insertAt);
+			System.arraycopy(this.keys, insertAt, newKeys, insertAt + 1, this.keys.length - insertAt);
+			System.arraycopy(this.children, insertAt, newChildren, insertAt + 1, this.children.length - insertAt);
+			newKeys[insertAt] = key;
+			newChildren[insertAt] = new Node();
+			this.keys = newKeys;
+			this.children = newChildren;
+			return newChildren[insertAt];
+		}
+
+		private int indexOf(byte key) {
+			int low = 0;
+			int high = this.keys.length - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				if (this.keys[mid] < key) {
+					low = mid + 1;
+				} else if (this.keys[mid] > key) {
+					high = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -(low + 1);
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase.mappings.config;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.trpr.dataaccess.hbase.model.config.ColumnDefinition;
+import org.trpr.dataaccess.hbase.model.config.HbaseMapping;
+import org.trpr.dataaccess.hbase.model.config.RowKeyDefinition;
+import org.trpr.dataaccess.hbase.model.config.RowKeyMember;
+import org.trpr.platform.runtime.spi.config.ConfigurationException;
+
+/**
+ * The <code>HBaseEntityAccessor</code> is the accessor plan for a single {@link HbaseMapping}. It is compiled once by the {@link HBaseMappingContainer}
+ * when the mapping is loaded and holds {@link PropertyAccessor} instances for the row key attribute (or composite row key members) and for the
+ * value and column qualifier attributes of each {@link ColumnDefinition}. It also holds the column family and fixed column qualifier bytes of each
+ * ColumnDefinition and a {@link ColumnDefinitionIndex} for finding the ColumnDefinition of cells read from HBase.
+ *
+ * @author Regunath B
+ */
+public class HBaseEntityAccessor {
+
+	/** The HbaseMapping that this accessor plan was compiled from */
+	private HbaseMapping mapping;
+
+	/** Accessor for single attribute row keys. Null if the row key is composite */
+	private PropertyAccessor rowKeyAccessor;
+
+	/** Accessors for composite row key members, in the order of declaration. Null if the row key is a single attribute */
+	private PropertyAccessor[] rowKeyMemberAccessors;
+
+	/** Accessors for column value and column qualifier attributes, keyed by ColumnDefinition instance */
+	private Map<ColumnDefinition, PropertyAccessor> valueAccessors = new IdentityHashMap<ColumnDefinition, PropertyAccessor>();
+	private Map<ColumnDefinition, PropertyAccessor> qualifierAccessors = new IdentityHashMap<ColumnDefinition, PropertyAccessor>();
+
+	/** Column family and fixed column qualifier bytes, keyed by ColumnDefinition instance. Qualifier bytes are empty if the column does not define one*/
+	private Map<ColumnDefinition, byte[]> familyBytes = new IdentityHashMap<ColumnDefinition, byte[]>();
+	private Map<ColumnDefinition, byte[]> qualifierBytes = new IdentityHashMap<ColumnDefinition, byte[]>();
+
+	/** Index of column definitions by column family and qualifier bytes*/
+	private ColumnDefinitionIndex columnDefinitionIndex;
+
+	/**
+	 * Constructor for this class. Compiles the accessor plan for the specified mapping
+	 * @param mapping the HbaseMapping to compile
+	 * @param prototype an instance of the mapped entity type, used to resolve property descriptors
+	 * @throws ConfigurationException in case any of the mapped attributes cannot be resolved
+	 */
+	public HBaseEntityAccessor(HbaseMapping mapping, Object prototype) throws ConfigurationException {
+		this.mapping = mapping;
+		RowKeyDefinition rowKeyDefinition = mapping.getHbaseClass().getRowkeyDefinition();
+		if (rowKeyDefinition.getCompositeRowKey() != null) {
+			List<RowKeyMember> rowKeyMembers = rowKeyDefinition.getCompositeRowKey().getRowKeyMember();
+			this.rowKeyMemberAccessors = new PropertyAccessor[rowKeyMembers.size()];
+			for (int i = 0; i < rowKeyMembers.size(); i++) {
+				this.rowKeyMemberAccessors[i] = new PropertyAccessor(prototype, rowKeyMembers.get(i).getValueAttribute());
+			}
+		} else {
+			this.rowKeyAccessor = new PropertyAccessor(prototype, rowKeyDefinition.getValueAttribute());
+		}
+		for (ColumnDefinition columnDefinition : mapping.getHbaseClass().getColumnDefinition()) {
+			this.valueAccessors.put(columnDefinition, new PropertyAccessor(prototype, columnDefinition.getValueAttribute()));
+			if (StringUtils.isNotBlank(columnDefinition.getColumnQualifierAttribute())) {
+				this.qualifierAccessors.put(columnDefinition, new PropertyAccessor(prototype, columnDefinition.getColumnQualifierAttribute()));
+			}
+			this.familyBytes.put(columnDefinition, Bytes.toBytes(columnDefinition.getColumnFamily()));
+			this.qualifierBytes.put(columnDefinition, StringUtils.isNotBlank(columnDefinition.getColumnQualifier()) ? Bytes.toBytes(columnDefinition.getColumnQualifier()) : new byte[0]);
+		}
+		this.columnDefinitionIndex = new ColumnDefinitionIndex(mapping.getHbaseClass().getColumnDefinition());
+	}
+
+	/**
+	 * Returns the accessor for the value attribute of the specified column
+	 * @param columnDefinition the ColumnDefinition from the mapping of this accessor plan
+	 * @return the PropertyAccessor for the column value attribute
+	 */
+	public PropertyAccessor getValueAccessor(ColumnDefinition columnDefinition) {
+		return this.valueAccessors.get(columnDefinition);
+	}
+
+	/**
+	 * Returns the accessor for the column qualifier attribute of the specified column
+	 * @param columnDefinition the ColumnDefinition from the mapping of this accessor plan
+	 * @return the PropertyAccessor for the column qualifier attribute or null if the column does not define one
+	 */
+	public PropertyAccessor getQualifierAccessor(ColumnDefinition columnDefinition) {
+		return this.qualifierAccessors.get(columnDefinition);
+	}
+
+	/**
+	 * Returns the column family bytes of the specified column
+	 * @param columnDefinition the ColumnDefinition from the mapping of this accessor plan
+	 * @return the column family bytes
+	 */
+	public byte[] getFamilyBytes(ColumnDefinition columnDefinition) {
+		return this.familyBytes.get(columnDefinition);
+	}
+
+	/**
+	 * Returns the fixed column qualifier bytes of the specified column. Callers must not modify the returned array
+	 * @param columnDefinition the ColumnDefinition from the mapping of this accessor plan
+	 * @return the column qualifier bytes, empty if the column does not define a fixed qualifier
+	 */
+	public byte[] getQualifierBytes(ColumnDefinition columnDefinition) {
+		return this.qualifierBytes.get(columnDefinition);
+	}
+
+	/**
+	 * Returns true if the row key of the mapped entity is composed from multiple attributes
+	 * @return true for composite row keys, false otherwise
+	 */
+	public boolean isCompositeRowKey() {
+		return this.rowKeyMemberAccessors != null;
+	}
+
+	/** Getter methods */
+	public HbaseMapping getMapping() {
+		return this.mapping;
+	}
+	public PropertyAccessor getRowKeyAccessor() {
+		return this.rowKeyAccessor;
+	}
+	public PropertyAccessor[] getRowKeyMemberAccessors() {
+		return this.rowKeyMemberAccessors;
+	}
+	public ColumnDefinitionIndex getColumnDefinitionIndex() {
+		return this.columnDefinitionIndex;
+	}
+
+}
@@ -57,12 +57,18 @@ public class HBaseMappingContainer {
 	 * Map holds the hbase mappings information
 	 */
 	private Map<String, HbaseMapping> configs;
+
+	/**
+	 * Map holds the accessor plans compiled from the hbase mappings, keyed by the same class names
+	 */
+	private Map<String, HBaseEntityAccessor> accessors;
 	
 	/**
 	 * No argument constructor
 	 */
 	public HBaseMappingContainer() {
 		configs = new HashMap<String, HbaseMapping>();
+		accessors = new HashMap<String, HBaseEntityAccessor>();
 	}
 
 	/**
@@ -76,9 +82,7 @@ public class HBaseMappingContainer {
 			String xml;
 			try {
 				xml = readFileToString(mappingFile);
-				HbaseMapping mapping = new XMLTranscoderImpl().unmarshal(xml, HbaseMapping.class);
-				validate(mappingFile, mapping);
-				this.configs.put(mapping.getHbaseClass().getName(), mapping);
+				addMapping(mappingFile, new XMLTranscoderImpl().unmarshal(xml, HbaseMapping.class));
 			} catch (Exception e) {
 				LOGGER.error("Error initializing HBase configurations", e);
 				throw new ConfigurationException("Error initializing HBase configurations", e);
@@ -86,6 +90,31 @@ public class HBaseMappingContainer {
 		}
 	}
 
+	/**
+	 * Validates and adds the specified mapping to this container, compiling the accessor plan for the mapped class
+	 * 
+	 * @param mappingName
+	 *            name of the mapping source, for e.g. the mapping file name, used in error messages
+	 * @param mapping
+	 *            the HbaseMapping to add
+	 * @throws ConfigurationException
+	 *             in case the mapping is not valid for the mapped class
+	 */
+	public void addMapping(String mappingName, HbaseMapping mapping) throws ConfigurationException {
+		validate(mappingName, mapping);
+		try {
+			// compile the accessor plan once so that persistence calls do not introspect the entity class
+			this.accessors.put(mapping.getHbaseClass().getName(), new HBaseEntityAccessor(mapping, Class.forName(mapping.getHbaseClass().getName()).newInstance()));
+		} catch (ClassNotFoundException e) {
+			throw new ConfigurationException("Class not found : " + mapping.getHbaseClass().getName(), e);
+		} catch (InstantiationException e) {
+			throw new ConfigurationException("Class not instantiable : " + mapping.getHbaseClass().getName(), e);
+		} catch (IllegalAccessException e) {
+			throw new ConfigurationException("Class constructor not accessible : " + mapping.getHbaseClass().getName(), e);
+		}
+		this.configs.put(mapping.getHbaseClass().getName(), mapping);
+	}
+
 	/*
 	 * loads a single configuration file as a single XML string
 	 */
@@ -191,6 +220,17 @@ public class HBaseMappingContainer {
 		return this.configs.get(className);
 	}
 	
+	/**
+	 * Returns the accessor plan compiled for the configuration of a HBase table
+	 * 
+	 * @param className
+	 *            used as the key to fetch the accessor plan
+	 * @return HBaseEntityAccessor for reading and writing the mapped attributes of the class
+	 */
+	public HBaseEntityAccessor getAccessorForClass(String className) {
+		return this.accessors.get(className);
+	}
+	
 	/**
 	 * Returns an array of all configured HbaseMapping instances that were loaded
 	 * @return array of HbaseMapping instances
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase.mappings.config;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.trpr.platform.runtime.spi.config.ConfigurationException;
+
+/**
+ * The <code>PropertyAccessor</code> reads and writes a single named attribute of an entity. Simple Java Bean properties are resolved once into
+ * {@link MethodHandle} instances for the getter and setter methods, thereby avoiding the per-call introspection done by {@link PropertyUtils}.
+ * Nested, indexed and mapped property expressions (i.e. names containing '.', '[' or '(') continue to be resolved using {@link PropertyUtils}.
+ *
+ * @author Regunath B
+ */
+public class PropertyAccessor {
+
+	/** Method types to which the getter and setter handles are adapted, so that invocation does not depend on the declared property type */
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	/** The property name */
+	private String name;
+
+	/** The declared type of the property */
+	private Class<?> propertyType;
+
+	/** The getter and setter handles. Null for nested properties or when the corresponding method is not defined */
+	private MethodHandle getter;
+	private MethodHandle setter;
+
+	/** Flag to indicate that the property is a nested property expression handled by PropertyUtils */
+	private boolean nested;
+
+	/**
+	 * Constructor for this class. Resolves the named property on the specified prototype entity instance.
+	 * @param prototype an instance of the entity type, used to resolve the property descriptor
+	 * @param name the property name
+	 * @throws ConfigurationException in case the property is not defined or is not accessible
+	 */
+	public PropertyAccessor(Object prototype, String name) throws ConfigurationException {
+		this.name = name;
+		PropertyDescriptor descriptor = null;
+		try {
+			descriptor = PropertyUtils.getPropertyDescriptor(prototype, name);
+		} catch (Exception e) {
+			throw new ConfigurationException("Error resolving attribute " + name + " in class: " + prototype.getClass().getName(), e);
+		}
+		if (descriptor == null) {
+			throw new ConfigurationException("Attribute " + name + " not found in class: " + prototype.getClass().getName());
+		}
+		this.propertyType = descriptor.getPropertyType();
+		this.nested = name.indexOf('.') >= 0 || name.indexOf('[') >= 0 || name.indexOf('(') >= 0;
+		if (!this.nested) {
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			try {
+				if (descriptor.getReadMethod() != null) {
+					this.getter = lookup.unreflect(descriptor.getReadMethod()).asType(GETTER_TYPE);
+				}
+				if (descriptor.getWriteMethod() != null) {
+					this.setter = lookup.unreflect(descriptor.getWriteMethod()).asType(SETTER_TYPE);
+				}
+			} catch (IllegalAccessException e) {
+				throw new ConfigurationException("Attribute " + name + " not accessible in class: " + prototype.getClass().getName(), e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the value of this property on the specified entity
+	 * @param entity the entity to read the property from
+	 * @return the property value
+	 * @throws Exception in case of errors invoking the getter
+	 */
+	public Object get(Object entity) throws Exception {
+		if (this.nested) {
+			return PropertyUtils.getProperty(entity, this.name);
+		}
+		if (this.getter == null) {
+			throw new NoSuchMethodException("Property '" + this.name + "' has no getter method in class " + entity.getClass().getName());
+		}
+		try {
+			return (Object)this.getter.invokeExact(entity);
+		} catch (Exception | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new RuntimeException("Error reading property : " + this.name, t);
+		}
+	}
+
+	/**
+	 * Sets the specified value for this property on the specified entity
+	 * @param entity the entity to set the property on
+	 * @param value the property value
+	 * @throws Exception in case of errors invoking the setter
+	 */
+	public void set(Object entity, Object value) throws Exception {
+		if (this.nested) {
+			PropertyUtils.setProperty(entity, this.name, value);
+			return;
+		}
+		if (this.setter == null) {
+			throw new NoSuchMethodException("Property '" + this.name + "' has no setter method in class " + entity.getClass().getName());
+		}
+		try {
+			this.setter.invokeExact(entity, value);
+		} catch (Exception | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new RuntimeException("Error writing property : " + this.name, t);
+		}
+	}
+
+	/** Getter methods */
+	public String getName() {
+		return this.name;
+	}
+	public Class<?> getPropertyType() {
+		return this.propertyType;
+	}
+
+}
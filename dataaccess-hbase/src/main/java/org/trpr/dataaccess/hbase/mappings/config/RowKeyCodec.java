@@ -0,0 +1,349 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase.mappings.config;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.trpr.dataaccess.hbase.model.config.RowKeyMember;
+import org.trpr.dataaccess.hbase.serializer.DateSerializer;
+import org.trpr.dataaccess.hbase.serializer.IntegerSerializer;
+import org.trpr.dataaccess.hbase.serializer.LongSerializer;
+import org.trpr.dataaccess.hbase.serializer.SerializerRegistry;
+import org.trpr.dataaccess.hbase.serializer.StringSerializer;
+import org.trpr.platform.core.spi.persistence.Serializer;
+import org.trpr.platform.runtime.spi.config.ConfigurationException;
+
+/**
+ * The <code>RowKeyCodec</code> encodes and decodes composite row keys defined by a list of {@link RowKeyMember} instances. Member offsets are computed
+ * once from {@link RowKeyMember#getValueLength()}. Row keys are encoded into a single array sized for all members, and are decoded by reading members
+ * at their offsets in the row key, without copying member bytes where the member type permits.
+ *
+ * Each member is encoded as per its encoding attribute in the mapping:
+ * <pre><ul>
+ * <li>{@link #ENCODING_DEFAULT} : bytes produced by the {@link Serializer} registered for the member type. This is the encoding used by earlier versions
+ * and is not order preserving for negative numbers</li>
+ * <li>{@link #ENCODING_SORTABLE} : order preserving encoding i.e. byte-wise comparison of encoded keys matches the natural order of member values.
+ * java.lang.Integer, java.lang.Long and java.util.Date values are written big-endian with the sign bit flipped. java.lang.String values are written
+ * as UTF-8 bytes padded with zero bytes to the member length or, if the member length is 0, terminated with a zero byte. byte[] values are padded
+ * with zero bytes to the member length. Sortable string values must therefore not contain the zero character, as it would be decoded as the end of
+ * the value. Sortable member values must not be null, as there is no encoding for null that is distinct from the encoded values. Both are rejected
+ * when encoding</li>
+ * </ul></pre>
+ *
+ * @author Regunath B
+ */
+public class RowKeyCodec {
+
+	/** The supported member encodings*/
+	public static final String ENCODING_DEFAULT = "default";
+	public static final String ENCODING_SORTABLE = "sortable";
+
+	/** The terminator byte for variable length sortable strings*/
+	private static final byte TERMINATOR = 0;
+
+	/** Member value types that have encodings specific to this codec*/
+	private static final int TYPE_OTHER = 0;
+	private static final int TYPE_INTEGER = 1;
+	private static final int TYPE_LONG = 2;
+	private static final int TYPE_DATE = 3;
+	private static final int TYPE_STRING = 4;
+	private static final int TYPE_BYTES = 5;
+
+	/** The members of the row key, in the order of declaration*/
+	private Member[] members;
+
+	/** The encoded length of the row key if all members are of fixed length, -1 otherwise*/
+	private int fixedLength;
+
+	/**
+	 * Constructor for this class
+	 * @param rowKeyMembers the composite row key members
+	 * @param memberAccessors the accessors for the member attributes, in the same order as the members
+	 * @param serializers the SerializerRegistry whose serializers are used for members with default encoding
+	 * @throws ConfigurationException in case a member encoding is not supported for the member type
+	 */
+	public RowKeyCodec(List<RowKeyMember> rowKeyMembers, PropertyAccessor[] memberAccessors, SerializerRegistry serializers) throws ConfigurationException {
+		this.members = new Member[rowKeyMembers.size()];
+		int offset = 0;
+		for (int i = 0; i < this.members.length; i++) {
+			Member member = new Member(rowKeyMembers.get(i), memberAccessors[i], serializers);
+			member.offset = offset;
+			// offsets of members following a variable length member are known only when decoding
+			offset = (offset < 0 || member.length < 0) ? -1 : offset + member.length;
+			this.members[i] = member;
+		}
+		this.fixedLength = offset;
+	}
+
+	/**
+	 * Encodes the row key from the member attribute values of the specified entity
+	 * @param entity the entity to read member attribute values from
+	 * @return the encoded row key
+	 * @throws Exception in case of errors reading attribute values or if a value cannot be encoded, for e.g. a null value of a sortable member or a
+	 * sortable string value containing the zero character
+	 */
+	public byte[] encode(Object entity) throws Exception {
+		Object[] values = new Object[this.members.length];
+		byte[][] serializedValues = new byte[this.members.length][];
+		int length = 0;
+		for (int i = 0; i < this.members.length; i++) {
+			Member member = this.members[i];
+			values[i] = member.accessor.get(entity);
+			if (member.sortable) {
+				if (values[i] == null) {
+					throw new ConfigurationException("Value of row key member : " + member.accessor.getName() + " with sortable encoding may not be null");
+				}
+				if (member.type == TYPE_STRING) {
+					serializedValues[i] = Bytes.toBytes((String)values[i]);
+					for (byte b : serializedValues[i]) {
+						if (b == TERMINATOR) {
+							throw new ConfigurationException("Value of row key member : " + member.accessor.getName() + " with sortable encoding may not contain the zero character");
+						}
+					}
+				}
+				length += member.length >= 0 ? member.length : serializedValues[i].length + 1;
+			} else {
+				serializedValues[i] = serialize(member, values[i]);
+				length += serializedValues[i].length;
+			}
+		}
+		byte[] rowKey = new byte[length];
+		int offset = 0;
+		for (int i = 0; i < this.members.length; i++) {
+			Member member = this.members[i];
+			if (member.sortable) {
+				offset = encodeSortable(member, values[i], serializedValues[i], rowKey, offset);
+			} else {
+				System.arraycopy(serializedValues[i], 0, rowKey, offset, serializedValues[i].length);
+				offset += serializedValues[i].length;
+			}
+		}
+		return rowKey;
+	}
+
+	/**
+	 * Decodes the specified row key and sets the member attribute values on the specified entity
+	 * @param rowKey the encoded row key
+	 * @param entity the entity to set member attribute values on
+	 * @throws Exception in case of errors decoding values or setting attribute values
+	 */
+	public void decode(byte[] rowKey, Object entity) throws Exception {
+		int offset = 0;
+		for (Member member : this.members) {
+			if (member.offset >= 0) {
+				offset = member.offset;
+			}
+			int length = member.length;
+			int encodedLength = length;
+			if (length < 0) {
+				// variable length sortable string, look for the terminator
+				int end = offset;
+				while (end < rowKey.length && rowKey[end] != TERMINATOR) {
+					end++;
+				}
+				length = end - offset;
+				encodedLength = Math.min(length + 1, rowKey.length - offset);
+			}
+			member.accessor.set(entity, member.sortable ? decodeSortable(member, rowKey, offset, length) : deserialize(member, rowKey, offset, length));
+			offset += encodedLength;
+		}
+	}
+
+	/**
+	 * Returns the encoded length of row keys if all members are of fixed length
+	 * @return the encoded length, -1 if any member is of variable length
+	 */
+	public int getFixedLength() {
+		return this.fixedLength;
+	}
+
+	/**
+	 * Helper method to serialize a member value using the default encoding
+	 */
+	private byte[] serialize(Member member, Object value) throws ConfigurationException {
+		if (value == null) {
+			return new byte[0];
+		}
+		if (value instanceof byte[]) {
+			return (byte[]) value;
+		}
+		Serializer serializer = value.getClass() == member.accessor.getPropertyType() ? member.serializer : member.serializers.getSerializer(value.getClass());
+		if (serializer == null) {
+			throw new ConfigurationException("Don't know how to serialize " + value.getClass().getName());
+		}
+		return serializer.toBytes(value);
+	}
+
+	/**
+	 * Helper method to deserialize a member value encoded using the default encoding. Values of types handled by the built-in serializers are read
+	 * directly from the row key, other values are deserialized from a copy of the member bytes.
+	 */
+	private Object deserialize(Member member, byte[] rowKey, int offset, int length) throws ConfigurationException {
+		if (member.type == TYPE_BYTES) {
+			return Arrays.copyOfRange(rowKey, offset, offset + length);
+		}
+		if (member.serializer != null && member.serializer.getClass() == member.serializerType) {
+			switch (member.type) {
+			case TYPE_INTEGER:
+				if (length == Bytes.SIZEOF_INT) {
+					return Integer.valueOf(Bytes.toInt(rowKey, offset));
+				}
+				break;
+			case TYPE_LONG:
+				if (length == Bytes.SIZEOF_LONG) {
+					return Long.valueOf(Bytes.toLong(rowKey, offset));
+				}
+				break;
+			case TYPE_DATE:
+				if (length == Bytes.SIZEOF_LONG) {
+					return new Date(Bytes.toLong(rowKey, offset));
+				}
+				break;
+			case TYPE_STRING:
+				return Bytes.toString(rowKey, offset, length);
+			}
+		}
+		if (member.serializer == null) {
+			throw new ConfigurationException("Don't know how to serialize " + member.accessor.getPropertyType().getName());
+		}
+		return member.serializer.toObject(Arrays.copyOfRange(rowKey, offset, offset + length));
+	}
+
+	/**
+	 * Helper method to write a member value using the sortable encoding into the specified row key at the specified offset
+	 * @return the offset following the encoded value
+	 */
+	private int encodeSortable(Member member, Object value, byte[] serializedValue, byte[] rowKey, int offset) throws ConfigurationException {
+		switch (member.type) {
+		case TYPE_INTEGER:
+			Bytes.putInt(rowKey, offset, ((Integer)value).intValue() ^ Integer.MIN_VALUE);
+			return offset + member.length;
+		case TYPE_LONG:
+			Bytes.putLong(rowKey, offset, ((Long)value).longValue() ^ Long.MIN_VALUE);
+			return offset + member.length;
+		case TYPE_DATE:
+			Bytes.putLong(rowKey, offset, ((Date)value).getTime() ^ Long.MIN_VALUE);
+			return offset + member.length;
+		default:
+			// strings and byte arrays, remaining bytes of the pre-sized array are zero i.e. the padding or terminator
+			byte[] bytes = member.type == TYPE_STRING ? serializedValue : (byte[])value;
+			if (member.length >= 0 && bytes.length > member.length) {
+				throw new ConfigurationException("Value of row key member : " + member.accessor.getName() + " is longer than the member length : " + member.length);
+			}
+			System.arraycopy(bytes, 0, rowKey, offset, bytes.length);
+			return offset + (member.length >= 0 ? member.length : bytes.length + 1);
+		}
+	}
+
+	/**
+	 * Helper method to read a member value encoded using the sortable encoding
+	 */
+	private Object decodeSortable(Member member, byte[] rowKey, int offset, int length) {
+		switch (member.type) {
+		case TYPE_INTEGER:
+			return Integer.valueOf(Bytes.toInt(rowKey, offset) ^ Integer.MIN_VALUE);
+		case TYPE_LONG:
+			return Long.valueOf(Bytes.toLong(rowKey, offset) ^ Long.MIN_VALUE);
+		case TYPE_DATE:
+			return new Date(Bytes.toLong(rowKey, offset) ^ Long.MIN_VALUE);
+		case TYPE_STRING:
+			return Bytes.toString(rowKey, offset, unpaddedLength(rowKey, offset, length));
+		default:
+			return Arrays.copyOfRange(rowKey, offset, offset + unpaddedLength(rowKey, offset, length));
+		}
+	}
+
+	/**
+	 * Helper method to return the length of the value at the specified offset, excluding trailing zero byte padding
+	 */
+	private int unpaddedLength(byte[] rowKey, int offset, int length) {
+		while (length > 0 && rowKey[offset + length - 1] == TERMINATOR) {
+			length--;
+		}
+		return length;
+	}
+
+	/**
+	 * Compiled definition of a single row key member
+	 */
+	static class Member {
+		/** The accessor for the member attribute*/
+		PropertyAccessor accessor;
+		/** The member type, one of the TYPE_XXX constants*/
+		int type;
+		/** Flag to indicate the member uses the sortable encoding*/
+		boolean sortable;
+		/** The encoded length of the member, -1 for variable length*/
+		int length;
+		/** The offset of the member in the row key, -1 if it follows a variable length member*/
+		int offset;
+		/** The Serializer for the member type, if any, and the built-in Serializer type whose encoding is read directly from the row key*/
+		Serializer serializer;
+		Class<?> serializerType;
+		/** The registry of all Serializer instances, for values of sub-types of the member type*/
+		SerializerRegistry serializers;
+
+		Member(RowKeyMember rowKeyMember, PropertyAccessor accessor, SerializerRegistry serializers) throws ConfigurationException {
+			this.accessor = accessor;
+			this.serializers = serializers;
+			this.length = rowKeyMember.getValueLength();
+			String encoding = rowKeyMember.getEncoding() == null ? ENCODING_DEFAULT : rowKeyMember.getEncoding();
+			if (!ENCODING_DEFAULT.equals(encoding) && !ENCODING_SORTABLE.equals(encoding)) {
+				throw new ConfigurationException("Unsupported encoding : " + encoding + " for row key member : " + accessor.getName());
+			}
+			this.sortable = ENCODING_SORTABLE.equals(encoding);
+			Class<?> propertyType = accessor.getPropertyType();
+			this.serializer = serializers.getSerializer(propertyType);
+			if (propertyType == Integer.class) {
+				this.type = TYPE_INTEGER;
+				this.serializerType = IntegerSerializer.class;
+			} else if (propertyType == Long.class) {
+				this.type = TYPE_LONG;
+				this.serializerType = LongSerializer.class;
+			} else if (Date.class.isAssignableFrom(propertyType)) {
+				this.type = TYPE_DATE;
+				this.serializerType = DateSerializer.class;
+			} else if (propertyType == String.class) {
+				this.type = TYPE_STRING;
+				this.serializerType = StringSerializer.class;
+			} else if (propertyType == byte[].class) {
+				this.type = TYPE_BYTES;
+			} else {
+				this.type = TYPE_OTHER;
+			}
+			if (this.sortable) {
+				if (this.type == TYPE_OTHER) {
+					throw new ConfigurationException("Sortable encoding is not supported for row key member : " + accessor.getName() + " of type : " + propertyType.getName());
+				}
+				int requiredLength = this.type == TYPE_INTEGER ? Bytes.SIZEOF_INT : (this.type == TYPE_LONG || this.type == TYPE_DATE) ? Bytes.SIZEOF_LONG : -1;
+				if (requiredLength > 0 && this.length != requiredLength) {
+					throw new ConfigurationException("Row key member : " + accessor.getName() + " with sortable encoding must have valueLength : " + requiredLength);
+				}
+				if (this.type == TYPE_BYTES && this.length <= 0) {
+					throw new ConfigurationException("Row key member : " + accessor.getName() + " of type byte[] with sortable encoding must have a positive valueLength");
+				}
+				if (this.type == TYPE_STRING && this.length <= 0) {
+					// zero terminated variable length string
+					this.length = -1;
+				}
+			}
+		}
+	}
+
+}
@@ -34,6 +34,25 @@ public class HBaseCriteria extends Criteria {
 	public static final String VERSIONS = "numVersionsToFetch";
 	public static final String START_KEY = "startKey";
 	public static final String END_KEY = "endKey";
+
+	/** Constants used to identify scan tuning parameters. Values may be specified as String or Integer*/
+	public static final String SCAN_CACHING = "scanCaching";
+	public static final String SCAN_BATCH = "scanBatch";
+
+	/**
+	 * Constant used to identify the row key (byte[]) after which a scan is to resume. Typically set to {@link HBaseEntityIterator#getLastRowKey()}
+	 * of the previous page. Takes precedence over {@link #START_KEY} and {@link #getFirstResult()}
+	 */
+	public static final String RESUME_AFTER_KEY = "resumeAfterKey";
+
+	/**
+	 * Constants used to identify parallel scan parameters. {@link #PARALLEL_SCAN} (true/false) turns on parallel scan of sub-ranges of the scan key range.
+	 * {@link #SPLIT_KEYS} (byte[][], sorted) are the keys at which to split the key range, defaults to the region boundaries of the table.
+	 * {@link #ORDERED_RESULTS} (true/false, default true) returns results in row key order, else in the order in which sub-range scans complete.
+	 */
+	public static final String PARALLEL_SCAN = "parallelScan";
+	public static final String SPLIT_KEYS = "splitKeys";
+	public static final String ORDERED_RESULTS = "orderedResults";
 	
 	/** The Scan object that may be used for highly customized and very HBase specific queries*/
 	private Scan scan;
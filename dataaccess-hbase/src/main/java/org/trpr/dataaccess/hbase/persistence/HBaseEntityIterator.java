@@ -0,0 +1,243 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase.persistence;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.trpr.dataaccess.hbase.model.config.HbaseMapping;
+import org.trpr.dataaccess.hbase.persistence.entity.HBaseEntity;
+import org.trpr.platform.core.impl.logging.LogFactory;
+import org.trpr.platform.core.spi.logging.Logger;
+import org.trpr.platform.core.spi.persistence.Criteria;
+import org.trpr.platform.core.spi.persistence.EntityCursor;
+import org.trpr.platform.core.spi.persistence.PersistenceException;
+import org.trpr.platform.core.spi.persistence.PersistentEntity;
+import org.trpr.platform.core.spi.persistence.ResumableEntityCursor;
+
+/**
+ * The <code>HBaseEntityIterator</code> is a forward-only {@link Iterator} over the rows returned by a HBase {@link ResultScanner}. Rows are
+ * fetched from the region servers in chunks as determined by the scan caching and are mapped to {@link PersistentEntity} instances only when
+ * {@link #next()} is called, so that the memory used is independent of the number of rows scanned.
+ *
+ * Partial rows returned by a scan that uses {@link HBaseCriteria#SCAN_BATCH} are merged into a single entity. The row key of the last returned entity
+ * is available via {@link #getLastRowKey()} and may be set as {@link HBaseCriteria#RESUME_AFTER_KEY} to fetch the next page of results without re-reading
+ * the rows of earlier pages.
+ *
+ * Instances of this class hold on to a HBase table borrowed from the pool and an open scanner. Callers must call {@link #close()} when done, typically in
+ * a finally block. The iterator is closed automatically once all rows have been read. Instances are also {@link ResumableEntityCursor} instances, as 
+ * returned by {@link HBaseHandler#streamEntities(Criteria)}, whose resume key is the last row key.
+ *
+ * @author Regunath B
+ */
+public class HBaseEntityIterator implements ResumableEntityCursor {
+
+	/**
+	 * The Log instance for this class
+	 */
+	private static final Logger LOGGER = LogFactory.getLogger(HBaseEntityIterator.class);
+
+	/** The HBaseHandlerDelegate used for mapping rows to entities*/
+	private HBaseHandlerDelegate hbaseHandlerDelegate;
+
+	/** The HBase table and scanner that this iterator reads from*/
+	private HTableInterface table;
+	private ResultScanner scanner;
+
+	/** The mapping and the criteria for the scan*/
+	private HbaseMapping metadata;
+	private HBaseCriteria criteria;
+
+	/** The number of rows to skip and the max number of entities to return. Max is Criteria#NO_LIMIT if not bounded*/
+	private int rowsToSkip;
+	private int maxResults;
+
+	/** The number of entities returned thus far*/
+	private int count;
+
+	/** The next entity to return, the row key of the last returned entity and the scan Result read ahead while merging partial rows*/
+	private HBaseEntity nextEntity;
+	private byte[] nextRowKey;
+	private byte[] lastRowKey;
+	private Result pendingResult;
+
+	/** Flag to indicate that this iterator is closed*/
+	private boolean closed;
+
+	/**
+	 * Constructor for this class
+	 * @param hbaseHandlerDelegate the HBaseHandlerDelegate for mapping rows to entities
+	 * @param table the HBase table borrowed from the pool, returned to the pool on {@link #close()}
+	 * @param scanner the open ResultScanner
+	 * @param metadata the mapping for the scanned entity type
+	 * @param criteria the criteria used to create the scanner
+	 * @param rowsToSkip the number of rows to skip before returning entities
+	 * @param maxResults the max number of entities to return, Criteria#NO_LIMIT if not bounded
+	 */
+	HBaseEntityIterator(HBaseHandlerDelegate hbaseHandlerDelegate, HTableInterface table, ResultScanner scanner, HbaseMapping metadata, HBaseCriteria criteria, int rowsToSkip, int maxResults) {
+		this.hbaseHandlerDelegate = hbaseHandlerDelegate;
+		this.table = table;
+		this.scanner = scanner;
+		this.metadata = metadata;
+		this.criteria = criteria;
+		this.rowsToSkip = rowsToSkip;
+		this.maxResults = maxResults;
+	}
+
+	/**
+	 * Interface method implementation. Reads ahead the next row, if not done already
+	 * @see java.util.Iterator#hasNext()
+	 */
+	public boolean hasNext() {
+		if (this.nextEntity == null && !this.closed) {
+			this.nextEntity = fetchNext();
+		}
+		return this.nextEntity != null;
+	}
+
+	/**
+	 * Interface method implementation. Returns the next mapped entity
+	 * @see java.util.Iterator#next()
+	 */
+	public PersistentEntity next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException("No more rows in scan of table : " + this.metadata.getHbaseClass().getTable());
+		}
+		HBaseEntity entity = this.nextEntity;
+		this.lastRowKey = this.nextRowKey;
+		this.nextEntity = null;
+		this.count += 1;
+		return entity;
+	}
+
+	/**
+	 * Interface method implementation. Throws UnsupportedOperationException as removal is not supported
+	 * @see java.util.Iterator#remove()
+	 */
+	public void remove() {
+		throw new UnsupportedOperationException("Remove is not supported on HBase scan results");
+	}
+
+	/**
+	 * Interface method implementation. Closes the scanner and returns the table to the pool. Calling this method more than once has no effect.
+	 * @see EntityCursor#close()
+	 */
+	public void close() {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		this.pendingResult = null;
+		try {
+			this.scanner.close();
+		} finally {
+			try {
+				this.table.close();
+			} catch (IOException e) {
+				LOGGER.warn("Error returning table to the pool : " + e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the row key of the entity last returned by {@link #next()}. This may be used as {@link HBaseCriteria#RESUME_AFTER_KEY} to read the next page
+	 * @return the row key of the last returned entity, null if no entity has been returned yet
+	 */
+	public byte[] getLastRowKey() {
+		return this.lastRowKey;
+	}
+
+	/**
+	 * Interface method implementation. Returns the row key of the entity last returned by {@link #next()}
+	 * @see ResumableEntityCursor#getResumeKey()
+	 */
+	public Object getResumeKey() {
+		return getLastRowKey();
+	}
+
+	/**
+	 * Interface method implementation. Returns {@link HBaseCriteria#RESUME_AFTER_KEY}
+	 * @see ResumableEntityCursor#getResumeKeyParameter()
+	 */
+	public String getResumeKeyParameter() {
+		return HBaseCriteria.RESUME_AFTER_KEY;
+	}
+
+	/**
+	 * Helper method to read and map the next entity from the scanner. Closes this iterator when the scan is exhausted or max results have been returned.
+	 */
+	private HBaseEntity fetchNext() {
+		if (this.maxResults != Criteria.NO_LIMIT && this.count >= this.maxResults) {
+			close();
+			return null;
+		}
+		HBaseEntity entity = null;
+		try {
+			while (true) {
+				Result resultRow = this.pendingResult != null ? this.pendingResult : this.scanner.next();
+				this.pendingResult = null;
+				if (resultRow == null) {
+					break;
+				}
+				if (resultRow.isEmpty()) {
+					continue;
+				}
+				if (entity == null) {
+					if (this.rowsToSkip > 0) {
+						skipRow(resultRow);
+						continue;
+					}
+					this.nextRowKey = resultRow.getRow();
+					entity = this.hbaseHandlerDelegate.constructEntityFromResultRow(this.metadata, resultRow, (HBaseEntity)this.criteria.getManagedClass().newInstance());
+				} else if (Bytes.equals(this.nextRowKey, resultRow.getRow())) {
+					// partial row, when the scan limits the number of columns per Result
+					this.hbaseHandlerDelegate.constructEntityFromResultRow(this.metadata, resultRow, entity);
+				} else {
+					this.pendingResult = resultRow;
+					break;
+				}
+			}
+		} catch (Exception e) {
+			close();
+			LOGGER.error("Exception occurred in scan:", e);
+			throw new PersistenceException("Exception occcurred while performing scan for table " + this.metadata.getHbaseClass().getTable(), e);
+		}
+		if (entity == null) {
+			close();
+		}
+		return entity;
+	}
+
+	/**
+	 * Helper method to skip the row of the specified Result, including any partial Results for the same row
+	 */
+	private void skipRow(Result resultRow) throws IOException {
+		byte[] rowKey = resultRow.getRow();
+		for (Result next = this.scanner.next(); next != null; next = this.scanner.next()) {
+			if (!Bytes.equals(rowKey, next.getRow())) {
+				this.pendingResult = next;
+				break;
+			}
+		}
+		this.rowsToSkip -= 1;
+	}
+
+}
@@ -15,34 +15,49 @@
  */
 package org.trpr.dataaccess.hbase.persistence;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Row;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.jmx.export.annotation.ManagedResource;
+import org.trpr.dataaccess.hbase.HBaseEntityCache;
+import org.trpr.dataaccess.hbase.HBaseWriteBuffer;
 import org.trpr.dataaccess.hbase.HTablePool;
 import org.trpr.dataaccess.hbase.auth.AuthenticationProvider;
 import org.trpr.dataaccess.hbase.mappings.config.HBaseMappingContainer;
 import org.trpr.dataaccess.hbase.model.config.HbaseMapping;
 import org.trpr.dataaccess.hbase.persistence.entity.HBaseEntity;
-import org.trpr.dataaccess.hbase.serializer.DateSerializer;
-import org.trpr.dataaccess.hbase.serializer.IntegerSerializer;
-import org.trpr.dataaccess.hbase.serializer.LongSerializer;
-import org.trpr.dataaccess.hbase.serializer.StringSerializer;
+import org.trpr.dataaccess.hbase.util.ByteArrayProcessor;
 import org.trpr.platform.core.impl.logging.LogFactory;
 import org.trpr.platform.core.impl.persistence.AbstractPersistenceHandler;
 import org.trpr.platform.core.impl.persistence.sharding.ShardedEntityContextHolder;
 import org.trpr.platform.core.spi.logging.Logger;
+import org.trpr.platform.core.spi.persistence.BatchPersistenceHandler;
+import org.trpr.platform.core.spi.persistence.BufferedPersistenceHandler;
 import org.trpr.platform.core.spi.persistence.Criteria;
+import org.trpr.platform.core.spi.persistence.EntityCursor;
 import org.trpr.platform.core.spi.persistence.PersistenceException;
 import org.trpr.platform.core.spi.persistence.PersistentEntity;
 import org.trpr.platform.core.spi.persistence.Serializer;
+import org.trpr.platform.core.spi.persistence.StreamingPersistenceHandler;
 import org.trpr.platform.core.spi.persistence.sharding.ShardedEntity;
 import org.trpr.platform.runtime.spi.config.ConfigurationException;
 
@@ -54,13 +69,28 @@ import org.trpr.platform.runtime.spi.config.ConfigurationException;
  * For example on how to use HBase persistence API, refer to test sample,
  * HBasePersistenceSample.java and related files.
  * 
+ * Writes may optionally be buffered on the client by setting {@link #setUseWriteBuffer(Boolean)} to true. Buffered writes are flushed by a background
+ * thread based on size and time thresholds, explicitly by calling {@link #flush()} and when this handler is destroyed. Reads do not see buffered writes
+ * until they are flushed.
+ * 
+ * Scans may be run in parallel over sub-ranges of the scan key range by setting {@link HBaseCriteria#PARALLEL_SCAN} on the criteria. Sub-range scans
+ * for each HTablePool run on a dedicated thread pool with at most {@link #getParallelScanConcurrency()} threads.
+ * 
+ * HTablePool instances retain at most {@link #getHtablePoolSize()} idle tables per table name. The tables in use per table name may be limited
+ * using {@link #setHtablePoolMaxTotal(int)}, and idle tables evicted using {@link #setHtablePoolMaxIdleMillis(long)}. Pool counts and borrow
+ * times are available as managed attributes, for use in sizing the pools.
+ * 
+ * Rows read by {@link #findEntity(PersistentEntity)} are cached in a {@link HBaseEntityCache} per HTablePool for classes whose mapping specifies a
+ * cache TTL. Cached rows are invalidated when entities are persisted or deleted through this handler. With write buffering, cached rows are 
+ * invalidated again when the buffered writes are flushed, so that rows read and cached before the flush are not served after it.
+ * 
  * @author Srikanth, Aditya Karanth A
  * @author Regunath B
  * 
  * 
  */
 @ManagedResource(objectName = "spring.application:type=Trooper,application=Performance-Metrics,name=HBaseMetrics-", description = "HBase Performance Metrics Logger")
-public class HBaseHandler extends AbstractPersistenceHandler implements InitializingBean {
+public class HBaseHandler extends AbstractPersistenceHandler implements BatchPersistenceHandler, StreamingPersistenceHandler, BufferedPersistenceHandler, InitializingBean, DisposableBean {
 
 	/**
 	 * The Log instance for this class
@@ -85,8 +115,13 @@ public class HBaseHandler extends AbstractPersistenceHandler implements Initiali
 	/** The HTablePool for the default configuration */
 	private HTablePool hbaseTablePool;
 
-	/** The HTable pool size */
+	/** The HTable pool size i.e. max idle tables per table name */
 	private int htablePoolSize = HTABLE_POOL_SIZE;
+	
+	/** The max tables in use per table name, the max time to wait for a table and the max time a table may be idle in the HTable pool*/
+	private int htablePoolMaxTotal = Integer.MAX_VALUE;
+	private long htablePoolBorrowTimeoutMillis = HTablePool.DEFAULT_BORROW_TIMEOUT_MILLIS;
+	private long htablePoolMaxIdleMillis = 0L;
 
 	private Boolean useWAL = true;
 
@@ -95,24 +130,40 @@ public class HBaseHandler extends AbstractPersistenceHandler implements Initiali
 	/** The HBase mapping container instance */
 	private HBaseMappingContainer hbaseMappingContainer;
 
-	/** Map for type to serializer mappings*/
+	/** Map for type to serializer mappings. Defaults are registered by the HBaseHandlerDelegate*/
 	private Map<String, Serializer> classNameToSerializerMap = new HashMap<String, Serializer>();
 	
+	/** Map for processor name to ByteArrayProcessor mappings, for processors used in column definitions*/
+	private Map<String, ByteArrayProcessor> processors = new HashMap<String, ByteArrayProcessor>();
+	
 	/** Authentication provider, if any*/
 	private AuthenticationProvider authProvider;
 	
 	/**The connection validity check interval in minutes*/
 	private Integer callConnectionValidityCheckMinutes; 
 	
-	public HBaseHandler() {
-		// Default serializers. It can be overridden by setting new values in
-		// Spring bean definition
-		classNameToSerializerMap.put("java.lang.String", new StringSerializer());
-		classNameToSerializerMap.put("java.lang.Long", new LongSerializer());
-		classNameToSerializerMap.put("java.lang.Integer", new IntegerSerializer());
-		classNameToSerializerMap.put("java.util.Date", new DateSerializer());		
-	}
-
+	/** The max number of operations sent to HBase in a single batch call*/
+	private int batchSize = HBaseHandlerDelegate.DEFAULT_BATCH_SIZE;
+	
+	/** Properties to control client side write buffering*/
+	private Boolean useWriteBuffer = false;
+	private int writeBufferMaxMutations = HBaseWriteBuffer.DEFAULT_MAX_BUFFERED_MUTATIONS;
+	private int writeBufferFlushSize = HBaseWriteBuffer.DEFAULT_FLUSH_SIZE;
+	private long writeBufferFlushIntervalMillis = HBaseWriteBuffer.DEFAULT_FLUSH_INTERVAL_MILLIS;
+	private long writeBufferMaxBlockMillis = HBaseWriteBuffer.DEFAULT_MAX_BLOCK_MILLIS;
+	
+	/** Map containing HBaseWriteBuffer instances keyed by the HTablePool they write to. Empty if write buffering is not used*/
+	private Map<HTablePool, HBaseWriteBuffer> writeBuffers = new IdentityHashMap<HTablePool, HBaseWriteBuffer>();
+	
+	/** The max number of concurrent sub-range scans per HTablePool for parallel scans*/
+	private int parallelScanConcurrency = Runtime.getRuntime().availableProcessors();
+	
+	/** Map containing HBaseEntityCache instances keyed by the HTablePool whose rows they cache. Empty if no mapping is cacheable*/
+	private Map<HTablePool, HBaseEntityCache> entityCaches = new IdentityHashMap<HTablePool, HBaseEntityCache>();
+	
+	/** Map containing the executors for parallel scans keyed by the HTablePool they scan. Created on first use*/
+	private Map<HTablePool, ExecutorService> scanExecutors = new IdentityHashMap<HTablePool, ExecutorService>();
+	
 	/**
 	 * Initializing bean method implementation. Checks to see if at least one of
 	 * targetHbaseConfigurations or hbaseConfiguration is defined.
@@ -135,9 +186,15 @@ public class HBaseHandler extends AbstractPersistenceHandler implements Initiali
 		for (String shard : this.targetHbaseConfigurations.keySet()) {
 			this.targetHbaseTablePools.put(shard, new HTablePool(this.targetHbaseConfigurations.get(shard), this.htablePoolSize));
 		}
+		for (HTablePool tablePool : this.targetHbaseTablePools.values()) {
+			tablePool.setMaxTotal(this.htablePoolMaxTotal);
+			tablePool.setBorrowTimeoutMillis(this.htablePoolBorrowTimeoutMillis);
+			tablePool.setMaxIdleMillis(this.htablePoolMaxIdleMillis);
+		}
 		// initialize the delegate with defaults, if not set already
 		if (this.hbaseHandlerDelegate == null) {
 			this.hbaseHandlerDelegate = new HBaseHandlerDelegate(this.hbaseMappingContainer);
+			this.hbaseHandlerDelegate.setClassNameToSerializerMap(this.classNameToSerializerMap);
 		} else {
 			// probably the serializers have been customized, so set only the mapping container
 			this.hbaseHandlerDelegate.setHBaseMappingContainer(this.hbaseMappingContainer);
@@ -158,7 +215,222 @@ public class HBaseHandler extends AbstractPersistenceHandler implements Initiali
 		}
 		this.hbaseHandlerDelegate.setUseAutoFlush(useAutoFlush);
 		this.hbaseHandlerDelegate.setUseWAL(useWAL);
+		this.hbaseHandlerDelegate.setBatchSize(batchSize);
+		this.hbaseHandlerDelegate.setProcessors(processors);
+		// create the entity caches, one for each HTablePool, if rows of any mapped class are cached
+		for (HbaseMapping mapping : this.hbaseMappingContainer.getMappingForAllClasses()) {
+			if (HBaseEntityCache.isCacheable(mapping)) {
+				for (HTablePool tablePool : this.targetHbaseTablePools.values()) {
+					this.entityCaches.put(tablePool, new HBaseEntityCache());
+				}
+				if (this.hbaseTablePool != null && !this.entityCaches.containsKey(this.hbaseTablePool)) {
+					this.entityCaches.put(this.hbaseTablePool, new HBaseEntityCache());
+				}
+				break;
+			}
+		}
+		// create the write buffers, one for each HTablePool
+		if (this.useWriteBuffer) {
+			for (HTablePool tablePool : this.targetHbaseTablePools.values()) {
+				this.writeBuffers.put(tablePool, createWriteBuffer(tablePool));
+			}
+			if (this.hbaseTablePool != null && !this.writeBuffers.containsKey(this.hbaseTablePool)) {
+				this.writeBuffers.put(this.hbaseTablePool, createWriteBuffer(this.hbaseTablePool));
+			}
+		}
+	}
+
+	/**
+	 * DisposableBean method implementation. Flushes all buffered writes and stops the write buffer flusher threads
+	 * @see org.springframework.beans.factory.DisposableBean#destroy()
+	 */
+	public void destroy() throws Exception {
+		for (HBaseWriteBuffer writeBuffer : this.writeBuffers.values()) {
+			try {
+				writeBuffer.shutdown();
+			} catch (PersistenceException e) {
+				LOGGER.error("Error flushing HBase write buffer during shutdown : " + e.getMessage(), e);
+			}
+		}
+		synchronized (this.scanExecutors) {
+			for (ExecutorService scanExecutor : this.scanExecutors.values()) {
+				scanExecutor.shutdownNow();
+			}
+			this.scanExecutors.clear();
+		}
+	}
+
+	/**
+	 * Interface method implementation. Writes all buffered writes, if write buffering is used. Callers may use this method to control durability of writes
+	 * @see BufferedPersistenceHandler#flush()
+	 */
+	@ManagedOperation
+	public void flush() throws PersistenceException {
+		for (HBaseWriteBuffer writeBuffer : this.writeBuffers.values()) {
+			writeBuffer.flush();
+		}
+	}
+
+	/**
+	 * Returns the number of writes that are buffered and yet to be written to HBase
+	 * @return the number of buffered writes
+	 */
+	@ManagedAttribute
+	public int getBufferedWriteCount() {
+		int count = 0;
+		for (HBaseWriteBuffer writeBuffer : this.writeBuffers.values()) {
+			count += writeBuffer.getBufferedMutationCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of HTable instances in use, across all HTablePool instances
+	 * @return the number of borrowed tables
+	 */
+	@ManagedAttribute
+	public int getTablePoolBorrowedCount() {
+		int count = 0;
+		for (HTablePool tablePool : this.targetHbaseTablePools.values()) {
+			count += tablePool.getBorrowedCount(null);
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of idle HTable instances, across all HTablePool instances
+	 * @return the number of idle tables
+	 */
+	@ManagedAttribute
+	public int getTablePoolIdleCount() {
+		int count = 0;
+		for (HTablePool tablePool : this.targetHbaseTablePools.values()) {
+			count += tablePool.getIdleCount(null);
+		}
+		return count;
+	}
 
+	/**
+	 * Returns the number of HTable instances created, across all HTablePool instances
+	 * @return the number of tables created
+	 */
+	@ManagedAttribute
+	public long getTablePoolCreatedCount() {
+		long count = 0;
+		for (HTablePool tablePool : this.targetHbaseTablePools.values()) {
+			count += tablePool.getCreatedCount(null);
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of HTable instances released, across all HTablePool instances
+	 * @return the number of tables released
+	 */
+	@ManagedAttribute
+	public long getTablePoolDestroyedCount() {
+		long count = 0;
+		for (HTablePool tablePool : this.targetHbaseTablePools.values()) {
+			count += tablePool.getDestroyedCount(null);
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the average time taken to borrow a HTable instance, across all HTablePool instances
+	 * @return the average borrow time in milliseconds
+	 */
+	@ManagedAttribute
+	public double getTablePoolAverageBorrowMillis() {
+		long borrowCount = 0;
+		long borrowTimeNanos = 0;
+		for (HTablePool tablePool : this.targetHbaseTablePools.values()) {
+			borrowCount += tablePool.getBorrowCount(null);
+			borrowTimeNanos += tablePool.getBorrowTimeNanos(null);
+		}
+		return borrowCount == 0 ? 0 : (borrowTimeNanos / (double)borrowCount) / 1000000;
+	}
+
+	/**
+	 * Returns the HTablePool counts and average borrow time for each shard and table name
+	 * @return the statistics, one entry for each shard and table name
+	 */
+	@ManagedOperation
+	public String[] getTablePoolStatistics() {
+		List<String> statistics = new ArrayList<String>();
+		for (String shard : this.targetHbaseTablePools.keySet()) {
+			HTablePool tablePool = this.targetHbaseTablePools.get(shard);
+			for (String tableName : tablePool.getTableNames()) {
+				long borrowCount = tablePool.getBorrowCount(tableName);
+				statistics.add("shard=" + shard + ",table=" + tableName + ",borrowed=" + tablePool.getBorrowedCount(tableName) + ",idle=" + 
+						tablePool.getIdleCount(tableName) + ",created=" + tablePool.getCreatedCount(tableName) + ",destroyed=" + 
+						tablePool.getDestroyedCount(tableName) + ",averageBorrowMillis=" + 
+						(borrowCount == 0 ? 0 : (tablePool.getBorrowTimeNanos(tableName) / (double)borrowCount) / 1000000));
+			}
+		}
+		return statistics.toArray(new String[statistics.size()]);
+	}
+
+	/**
+	 * Returns the number of lookups served from the entity caches
+	 * @return the entity cache hit count
+	 */
+	@ManagedAttribute
+	public long getEntityCacheHitCount() {
+		long count = 0;
+		for (HBaseEntityCache entityCache : this.entityCaches.values()) {
+			count += entityCache.getHitCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of cacheable lookups that were not served from the entity caches
+	 * @return the entity cache miss count
+	 */
+	@ManagedAttribute
+	public long getEntityCacheMissCount() {
+		long count = 0;
+		for (HBaseEntityCache entityCache : this.entityCaches.values()) {
+			count += entityCache.getMissCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of rows evicted from the entity caches on account of size limits or expiry
+	 * @return the entity cache eviction count
+	 */
+	@ManagedAttribute
+	public long getEntityCacheEvictionCount() {
+		long count = 0;
+		for (HBaseEntityCache entityCache : this.entityCaches.values()) {
+			count += entityCache.getEvictionCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of rows in the entity caches
+	 * @return the number of cached rows
+	 */
+	@ManagedAttribute
+	public int getEntityCacheSize() {
+		int size = 0;
+		for (HBaseEntityCache entityCache : this.entityCaches.values()) {
+			size += entityCache.getSize();
+		}
+		return size;
+	}
+
+	/**
+	 * Removes all rows from the entity caches
+	 */
+	@ManagedOperation
+	public void clearEntityCache() {
+		for (HBaseEntityCache entityCache : this.entityCaches.values()) {
+			entityCache.clear();
+		}
 	}
 
 	public HbaseMapping getMappingForClass(String className) {
@@ -182,6 +454,10 @@ public class HBaseHandler extends AbstractPersistenceHandler implements Initiali
 		this.classNameToSerializerMap.putAll(classNameToSerializerMap);
 	}
 
+	public void setProcessors(Map<String, ByteArrayProcessor> processors) {
+		this.processors.putAll(processors);
+	}
+
 	public void setHbaseTablePool(HTablePool hbaseTablePool) {
 		this.hbaseTablePool = hbaseTablePool;
 	}
@@ -227,7 +503,17 @@ public class HBaseHandler extends AbstractPersistenceHandler implements Initiali
 	public PersistentEntity makePersistent(PersistentEntity entity) throws PersistenceException {
 		// signal performance metrics capture. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
 		this.performanceMetricsLogger.startPerformanceMetricsCapture();
-		PersistentEntity persistentEntity = this.hbaseHandlerDelegate.makePersistent((HBaseEntity) entity, getHbaseTablePool((HBaseEntity) entity));
+		PersistentEntity persistentEntity = null;
+		HTablePool tablePool = getHbaseTablePool((HBaseEntity) entity);
+		try {
+			if (this.useWriteBuffer) {
+				persistentEntity = this.hbaseHandlerDelegate.makePersistent((HBaseEntity) entity, this.writeBuffers.get(tablePool));
+			} else {
+				persistentEntity = this.hbaseHandlerDelegate.makePersistent((HBaseEntity) entity, tablePool);
+			}
+		} finally {
+			invalidateCachedRows(tablePool, new HBaseEntity[] {(HBaseEntity) entity});
+		}
 		// log performance metrics captured. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
 		this.performanceMetricsLogger.logPerformanceMetrics("HBaseHandler.makePersistent", entity.toString());		
 		return persistentEntity;
@@ -237,7 +523,16 @@ public class HBaseHandler extends AbstractPersistenceHandler implements Initiali
 	public void makeTransient(PersistentEntity entity) throws PersistenceException {
 		// signal performance metrics capture. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
 		this.performanceMetricsLogger.startPerformanceMetricsCapture();
-		this.hbaseHandlerDelegate.makeTransient((HBaseEntity) entity, getHbaseTablePool((HBaseEntity) entity));
+		HTablePool tablePool = getHbaseTablePool((HBaseEntity) entity);
+		try {
+			if (this.useWriteBuffer) {
+				this.hbaseHandlerDelegate.makeTransient((HBaseEntity) entity, this.writeBuffers.get(tablePool));
+			} else {
+				this.hbaseHandlerDelegate.makeTransient((HBaseEntity) entity, tablePool);
+			}
+		} finally {
+			invalidateCachedRows(tablePool, new HBaseEntity[] {(HBaseEntity) entity});
+		}
 		// log performance metrics captured. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
 		this.performanceMetricsLogger.logPerformanceMetrics("HBaseHandler.makeTransient", entity.toString());		
 	}
@@ -246,7 +541,9 @@ public class HBaseHandler extends AbstractPersistenceHandler implements Initiali
 	public PersistentEntity findEntity(PersistentEntity entity) throws PersistenceException {
 		// signal performance metrics capture. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
 		this.performanceMetricsLogger.startPerformanceMetricsCapture();
-		PersistentEntity persistentEntity = this.hbaseHandlerDelegate.findEntity(getHbaseTablePool((HBaseEntity) entity), (HBaseEntity) entity, getMappingForClass(entity.getClass().getName()));
+		HTablePool tablePool = getHbaseTablePool((HBaseEntity) entity);
+		PersistentEntity persistentEntity = this.hbaseHandlerDelegate.findEntity(tablePool, (HBaseEntity) entity, getMappingForClass(entity.getClass().getName()), 
+				this.entityCaches.get(tablePool));
 		// log performance metrics captured. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
 		this.performanceMetricsLogger.logPerformanceMetrics("HBaseHandler.findEntity", entity.toString());		
 		return persistentEntity;
@@ -257,7 +554,14 @@ public class HBaseHandler extends AbstractPersistenceHandler implements Initiali
 		// signal performance metrics capture. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
 		this.performanceMetricsLogger.startPerformanceMetricsCapture();
 		try {
-			Collection<PersistentEntity> persistentEntities = this.hbaseHandlerDelegate.findEntities(getHbaseTablePool((HBaseEntity)criteria.getManagedClass().newInstance()), (HBaseCriteria) criteria, getMappingForClass(criteria.getManagedClass().getName()));
+			HTablePool tablePool = getHbaseTablePool((HBaseEntity)criteria.getManagedClass().newInstance());
+			Collection<PersistentEntity> persistentEntities = null;
+			Object parallelScan = criteria.getParameter(HBaseCriteria.PARALLEL_SCAN);
+			if (parallelScan != null && Boolean.valueOf(String.valueOf(parallelScan))) {
+				persistentEntities = this.hbaseHandlerDelegate.findEntities(tablePool, (HBaseCriteria) criteria, getMappingForClass(criteria.getManagedClass().getName()), getScanExecutor(tablePool));
+			} else {
+				persistentEntities = this.hbaseHandlerDelegate.findEntities(tablePool, (HBaseCriteria) criteria, getMappingForClass(criteria.getManagedClass().getName()));
+			}
 			return persistentEntities;
 		} catch (Exception e) {
 			LOGGER.error("Error while reading data :: ", e);
@@ -268,6 +572,202 @@ public class HBaseHandler extends AbstractPersistenceHandler implements Initiali
 		}
 	}
 
+	/**
+	 * Streaming variant of {@link #findEntities(Criteria)} for large scans. Rows are mapped to PersistentEntity instances as the returned iterator
+	 * is advanced. The caller must close the returned iterator, typically in a finally block, to release the HBase scanner and table.
+	 * @param criteria the HBaseCriteria for the scan
+	 * @return open HBaseEntityIterator over the scan results
+	 * @throws PersistenceException in case of errors opening the scan
+	 */
+	public HBaseEntityIterator findEntitiesIterator(Criteria criteria) throws PersistenceException {
+		// signal performance metrics capture. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
+		this.performanceMetricsLogger.startPerformanceMetricsCapture();
+		try {
+			return this.hbaseHandlerDelegate.findEntitiesIterator(getHbaseTablePool((HBaseEntity)criteria.getManagedClass().newInstance()), (HBaseCriteria) criteria, getMappingForClass(criteria.getManagedClass().getName()));
+		} catch (PersistenceException e) {
+			throw e;
+		} catch (Exception e) {
+			LOGGER.error("Error while opening scan :: ", e);
+			throw new PersistenceException("Error while opening scan :: ", e);
+		} finally {
+			// log performance metrics captured. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
+			this.performanceMetricsLogger.logPerformanceMetrics("HBaseHandler.findEntitiesIterator", criteria.toConciseString());
+		}
+	}
+
+	/**
+	 * Interface method implementation. Returns the {@link HBaseEntityIterator} opened by {@link #findEntitiesIterator(Criteria)}. The scan is run
+	 * sequentially i.e. {@link HBaseCriteria#PARALLEL_SCAN} is ignored, so that rows are read from the region servers only as the cursor is advanced.
+	 * @see StreamingPersistenceHandler#streamEntities(Criteria)
+	 */
+	public EntityCursor streamEntities(Criteria criteria) throws PersistenceException {
+		return findEntitiesIterator(criteria);
+	}
+
+	/**
+	 * Interface method implementation. Groups the specified entities by the HTablePool they resolve to and persists each group as a batch
+	 * @see BatchPersistenceHandler#makePersistent(PersistentEntity[])
+	 */
+	public PersistentEntity[] makePersistent(PersistentEntity[] entities) throws PersistenceException {
+		// signal performance metrics capture. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
+		this.performanceMetricsLogger.startPerformanceMetricsCapture();
+		Map<HTablePool, List<Integer>> poolIndices = groupByTablePool(entities);
+		for (HTablePool tablePool : poolIndices.keySet()) {
+			HBaseEntity[] poolEntities = toHBaseEntities(entities, poolIndices.get(tablePool));
+			try {
+				if (this.useWriteBuffer) {
+					for (HBaseEntity entity : poolEntities) {
+						this.hbaseHandlerDelegate.makePersistent(entity, this.writeBuffers.get(tablePool));
+					}
+				} else {
+					this.hbaseHandlerDelegate.makePersistent(poolEntities, tablePool);
+				}
+			} finally {
+				invalidateCachedRows(tablePool, poolEntities);
+			}
+		}
+		// log performance metrics captured. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
+		this.performanceMetricsLogger.logPerformanceMetrics("HBaseHandler.makePersistent[]", String.valueOf(entities.length));		
+		return entities;
+	}
+
+	/**
+	 * Interface method implementation. Groups the specified entities by the HTablePool they resolve to and deletes each group as a batch
+	 * @see BatchPersistenceHandler#makeTransient(PersistentEntity[])
+	 */
+	public void makeTransient(PersistentEntity[] entities) throws PersistenceException {
+		// signal performance metrics capture. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
+		this.performanceMetricsLogger.startPerformanceMetricsCapture();
+		Map<HTablePool, List<Integer>> poolIndices = groupByTablePool(entities);
+		for (HTablePool tablePool : poolIndices.keySet()) {
+			HBaseEntity[] poolEntities = toHBaseEntities(entities, poolIndices.get(tablePool));
+			try {
+				if (this.useWriteBuffer) {
+					for (HBaseEntity entity : poolEntities) {
+						this.hbaseHandlerDelegate.makeTransient(entity, this.writeBuffers.get(tablePool));
+					}
+				} else {
+					this.hbaseHandlerDelegate.makeTransient(poolEntities, tablePool);
+				}
+			} finally {
+				invalidateCachedRows(tablePool, poolEntities);
+			}
+		}
+		// log performance metrics captured. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
+		this.performanceMetricsLogger.logPerformanceMetrics("HBaseHandler.makeTransient[]", String.valueOf(entities.length));		
+	}
+
+	/**
+	 * Interface method implementation. Groups the specified entities by the HTablePool they resolve to and looks up each group as a batch. 
+	 * The returned array matches the specified entities by index positions. 
+	 * @see BatchPersistenceHandler#findEntity(PersistentEntity[])
+	 */
+	public PersistentEntity[] findEntity(PersistentEntity[] entities) throws PersistenceException {
+		// signal performance metrics capture. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
+		this.performanceMetricsLogger.startPerformanceMetricsCapture();
+		PersistentEntity[] foundEntities = new PersistentEntity[entities.length];
+		Map<HTablePool, List<Integer>> poolIndices = groupByTablePool(entities);
+		for (HTablePool tablePool : poolIndices.keySet()) {
+			List<Integer> indices = poolIndices.get(tablePool);
+			HBaseEntity[] poolResults = this.hbaseHandlerDelegate.findEntity(tablePool, toHBaseEntities(entities, indices));
+			for (int i = 0; i < poolResults.length; i++) {
+				foundEntities[indices.get(i)] = poolResults[i];
+			}
+		}
+		// log performance metrics captured. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
+		this.performanceMetricsLogger.logPerformanceMetrics("HBaseHandler.findEntity[]", String.valueOf(entities.length));		
+		return foundEntities;
+	}
+
+	/**
+	 * Helper method to return the executor for parallel scans on the specified HTablePool, creating one if required. The executor threads are daemon
+	 * threads and time out when idle.
+	 */
+	private ExecutorService getScanExecutor(final HTablePool tablePool) {
+		synchronized (this.scanExecutors) {
+			ExecutorService scanExecutor = this.scanExecutors.get(tablePool);
+			if (scanExecutor == null) {
+				ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(this.parallelScanConcurrency, this.parallelScanConcurrency, 60L, TimeUnit.SECONDS, 
+						new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+							private AtomicInteger threadCount = new AtomicInteger();
+							public Thread newThread(Runnable runnable) {
+								Thread thread = new Thread(runnable, "HBaseParallelScan_" + tablePool.hashCode() + "_" + threadCount.incrementAndGet());
+								thread.setDaemon(true);
+								return thread;
+							}
+						});
+				threadPoolExecutor.allowCoreThreadTimeOut(true);
+				scanExecutor = threadPoolExecutor;
+				this.scanExecutors.put(tablePool, scanExecutor);
+			}
+			return scanExecutor;
+		}
+	}
+
+	/**
+	 * Helper method to group index positions of the specified entities by the HTablePool to use for their persistence
+	 */
+	private Map<HTablePool, List<Integer>> groupByTablePool(PersistentEntity[] entities) {
+		Map<HTablePool, List<Integer>> poolIndices = new IdentityHashMap<HTablePool, List<Integer>>();
+		for (int i = 0; i < entities.length; i++) {
+			HTablePool tablePool = getHbaseTablePool((HBaseEntity) entities[i]);
+			List<Integer> indices = poolIndices.get(tablePool);
+			if (indices == null) {
+				indices = new ArrayList<Integer>();
+				poolIndices.put(tablePool, indices);
+			}
+			indices.add(i);
+		}
+		return poolIndices;
+	}
+
+	/**
+	 * Helper method to create the write buffer for the specified HTablePool. Rows written by the buffer are removed from the entity cache of the
+	 * HTablePool, if any, after they are flushed, as rows read between buffering and flushing a write may have been cached
+	 */
+	private HBaseWriteBuffer createWriteBuffer(HTablePool tablePool) {
+		HBaseWriteBuffer writeBuffer = new HBaseWriteBuffer(tablePool, this.writeBufferMaxMutations, this.writeBufferFlushSize, 
+				this.writeBufferFlushIntervalMillis, this.writeBufferMaxBlockMillis);
+		final HBaseEntityCache entityCache = this.entityCaches.get(tablePool);
+		if (entityCache != null) {
+			writeBuffer.setFlushListener(new HBaseWriteBuffer.FlushListener() {
+				public void mutationsFlushed(String tableName, List<Row> mutations) {
+					for (Row mutation : mutations) {
+						entityCache.invalidate(tableName, mutation.getRow());
+					}
+				}
+			});
+		}
+		return writeBuffer;
+	}
+
+	/**
+	 * Helper method to remove the rows of the specified entities from the entity cache of the specified HTablePool, if any
+	 */
+	private void invalidateCachedRows(HTablePool tablePool, HBaseEntity[] entities) {
+		HBaseEntityCache entityCache = this.entityCaches.get(tablePool);
+		if (entityCache == null) {
+			return;
+		}
+		for (HBaseEntity entity : entities) {
+			HbaseMapping mapping = getMappingForClass(entity.getClass().getName());
+			if (HBaseEntityCache.isCacheable(mapping)) {
+				entityCache.invalidate(mapping.getHbaseClass().getTable(), this.hbaseHandlerDelegate.getRowKey(entity, mapping));
+			}
+		}
+	}
+
+	/**
+	 * Helper method to create an array of HBaseEntity instances from the specified index positions of the specified entities
+	 */
+	private HBaseEntity[] toHBaseEntities(PersistentEntity[] entities, List<Integer> indices) {
+		HBaseEntity[] hbaseEntities = new HBaseEntity[indices.size()];
+		for (int i = 0; i < hbaseEntities.length; i++) {
+			hbaseEntities[i] = (HBaseEntity) entities[indices.get(i)];
+		}
+		return hbaseEntities;
+	}
+
 	/** Getter/Setter methods */
 	public Configuration getHbaseConfiguration() {
 		return this.hbaseConfiguration;
@@ -293,6 +793,24 @@ public class HBaseHandler extends AbstractPersistenceHandler implements Initiali
 	public int getHtablePoolSize() {
 		return this.htablePoolSize;
 	}
+	public int getHtablePoolMaxTotal() {
+		return this.htablePoolMaxTotal;
+	}
+	public void setHtablePoolMaxTotal(int htablePoolMaxTotal) {
+		this.htablePoolMaxTotal = htablePoolMaxTotal;
+	}
+	public long getHtablePoolBorrowTimeoutMillis() {
+		return this.htablePoolBorrowTimeoutMillis;
+	}
+	public void setHtablePoolBorrowTimeoutMillis(long htablePoolBorrowTimeoutMillis) {
+		this.htablePoolBorrowTimeoutMillis = htablePoolBorrowTimeoutMillis;
+	}
+	public long getHtablePoolMaxIdleMillis() {
+		return this.htablePoolMaxIdleMillis;
+	}
+	public void setHtablePoolMaxIdleMillis(long htablePoolMaxIdleMillis) {
+		this.htablePoolMaxIdleMillis = htablePoolMaxIdleMillis;
+	}
 	public AuthenticationProvider getAuthProvider() {
 		return this.authProvider;
 	}
@@ -305,6 +823,48 @@ public class HBaseHandler extends AbstractPersistenceHandler implements Initiali
 	public Integer getCallConnectionValidityCheckMinutes() {
 		return this.callConnectionValidityCheckMinutes;
 	}	
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+	public int getParallelScanConcurrency() {
+		return this.parallelScanConcurrency;
+	}
+	public void setParallelScanConcurrency(int parallelScanConcurrency) {
+		this.parallelScanConcurrency = parallelScanConcurrency;
+	}
+	public Boolean getUseWriteBuffer() {
+		return this.useWriteBuffer;
+	}
+	public void setUseWriteBuffer(Boolean useWriteBuffer) {
+		this.useWriteBuffer = useWriteBuffer;
+	}
+	public int getWriteBufferMaxMutations() {
+		return this.writeBufferMaxMutations;
+	}
+	public void setWriteBufferMaxMutations(int writeBufferMaxMutations) {
+		this.writeBufferMaxMutations = writeBufferMaxMutations;
+	}
+	public int getWriteBufferFlushSize() {
+		return this.writeBufferFlushSize;
+	}
+	public void setWriteBufferFlushSize(int writeBufferFlushSize) {
+		this.writeBufferFlushSize = writeBufferFlushSize;
+	}
+	public long getWriteBufferFlushIntervalMillis() {
+		return this.writeBufferFlushIntervalMillis;
+	}
+	public void setWriteBufferFlushIntervalMillis(long writeBufferFlushIntervalMillis) {
+		this.writeBufferFlushIntervalMillis = writeBufferFlushIntervalMillis;
+	}
+	public long getWriteBufferMaxBlockMillis() {
+		return this.writeBufferMaxBlockMillis;
+	}
+	public void setWriteBufferMaxBlockMillis(long writeBufferMaxBlockMillis) {
+		this.writeBufferMaxBlockMillis = writeBufferMaxBlockMillis;
+	}
 	// //////////// UNSUPPORTED operations ////////////////
 
 	@Override
@@ -16,15 +16,21 @@
 package org.trpr.dataaccess.hbase.persistence;
 
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
-import org.apache.commons.beanutils.PropertyUtils;
-import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Get;
@@ -36,20 +42,23 @@ import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.util.Assert;
+import org.trpr.dataaccess.hbase.HBaseEntityCache;
+import org.trpr.dataaccess.hbase.HBaseWriteBuffer;
 import org.trpr.dataaccess.hbase.HTablePool;
+import org.trpr.dataaccess.hbase.mappings.config.ColumnDefinitionIndex;
+import org.trpr.dataaccess.hbase.mappings.config.HBaseEntityAccessor;
 import org.trpr.dataaccess.hbase.mappings.config.HBaseMappingContainer;
+import org.trpr.dataaccess.hbase.mappings.config.PropertyAccessor;
+import org.trpr.dataaccess.hbase.mappings.config.RowKeyCodec;
 import org.trpr.dataaccess.hbase.model.config.ColumnDefinition;
 import org.trpr.dataaccess.hbase.model.config.HbaseClass;
 import org.trpr.dataaccess.hbase.model.config.HbaseMapping;
-import org.trpr.dataaccess.hbase.model.config.RowKeyDefinition;
-import org.trpr.dataaccess.hbase.model.config.RowKeyMember;
 import org.trpr.dataaccess.hbase.persistence.entity.HBaseEntity;
-import org.trpr.dataaccess.hbase.serializer.DateSerializer;
-import org.trpr.dataaccess.hbase.serializer.IntegerSerializer;
-import org.trpr.dataaccess.hbase.serializer.LongSerializer;
-import org.trpr.dataaccess.hbase.serializer.StringSerializer;
+import org.trpr.dataaccess.hbase.serializer.SerializerRegistry;
+import org.trpr.dataaccess.hbase.util.ByteArrayProcessor;
 import org.trpr.platform.core.impl.logging.LogFactory;
 import org.trpr.platform.core.spi.logging.Logger;
+import org.trpr.platform.core.spi.persistence.Criteria;
 import org.trpr.platform.core.spi.persistence.PersistenceException;
 import org.trpr.platform.core.spi.persistence.PersistentEntity;
 import org.trpr.platform.core.spi.persistence.Serializer;
@@ -69,16 +78,31 @@ public class HBaseHandlerDelegate implements InitializingBean {
 	 */
 	private static final Logger LOGGER = LogFactory.getLogger(HBaseHandlerDelegate.class);
 
-	/** The serializer map */
-	private Map<String, Serializer> classNameToSerializerMap = new HashMap<String, Serializer>();
+	/** The serializers for attribute values, keyed by value type */
+	private SerializerRegistry serializerRegistry = new SerializerRegistry();
+
+	/** The ByteArrayProcessor instances for column values, keyed by processor name */
+	private Map<String, ByteArrayProcessor> processors = new HashMap<String, ByteArrayProcessor>();
+
+	/** The processors for each column definition, in the order of declaration. Resolved on first use*/
+	private Map<ColumnDefinition, ByteArrayProcessor[]> columnProcessors = new ConcurrentHashMap<ColumnDefinition, ByteArrayProcessor[]>();
 
 	/** The HBase mapping container instance */
 	private HBaseMappingContainer hbaseMappingContainer;
 
+	/** The codecs for composite row keys, keyed by mapped class name. Created on first use*/
+	private Map<String, RowKeyCodec> rowKeyCodecs = new ConcurrentHashMap<String, RowKeyCodec>();
+
 	/** Properties to control HBase data writes */
 	private Boolean useWAL = true;
 	private Boolean useAutoFlush = true;
 	
+	/** The default max number of operations sent to HBase in a single batch call*/
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+	
+	/** The max number of operations sent to HBase in a single batch call*/
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	
 	/**
 	 * No args constructor. Instance created using this default constructor is useful after #setClassNameToSerializerMap() and #setHBaseMappingContainer()
 	 * have been called subsequently.
@@ -94,12 +118,8 @@ public class HBaseHandlerDelegate implements InitializingBean {
 	 *            in persistence
 	 */
 	public HBaseHandlerDelegate(HBaseMappingContainer hbaseMappingContainer) {
-		// Default serializers. It can be overridden by setting new values in
+		// Default serializers are registered by the SerializerRegistry. These can be overridden by setting new values in
 		// Spring bean definition of the HBaseHandler
-		classNameToSerializerMap.put("java.lang.String", new StringSerializer());
-		classNameToSerializerMap.put("java.lang.Long", new LongSerializer());
-		classNameToSerializerMap.put("java.lang.Integer", new IntegerSerializer());
-		classNameToSerializerMap.put("java.util.Date", new DateSerializer());		
 		this.setHBaseMappingContainer(hbaseMappingContainer);
 	}
 
@@ -110,8 +130,21 @@ public class HBaseHandlerDelegate implements InitializingBean {
 	 *            map containing class names and their serializers
 	 */
 	public void setClassNameToSerializerMap(Map<String, Serializer> classNameToSerializerMap) {
-		// Do a putAll to avoid loosing the default serializer mappings
-		this.classNameToSerializerMap.putAll(classNameToSerializerMap);
+		// Register individually to avoid loosing the default serializer mappings
+		this.serializerRegistry.register(classNameToSerializerMap);
+		// the row key codecs may have resolved serializers that have now been replaced
+		this.rowKeyCodecs.clear();
+	}
+
+	/**
+	 * Sets the ByteArrayProcessor instances, keyed by the processor names used in column definitions
+	 * 
+	 * @param processors
+	 *            map containing processor names and their implementations
+	 */
+	public void setProcessors(Map<String, ByteArrayProcessor> processors) {
+		this.processors.putAll(processors);
+		this.columnProcessors.clear();
 	}
 	
 	/**
@@ -120,7 +153,7 @@ public class HBaseHandlerDelegate implements InitializingBean {
 	 * @see org.springframework.beans.factory.InitializingBean#afterPropertiesSet()
 	 */
 	public void afterPropertiesSet() throws Exception {
-		Assert.notNull(this.classNameToSerializerMap, "The 'classNameToSerializerMap' may not be null");
+		Assert.notNull(this.serializerRegistry, "The 'serializerRegistry' may not be null");
 	}
 	
 	/**
@@ -164,6 +197,164 @@ public class HBaseHandlerDelegate implements InitializingBean {
 		deleteEntity(hbaseTablePool, entity, metadata);
 	}
 
+	/**
+	 * Buffers a Put for the specified entity in the specified HBaseWriteBuffer. The entity is written when the buffer is flushed.
+	 *
+	 * @param entity
+	 *            the HBaseEntity to persist
+	 * @param writeBuffer
+	 *            the HBaseWriteBuffer to use for persistence
+	 * @return the PersistentEntity that was buffered for persistence
+	 * @throws PersistenceException
+	 *             in case of persistence errors
+	 */
+	public PersistentEntity makePersistent(HBaseEntity entity, HBaseWriteBuffer writeBuffer) throws PersistenceException {
+		HbaseMapping metadata = hbaseMappingContainer.getMappingForClass(entity.getClass().getName());
+		writeBuffer.mutate(metadata.getHbaseClass().getTable(), constructPut(metadata, entity));
+		return entity;
+	}
+
+	/**
+	 * Buffers a Delete for the specified entity in the specified HBaseWriteBuffer. The entity is deleted when the buffer is flushed.
+	 *
+	 * @param entity
+	 *            the HBaseEntity to delete
+	 * @param writeBuffer
+	 *            the HBaseWriteBuffer to use for persistence
+	 * @throws PersistenceException
+	 *             in case of persistence errors
+	 */
+	public void makeTransient(HBaseEntity entity, HBaseWriteBuffer writeBuffer) throws PersistenceException {
+		HbaseMapping metadata = hbaseMappingContainer.getMappingForClass(entity.getClass().getName());
+		writeBuffer.mutate(metadata.getHbaseClass().getTable(), new Delete(constructRowKey(entity, getAccessor(metadata))));
+	}
+
+	/**
+	 * Persists the specified entities using the specified HTablePool. Entities are grouped by HBase table and each group is written using 
+	 * batched {@link HTableInterface#put(List)} calls of at most {@link #getBatchSize()} rows each.
+	 * 
+	 * @param entities
+	 *            the HBaseEntity instances to persist
+	 * @param hbaseTablePool
+	 *            the HTablePool to use for persistence
+	 * @return the persisted PersistentEntity instances
+	 * @throws PersistenceException
+	 *             in case of persistence errors
+	 */
+	public PersistentEntity[] makePersistent(HBaseEntity[] entities, HTablePool hbaseTablePool) throws PersistenceException {
+		for (List<Integer> indices : groupByTable(entities).values()) {
+			HbaseMapping metadata = hbaseMappingContainer.getMappingForClass(entities[indices.get(0)].getClass().getName());
+			HTableInterface table = null;
+			try {
+				table = (HTableInterface) hbaseTablePool.getTable(metadata.getHbaseClass().getTable());
+				table.setAutoFlush(useAutoFlush);
+				List<Put> puts = new ArrayList<Put>(Math.min(indices.size(), this.batchSize));
+				for (Integer index : indices) {
+					puts.add(constructPut(metadata, entities[index]));
+					if (puts.size() >= this.batchSize) {
+						table.put(puts);
+						puts = new ArrayList<Put>(Math.min(indices.size(), this.batchSize));
+					}
+				}
+				if (!puts.isEmpty()) {
+					table.put(puts);
+				}
+			} catch (Exception e) {
+				throw new PersistenceException("Exception in batch putData of " + metadata.getHbaseClass().getTable(), e);
+			} finally {
+				closeTable(table);
+			}
+		}
+		return entities;
+	}
+
+	/**
+	 * Deletes the specified entities using the specified HTablePool. Entities are grouped by HBase table and each group is deleted using 
+	 * batched {@link HTableInterface#delete(List)} calls of at most {@link #getBatchSize()} rows each.
+	 * 
+	 * @param entities
+	 *            the HBaseEntity instances to delete
+	 * @param hbaseTablePool
+	 *            the HTablePool to use for persistence
+	 * @throws PersistenceException
+	 *             in case of persistence errors
+	 */
+	public void makeTransient(HBaseEntity[] entities, HTablePool hbaseTablePool) throws PersistenceException {
+		for (List<Integer> indices : groupByTable(entities).values()) {
+			HbaseMapping metadata = hbaseMappingContainer.getMappingForClass(entities[indices.get(0)].getClass().getName());
+			HBaseEntityAccessor accessor = getAccessor(metadata);
+			HTableInterface table = null;
+			try {
+				table = (HTableInterface) hbaseTablePool.getTable(metadata.getHbaseClass().getTable());
+				List<Delete> deletes = new ArrayList<Delete>(Math.min(indices.size(), this.batchSize));
+				for (Integer index : indices) {
+					deletes.add(new Delete(constructRowKey(entities[index], accessor)));
+					if (deletes.size() >= this.batchSize) {
+						table.delete(deletes);
+						deletes = new ArrayList<Delete>(Math.min(indices.size(), this.batchSize));
+					}
+				}
+				if (!deletes.isEmpty()) {
+					table.delete(deletes);
+				}
+			} catch (Exception e) {
+				throw new PersistenceException("Failed to batch delete entries for table " + metadata.getHbaseClass().getTable(), e);
+			} finally {
+				closeTable(table);
+			}
+		}
+	}
+
+	/**
+	 * Looks up the specified entities using the specified HTablePool. Entities are grouped by HBase table and each group is read using 
+	 * batched {@link HTableInterface#get(List)} calls of at most {@link #getBatchSize()} rows each.
+	 * 
+	 * @param hbaseTablePool
+	 *            the HTablePool to use for HBase access
+	 * @param entities
+	 *            the HBaseEntity instances to look up
+	 * @return HBaseEntity instances matching the specified entities by index positions, contains null where the row was not found
+	 * @throws PersistenceException
+	 *             in case of persistence errors
+	 */
+	public HBaseEntity[] findEntity(HTablePool hbaseTablePool, HBaseEntity[] entities) throws PersistenceException {
+		HBaseEntity[] foundEntities = new HBaseEntity[entities.length];
+		for (List<Integer> indices : groupByTable(entities).values()) {
+			HbaseMapping metadata = hbaseMappingContainer.getMappingForClass(entities[indices.get(0)].getClass().getName());
+			HBaseEntityAccessor accessor = getAccessor(metadata);
+			HTableInterface table = null;
+			try {
+				table = (HTableInterface) hbaseTablePool.getTable(metadata.getHbaseClass().getTable());
+				List<Get> gets = new ArrayList<Get>(Math.min(indices.size(), this.batchSize));
+				List<Integer> getIndices = new ArrayList<Integer>(Math.min(indices.size(), this.batchSize));
+				for (int i = 0; i < indices.size(); i++) {
+					HBaseEntity entity = entities[indices.get(i)];
+					byte[] rowKey = constructRowKey(entity, accessor);
+					if (rowKey != null && rowKey.length > 0) {
+						gets.add(constructGetQuery(metadata, entity, rowKey));
+						getIndices.add(indices.get(i));
+					}
+					if (gets.size() >= this.batchSize || (i == indices.size() - 1 && !gets.isEmpty())) {
+						Result[] results = table.get(gets);
+						for (int j = 0; j < results.length; j++) {
+							if (results[j] != null && !results[j].isEmpty()) {
+								foundEntities[getIndices.get(j)] = constructEntityFromResultRow(metadata, results[j], entities[getIndices.get(j)]);
+							}
+						}
+						gets.clear();
+						getIndices.clear();
+					}
+				}
+			} catch (Exception e) {
+				LOGGER.error("Exception occurred in batch searchData:", e);
+				throw new PersistenceException("Exception occcurred while performing batch search for table " + metadata.getHbaseClass().getTable(), e);
+			} finally {
+				closeTable(table);
+			}
+		}
+		return foundEntities;
+	}
+
 	/**
 	 * Inserts a row in the HBase table. In case the row already exists, it
 	 * results in creation of a new version for all the columns.
@@ -186,24 +377,70 @@ public class HBaseHandlerDelegate implements InitializingBean {
 			table = (HTableInterface) hbaseTablePool.getTable(classDefinition.getTable());
 			table.setAutoFlush(useAutoFlush);
 
-			Put put = new Put(constructRowKey(entity, classDefinition.getRowkeyDefinition()));
-			put.setWriteToWAL(useWAL);
-
-			for (ColumnDefinition column : classDefinition.getColumnDefinition()) {
-				put.add(getColumnFamilyInBytes(column), getColumnQualifierInBytes(entity, column), getColumnValueInBytes(entity, column));
-			}
-
 			// Insert new row into HBase table
-			table.put(put);
+			table.put(constructPut(metadata, entity));
 		} catch (Exception e) {
 			throw new PersistenceException("Exception in putData of " + classDefinition.getTable(), e);
 		} finally {
-			if (table != null) {
-				try {
-					table.close();
-				} catch (IOException e) {
-					LOGGER.warn("Error returning table to the pool : " + e.getMessage(), e);
-				}
+			closeTable(table);
+		}
+	}
+
+	/**
+	 * Helper method to construct a HBase Put for all mapped columns of the specified entity
+	 * 
+	 * @param metadata
+	 *            HBase mapping defining mapping from PersistentEntity to
+	 *            various columns of HBase table
+	 * @param entity
+	 *            HBaseEntity to construct the Put for
+	 * @return the HBase Put
+	 * @throws ConfigurationException
+	 *             in case of errors in reading the mapped attributes
+	 */
+	private Put constructPut(HbaseMapping metadata, HBaseEntity entity) throws ConfigurationException {
+		HBaseEntityAccessor accessor = getAccessor(metadata);
+		Put put = new Put(constructRowKey(entity, accessor));
+		put.setWriteToWAL(useWAL);
+		for (ColumnDefinition column : metadata.getHbaseClass().getColumnDefinition()) {
+			put.add(getColumnFamilyInBytes(accessor, column), getColumnQualifierInBytes(entity, accessor, column), getColumnValueInBytes(entity, accessor, column));
+		}
+		return put;
+	}
+
+	/**
+	 * Helper method to group index positions of the specified entities by the HBase table they are mapped to
+	 * 
+	 * @param entities
+	 *            the HBaseEntity instances to group
+	 * @return map of HBase table name to index positions of entities mapped to that table
+	 */
+	private Map<String, List<Integer>> groupByTable(HBaseEntity[] entities) {
+		Map<String, List<Integer>> tableIndices = new LinkedHashMap<String, List<Integer>>();
+		for (int i = 0; i < entities.length; i++) {
+			String tableName = hbaseMappingContainer.getMappingForClass(entities[i].getClass().getName()).getHbaseClass().getTable();
+			List<Integer> indices = tableIndices.get(tableName);
+			if (indices == null) {
+				indices = new ArrayList<Integer>();
+				tableIndices.put(tableName, indices);
+			}
+			indices.add(i);
+		}
+		return tableIndices;
+	}
+
+	/**
+	 * Helper method to return the specified table, if not null, to the pool it was borrowed from
+	 * 
+	 * @param table
+	 *            the HTableInterface to close
+	 */
+	private void closeTable(HTableInterface table) {
+		if (table != null) {
+			try {
+				table.close();
+			} catch (IOException e) {
+				LOGGER.warn("Error returning table to the pool : " + e.getMessage(), e);
 			}
 		}
 	}
@@ -224,7 +461,7 @@ public class HBaseHandlerDelegate implements InitializingBean {
 		HTableInterface table = null;
 		try {
 			table = (HTableInterface) hbaseTablePool.getTable(metadata.getHbaseClass().getTable());
-			Delete delete = new Delete(constructRowKey(entity, metadata.getHbaseClass().getRowkeyDefinition()));
+			Delete delete = new Delete(constructRowKey(entity, getAccessor(metadata)));
 			table.delete(delete);
 		} catch (Exception e) {
 			throw new PersistenceException("Failed to delete entry for table " + metadata.getHbaseClass().getTable(), e);
@@ -240,15 +477,47 @@ public class HBaseHandlerDelegate implements InitializingBean {
 	}
 
 	public HBaseEntity findEntity(HTablePool hbaseTablePool, HBaseEntity entity, HbaseMapping metadata) throws PersistenceException {
+		return findEntity(hbaseTablePool, entity, metadata, null);
+	}
+
+	/**
+	 * Looks up the row of the specified entity, first in the specified cache and then using the specified HTablePool. Rows read from HBase are
+	 * cached if the mapping and the entity permit caching i.e. the mapping is {@link HBaseEntityCache#isCacheable(HbaseMapping)}, the entity 
+	 * does not specify load criteria and none of the mapped columns have variable column qualifiers.
+	 * 
+	 * @param hbaseTablePool
+	 *            the HTablePool to use for HBase access
+	 * @param entity
+	 *            the HBaseEntity to look up
+	 * @param metadata
+	 *            HBase table mapping definition
+	 * @param entityCache
+	 *            the HBaseEntityCache for rows of the HTablePool, may be null
+	 * @return the HBaseEntity populated from the row or null if the row was not found
+	 * @throws PersistenceException
+	 *             in case of persistence errors
+	 */
+	public HBaseEntity findEntity(HTablePool hbaseTablePool, HBaseEntity entity, HbaseMapping metadata, HBaseEntityCache entityCache) throws PersistenceException {
 		HTableInterface table = null;
 		try {
-			table = (HTableInterface) hbaseTablePool.getTable(metadata.getHbaseClass().getTable());
-			byte[] rowKey = constructRowKey(entity, metadata.getHbaseClass().getRowkeyDefinition());
+			byte[] rowKey = constructRowKey(entity, getAccessor(metadata));
 			if (rowKey != null && rowKey.length > 0) {
+				boolean cacheable = entityCache != null && isCacheable(metadata, entity);
+				if (cacheable) {
+					Result result = entityCache.get(metadata, rowKey);
+					if (result != null) {
+						return constructEntityFromResultRow(metadata, result, entity);
+					}
+				}
+				long generation = cacheable ? entityCache.getGeneration(metadata.getHbaseClass().getTable()) : 0;
+				table = (HTableInterface) hbaseTablePool.getTable(metadata.getHbaseClass().getTable());
 				// do a get operation
 				Get g = constructGetQuery(metadata, entity, rowKey);
 				Result result = table.get(g);
 				if (!result.isEmpty()) {
+					if (cacheable) {
+						entityCache.put(metadata, rowKey, result, generation);
+					}
 					return constructEntityFromResultRow(metadata, result, entity);
 				}
 			}
@@ -267,6 +536,34 @@ public class HBaseHandlerDelegate implements InitializingBean {
 		return null;
 	}
 
+	/**
+	 * Returns the row key of the specified entity
+	 * 
+	 * @param entity
+	 *            the HBaseEntity
+	 * @param metadata
+	 *            HBase table mapping definition
+	 * @return the row key, an empty array if the row key could not be constructed
+	 */
+	public byte[] getRowKey(HBaseEntity entity, HbaseMapping metadata) throws ConfigurationException {
+		return constructRowKey(entity, getAccessor(metadata));
+	}
+
+	/**
+	 * Helper method to determine if the row read for the specified entity may be cached
+	 */
+	private boolean isCacheable(HbaseMapping metadata, HBaseEntity entity) {
+		if (!HBaseEntityCache.isCacheable(metadata) || entity.getCriteriaForLoad() != null) {
+			return false;
+		}
+		for (ColumnDefinition column : metadata.getHbaseClass().getColumnDefinition()) {
+			if (column.getColumnQualifierAttribute() != null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Looks up rows from HBase table and returns PersistentEntity instances
 	 * corresponding to them.
@@ -283,38 +580,176 @@ public class HBaseHandlerDelegate implements InitializingBean {
 	 */
 	public Collection<PersistentEntity> findEntities(HTablePool hbaseTablePool, HBaseCriteria criteria, HbaseMapping metadata) throws PersistenceException {
 		List<PersistentEntity> searchResultList = new ArrayList<PersistentEntity>();
+		HBaseEntityIterator iterator = findEntitiesIterator(hbaseTablePool, criteria, metadata);
+		try {
+			while (iterator.hasNext()) {
+				searchResultList.add(iterator.next());
+			}
+		} finally {
+			iterator.close();
+		}
+		return searchResultList;
+	}
+
+	/**
+	 * Streaming variant of {@link #findEntities(HTablePool, HBaseCriteria, HbaseMapping)}. Returns an iterator that maps rows to PersistentEntity
+	 * instances on demand. The scan resumes after the row key specified as {@link HBaseCriteria#RESUME_AFTER_KEY}, if any, else skips 
+	 * {@link HBaseCriteria#getFirstResult()} rows. The returned iterator must be closed by the caller.
+	 * 
+	 * @param hbaseTablePool
+	 *            HBase table pool for HBase access
+	 * @param criteria
+	 *            the HBase query criteria
+	 * @param metadata
+	 *            Table mapping details
+	 * @return open HBaseEntityIterator over the scan results
+	 * @throws PersistenceException
+	 *             in case anything goes wrong
+	 */
+	public HBaseEntityIterator findEntitiesIterator(HTablePool hbaseTablePool, HBaseCriteria criteria, HbaseMapping metadata) throws PersistenceException {
 		HTableInterface table = null;
 		try {
 			table = (HTableInterface) hbaseTablePool.getTable(metadata.getHbaseClass().getTable());
 			// do a scan operation
 			Scan s = constructScanQuery(metadata, criteria);
 			ResultScanner scanner = table.getScanner(s);
-			// check to see if start and end indices have been specified, for pagination say
-			int startIndex = criteria.getFirstResult();
-			int maxResults = criteria.getMaxResults();
-			int count = 0;
-			for (Result resultRow = scanner.next(); resultRow != null; resultRow = scanner.next()) {
-				if (!resultRow.isEmpty() && count >= startIndex) {
-					searchResultList.add(constructEntityFromResultRow(metadata, resultRow, (HBaseEntity)criteria.getManagedClass().newInstance()));
+			// skip rows for pagination only if the scan does not resume from a row key
+			int rowsToSkip = criteria.getParameter(HBaseCriteria.RESUME_AFTER_KEY) == null ? criteria.getFirstResult() : 0;
+			return new HBaseEntityIterator(this, table, scanner, metadata, criteria, rowsToSkip, criteria.getMaxResults());
+		} catch (Exception e) {
+			closeTable(table);
+			LOGGER.error("Exception occurred in searchData:", e);
+			throw new PersistenceException("Exception occcurred while performing search for table " + metadata.getHbaseClass().getTable(), e);
+		}
+	}
+
+	/**
+	 * Parallel variant of {@link #findEntities(HTablePool, HBaseCriteria, HbaseMapping)}. Splits the key range of the scan by the split keys specified 
+	 * as {@link HBaseCriteria#SPLIT_KEYS} or, if not specified, by the region boundaries of the table, and scans the sub-ranges on the specified executor.
+	 * Results are merged in row key order, or in the order in which sub-range scans complete if {@link HBaseCriteria#ORDERED_RESULTS} is false.
+	 * 
+	 * @param hbaseTablePool
+	 *            HBase table pool for HBase access
+	 * @param criteria
+	 *            the HBase query criteria
+	 * @param metadata
+	 *            Table mapping details
+	 * @param executor
+	 *            the ExecutorService to scan sub-ranges on
+	 * @return List of PersistentEntity instances
+	 * @throws PersistenceException
+	 *             in case anything goes wrong
+	 */
+	public Collection<PersistentEntity> findEntities(final HTablePool hbaseTablePool, final HBaseCriteria criteria, final HbaseMapping metadata, 
+			ExecutorService executor) throws PersistenceException {
+		String tableName = metadata.getHbaseClass().getTable();
+		// rows to skip are applied on the merged results, so each sub-range need return at most firstResult + maxResults entities
+		int firstResult = criteria.getParameter(HBaseCriteria.RESUME_AFTER_KEY) == null ? criteria.getFirstResult() : 0;
+		final int rangeMaxResults = criteria.getMaxResults() == Criteria.NO_LIMIT ? Criteria.NO_LIMIT : firstResult + criteria.getMaxResults();
+		boolean ordered = criteria.getParameter(HBaseCriteria.ORDERED_RESULTS) == null || Boolean.valueOf(String.valueOf(criteria.getParameter(HBaseCriteria.ORDERED_RESULTS)));
+		List<Scan> rangeScans = null;
+		try {
+			Scan scan = constructScanQuery(metadata, criteria);
+			byte[][] splitKeys = (byte[][])criteria.getParameter(HBaseCriteria.SPLIT_KEYS);
+			if (splitKeys == null) {
+				splitKeys = hbaseTablePool.getRegionStartKeys(tableName);
+			}
+			rangeScans = splitScan(scan, splitKeys);
+		} catch (IOException e) {
+			throw new PersistenceException("Exception occcurred while splitting scan for table " + tableName, e);
+		}
+		CompletionService<List<PersistentEntity>> completionService = new ExecutorCompletionService<List<PersistentEntity>>(executor);
+		List<Future<List<PersistentEntity>>> futures = new ArrayList<Future<List<PersistentEntity>>>(rangeScans.size());
+		for (final Scan rangeScan : rangeScans) {
+			futures.add(completionService.submit(new Callable<List<PersistentEntity>>() {
+				public List<PersistentEntity> call() throws Exception {
+					return scanRange(hbaseTablePool, rangeScan, criteria, metadata, rangeMaxResults);
 				}
-				count += 1;
-				if (count >= maxResults) {
+			}));
+		}
+		List<PersistentEntity> searchResultList = new ArrayList<PersistentEntity>();
+		try {
+			for (int i = 0; i < futures.size(); i++) {
+				// futures are in row key order of the sub-ranges. Use the completion service for arrival order
+				List<PersistentEntity> rangeResults = ordered ? futures.get(i).get() : completionService.take().get();
+				searchResultList.addAll(rangeResults);
+				if (rangeMaxResults != Criteria.NO_LIMIT && searchResultList.size() >= rangeMaxResults) {
 					break;
 				}
 			}
-		} catch (Exception e) {
-			LOGGER.error("Exception occurred in searchData:", e);
-			throw new PersistenceException("Exception occcurred while performing search for table " + metadata.getHbaseClass().getTable(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new PersistenceException("Interrupted while performing parallel search for table " + tableName, e);
+		} catch (ExecutionException e) {
+			LOGGER.error("Exception occurred in parallel searchData:", e.getCause());
+			throw new PersistenceException("Exception occcurred while performing parallel search for table " + tableName, e.getCause());
 		} finally {
-			if (table != null) {
-				try {
-					table.close();
-				} catch (IOException e) {
-					LOGGER.warn("Error returning table to the pool : " + e.getMessage(), e);
-				}
+			for (Future<List<PersistentEntity>> future : futures) {
+				future.cancel(true);
 			}
 		}
-		return searchResultList;
+		int fromIndex = Math.min(firstResult, searchResultList.size());
+		int toIndex = rangeMaxResults == Criteria.NO_LIMIT ? searchResultList.size() : Math.min(rangeMaxResults, searchResultList.size());
+		return new ArrayList<PersistentEntity>(searchResultList.subList(fromIndex, toIndex));
+	}
+
+	/**
+	 * Helper method to scan the key range of the specified Scan and return at most the specified number of entities
+	 */
+	private List<PersistentEntity> scanRange(HTablePool hbaseTablePool, Scan scan, HBaseCriteria criteria, HbaseMapping metadata, int maxResults) throws IOException {
+		List<PersistentEntity> rangeResults = new ArrayList<PersistentEntity>();
+		HTableInterface table = (HTableInterface) hbaseTablePool.getTable(metadata.getHbaseClass().getTable());
+		HBaseEntityIterator iterator = null;
+		try {
+			iterator = new HBaseEntityIterator(this, table, table.getScanner(scan), metadata, criteria, 0, maxResults);
+		} catch (IOException e) {
+			closeTable(table);
+			throw e;
+		}
+		try {
+			while (iterator.hasNext() && !Thread.currentThread().isInterrupted()) {
+				rangeResults.add(iterator.next());
+			}
+		} finally {
+			iterator.close();
+		}
+		return rangeResults;
+	}
+
+	/**
+	 * Helper method to split the key range of the specified Scan at the specified split keys. Split keys outside the key range of the Scan are ignored.
+	 * 
+	 * @param scan
+	 *            the Scan to split
+	 * @param splitKeys
+	 *            the keys at which to split the Scan, in sorted order
+	 * @return Scan instances for the sub-ranges, in row key order
+	 * @throws IOException
+	 *             in case of errors copying the Scan
+	 */
+	private List<Scan> splitScan(Scan scan, byte[][] splitKeys) throws IOException {
+		byte[] startRow = scan.getStartRow();
+		byte[] stopRow = scan.getStopRow();
+		List<Scan> rangeScans = new ArrayList<Scan>(splitKeys.length + 1);
+		byte[] rangeStart = startRow;
+		for (byte[] splitKey : splitKeys) {
+			if (splitKey.length == 0 || Bytes.compareTo(splitKey, rangeStart) <= 0) {
+				continue;
+			}
+			if (stopRow.length > 0 && Bytes.compareTo(splitKey, stopRow) >= 0) {
+				break;
+			}
+			Scan rangeScan = new Scan(scan);
+			rangeScan.setStartRow(rangeStart);
+			rangeScan.setStopRow(splitKey);
+			rangeScans.add(rangeScan);
+			rangeStart = splitKey;
+		}
+		Scan rangeScan = new Scan(scan);
+		rangeScan.setStartRow(rangeStart);
+		rangeScan.setStopRow(stopRow);
+		rangeScans.add(rangeScan);
+		return rangeScans;
 	}
 
 	/**
@@ -356,8 +791,9 @@ public class HBaseHandlerDelegate implements InitializingBean {
 					getRequest.setTimeRange(startTimestamp, endTimestamp);
 				}
 			}
+			HBaseEntityAccessor accessor = getAccessor(metadata);
 			for (ColumnDefinition column : metadata.getHbaseClass().getColumnDefinition()) {
-				getRequest.addColumn(getColumnFamilyInBytes(column), getColumnQualifierInBytes(entity, column));
+				getRequest.addColumn(getColumnFamilyInBytes(accessor, column), getColumnQualifierInBytes(entity, accessor, column));
 			}
 		} catch (IOException e) {
 			throw new ConfigurationException("Exception occurred while constructing get query for table " + metadata.getHbaseClass().getTable() + " using entity " + entity.toString(), e);
@@ -382,7 +818,8 @@ public class HBaseHandlerDelegate implements InitializingBean {
 		try {
 			if (queryCriteria != null) {
 				if (queryCriteria.getScan() != null) {
-					scanRequest = queryCriteria.getScan(); // use the Scan object passed in through the HBaseCriteria
+					// use a copy of the Scan object passed in through the HBaseCriteria, so that the settings below do not change the caller's Scan
+					scanRequest = new Scan(queryCriteria.getScan());
 				} else {
 					scanRequest = new Scan();
 					/* add the maximum versions to fetch */
@@ -413,6 +850,18 @@ public class HBaseHandlerDelegate implements InitializingBean {
 						scanRequest.setStopRow(endKey);
 					}
 				}
+				/* add the scan caching and batch if specified*/
+				if (queryCriteria.getParameter(HBaseCriteria.SCAN_CACHING) != null) {
+					scanRequest.setCaching(Integer.valueOf(String.valueOf(queryCriteria.getParameter(HBaseCriteria.SCAN_CACHING))));
+				}
+				if (queryCriteria.getParameter(HBaseCriteria.SCAN_BATCH) != null) {
+					scanRequest.setBatch(Integer.valueOf(String.valueOf(queryCriteria.getParameter(HBaseCriteria.SCAN_BATCH))));
+				}
+				/* resume from the row immediately following the specified row key i.e. the key with a trailing zero byte*/
+				byte[] resumeAfterKey = (byte[])queryCriteria.getParameter(HBaseCriteria.RESUME_AFTER_KEY);
+				if (resumeAfterKey != null) {
+					scanRequest.setStartRow(Bytes.add(resumeAfterKey, new byte[] {0}));
+				}
 			} else {
 				scanRequest = new Scan();
 			}
@@ -440,36 +889,39 @@ public class HBaseHandlerDelegate implements InitializingBean {
 	 *             attribute of the entity the value corresponds to. Workaround
 	 *             is to use raw HBase APIs for reading data in such cases.
 	 */
-	private HBaseEntity constructEntityFromResultRow(HbaseMapping metadata, Result resultRow, HBaseEntity resEntity) throws ConfigurationException {
+	HBaseEntity constructEntityFromResultRow(HbaseMapping metadata, Result resultRow, HBaseEntity resEntity) throws ConfigurationException {
+		HBaseEntityAccessor accessor = getAccessor(metadata);
 		try {
 			// Populate attribute from row key
 			byte[] rowKey = resultRow.getRow();
 
-			populateRowKeyAttributes(metadata, resEntity, rowKey);
+			populateRowKeyAttributes(metadata, accessor, resEntity, rowKey);
 
 			// Populate attributes from column values
 			// TODO: How to handle multiple versions of columns?
 			List<KeyValue> keyValuePairs = resultRow.list();
 			if (keyValuePairs != null && keyValuePairs.size() > 0) {
+				ColumnDefinitionIndex columnDefinitionIndex = accessor.getColumnDefinitionIndex();
 				for (KeyValue keyValue : keyValuePairs) {
-					String columnFamily = new String(keyValue.getFamily());
-					String columnQualifier = new String(keyValue.getQualifier());
-					ColumnDefinition columnDefinition = findColumnDefinition(metadata, columnFamily, columnQualifier);
+					// match the family and qualifier directly on the KeyValue backing array
+					byte[] buffer = keyValue.getBuffer();
+					int qualifierOffset = keyValue.getQualifierOffset();
+					int qualifierLength = keyValue.getQualifierLength();
+					ColumnDefinition columnDefinition = columnDefinitionIndex.find(buffer, keyValue.getFamilyOffset(), keyValue.getFamilyLength(), qualifierOffset, qualifierLength);
 					if (columnDefinition != null) {
-						setAttribute(resEntity, columnDefinition.getValueAttribute(), convertToObject(PropertyUtils.getPropertyDescriptor(resEntity, columnDefinition.getValueAttribute()).getPropertyType(), keyValue.getValue()));
-
-						if (StringUtils.isNotBlank(columnDefinition.getColumnQualifierAttribute())) {
-							byte[] columnQualifierAttributeValue = keyValue.getQualifier();
+						PropertyAccessor valueAccessor = accessor.getValueAccessor(columnDefinition);
+						setAttribute(resEntity, valueAccessor, convertToObject(valueAccessor.getPropertyType(), decodeColumnValue(columnDefinition, keyValue.getValue())));
 
+						PropertyAccessor qualifierAccessor = accessor.getQualifierAccessor(columnDefinition);
+						if (qualifierAccessor != null) {
 							// If column qualifier has fixed string literal
-							// part, then, remove those leading bytes to get the
+							// part, then, skip those leading bytes to get the
 							// actual
 							// value of the column qualifier attribute
-							if (StringUtils.isNotBlank(columnDefinition.getColumnQualifier())) {
-								columnQualifierAttributeValue = Bytes.tail(columnQualifierAttributeValue, columnQualifierAttributeValue.length - columnDefinition.getColumnQualifier().getBytes().length);
-							}
+							int prefixLength = accessor.getQualifierBytes(columnDefinition).length;
+							byte[] columnQualifierAttributeValue = Arrays.copyOfRange(buffer, qualifierOffset + prefixLength, qualifierOffset + qualifierLength);
 
-							setAttribute(resEntity, columnDefinition.getColumnQualifierAttribute(), convertToObject(PropertyUtils.getPropertyDescriptor(resEntity, columnDefinition.getColumnQualifierAttribute()).getPropertyType(), columnQualifierAttributeValue));
+							setAttribute(resEntity, qualifierAccessor, convertToObject(qualifierAccessor.getPropertyType(), columnQualifierAttributeValue));
 						}
 					}
 				}
@@ -483,86 +935,37 @@ public class HBaseHandlerDelegate implements InitializingBean {
 	/**
 	 * Helper method to populate row key attributes using the specified data
 	 */
-	private void populateRowKeyAttributes(HbaseMapping metadata, PersistentEntity resEntity, byte[] rowKey) throws ConfigurationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+	private void populateRowKeyAttributes(HbaseMapping metadata, HBaseEntityAccessor accessor, PersistentEntity resEntity, byte[] rowKey) throws ConfigurationException {
 		// If composite row key, loop through all row key members and populate
 		// entity accordingly
-		if (metadata.getHbaseClass().getRowkeyDefinition().getCompositeRowKey() != null) {
-			List<RowKeyMember> rowKeyMembers = metadata.getHbaseClass().getRowkeyDefinition().getCompositeRowKey().getRowKeyMember();
-
-			int startIndex = 0;
-			for (RowKeyMember rowKeyMember : rowKeyMembers) {
-				// For each constituent of a composite row key, extract the
-				// corresponding bytes and store it in entity
-				int endIndex = startIndex + rowKeyMember.getValueLength();
-				byte[] part = extractBytes(rowKey, startIndex, endIndex);
-				setAttribute(resEntity, rowKeyMember.getValueAttribute(), convertToObject(PropertyUtils.getPropertyDescriptor(resEntity, rowKeyMember.getValueAttribute()).getPropertyType(), part));
-				startIndex = endIndex;
+		if (accessor.isCompositeRowKey()) {
+			try {
+				getRowKeyCodec(accessor).decode(rowKey, resEntity);
+			} catch (Exception e) {
+				throw new ConfigurationException("Error decoding composite row key for table " + metadata.getHbaseClass().getTable(), e);
 			}
 		} else {
 			// Single attribute based row key
-			setAttribute(resEntity, metadata.getHbaseClass().getRowkeyDefinition().getValueAttribute(), convertToObject(PropertyUtils.getPropertyDescriptor(resEntity, metadata.getHbaseClass().getRowkeyDefinition().getValueAttribute()).getPropertyType(), rowKey));
+			setAttribute(resEntity, accessor.getRowKeyAccessor(), convertToObject(accessor.getRowKeyAccessor().getPropertyType(), rowKey));
 		}
 	}
 
-	/**
-	 * Helper method to extract bytes from the specified row key data
-	 */
-	private byte[] extractBytes(byte[] rowKey, int startIndex, int endIndex) {
-		byte[] extractedBytes = new byte[endIndex - startIndex];
-		for (int i = startIndex, j = 0; i < endIndex; i++, j++) {
-			extractedBytes[j] = rowKey[i];
-		}
-		return extractedBytes;
-	}
-
-	/**
-	 * This method iterates through the HbaseMapping entries and finds the
-	 * Column definition for column identified by a given
-	 * <code>columnFamily</code> and <code>columnQualifier</code>
-	 * 
-	 * @param metadata
-	 *            HBaseMapping object representing a Hbase table meta data
-	 * @param columnFamilyFromHbaseRow
-	 *            Column family name
-	 * @param columnQualifierFromHbaseRow
-	 *            Column qualifier name
-	 * @return ColumnDefinition instance for the column
-	 */
-	private ColumnDefinition findColumnDefinition(HbaseMapping metadata, String columnFamilyFromHbaseRow, String columnQualifierFromHbaseRow) {
-		for (ColumnDefinition columnDefinition : metadata.getHbaseClass().getColumnDefinition()) {
-			// We are looking for a column definition whose column family
-			// matches the one from HBase, and
-			// whose column qualifier is a prefix in the column qualifier read
-			// from HBase. This is needed
-			// to support those columns which are comprised of a fixed part
-			// string literal value and a variable
-			// value from the entity's attribute. Hence, below code uses
-			// "starsWith" for matching column qualifier.
-			if (columnFamilyFromHbaseRow != null && columnFamilyFromHbaseRow.equals(columnDefinition.getColumnFamily()) && columnQualifierFromHbaseRow != null && columnQualifierFromHbaseRow.startsWith(columnDefinition.getColumnQualifier())) {
-				return columnDefinition;
-			}
-		}
-		return null;
-	}
-
 	/**
 	 * Sets value for an entity's attribute
 	 * 
 	 * @param entity
 	 *            HBase entity that is being updated
-	 * @param attribute
-	 *            Attribute whose value is to be updated
+	 * @param accessor
+	 *            Accessor for the attribute whose value is to be updated
 	 * @param value
 	 *            Value for the attribute
 	 * @throws ConfigurationException
 	 */
-	private void setAttribute(PersistentEntity entity, String attribute, Object value) throws ConfigurationException {
+	private void setAttribute(PersistentEntity entity, PropertyAccessor accessor, Object value) throws ConfigurationException {
 		try {
-			if (StringUtils.isNotBlank(attribute)) {
-				PropertyUtils.setProperty(entity, attribute, value);
-			}
+			accessor.set(entity, value);
 		} catch (Exception e) {
-			LOGGER.error("Error setting attribute " + attribute, e);
+			LOGGER.error("Error setting attribute " + accessor.getName(), e);
 		}
 	}
 
@@ -585,7 +988,7 @@ public class HBaseHandlerDelegate implements InitializingBean {
 			if (targetClass == byte[].class) {
 				return bytes;
 			} else {
-				Serializer serializer = this.classNameToSerializerMap.get(targetClass.getName());
+				Serializer serializer = this.serializerRegistry.getSerializer(targetClass);
 				if (serializer != null) {
 					return serializer.toObject(bytes);
 				} else {
@@ -599,12 +1002,14 @@ public class HBaseHandlerDelegate implements InitializingBean {
 	/**
 	 * Retrieves a column family name as bytes
 	 * 
+	 * @param accessor
+	 *            the accessor plan holding the precomputed column family bytes
 	 * @param column
 	 *            Column definition
 	 * @return byte array representing column family
 	 */
-	private byte[] getColumnFamilyInBytes(ColumnDefinition column) {
-		return Bytes.toBytes(column.getColumnFamily());
+	private byte[] getColumnFamilyInBytes(HBaseEntityAccessor accessor, ColumnDefinition column) {
+		return accessor.getFamilyBytes(column);
 	}
 
 	/**
@@ -613,13 +1018,68 @@ public class HBaseHandlerDelegate implements InitializingBean {
 	 * 
 	 * @param entity
 	 *            PersistentEntity in the context,
+	 * @param accessor
+	 *            the accessor plan for the entity
 	 * @param column
 	 *            Column definition of the column in the context
 	 * @return byte array representing column value as needed by HBase APIs
 	 * @throws ConfigurationException
 	 */
-	private byte[] getColumnValueInBytes(PersistentEntity entity, ColumnDefinition column) throws ConfigurationException {
-		return convertToBytes(getAttribute(entity, column.getValueAttribute()));
+	private byte[] getColumnValueInBytes(PersistentEntity entity, HBaseEntityAccessor accessor, ColumnDefinition column) throws ConfigurationException {
+		byte[] value = convertToBytes(getAttribute(entity, accessor.getValueAccessor(column)));
+		for (ByteArrayProcessor processor : getColumnProcessors(column)) {
+			value = processor.encode(value);
+		}
+		return value;
+	}
+
+	/**
+	 * Decodes the specified column value read from HBase using the processors of the column, in the reverse order of declaration
+	 * 
+	 * @param column
+	 *            Column definition of the column in the context
+	 * @param value
+	 *            the column value as read from HBase
+	 * @return the decoded column value
+	 * @throws ConfigurationException
+	 */
+	private byte[] decodeColumnValue(ColumnDefinition column, byte[] value) throws ConfigurationException {
+		ByteArrayProcessor[] processors = getColumnProcessors(column);
+		for (int i = processors.length - 1; i >= 0 && value != null; i--) {
+			value = processors[i].decode(value);
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the processors declared for the specified column definition
+	 * 
+	 * @param column
+	 *            Column definition of the column in the context
+	 * @return the processors in the order of declaration, an empty array if none are declared
+	 * @throws ConfigurationException
+	 *             in case a declared processor has not been set on this delegate
+	 */
+	private ByteArrayProcessor[] getColumnProcessors(ColumnDefinition column) throws ConfigurationException {
+		ByteArrayProcessor[] columnProcessors = this.columnProcessors.get(column);
+		if (columnProcessors == null) {
+			List<ByteArrayProcessor> processorList = new ArrayList<ByteArrayProcessor>();
+			if (column.getProcessors() != null) {
+				for (String processorName : column.getProcessors().split(",")) {
+					if (processorName.trim().length() == 0) {
+						continue;
+					}
+					ByteArrayProcessor processor = this.processors.get(processorName.trim());
+					if (processor == null) {
+						throw new ConfigurationException("Processor : " + processorName.trim() + " is not defined, used by column from family: " + column.getColumnFamily());
+					}
+					processorList.add(processor);
+				}
+			}
+			columnProcessors = processorList.toArray(new ByteArrayProcessor[processorList.size()]);
+			this.columnProcessors.put(column, columnProcessors);
+		}
+		return columnProcessors;
 	}
 
 	/**
@@ -630,19 +1090,19 @@ public class HBaseHandlerDelegate implements InitializingBean {
 	 *            PersistentEntity instance in the context. Some columns may
 	 *            have variable part in column qualifier whose value may have to
 	 *            be retrieved from the PersistentEntity instance.
+	 * @param accessor
+	 *            the accessor plan for the entity
 	 * @param column
 	 *            Column definition of the column in the context
 	 * @return byte array representing column qualifier as needed by HBase APIs
 	 * @throws ConfigurationException
 	 */
-	private byte[] getColumnQualifierInBytes(PersistentEntity entity, ColumnDefinition column) throws ConfigurationException {
-		byte[] columnQualifier = new byte[0];
-		if (StringUtils.isNotBlank(column.getColumnQualifier())) {
-			columnQualifier = Bytes.add(columnQualifier, column.getColumnQualifier().getBytes());
-		}
-		if (StringUtils.isNotBlank(column.getColumnQualifierAttribute())) {
+	private byte[] getColumnQualifierInBytes(PersistentEntity entity, HBaseEntityAccessor accessor, ColumnDefinition column) throws ConfigurationException {
+		byte[] columnQualifier = accessor.getQualifierBytes(column);
+		PropertyAccessor qualifierAccessor = accessor.getQualifierAccessor(column);
+		if (qualifierAccessor != null) {
 			try {
-				columnQualifier = Bytes.add(columnQualifier, convertToBytes(getAttribute(entity, column.getColumnQualifierAttribute())));
+				columnQualifier = Bytes.add(columnQualifier, convertToBytes(getAttribute(entity, qualifierAccessor)));
 			} catch (Exception e) {
 				LOGGER.error("Error reading column qualifier value for : " + column.getColumnQualifierAttribute(), e);
 			}
@@ -659,31 +1119,23 @@ public class HBaseHandlerDelegate implements InitializingBean {
 	 * 
 	 * @param obj
 	 *            the HBase entity to construct the row key for
-	 * @param rowIdMetaData
-	 *            the row key definition meta data
+	 * @param accessor
+	 *            the accessor plan compiled from the row key definition meta data
 	 * @return the row key as a byte array
 	 * @throws ConfigurationException
 	 *             in case of any HBase access exceptions
 	 */
-	private final byte[] constructRowKey(PersistentEntity obj, RowKeyDefinition rowIdMetaData) throws ConfigurationException {
+	private final byte[] constructRowKey(PersistentEntity obj, HBaseEntityAccessor accessor) throws ConfigurationException {
 		try {
-			if (rowIdMetaData.getCompositeRowKey() != null) {
+			if (accessor.isCompositeRowKey()) {
 				// Compose row key from multiple attributes
-				List<RowKeyMember> rowKeyMembers = rowIdMetaData.getCompositeRowKey().getRowKeyMember();
-
-				byte[] idValue = new byte[0];
-				for (RowKeyMember rowKeyMember : rowKeyMembers) {
-					// Get the value of each attribute and concatenate bytes to
-					// form the composite row key
-					idValue = Bytes.add(idValue, convertToBytes(getAttribute(obj, rowKeyMember.getValueAttribute())));
-				}
-				return idValue;
+				return getRowKeyCodec(accessor).encode(obj);
 			} else {
-				byte[] idValue = convertToBytes(getAttribute(obj, rowIdMetaData.getValueAttribute()));
+				byte[] idValue = convertToBytes(getAttribute(obj, accessor.getRowKeyAccessor()));
 				return idValue;
 			}
 		} catch (Exception e) {
-			LOGGER.error("Error reading ID attribute : " + rowIdMetaData.getValueAttribute(), e);
+			LOGGER.error("Error reading ID attribute : " + accessor.getMapping().getHbaseClass().getRowkeyDefinition().getValueAttribute(), e);
 			return new byte[0];
 		}
 	}
@@ -704,7 +1156,7 @@ public class HBaseHandlerDelegate implements InitializingBean {
 			if (value instanceof byte[]) {
 				return (byte[]) value;
 			} else {
-				Serializer serializer = this.classNameToSerializerMap.get(value.getClass().getName());
+				Serializer serializer = this.serializerRegistry.getSerializer(value.getClass());
 				if (serializer != null) {
 					return serializer.toBytes(value);
 				} else {
@@ -720,20 +1172,51 @@ public class HBaseHandlerDelegate implements InitializingBean {
 	 * 
 	 * @param entity
 	 *            Entity whose attribute's value is being read
-	 * @param attribute
-	 *            Name of the attribute whose value is being read
+	 * @param accessor
+	 *            Accessor for the attribute whose value is being read
 	 * @return Object represent the value of the attribute
 	 */
-	private Object getAttribute(Object entity, String attribute) {
+	private Object getAttribute(Object entity, PropertyAccessor accessor) {
 		Object returnValue = null;
 		try {
-			returnValue = PropertyUtils.getProperty(entity, attribute);
+			returnValue = accessor.get(entity);
 		} catch (Exception e) {
-			LOGGER.error("Error reading attribute : '" + attribute + "' in class " + entity.getClass().getName(), e);
+			LOGGER.error("Error reading attribute : '" + accessor.getName() + "' in class " + entity.getClass().getName(), e);
 		}
 		return returnValue;
 	}
 
+	/**
+	 * Returns the accessor plan compiled by the HBaseMappingContainer for the specified mapping
+	 * 
+	 * @param metadata
+	 *            HBase table mapping definition
+	 * @return the HBaseEntityAccessor for the mapped entity class
+	 */
+	private HBaseEntityAccessor getAccessor(HbaseMapping metadata) {
+		return this.hbaseMappingContainer.getAccessorForClass(metadata.getHbaseClass().getName());
+	}
+
+	/**
+	 * Returns the codec for the composite row key of the specified accessor plan, creating one if required
+	 * 
+	 * @param accessor
+	 *            the accessor plan for a mapping that has a composite row key
+	 * @return the RowKeyCodec for the composite row key
+	 * @throws ConfigurationException
+	 *             in case the row key member encodings are not valid
+	 */
+	private RowKeyCodec getRowKeyCodec(HBaseEntityAccessor accessor) throws ConfigurationException {
+		String className = accessor.getMapping().getHbaseClass().getName();
+		RowKeyCodec codec = this.rowKeyCodecs.get(className);
+		if (codec == null) {
+			codec = new RowKeyCodec(accessor.getMapping().getHbaseClass().getRowkeyDefinition().getCompositeRowKey().getRowKeyMember(), 
+					accessor.getRowKeyMemberAccessors(), this.serializerRegistry);
+			this.rowKeyCodecs.put(className, codec);
+		}
+		return codec;
+	}
+
 	/** Getter/Setter methods */
 	public void setUseWAL(Boolean useWAL) {
 		this.useWAL = useWAL;
@@ -743,4 +1226,12 @@ public class HBaseHandlerDelegate implements InitializingBean {
 		this.useAutoFlush = useAutoFlush;
 	}
 
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
 }
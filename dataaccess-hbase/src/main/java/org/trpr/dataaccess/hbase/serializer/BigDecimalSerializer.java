@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase.serializer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.trpr.platform.core.spi.persistence.Serializer;
+
+/**
+ * Implementation of {@link}org.trpr.platform.core.spi.persistence.Serializer
+ * that specializes in serializing and de-serializing values of type {@link}java.math.BigDecimal.
+ * Values are written as the 4 byte scale followed by the minimal two's complement bytes of the unscaled value.
+ * @author Regunath B
+ *
+ */
+public class BigDecimalSerializer implements Serializer {
+
+	@Override
+	public byte[] toBytes(Object data) {
+		if (data instanceof BigDecimal) {
+			BigDecimal value = (BigDecimal) data;
+			return Bytes.add(Bytes.toBytes(value.scale()), value.unscaledValue().toByteArray());
+		} else {
+			throw new IllegalArgumentException("java.math.BigDecimal expected");
+		}
+	}
+
+	@Override
+	public BigDecimal toObject(byte[] dataBytes) {
+		int scale = Bytes.toInt(dataBytes);
+		return new BigDecimal(new BigInteger(Arrays.copyOfRange(dataBytes, Bytes.SIZEOF_INT, dataBytes.length)), scale);
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase.serializer;
+
+import org.trpr.platform.core.spi.persistence.Serializer;
+
+/**
+ * Implementation of {@link}org.trpr.platform.core.spi.persistence.Serializer 
+ * that specializes in serializing and de-serializing values of type {@link}java.lang.Byte. 
+ * @author Regunath B
+ *
+ */
+public class ByteSerializer implements Serializer {
+	
+	@Override
+	public byte[] toBytes(Object data) {
+		if (data instanceof Byte) {
+			return new byte[] {((Byte) data).byteValue()};
+		} else {
+			throw new IllegalArgumentException("java.lang.Byte expected");
+		}
+	}
+
+	@Override
+	public Byte toObject(byte[] dataBytes) {
+		return Byte.valueOf(dataBytes[0]);
+	}
+}
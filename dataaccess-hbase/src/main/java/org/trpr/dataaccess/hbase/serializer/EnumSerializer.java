@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase.serializer;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.trpr.platform.core.spi.persistence.Serializer;
+
+/**
+ * Implementation of {@link}org.trpr.platform.core.spi.persistence.Serializer
+ * that specializes in serializing and de-serializing constants of a {@link}java.lang.Enum type. Constants are written either as their name in UTF-8
+ * (the default, tolerates re-ordering of constants) or as their ordinal in a single byte (compact, for enums with at most 256 constants whose order
+ * does not change).
+ * @author Regunath B
+ *
+ */
+public class EnumSerializer<E extends Enum<E>> implements Serializer {
+
+	/** The enum type*/
+	private Class<E> enumType;
+
+	/** The enum constants, in the order of their ordinals*/
+	private E[] constants;
+
+	/** Flag to indicate constants are written as ordinals*/
+	private boolean useOrdinal;
+
+	/**
+	 * Constructor for this class. Writes constants by name
+	 * @param enumType the enum type
+	 */
+	public EnumSerializer(Class<E> enumType) {
+		this(enumType, false);
+	}
+
+	/**
+	 * Constructor for this class
+	 * @param enumType the enum type
+	 * @param useOrdinal true if constants are to be written as their ordinals, false to write names
+	 */
+	public EnumSerializer(Class<E> enumType, boolean useOrdinal) {
+		this.enumType = enumType;
+		this.constants = enumType.getEnumConstants();
+		if (useOrdinal && this.constants.length > 256) {
+			throw new IllegalArgumentException("Ordinal encoding is not supported for enums with more than 256 constants : " + enumType.getName());
+		}
+		this.useOrdinal = useOrdinal;
+	}
+
+	@Override
+	public byte[] toBytes(Object data) {
+		if (this.enumType.isInstance(data)) {
+			Enum<?> value = (Enum<?>) data;
+			return this.useOrdinal ? new byte[] {(byte) value.ordinal()} : Bytes.toBytes(value.name());
+		} else {
+			throw new IllegalArgumentException(this.enumType.getName() + " expected");
+		}
+	}
+
+	@Override
+	public E toObject(byte[] dataBytes) {
+		if (this.useOrdinal) {
+			return this.constants[dataBytes[0] & 0xFF];
+		}
+		return Enum.valueOf(this.enumType, Bytes.toString(dataBytes));
+	}
+}
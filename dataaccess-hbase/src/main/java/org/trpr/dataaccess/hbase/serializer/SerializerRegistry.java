@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase.serializer;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.util.ClassUtils;
+import org.trpr.platform.core.spi.persistence.Serializer;
+import org.trpr.platform.runtime.spi.config.ConfigurationException;
+
+/**
+ * The <code>SerializerRegistry</code> holds the {@link Serializer} instances used to convert attribute values to and from HBase bytes, keyed by
+ * the value type. Serializers are registered for the following types by default:
+ * <pre><ul>
+ * <li>java.lang.String, java.lang.Long, java.lang.Integer and java.util.Date - same encodings as in earlier versions</li>
+ * <li>java.lang.Short, java.lang.Byte, java.lang.Boolean, java.lang.Character, java.lang.Float, java.lang.Double and their primitive types</li>
+ * <li>java.math.BigDecimal and java.util.UUID</li>
+ * <li>enum types - written by name using an {@link EnumSerializer} created on first use</li>
+ * </ul></pre>
+ * Registered serializers override the defaults, for e.g. a {@link VarLongSerializer} may be registered for java.lang.Long. Lookups are on the exact
+ * value type, except for enum constants with constant specific class bodies that are looked up on their enum type.
+ *
+ * @author Regunath B
+ */
+public class SerializerRegistry {
+
+	/** The primitive types keyed by their wrapper types*/
+	private static final Map<Class<?>, Class<?>> PRIMITIVE_TYPES = new ConcurrentHashMap<Class<?>, Class<?>>();
+	static {
+		PRIMITIVE_TYPES.put(Long.class, long.class);
+		PRIMITIVE_TYPES.put(Integer.class, int.class);
+		PRIMITIVE_TYPES.put(Short.class, short.class);
+		PRIMITIVE_TYPES.put(Byte.class, byte.class);
+		PRIMITIVE_TYPES.put(Boolean.class, boolean.class);
+		PRIMITIVE_TYPES.put(Character.class, char.class);
+		PRIMITIVE_TYPES.put(Float.class, float.class);
+		PRIMITIVE_TYPES.put(Double.class, double.class);
+	}
+
+	/** The Serializer instances keyed by value type*/
+	private Map<Class<?>, Serializer> serializers = new ConcurrentHashMap<Class<?>, Serializer>();
+
+	/**
+	 * Constructor for this class. Registers the default serializers
+	 */
+	public SerializerRegistry() {
+		register(String.class, new StringSerializer());
+		register(Date.class, new DateSerializer());
+		register(BigDecimal.class, new BigDecimalSerializer());
+		register(UUID.class, new UUIDSerializer());
+		register(Long.class, new LongSerializer());
+		register(Integer.class, new IntegerSerializer());
+		register(Short.class, new ShortSerializer());
+		register(Byte.class, new ByteSerializer());
+		register(Boolean.class, new BooleanSerializer());
+		register(Character.class, new CharacterSerializer());
+		register(Float.class, new FloatSerializer());
+		register(Double.class, new DoubleSerializer());
+	}
+
+	/**
+	 * Registers the specified Serializer for the specified type, replacing the Serializer registered earlier, if any. Serializers registered for
+	 * wrapper types of primitives are also used for the primitive type
+	 * @param type the value type
+	 * @param serializer the Serializer for values of the type
+	 */
+	public void register(Class<?> type, Serializer serializer) {
+		this.serializers.put(type, serializer);
+		Class<?> primitiveType = PRIMITIVE_TYPES.get(type);
+		if (primitiveType != null) {
+			this.serializers.put(primitiveType, serializer);
+		}
+	}
+
+	/**
+	 * Registers the specified Serializer instances keyed by class name. Names are resolved using the thread context class loader
+	 * @param classNameToSerializerMap map containing class names and their serializers
+	 * @throws ConfigurationException in case a class name cannot be resolved
+	 */
+	public void register(Map<String, Serializer> classNameToSerializerMap) throws ConfigurationException {
+		for (Map.Entry<String, Serializer> entry : classNameToSerializerMap.entrySet()) {
+			Class<?> type;
+			try {
+				type = ClassUtils.forName(entry.getKey(), ClassUtils.getDefaultClassLoader());
+			} catch (Exception e) {
+				throw new ConfigurationException("Error loading class for serializer : " + entry.getKey(), e);
+			} catch (LinkageError e) {
+				throw new ConfigurationException("Error loading class for serializer : " + entry.getKey(), e);
+			}
+			register(type, entry.getValue());
+		}
+	}
+
+	/**
+	 * Returns the Serializer for values of the specified type
+	 * @param type the value type
+	 * @return the Serializer for the type or null if none is registered
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Serializer getSerializer(Class<?> type) {
+		Serializer serializer = this.serializers.get(type);
+		if (serializer == null && Enum.class.isAssignableFrom(type)) {
+			Class<?> enumType = type.isEnum() ? type : type.getSuperclass();
+			serializer = this.serializers.get(enumType);
+			if (serializer == null) {
+				serializer = new EnumSerializer(enumType);
+				this.serializers.put(enumType, serializer);
+			}
+			if (enumType != type) {
+				this.serializers.put(type, serializer);
+			}
+		}
+		return serializer;
+	}
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase.serializer;
+
+import java.util.UUID;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.trpr.platform.core.spi.persistence.Serializer;
+
+/**
+ * Implementation of {@link}org.trpr.platform.core.spi.persistence.Serializer
+ * that specializes in serializing and de-serializing values of type {@link}java.util.UUID.
+ * Values are written as 16 bytes, the most significant bits followed by the least significant bits.
+ * @author Regunath B
+ *
+ */
+public class UUIDSerializer implements Serializer {
+
+	@Override
+	public byte[] toBytes(Object data) {
+		if (data instanceof UUID) {
+			UUID value = (UUID) data;
+			byte[] bytes = new byte[2 * Bytes.SIZEOF_LONG];
+			Bytes.putLong(bytes, 0, value.getMostSignificantBits());
+			Bytes.putLong(bytes, Bytes.SIZEOF_LONG, value.getLeastSignificantBits());
+			return bytes;
+		} else {
+			throw new IllegalArgumentException("java.util.UUID expected");
+		}
+	}
+
+	@Override
+	public UUID toObject(byte[] dataBytes) {
+		return new UUID(Bytes.toLong(dataBytes, 0), Bytes.toLong(dataBytes, Bytes.SIZEOF_LONG));
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase.serializer;
+
+import org.trpr.platform.core.spi.persistence.Serializer;
+
+/**
+ * Implementation of {@link}org.trpr.platform.core.spi.persistence.Serializer
+ * that serializes values of type {@link}java.lang.Long as variable length integers. Values are zig-zag encoded so that numbers of small magnitude,
+ * positive or negative, take fewer bytes and are then written 7 bits at a time, least significant group first, with the high bit of each byte set
+ * if more bytes follow. Values take between 1 and 10 bytes.
+ *
+ * This encoding is not compatible with the 8 byte encoding of {@link LongSerializer} and is therefore not registered by default. It may be registered
+ * for java.lang.Long in a {@link SerializerRegistry} when there is no existing data written using {@link LongSerializer}.
+ * @author Regunath B
+ *
+ */
+public class VarLongSerializer implements Serializer {
+
+	/** The max number of bytes of an encoded value*/
+	private static final int MAX_LENGTH = 10;
+
+	@Override
+	public byte[] toBytes(Object data) {
+		if (data instanceof Long) {
+			long value = ((Long) data).longValue();
+			value = (value << 1) ^ (value >> 63);
+			byte[] buffer = new byte[MAX_LENGTH];
+			int length = 0;
+			while ((value & ~0x7FL) != 0) {
+				buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			buffer[length++] = (byte) value;
+			byte[] bytes = new byte[length];
+			System.arraycopy(buffer, 0, bytes, 0, length);
+			return bytes;
+		} else {
+			throw new IllegalArgumentException("java.lang.Long expected");
+		}
+	}
+
+	@Override
+	public Long toObject(byte[] dataBytes) {
+		long value = 0;
+		for (int i = 0, shift = 0; i < dataBytes.length && i < MAX_LENGTH; i++, shift += 7) {
+			value |= (long) (dataBytes[i] & 0x7F) << shift;
+			if ((dataBytes[i] & 0x80) == 0) {
+				return Long.valueOf((value >>> 1) ^ -(value & 1));
+			}
+		}
+		throw new IllegalArgumentException("Malformed variable length long of length : " + dataBytes.length);
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase.util;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * A {@link ByteArrayProcessor} that compresses byte arrays using the JDK deflate implementation. Compressed values are prefixed with a header
+ * comprising of a 2 byte marker, the compression method and the 4 byte length of the uncompressed value. The header allows {@link #decode(byte[])}
+ * to pass through values that were not compressed. Values shorter than {@link #getMinCompressLength()} and values that do not compress to a smaller size are stored as-is,
+ * unless they happen to begin with the marker in which case they are stored with a header and no compression.
+ *
+ * Deflater and Inflater instances are reused per thread. The default compression level is {@link Deflater#BEST_SPEED}, which favours speed over
+ * compression ratio.
+ *
+ * @author Regunath B
+ */
+public class CompressionProcessor extends ByteArrayProcessor {
+
+	/** The marker bytes, followed by the compression method*/
+	private static final byte[] MARKER = {(byte) 0xCF, (byte) 0x5A};
+	private static final byte METHOD_STORED = 0;
+	private static final byte METHOD_DEFLATE = 1;
+
+	/** The length of the header*/
+	private static final int HEADER_LENGTH = MARKER.length + 1 + Bytes.SIZEOF_INT;
+
+	/** The default min length of values that are compressed*/
+	public static final int DEFAULT_MIN_COMPRESS_LENGTH = 64;
+
+	/** The min length of values that are compressed*/
+	private int minCompressLength = DEFAULT_MIN_COMPRESS_LENGTH;
+
+	/** The compression level*/
+	private int compressionLevel = Deflater.BEST_SPEED;
+
+	/** The per thread Deflater and Inflater instances*/
+	private ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>() {
+		protected Deflater initialValue() {
+			return new Deflater(compressionLevel, true);
+		}
+	};
+	private ThreadLocal<Inflater> inflaters = new ThreadLocal<Inflater>() {
+		protected Inflater initialValue() {
+			return new Inflater(true);
+		}
+	};
+
+	/**
+	 * Abstract method implementation. Compresses the input if it is long enough and compressible
+	 * @see org.trpr.dataaccess.hbase.util.ByteArrayProcessor#_encode(byte[])
+	 */
+	protected byte[] _encode(byte[] input) throws RuntimeException {
+		boolean marked = isMarked(input);
+		if (input.length >= this.minCompressLength) {
+			Deflater deflater = this.deflaters.get();
+			deflater.reset();
+			deflater.setInput(input);
+			deflater.finish();
+			// compressed output larger than the input is of no use
+			byte[] output = new byte[HEADER_LENGTH + input.length];
+			int length = HEADER_LENGTH;
+			while (!deflater.finished() && length < output.length) {
+				length += deflater.deflate(output, length, output.length - length);
+			}
+			if (deflater.finished() && length < input.length) {
+				writeHeader(output, METHOD_DEFLATE, input.length);
+				byte[] compressed = new byte[length];
+				System.arraycopy(output, 0, compressed, 0, length);
+				return compressed;
+			}
+		}
+		if (marked) {
+			byte[] output = new byte[HEADER_LENGTH + input.length];
+			writeHeader(output, METHOD_STORED, input.length);
+			System.arraycopy(input, 0, output, HEADER_LENGTH, input.length);
+			return output;
+		}
+		return input;
+	}
+
+	/**
+	 * Abstract method implementation. Decompresses the input if it has the header written by {@link #_encode(byte[])}
+	 * @see org.trpr.dataaccess.hbase.util.ByteArrayProcessor#_decode(byte[])
+	 */
+	protected byte[] _decode(byte[] input) throws RuntimeException {
+		if (!isMarked(input)) {
+			return input;
+		}
+		byte method = input[MARKER.length];
+		int length = Bytes.toInt(input, MARKER.length + 1);
+		byte[] output = new byte[length];
+		if (method == METHOD_STORED) {
+			System.arraycopy(input, HEADER_LENGTH, output, 0, length);
+			return output;
+		}
+		Inflater inflater = this.inflaters.get();
+		inflater.reset();
+		inflater.setInput(input, HEADER_LENGTH, input.length - HEADER_LENGTH);
+		try {
+			int read = 0;
+			while (read < length) {
+				int count = inflater.inflate(output, read, length - read);
+				if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+					break;
+				}
+				read += count;
+			}
+			if (read != length) {
+				throw new IllegalArgumentException("Compressed value is truncated. Expected length : " + length + " , actual : " + read);
+			}
+		} catch (DataFormatException e) {
+			throw new IllegalArgumentException("Error decompressing value : " + e.getMessage(), e);
+		}
+		return output;
+	}
+
+	/**
+	 * Helper method to check if the specified value begins with a valid header
+	 */
+	private boolean isMarked(byte[] input) {
+		if (input.length < HEADER_LENGTH || input[0] != MARKER[0] || input[1] != MARKER[1]) {
+			return false;
+		}
+		int length = Bytes.toInt(input, MARKER.length + 1);
+		if (input[MARKER.length] == METHOD_STORED) {
+			return length == input.length - HEADER_LENGTH;
+		}
+		return input[MARKER.length] == METHOD_DEFLATE && length > input.length - HEADER_LENGTH;
+	}
+
+	/**
+	 * Helper method to write the header
+	 */
+	private void writeHeader(byte[] output, byte method, int length) {
+		System.arraycopy(MARKER, 0, output, 0, MARKER.length);
+		output[MARKER.length] = method;
+		Bytes.putInt(output, MARKER.length + 1, length);
+	}
+
+	/** Getter/Setter methods */
+	public int getMinCompressLength() {
+		return this.minCompressLength;
+	}
+	public void setMinCompressLength(int minCompressLength) {
+		this.minCompressLength = minCompressLength;
+	}
+	public int getCompressionLevel() {
+		return this.compressionLevel;
+	}
+	public void setCompressionLevel(int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+}
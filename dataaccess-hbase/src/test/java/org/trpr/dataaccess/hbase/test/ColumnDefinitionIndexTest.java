@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase.test;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+import org.trpr.dataaccess.hbase.mappings.config.ColumnDefinitionIndex;
+import org.trpr.dataaccess.hbase.model.config.ColumnDefinition;
+
+/**
+ * Test class for {@link ColumnDefinitionIndex}
+ * 
+ * @author Regunath B
+ */
+public class ColumnDefinitionIndexTest {
+
+	/**
+	 * Tests look up of columns with fixed qualifiers, including families that share a hash bucket
+	 */
+	@Test
+	public void testExactMatch() {
+		List<ColumnDefinition> columnDefinitions = new ArrayList<ColumnDefinition>();
+		for (int i = 0; i < 40; i++) {
+			columnDefinitions.add(createColumnDefinition("family" + i, "name"));
+			columnDefinitions.add(createColumnDefinition("family" + i, "age"));
+		}
+		ColumnDefinitionIndex index = new ColumnDefinitionIndex(columnDefinitions);
+		for (int i = 0; i < 40; i++) {
+			assertSame(columnDefinitions.get(2 * i), find(index, "family" + i, "name"));
+			assertSame(columnDefinitions.get(2 * i + 1), find(index, "family" + i, "age"));
+		}
+		assertNull(find(index, "family0", "nam"));
+		assertNull(find(index, "family0", "address"));
+		assertNull(find(index, "unknown", "name"));
+	}
+
+	/**
+	 * Tests that a qualifier matches the definition whose fixed qualifier part is a prefix of it, and that the first declared definition is 
+	 * returned when more than one matches
+	 */
+	@Test
+	public void testPrefixMatch() {
+		ColumnDefinition address = createColumnDefinition("cf", "addr_");
+		ColumnDefinition any = createColumnDefinition("cf", null);
+		ColumnDefinition phone = createColumnDefinition("cf", "phone");
+		ColumnDefinitionIndex index = new ColumnDefinitionIndex(Arrays.asList(address, any, phone));
+		assertSame(address, find(index, "cf", "addr_home"));
+		assertSame(address, find(index, "cf", "addr_"));
+		assertSame(any, find(index, "cf", "addr"));
+		assertSame(any, find(index, "cf", "phone"));
+		assertSame(any, find(index, "cf", ""));
+		// declared in the other order, the more specific definitions match first
+		index = new ColumnDefinitionIndex(Arrays.asList(phone, address, any));
+		assertSame(phone, find(index, "cf", "phone"));
+		assertSame(address, find(index, "cf", "addr_work"));
+		assertSame(any, find(index, "cf", "email"));
+	}
+
+	/**
+	 * Tests that the first declared definition is retained for duplicate qualifiers
+	 */
+	@Test
+	public void testDuplicateQualifier() {
+		ColumnDefinition first = createColumnDefinition("cf", "name");
+		ColumnDefinition second = createColumnDefinition("cf", "name");
+		assertSame(first, find(new ColumnDefinitionIndex(Arrays.asList(first, second)), "cf", "name"));
+	}
+
+	/**
+	 * Helper method to look up the specified family and qualifier, embedded in a buffer at non-zero offsets like in the backing array of a KeyValue
+	 */
+	private ColumnDefinition find(ColumnDefinitionIndex index, String family, String qualifier) {
+		byte[] buffer = Bytes.add(Bytes.toBytes("row"), Bytes.toBytes(family), Bytes.add(Bytes.toBytes(qualifier), Bytes.toBytes("value")));
+		return index.find(buffer, 3, family.length(), 3 + family.length(), qualifier.length());
+	}
+
+	/**
+	 * Helper method to create a column definition
+	 */
+	private ColumnDefinition createColumnDefinition(String family, String qualifier) {
+		ColumnDefinition columnDefinition = new ColumnDefinition();
+		columnDefinition.setColumnFamily(family);
+		columnDefinition.setColumnQualifier(qualifier);
+		columnDefinition.setValueAttribute("value");
+		columnDefinition.setValueType("java.lang.String");
+		return columnDefinition;
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Before;
+import org.junit.Test;
+import org.trpr.dataaccess.hbase.util.CompressionProcessor;
+
+/**
+ * Test class for {@link CompressionProcessor}
+ * 
+ * @author Regunath B
+ */
+public class CompressionProcessorTest {
+
+	/** The marker bytes that prefix values written with a header*/
+	private static final byte[] MARKER = {(byte) 0xCF, (byte) 0x5A};
+
+	/** The processor under test*/
+	private CompressionProcessor processor;
+
+	/**
+	 * Creates an enabled processor
+	 */
+	@Before
+	public void setUp() {
+		this.processor = new CompressionProcessor();
+		this.processor.setEnabled(true);
+	}
+
+	/**
+	 * Tests that compressible values are compressed and decode to the original value
+	 */
+	@Test
+	public void testCompressibleRoundTrip() {
+		byte[] value = Bytes.toBytes(repeat("compressible value ", 100));
+		byte[] encoded = this.processor.encode(value);
+		assertTrue("Value was not compressed", encoded.length < value.length);
+		assertArrayEquals(value, this.processor.decode(encoded));
+	}
+
+	/**
+	 * Tests that short and incompressible values are stored as-is
+	 */
+	@Test
+	public void testStoredAsIs() {
+		byte[] shortValue = Bytes.toBytes("short");
+		assertSame(shortValue, this.processor.encode(shortValue));
+		assertSame(shortValue, this.processor.decode(shortValue));
+		byte[] randomValue = randomBytes(1024);
+		byte[] encoded = this.processor.encode(randomValue);
+		assertArrayEquals(randomValue, encoded);
+		assertArrayEquals(randomValue, this.processor.decode(encoded));
+	}
+
+	/**
+	 * Tests that values beginning with the marker bytes round trip, whether compressed or not
+	 */
+	@Test
+	public void testMarkedValuesRoundTrip() {
+		for (byte[] suffix : new byte[][] {new byte[0], Bytes.toBytes("ab"), randomBytes(1024), Bytes.toBytes(repeat("x", 1024))}) {
+			byte[] value = Bytes.add(MARKER, suffix);
+			assertArrayEquals(value, this.processor.decode(this.processor.encode(value)));
+		}
+		// a value that looks like a stored header
+		byte[] value = Bytes.add(MARKER, new byte[] {0}, Bytes.add(Bytes.toBytes(2), Bytes.toBytes("ab")));
+		assertArrayEquals(value, this.processor.decode(this.processor.encode(value)));
+	}
+
+	/**
+	 * Tests that values compressed earlier are decoded when the processor is disabled
+	 */
+	@Test
+	public void testDecodeWhenDisabled() {
+		byte[] value = Bytes.toBytes(repeat("compressible value ", 100));
+		byte[] encoded = this.processor.encode(value);
+		this.processor.setEnabled(false);
+		assertSame(value, this.processor.encode(value));
+		assertArrayEquals(value, this.processor.decode(encoded));
+	}
+
+	/**
+	 * Tests that truncated compressed values are rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testTruncatedValueRejected() {
+		byte[] encoded = this.processor.encode(Bytes.toBytes(repeat("compressible value ", 100)));
+		this.processor.decode(Arrays.copyOf(encoded, encoded.length - 4));
+	}
+
+	/**
+	 * Helper method to repeat the specified string the specified number of times
+	 */
+	private String repeat(String string, int count) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			builder.append(string);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Helper method to create random i.e. incompressible bytes
+	 */
+	private byte[] randomBytes(int length) {
+		byte[] bytes = new byte[length];
+		new Random(length).nextBytes(bytes);
+		return bytes;
+	}
+
+}
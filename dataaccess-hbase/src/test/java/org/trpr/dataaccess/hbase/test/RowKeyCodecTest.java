@@ -0,0 +1,212 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.hbase.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+import org.trpr.dataaccess.hbase.mappings.config.PropertyAccessor;
+import org.trpr.dataaccess.hbase.mappings.config.RowKeyCodec;
+import org.trpr.dataaccess.hbase.model.config.RowKeyMember;
+import org.trpr.dataaccess.hbase.serializer.SerializerRegistry;
+import org.trpr.platform.runtime.spi.config.ConfigurationException;
+
+/**
+ * Test class for {@link RowKeyCodec}
+ * 
+ * @author Regunath B
+ */
+public class RowKeyCodecTest {
+
+	/** Member values in ascending order*/
+	private static final Integer[] INTEGERS = {Integer.MIN_VALUE, -100, -1, 0, 1, 100, Integer.MAX_VALUE};
+	private static final Long[] LONGS = {Long.MIN_VALUE, -1L, 0L, 1L, Long.MAX_VALUE};
+	private static final String[] STRINGS = {"", "a", "ab", "abc", "b"};
+
+	/**
+	 * Tests that byte-wise order of encoded keys matches the order of member values, for each combination of member values
+	 */
+	@Test
+	public void testSortableEncodingPreservesOrder() throws Exception {
+		RowKeyCodec codec = createCodec(RowKeyCodec.ENCODING_SORTABLE, 0);
+		List<byte[]> rowKeys = new ArrayList<byte[]>();
+		for (Integer intValue : INTEGERS) {
+			for (Long longValue : LONGS) {
+				for (String stringValue : STRINGS) {
+					rowKeys.add(codec.encode(new KeyEntity(intValue, longValue, new Date(longValue), stringValue)));
+				}
+			}
+		}
+		for (int i = 1; i < rowKeys.size(); i++) {
+			assertTrue("Row key at : " + i + " does not sort after the previous key", Bytes.compareTo(rowKeys.get(i - 1), rowKeys.get(i)) < 0);
+		}
+	}
+
+	/**
+	 * Tests that fixed and variable length sortable keys decode to the encoded values
+	 */
+	@Test
+	public void testSortableEncodingRoundTrip() throws Exception {
+		for (int stringLength : new int[] {0, 8}) {
+			RowKeyCodec codec = createCodec(RowKeyCodec.ENCODING_SORTABLE, stringLength);
+			for (Integer intValue : INTEGERS) {
+				KeyEntity entity = new KeyEntity(intValue, -intValue.longValue(), new Date(intValue), "key" + intValue % 1000);
+				byte[] rowKey = codec.encode(entity);
+				if (stringLength > 0) {
+					assertEquals(codec.getFixedLength(), rowKey.length);
+				}
+				KeyEntity decoded = new KeyEntity();
+				codec.decode(rowKey, decoded);
+				assertEquals(entity, decoded);
+			}
+		}
+	}
+
+	/**
+	 * Tests that keys with default encoding decode to the encoded values
+	 */
+	@Test
+	public void testDefaultEncodingRoundTrip() throws Exception {
+		RowKeyCodec codec = createCodec(RowKeyCodec.ENCODING_DEFAULT, 8);
+		KeyEntity entity = new KeyEntity(-42, 42L, new Date(), "12345678");
+		byte[] rowKey = codec.encode(entity);
+		assertArrayEquals(Bytes.add(Bytes.add(Bytes.toBytes(-42), Bytes.toBytes(42L)), Bytes.add(Bytes.toBytes(entity.getCreated().getTime()), 
+				Bytes.toBytes("12345678"))), rowKey);
+		KeyEntity decoded = new KeyEntity();
+		codec.decode(rowKey, decoded);
+		assertEquals(entity, decoded);
+	}
+
+	/**
+	 * Tests that null values of sortable members are rejected
+	 */
+	@Test(expected = ConfigurationException.class)
+	public void testSortableNullRejected() throws Exception {
+		createCodec(RowKeyCodec.ENCODING_SORTABLE, 0).encode(new KeyEntity(null, 1L, new Date(), "a"));
+	}
+
+	/**
+	 * Tests that sortable string values containing the zero character are rejected, for fixed and variable length members
+	 */
+	@Test
+	public void testSortableZeroCharacterRejected() throws Exception {
+		for (int stringLength : new int[] {0, 8}) {
+			try {
+				createCodec(RowKeyCodec.ENCODING_SORTABLE, stringLength).encode(new KeyEntity(1, 1L, new Date(), "a\0b"));
+				fail("Expected ConfigurationException for string member length : " + stringLength);
+			} catch (ConfigurationException e) {
+				// expected
+			}
+		}
+	}
+
+	/**
+	 * Tests that sortable string values longer than the member length are rejected
+	 */
+	@Test(expected = ConfigurationException.class)
+	public void testSortableOverlongStringRejected() throws Exception {
+		createCodec(RowKeyCodec.ENCODING_SORTABLE, 2).encode(new KeyEntity(1, 1L, new Date(), "abc"));
+	}
+
+	/**
+	 * Helper method to create a codec for the members of {@link KeyEntity} using the specified encoding and string member length
+	 */
+	private RowKeyCodec createCodec(String encoding, int stringLength) throws ConfigurationException {
+		KeyEntity prototype = new KeyEntity();
+		List<RowKeyMember> members = Arrays.asList(createMember("id", "java.lang.Integer", 4, encoding), createMember("sequence", "java.lang.Long", 8, encoding), 
+				createMember("created", "java.util.Date", 8, encoding), createMember("name", "java.lang.String", stringLength, encoding));
+		PropertyAccessor[] accessors = new PropertyAccessor[members.size()];
+		for (int i = 0; i < accessors.length; i++) {
+			accessors[i] = new PropertyAccessor(prototype, members.get(i).getValueAttribute());
+		}
+		return new RowKeyCodec(members, accessors, new SerializerRegistry());
+	}
+
+	/**
+	 * Helper method to create a row key member
+	 */
+	private RowKeyMember createMember(String attribute, String type, int length, String encoding) {
+		RowKeyMember member = new RowKeyMember();
+		member.setValueAttribute(attribute);
+		member.setValueType(type);
+		member.setValueLength(length);
+		member.setEncoding(encoding);
+		return member;
+	}
+
+	/**
+	 * Entity with composite row key members
+	 */
+	public static class KeyEntity {
+		private Integer id;
+		private Long sequence;
+		private Date created;
+		private String name;
+		public KeyEntity() {
+		}
+		KeyEntity(Integer id, Long sequence, Date created, String name) {
+			this.id = id;
+			this.sequence = sequence;
+			this.created = created;
+			this.name = name;
+		}
+		public boolean equals(Object object) {
+			KeyEntity other = (KeyEntity)object;
+			return this.id.equals(other.id) && this.sequence.equals(other.sequence) && this.created.equals(other.created) && this.name.equals(other.name);
+		}
+		public int hashCode() {
+			return this.id.hashCode();
+		}
+		public String toString() {
+			return this.id + ":" + this.sequence + ":" + this.created.getTime() + ":" + this.name;
+		}
+		/** Getter/Setter methods*/
+		public Integer getId() {
+			return this.id;
+		}
+		public void setId(Integer id) {
+			this.id = id;
+		}
+		public Long getSequence() {
+			return this.sequence;
+		}
+		public void setSequence(Long sequence) {
+			this.sequence = sequence;
+		}
+		public Date getCreated() {
+			return this.created;
+		}
+		public void setCreated(Date created) {
+			this.created = created;
+		}
+		public String getName() {
+			return this.name;
+		}
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+}
@@ -17,16 +17,30 @@
 package org.trpr.dataaccess.orm.handler;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.sql.DataSource;
 
+import org.hibernate.CacheMode;
 import org.hibernate.HibernateException;
 import org.hibernate.Query;
-import org.hibernate.SQLQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.SessionImplementor;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jmx.export.annotation.ManagedResource;
@@ -34,12 +48,17 @@ import org.springframework.orm.hibernate3.HibernateCallback;
 import org.springframework.orm.hibernate3.HibernateTemplate;
 import org.springframework.orm.hibernate3.SessionFactoryUtils;
 import org.trpr.dataaccess.RDBMSHandler;
+import org.trpr.dataaccess.orm.ShardRoutingDataSource;
 import org.trpr.platform.core.spi.logging.PerformanceMetricsLogger;
+import org.trpr.platform.core.spi.persistence.BatchPersistenceHandler;
 import org.trpr.platform.core.spi.persistence.Criteria;
+import org.trpr.platform.core.spi.persistence.EntityCursor;
 import org.trpr.platform.core.spi.persistence.IncorrectResultSizePersistenceException;
 import org.trpr.platform.core.spi.persistence.PersistenceException;
 import org.trpr.platform.core.spi.persistence.PersistenceHandler;
 import org.trpr.platform.core.spi.persistence.PersistentEntity;
+import org.trpr.platform.core.spi.persistence.PreparedCriteria;
+import org.trpr.platform.core.spi.persistence.StreamingPersistenceHandler;
 
 /**
  * The <code>HibernateHandler</code> is a sub-type of {@link RDBMSHandler} that uses Hibernate as the persistence framework.
@@ -47,16 +66,50 @@ import org.trpr.platform.core.spi.persistence.PersistentEntity;
  * 
  * This class is also instrumented to log performance metrics using the platform-core {@link PerformanceMetricsLogger}
  * 
+ * Queries of {@link PreparedCriteria} are always executed on a Hibernate {@link Query} created by this handler. The named parameters declared by each
+ * query string are cached when the query is first executed. Queries that use JDBC style positional parameters (i.e. '?') have the parameter values of 
+ * the PreparedCriteria bound by position, in the declared order. Queries that use named parameters have each value bound to the name declared at its
+ * position, after checking that the declared names are the ones of the query. The fetch size and read-only hints of the PreparedCriteria are applied 
+ * to the Query.
+ * 
+ * Arrays of entities are written one entity at a time, as with {@link #makePersistent(PersistentEntity)} and {@link #makeTransient(PersistentEntity)},
+ * unless bulk writes are enabled using {@link #setBatchWriteEnabled(boolean)}. Bulk writes use a Hibernate {@link StatelessSession} opened on the
+ * JDBC connection of the current Session, i.e. within the current transaction and on the {@link ShardRoutingDataSource} target of the current shard. 
+ * Entities are ordered so that inserts, updates and deletes of each entity type are contiguous and the JDBC batch is executed every 
+ * {@link #getBatchWriteSize()} entities. The SessionFactory must be configured with "hibernate.jdbc.batch_size" for statements to be batched by the 
+ * JDBC driver. Entities are inserted if Hibernate identifies them as transient using the identifier unsaved-value or version, and updated if identified
+ * as detached. Entities whose state Hibernate cannot determine, for e.g. ones with assigned identifiers and no version, are saved or updated using the 
+ * current Session instead. Note that bulk writes bypass Hibernate interceptors, events, cascades and the second level cache and must therefore be
+ * enabled only for entity types that do not rely on these.
+ * 
  * @author Ashok Ayengar, Raja S, Regunath B
  * @version 1.0, 24/05/2012
  */
 @ManagedResource(objectName = "spring.application:type=Trooper,application=Performance-Metrics,name=HibernateMetrics-", description = "Hibernate Performance Metrics Logger")
-public class HibernateHandler extends RDBMSHandler {
+public class HibernateHandler extends RDBMSHandler implements BatchPersistenceHandler, StreamingPersistenceHandler {
+
+	/** The default number of entities written per JDBC batch*/
+	public static final int DEFAULT_BATCH_WRITE_SIZE = 50;
+	
+	/** The default number of rows fetched per round trip by streaming queries*/
+	public static final int DEFAULT_STREAM_FETCH_SIZE = 100;
 
 	/**
 	 * Hibernate Template to provide the hibernate API.
 	 */
 	private HibernateTemplate template;
+	
+	/** The named parameters declared by queries, keyed by query type and query string. Empty for queries with positional parameters*/
+	private ConcurrentMap<String, Set<String>> queryParameterNames = new ConcurrentHashMap<String, Set<String>>();
+	
+	/** Flag to indicate that arrays of entities are written in bulk using a StatelessSession*/
+	private boolean batchWriteEnabled;
+	
+	/** The number of entities written per JDBC batch in bulk writes*/
+	private int batchWriteSize = DEFAULT_BATCH_WRITE_SIZE;
+	
+	/** The number of rows fetched per round trip by streaming queries*/
+	private int streamFetchSize = DEFAULT_STREAM_FETCH_SIZE;
 
 	/**
 	 * No arg constructor.
@@ -78,30 +131,10 @@ public class HibernateHandler extends RDBMSHandler {
 		}
 		Collection<PersistentEntity> results = new LinkedList<PersistentEntity>(); // create an empty list
 		
-		if (criteria.getMaxResults() > 0) {
+		if (criteria.getMaxResults() > 0 || criteria instanceof PreparedCriteria) {
 			results = (Collection<PersistentEntity>) this.getTemplate().execute(new HibernateCallback<List<PersistentEntity>>(){
 				public List<PersistentEntity> doInHibernate(Session session) throws HibernateException, SQLException { 
-					Query query = null;
-					if(Criteria.NAMED_QUERY == criteria.getQueryType()){
-						query = session.getNamedQuery(criteria.getQuery()); 
-					}else{
-						query = session.createQuery(criteria.getQuery());
-					}
-					query.setFirstResult(criteria.getFirstResult());
-					query.setMaxResults(criteria.getMaxResults());
-
-					for(String paramKey : criteria.getParamsMap().keySet()) {
-						if (criteria.getParamsMap().get(paramKey) instanceof Collection) {
-							query.setParameterList(paramKey, (Collection<Object>)criteria.getParamsMap().get(paramKey));
-						}
-						else if (criteria.getParamsMap().get(paramKey) instanceof Object[]) {
-							query.setParameterList(paramKey, (Object[])criteria.getParamsMap().get(paramKey));
-						}
-						else {
-							query.setParameter(paramKey, criteria.getParamsMap().get(paramKey));
-						}
-					}
-					List<PersistentEntity> result = query.list();
+					List<PersistentEntity> result = createQuery(session, criteria).list();
 					return result;
 				}
 			});
@@ -119,6 +152,44 @@ public class HibernateHandler extends RDBMSHandler {
 		return results;
 	}
 
+	/**
+	 * Interface method implementation. Opens a new Session and a read-only transaction for the cursor, and scrolls through the results of the query 
+	 * forward-only. Entities are loaded read-only and bypass the second level cache. The returned cursor evicts each entity from the Session when
+	 * advanced past it, so memory does not grow with the number of results. Note that some JDBC drivers need a specific fetch size, or a 
+	 * transaction, in order to not buffer the entire result set - for e.g. the MySQL driver streams rows only for a fetch size of Integer.MIN_VALUE.
+	 * See {@link #setStreamFetchSize(int)}.
+	 * @see StreamingPersistenceHandler#streamEntities(Criteria)
+	 */
+	public EntityCursor streamEntities(Criteria criteria) throws PersistenceException {
+		// signal performance metrics capture. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
+		this.performanceMetricsLogger.startPerformanceMetricsCapture();
+		// the connection is acquired when the transaction begins i.e. from the data source of the shard set in the current context 
+		Session session = this.getTemplate().getSessionFactory().openSession();
+		Transaction transaction = null;
+		try {
+			transaction = session.beginTransaction();
+			Query query = createQuery(session, criteria);
+			query.setFetchSize(this.streamFetchSize);
+			query.setReadOnly(true);
+			query.setCacheMode(CacheMode.IGNORE);
+			// apply the hints of a PreparedCriteria again as the defaults above override them
+			if (criteria instanceof PreparedCriteria && ((PreparedCriteria)criteria).getFetchSize() > 0) {
+				query.setFetchSize(((PreparedCriteria)criteria).getFetchSize());
+			}
+			ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+			// log performance metrics captured. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
+			this.performanceMetricsLogger.logPerformanceMetrics("HibernateHandler.streamEntities", criteria.toConciseString());
+			return new ScrollableResultsEntityCursor(session, transaction, results);
+		} catch (HibernateException e) {
+			ScrollableResultsEntityCursor.release(session, transaction);
+			throw new PersistenceException("Error opening cursor for query : " + criteria.toConciseString(), 
+					SessionFactoryUtils.convertHibernateAccessException(e));
+		} catch (RuntimeException e) {
+			ScrollableResultsEntityCursor.release(session, transaction);
+			throw e;
+		}
+	}
+
 	/**
 	 * Interface method implementation
 	 * @see PersistenceHandler#findEntity(Criteria)
@@ -210,6 +281,79 @@ public class HibernateHandler extends RDBMSHandler {
 		this.performanceMetricsLogger.logPerformanceMetrics("HibernateHandler.makeTransient", entity.getEntityName() + ":" + entity.getIdentifier().toString());		
 	}
 
+	/**
+	 * Interface method implementation. Inserts or updates the specified entities in bulk using a StatelessSession if bulk writes are enabled,
+	 * one entity at a time otherwise
+	 * @see BatchPersistenceHandler#makePersistent(PersistentEntity[])
+	 */
+	public PersistentEntity[] makePersistent(final PersistentEntity[] entities) throws PersistenceException {
+		if (!this.batchWriteEnabled) {
+			PersistentEntity[] persistedEntities = new PersistentEntity[entities.length];
+			for (int i = 0; i < entities.length; i++) {
+				persistedEntities[i] = makePersistent(entities[i]);
+			}
+			return persistedEntities;
+		}
+		// signal performance metrics capture. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
+		this.performanceMetricsLogger.startPerformanceMetricsCapture();
+		try {
+			this.template.execute(new HibernateCallback<Object>() {
+				public Object doInHibernate(Session session) throws HibernateException, SQLException {
+					writeBatch(session, entities, false);
+					return null;
+				}
+			});
+		} catch(DataIntegrityViolationException die){
+			throw new org.trpr.platform.core.spi.persistence.DataIntegrityViolationException(
+					"Data integrity violation in bulk persist of " + entities.length + " entities", die);
+		} catch (DataAccessException de) {
+			throw new PersistenceException("Persistence failure in bulk persist of " + entities.length + " entities", de);
+		}
+		// log performance metrics captured. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
+		this.performanceMetricsLogger.logPerformanceMetrics("HibernateHandler.makePersistent[]", String.valueOf(entities.length));
+		return entities;
+	}
+
+	/**
+	 * Interface method implementation. Deletes the specified entities in bulk using a StatelessSession if bulk writes are enabled, one entity at 
+	 * a time otherwise
+	 * @see BatchPersistenceHandler#makeTransient(PersistentEntity[])
+	 */
+	public void makeTransient(final PersistentEntity[] entities) throws PersistenceException {
+		if (!this.batchWriteEnabled) {
+			for (PersistentEntity entity : entities) {
+				makeTransient(entity);
+			}
+			return;
+		}
+		// signal performance metrics capture. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
+		this.performanceMetricsLogger.startPerformanceMetricsCapture();
+		try {
+			this.template.execute(new HibernateCallback<Object>() {
+				public Object doInHibernate(Session session) throws HibernateException, SQLException {
+					writeBatch(session, entities, true);
+					return null;
+				}
+			});
+		} catch (DataAccessException de) {
+			throw new PersistenceException("Delete failure in bulk delete of " + entities.length + " entities", de);
+		}
+		// log performance metrics captured. actual capture will happen only if it has been enabled via #startPerformanceMetricsLogging(). Default is off
+		this.performanceMetricsLogger.logPerformanceMetrics("HibernateHandler.makeTransient[]", String.valueOf(entities.length));
+	}
+
+	/**
+	 * Interface method implementation. Loads the specified entities one after the other
+	 * @see BatchPersistenceHandler#findEntity(PersistentEntity[])
+	 */
+	public PersistentEntity[] findEntity(PersistentEntity[] entities) throws PersistenceException {
+		PersistentEntity[] foundEntities = new PersistentEntity[entities.length];
+		for (int i = 0; i < entities.length; i++) {
+			foundEntities[i] = findEntity(entities[i]);
+		}
+		return foundEntities;
+	}
+
 	/**
 	 * Interface method implementation.
 	 * @see PersistenceHandler#update(Criteria)
@@ -248,6 +392,24 @@ public class HibernateHandler extends RDBMSHandler {
 	public HibernateTemplate getTemplate() {
 		return this.template;
 	}	
+	public boolean isBatchWriteEnabled() {
+		return this.batchWriteEnabled;
+	}
+	public void setBatchWriteEnabled(boolean batchWriteEnabled) {
+		this.batchWriteEnabled = batchWriteEnabled;
+	}
+	public int getBatchWriteSize() {
+		return this.batchWriteSize;
+	}
+	public void setBatchWriteSize(int batchWriteSize) {
+		this.batchWriteSize = batchWriteSize;
+	}
+	public int getStreamFetchSize() {
+		return this.streamFetchSize;
+	}
+	public void setStreamFetchSize(int streamFetchSize) {
+		this.streamFetchSize = streamFetchSize;
+	}
 	public PerformanceMetricsLogger getPerformanceMetricsLogger() {
 		return this.performanceMetricsLogger;
 	}
@@ -266,15 +428,182 @@ public class HibernateHandler extends RDBMSHandler {
 	private List<PersistentEntity> findObjectBySQLQuery(final Criteria criteria) {		
 		return (List<PersistentEntity>) this.getTemplate().execute(new HibernateCallback<List<PersistentEntity>>(){
 			public List<PersistentEntity> doInHibernate(Session session) throws HibernateException, SQLException { 
-				SQLQuery sqlQueryObject = session.createSQLQuery(criteria.getQuery());				
-				sqlQueryObject.addEntity(criteria.getManagedClass());
-				sqlQueryObject.setFirstResult(criteria.getFirstResult());
-				if(criteria.getMaxResults() > 0){
-					sqlQueryObject.setMaxResults(criteria.getMaxResults());
-				}								
-				return sqlQueryObject.list();
+				return createQuery(session, criteria).list();
 			}
 		});		
 	}
 
+	/**
+	 * Helper method to create a Query on the specified Session for the specified Criteria. Native SQL queries are mapped to the managed class of 
+	 * the Criteria and have their parameters bound only if the Criteria is a PreparedCriteria.
+	 */
+	private Query createQuery(Session session, Criteria criteria) throws HibernateException {
+		Query query = null;
+		if (Criteria.NATIVE_QUERY == criteria.getQueryType()) {
+			query = session.createSQLQuery(criteria.getQuery()).addEntity(criteria.getManagedClass());
+		} else if (Criteria.NAMED_QUERY == criteria.getQueryType()) {
+			query = session.getNamedQuery(criteria.getQuery()); 
+		} else {
+			query = session.createQuery(criteria.getQuery());
+		}
+		query.setFirstResult(criteria.getFirstResult());
+		if (criteria.getMaxResults() > 0) {
+			query.setMaxResults(criteria.getMaxResults());
+		}
+		if (Criteria.NATIVE_QUERY != criteria.getQueryType() || criteria instanceof PreparedCriteria) {
+			bindParameters(query, criteria);
+		}
+		return query;
+	}
+
+	/**
+	 * Helper method to bind the parameters of the specified Criteria to the specified Query. If the Criteria is a PreparedCriteria, binds parameter 
+	 * values by position or to the names declared at each position and applies query hints. Binds by name from the parameters Map otherwise.
+	 */
+	private void bindParameters(Query query, Criteria criteria) {
+		if (criteria instanceof PreparedCriteria) {
+			PreparedCriteria preparedCriteria = (PreparedCriteria)criteria;
+			String[] paramNames = preparedCriteria.getParamNamesArray();
+			Object[] paramValues = preparedCriteria.getParamValuesArray();
+			if (isPositional(query, preparedCriteria)) {
+				for (int i = 0; i < paramValues.length; i++) {
+					if (paramValues[i] instanceof Collection || paramValues[i] instanceof Object[]) {
+						throw new PersistenceException("Parameter lists are supported only for named parameters. Parameter at position : " + i 
+								+ " is a list. Query is : " + criteria.getQuery());
+					}
+					query.setParameter(i, paramValues[i]);
+				}
+			} else {
+				for (int i = 0; i < paramNames.length; i++) {
+					bindParameter(query, paramNames[i], paramValues[i]);
+				}
+			}
+			if (preparedCriteria.getFetchSize() > 0) {
+				query.setFetchSize(preparedCriteria.getFetchSize());
+			}
+			if (preparedCriteria.isReadOnly()) {
+				query.setReadOnly(true);
+			}
+		} else {
+			for (Map.Entry<String, Object> param : criteria.getParamsMap().entrySet()) {
+				bindParameter(query, param.getKey(), param.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Helper method to bind the specified parameter value to the specified Query. Collections and arrays are bound as parameter lists
+	 */
+	@SuppressWarnings("unchecked")
+	private void bindParameter(Query query, String paramName, Object paramValue) {
+		if (paramValue instanceof Collection) {
+			query.setParameterList(paramName, (Collection<Object>)paramValue);
+		} else if (paramValue instanceof Object[]) {
+			query.setParameterList(paramName, (Object[])paramValue);
+		} else {
+			query.setParameter(paramName, paramValue);
+		}
+	}
+
+	/**
+	 * Helper method to determine if the parameters of the specified PreparedCriteria are to be bound by position i.e. if its query declares no named
+	 * parameters. Otherwise checks that the parameter names declared by the PreparedCriteria are the ones declared by its query. The named parameters 
+	 * of the query are read from the Query and cached on first execution of the query string
+	 */
+	private boolean isPositional(Query query, PreparedCriteria criteria) {
+		String queryKey = criteria.getQueryType() + ":" + criteria.getQuery();
+		Set<String> queryParamNames = this.queryParameterNames.get(queryKey);
+		if (queryParamNames == null) {
+			queryParamNames = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(query.getNamedParameters())));
+			this.queryParameterNames.putIfAbsent(queryKey, queryParamNames);
+		}
+		if (queryParamNames.isEmpty()) {
+			return true;
+		}
+		// the declared names are distinct, so the sets are equal if the sizes match and all declared names are named parameters of the query 
+		String[] declaredNames = criteria.getParamNamesArray();
+		boolean matches = declaredNames.length == queryParamNames.size();
+		for (int i = 0; matches && i < declaredNames.length; i++) {
+			matches = queryParamNames.contains(declaredNames[i]);
+		}
+		if (!matches) {
+			throw new PersistenceException("Parameters declared by PreparedCriteria : " + Arrays.asList(declaredNames) + " do not match those of the query : " 
+					+ queryParamNames + " . Query is : " + criteria.getQuery());
+		}
+		return false;
+	}
+
+	/**
+	 * Helper method to write the specified entities using a StatelessSession opened on the connection of the specified Session. Entities are 
+	 * grouped into inserts, updates or deletes of each entity type and the JDBC batch is executed every {@link #getBatchWriteSize()} entities.
+	 * Entities whose transient state is unknown are saved or updated using the specified Session
+	 */
+	@SuppressWarnings("deprecation")
+	private void writeBatch(Session session, PersistentEntity[] entities, boolean delete) throws HibernateException {
+		StatelessSession statelessSession = session.getSessionFactory().openStatelessSession(session.connection());
+		try {
+			SessionImplementor sessionImplementor = (SessionImplementor)statelessSession;
+			// group the entities by operation and entity name, in the order of first occurrence
+			Map<String, List<PersistentEntity>> inserts = new LinkedHashMap<String, List<PersistentEntity>>();
+			Map<String, List<PersistentEntity>> updates = new LinkedHashMap<String, List<PersistentEntity>>();
+			Map<String, List<PersistentEntity>> saveOrUpdates = new LinkedHashMap<String, List<PersistentEntity>>();
+			for (PersistentEntity entity : entities) {
+				String entityName = entity.getEntityName() != null ? entity.getEntityName() : sessionImplementor.bestGuessEntityName(entity);
+				Map<String, List<PersistentEntity>> group = updates;
+				if (!delete) {
+					Boolean isTransient = sessionImplementor.getFactory().getEntityPersister(entityName).isTransient(entity, sessionImplementor);
+					// null if Hibernate cannot determine the state without a database look up, for e.g. for assigned identifiers and no version
+					group = isTransient == null ? saveOrUpdates : (isTransient ? inserts : updates);
+				}
+				List<PersistentEntity> groupEntities = group.get(entityName);
+				if (groupEntities == null) {
+					groupEntities = new ArrayList<PersistentEntity>();
+					group.put(entityName, groupEntities);
+				}
+				groupEntities.add(entity);
+			}
+			int count = 0;
+			for (Map.Entry<String, List<PersistentEntity>> insertGroup : inserts.entrySet()) {
+				for (PersistentEntity entity : insertGroup.getValue()) {
+					statelessSession.insert(insertGroup.getKey(), entity);
+					count = executeBatchIfFull(sessionImplementor, count + 1);
+				}
+			}
+			for (Map.Entry<String, List<PersistentEntity>> updateGroup : updates.entrySet()) {
+				for (PersistentEntity entity : updateGroup.getValue()) {
+					if (delete) {
+						statelessSession.delete(updateGroup.getKey(), entity);
+					} else {
+						statelessSession.update(updateGroup.getKey(), entity);
+					}
+					count = executeBatchIfFull(sessionImplementor, count + 1);
+				}
+			}
+			sessionImplementor.getBatcher().executeBatch();
+			if (!saveOrUpdates.isEmpty()) {
+				for (Map.Entry<String, List<PersistentEntity>> saveOrUpdateGroup : saveOrUpdates.entrySet()) {
+					for (PersistentEntity entity : saveOrUpdateGroup.getValue()) {
+						session.saveOrUpdate(saveOrUpdateGroup.getKey(), entity);
+					}
+				}
+				session.flush();
+			}
+		} finally {
+			// closing the StatelessSession does not close the connection as it was supplied by the Session
+			statelessSession.close();
+		}
+	}
+
+	/**
+	 * Helper method to execute the JDBC batch if the specified count of pending entities has reached the batch write size.
+	 * @return the count of pending entities after execution
+	 */
+	private int executeBatchIfFull(SessionImplementor sessionImplementor, int count) throws HibernateException {
+		if (count >= this.batchWriteSize) {
+			sessionImplementor.getBatcher().executeBatch();
+			return 0;
+		}
+		return count;
+	}
+
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.dataaccess.orm.handler;
+
+import java.util.NoSuchElementException;
+
+import org.hibernate.HibernateException;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.springframework.orm.hibernate3.SessionFactoryUtils;
+import org.trpr.platform.core.spi.persistence.EntityCursor;
+import org.trpr.platform.core.spi.persistence.PersistenceException;
+import org.trpr.platform.core.spi.persistence.PersistentEntity;
+
+/**
+ * The <code>ScrollableResultsEntityCursor</code> is an implementation of the {@link EntityCursor} backed by Hibernate {@link ScrollableResults}. 
+ * Each entity is evicted from the Session when the cursor is advanced past it, so that the Session does not accumulate the entities read. The 
+ * Session and its read-only transaction are owned by this cursor and released when it is closed, or when it is exhausted.
+ * 
+ * @author Regunath B
+ * @version 1.0, 17/10/2026
+ */
+public class ScrollableResultsEntityCursor implements EntityCursor {
+
+	/** The Session, Transaction and ScrollableResults of this cursor. The Session is null once this cursor is closed*/
+	private Session session;
+	private Transaction transaction;
+	private ScrollableResults results;
+	
+	/** The entity last returned by this cursor and the one to be returned next, if already read*/
+	private PersistentEntity currentEntity;
+	private PersistentEntity nextEntity;
+	
+	/**
+	 * Constructor for this class
+	 * @param session the Session that the results are read from
+	 * @param transaction the read-only Transaction of the Session
+	 * @param results the ScrollableResults whose first column is the PersistentEntity
+	 */
+	public ScrollableResultsEntityCursor(Session session, Transaction transaction, ScrollableResults results) {
+		this.session = session;
+		this.transaction = transaction;
+		this.results = results;
+	}
+	
+	/**
+	 * Interface method implementation. Evicts the entity last returned and reads the next one. Closes this cursor if there are no more results
+	 * @see java.util.Iterator#hasNext()
+	 */
+	public boolean hasNext() {
+		if (this.nextEntity == null && this.session != null) {
+			try {
+				if (this.currentEntity != null) {
+					this.session.evict(this.currentEntity);
+					this.currentEntity = null;
+				}
+				if (this.results.next()) {
+					this.nextEntity = (PersistentEntity)this.results.get(0);
+				} else {
+					close();
+				}
+			} catch (HibernateException e) {
+				close();
+				throw new PersistenceException("Error reading from cursor", SessionFactoryUtils.convertHibernateAccessException(e));
+			}
+		}
+		return this.nextEntity != null;
+	}
+
+	/**
+	 * Interface method implementation.
+	 * @see java.util.Iterator#next()
+	 */
+	public PersistentEntity next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException("No more entities in cursor");
+		}
+		this.currentEntity = this.nextEntity;
+		this.nextEntity = null;
+		return this.currentEntity;
+	}
+
+	/**
+	 * Interface method implementation. Throws UnsupportedOperationException
+	 * @see java.util.Iterator#remove()
+	 */
+	public void remove() {
+		throw new UnsupportedOperationException("Remove is not supported by an EntityCursor");
+	}
+
+	/**
+	 * Interface method implementation. Closes the ScrollableResults, ends the read-only Transaction and closes the Session
+	 * @see EntityCursor#close()
+	 */
+	public void close() throws PersistenceException {
+		if (this.session == null) {
+			return;
+		}
+		Session closedSession = this.session;
+		this.session = null;
+		this.currentEntity = null;
+		try {
+			this.results.close();
+		} catch (HibernateException e) {
+			// ignore, the Session is released anyway
+		} finally {
+			release(closedSession, this.transaction);
+		}
+	}
+	
+	/**
+	 * Releases the specified Session after rolling back the specified read-only Transaction, if any
+	 * @param session the Session to close
+	 * @param transaction the Transaction to roll back, may be null
+	 * @throws PersistenceException in case of errors closing the Session
+	 */
+	static void release(Session session, Transaction transaction) throws PersistenceException {
+		try {
+			if (transaction != null && transaction.isActive()) {
+				transaction.rollback();
+			}
+		} catch (HibernateException e) {
+			// ignore, closing the Session releases the connection
+		} finally {
+			try {
+				session.close();
+			} catch (HibernateException e) {
+				throw new PersistenceException("Error closing cursor Session", SessionFactoryUtils.convertHibernateAccessException(e));
+			}
+		}
+	}
+
+}
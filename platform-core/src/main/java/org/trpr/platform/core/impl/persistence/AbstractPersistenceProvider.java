@@ -18,21 +18,34 @@ package org.trpr.platform.core.impl.persistence;
 
 import java.util.Collection;
 
+import org.trpr.platform.core.spi.persistence.BatchPersistenceHandler;
+import org.trpr.platform.core.spi.persistence.BatchPersistenceProvider;
+import org.trpr.platform.core.spi.persistence.BufferedPersistenceHandler;
+import org.trpr.platform.core.spi.persistence.BufferedPersistenceProvider;
 import org.trpr.platform.core.spi.persistence.Criteria;
+import org.trpr.platform.core.spi.persistence.EntityCursor;
 import org.trpr.platform.core.spi.persistence.PersistenceException;
 import org.trpr.platform.core.spi.persistence.PersistenceHandler;
 import org.trpr.platform.core.spi.persistence.PersistenceProvider;
 import org.trpr.platform.core.spi.persistence.PersistentEntity;
+import org.trpr.platform.core.spi.persistence.StreamingPersistenceHandler;
+import org.trpr.platform.core.spi.persistence.StreamingPersistenceProvider;
 
 /**
  * The <code>AbstractPersistenceProvider</code> is a simple implementation of the {@link PersistenceProvider} that delegates all persistence calls  
  * to the {@link PersistenceHandler} injected into this provider. 
  * 
+ * Batch persistence calls defined by {@link BatchPersistenceProvider} are delegated as a batch if the handler is a {@link BatchPersistenceHandler}, 
+ * else are executed one entity at a time on the handler. Streaming calls defined by {@link StreamingPersistenceProvider} are delegated to the handler
+ * if it is a {@link StreamingPersistenceHandler}, else the results are loaded using {@link PersistenceHandler#findEntities(Criteria)} and iterated over. 
+ * Flush calls defined by {@link BufferedPersistenceProvider} are delegated to the handler if it is a {@link BufferedPersistenceHandler}, and do nothing
+ * otherwise.
+ * 
  * @author Ashok Ayengar
  * @author Regunath B
  * @version 1.0, 23/05/2012
  */
-public abstract class AbstractPersistenceProvider implements PersistenceProvider {
+public abstract class AbstractPersistenceProvider implements BatchPersistenceProvider, StreamingPersistenceProvider, BufferedPersistenceProvider {
 
 	/** The PersistenceHandler instance to delegate all persistence calls to*/
 	private PersistenceHandler handler;
@@ -46,6 +59,18 @@ public abstract class AbstractPersistenceProvider implements PersistenceProvider
 		return getHandler().findEntities(criteria);
 	}
 
+	/**
+	 * Interface method implementation. Delegates the call to PersistenceHandler, as a stream if supported by the handler.
+	 * @see StreamingPersistenceProvider#streamEntities(Criteria)
+	 */
+	@Override
+	public EntityCursor streamEntities(Criteria criteria) throws PersistenceException {
+		if (StreamingPersistenceHandler.class.isAssignableFrom(getHandler().getClass())) {
+			return ((StreamingPersistenceHandler)getHandler()).streamEntities(criteria);
+		}
+		return new IteratorEntityCursor(getHandler().findEntities(criteria));
+	}
+
 	/**
 	 * Interface method implementation. Delegates the call to PersistenceHandler.
 	 * @see PersistenceProvider#findEntity(Criteria)
@@ -92,6 +117,64 @@ public abstract class AbstractPersistenceProvider implements PersistenceProvider
 	}
 	
 
+	/**
+	 * Interface method implementation. Delegates the call to PersistenceHandler, as a batch if supported by the handler.
+	 * @see BatchPersistenceProvider#makePersistent(PersistentEntity[])
+	 */
+	@Override
+	public PersistentEntity[] makePersistent(PersistentEntity[] entities) throws PersistenceException {
+		if (BatchPersistenceHandler.class.isAssignableFrom(getHandler().getClass())) {
+			return ((BatchPersistenceHandler)getHandler()).makePersistent(entities);
+		}
+		PersistentEntity[] persistedEntities = new PersistentEntity[entities.length];
+		for (int i=0; i<entities.length; i++) {
+			persistedEntities[i] = getHandler().makePersistent(entities[i]);
+		}
+		return persistedEntities;
+	}
+
+	/**
+	 * Interface method implementation. Delegates the call to PersistenceHandler, as a batch if supported by the handler.
+	 * @see BatchPersistenceProvider#makeTransient(PersistentEntity[])
+	 */
+	@Override
+	public void makeTransient(PersistentEntity[] entities) throws PersistenceException {
+		if (BatchPersistenceHandler.class.isAssignableFrom(getHandler().getClass())) {
+			((BatchPersistenceHandler)getHandler()).makeTransient(entities);
+			return;
+		}
+		for (PersistentEntity entity : entities) {
+			getHandler().makeTransient(entity);
+		}
+	}
+
+	/**
+	 * Interface method implementation. Delegates the call to PersistenceHandler, as a batch if supported by the handler.
+	 * @see BatchPersistenceProvider#findEntity(PersistentEntity[])
+	 */
+	@Override
+	public PersistentEntity[] findEntity(PersistentEntity[] entities) throws PersistenceException {
+		if (BatchPersistenceHandler.class.isAssignableFrom(getHandler().getClass())) {
+			return ((BatchPersistenceHandler)getHandler()).findEntity(entities);
+		}
+		PersistentEntity[] foundEntities = new PersistentEntity[entities.length];
+		for (int i=0; i<entities.length; i++) {
+			foundEntities[i] = getHandler().findEntity(entities[i]);
+		}
+		return foundEntities;
+	}
+
+	/**
+	 * Interface method implementation. Delegates the call to PersistenceHandler if it buffers writes.
+	 * @see BufferedPersistenceProvider#flush()
+	 */
+	@Override
+	public void flush() throws PersistenceException {
+		if (BufferedPersistenceHandler.class.isAssignableFrom(getHandler().getClass())) {
+			((BufferedPersistenceHandler)getHandler()).flush();
+		}
+	}
+
 	/** Getter/Setter methods*/
 	public PersistenceHandler getHandler() {
 		return this.handler;
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.core.impl.persistence;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+import org.trpr.platform.core.impl.persistence.sharding.ShardedEntityContextHolder;
+import org.trpr.platform.core.spi.persistence.AsyncPersistenceManager;
+import org.trpr.platform.core.spi.persistence.Criteria;
+import org.trpr.platform.core.spi.persistence.PersistenceException;
+import org.trpr.platform.core.spi.persistence.PersistenceManager;
+import org.trpr.platform.core.spi.persistence.PersistentEntity;
+
+/**
+ * The <code>AsyncPersistenceManagerProvider</code> is an implementation of the {@link AsyncPersistenceManager} that executes calls on a 
+ * {@link PersistenceManager}, typically the {@link PersistenceManagerProvider}, using an {@link Executor}. 
+ * 
+ * The executor may be specified using {@link #setExecutor(Executor)}. A bounded pool of {@link #getConcurrency()} daemon threads is created otherwise,
+ * and shut down when this bean is destroyed. The pool queues at most {@link #getQueueCapacity()} calls and rejects calls beyond that, in which case
+ * the returned future is completed exceptionally with a {@link PersistenceException}. Callers may therefore not queue up unbounded work and memory. The shard of each call is set into the {@link ShardedEntityContextHolder} of the executing thread by the 
+ * PersistenceManager from the entity or criteria of the call. The context of the executing thread is cleared before and after each call, so that 
+ * calls never use a shard set by an earlier task or by the calling thread.
+ * 
+ * Note that calls executed concurrently run in separate transactions.
+ * 
+ * @author Regunath B
+ * @version 1.0, 17/10/2026
+ */
+public class AsyncPersistenceManagerProvider implements AsyncPersistenceManager, InitializingBean, DisposableBean {
+
+	/** The default max number of calls queued by the executor created by this provider*/
+	public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+	/** The PersistenceManager that calls are delegated to*/
+	private PersistenceManager persistenceManager;
+	
+	/** The Executor for persistence calls, created by this provider if not specified*/
+	private Executor executor;
+	
+	/** The number of threads in the executor created by this provider*/
+	private int concurrency = Runtime.getRuntime().availableProcessors();
+	
+	/** The max number of calls queued by the executor created by this provider*/
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+	
+	/** The executor created by this provider, if any*/
+	private ExecutorService ownExecutor;
+	
+	/**
+	 * Interface method implementation. Checks for mandatory dependencies and creates the executor if one is not specified
+	 * @see org.springframework.beans.factory.InitializingBean#afterPropertiesSet()
+	 */
+	public void afterPropertiesSet() throws Exception {
+		Assert.notNull(this.persistenceManager, "The 'persistenceManager' may not be null");
+		if (this.executor == null) {
+			Assert.isTrue(this.concurrency > 0, "The 'concurrency' must be greater than zero");
+			Assert.isTrue(this.queueCapacity > 0, "The 'queueCapacity' must be greater than zero");
+			// the default abort policy rejects calls once the queue is full
+			ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(this.concurrency, this.concurrency, 60L, TimeUnit.SECONDS, 
+					new LinkedBlockingQueue<Runnable>(this.queueCapacity), new ThreadFactory() {
+						private AtomicInteger threadCount = new AtomicInteger();
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable, "AsyncPersistence_" + threadCount.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			threadPoolExecutor.allowCoreThreadTimeOut(true);
+			this.ownExecutor = threadPoolExecutor;
+			this.executor = threadPoolExecutor;
+		}
+	}
+	
+	/**
+	 * Interface method implementation. Shuts down the executor if created by this provider
+	 * @see org.springframework.beans.factory.DisposableBean#destroy()
+	 */
+	public void destroy() throws Exception {
+		if (this.ownExecutor != null) {
+			this.ownExecutor.shutdown();
+			this.ownExecutor = null;
+		}
+	}
+
+	/**
+	 * Interface method implementation.
+	 * @see AsyncPersistenceManager#makePersistent(PersistentEntity)
+	 */
+	public CompletableFuture<PersistentEntity> makePersistent(final PersistentEntity entity) {
+		return submit(new Callable<PersistentEntity>() {
+			public PersistentEntity call() throws Exception {
+				return persistenceManager.makePersistent(entity);
+			}
+		});
+	}
+
+	/**
+	 * Interface method implementation.
+	 * @see AsyncPersistenceManager#makePersistent(PersistentEntity[])
+	 */
+	public CompletableFuture<PersistentEntity[]> makePersistent(final PersistentEntity[] entities) {
+		return submit(new Callable<PersistentEntity[]>() {
+			public PersistentEntity[] call() throws Exception {
+				return persistenceManager.makePersistent(entities);
+			}
+		});
+	}
+
+	/**
+	 * Interface method implementation.
+	 * @see AsyncPersistenceManager#makeTransient(PersistentEntity)
+	 */
+	public CompletableFuture<Void> makeTransient(final PersistentEntity entity) {
+		return submit(new Callable<Void>() {
+			public Void call() throws Exception {
+				persistenceManager.makeTransient(entity);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Interface method implementation.
+	 * @see AsyncPersistenceManager#makeTransient(PersistentEntity[])
+	 */
+	public CompletableFuture<Void> makeTransient(final PersistentEntity[] entities) {
+		return submit(new Callable<Void>() {
+			public Void call() throws Exception {
+				persistenceManager.makeTransient(entities);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Interface method implementation.
+	 * @see AsyncPersistenceManager#findEntity(Criteria)
+	 */
+	public CompletableFuture<PersistentEntity> findEntity(final Criteria criteria) {
+		return submit(new Callable<PersistentEntity>() {
+			public PersistentEntity call() throws Exception {
+				return persistenceManager.findEntity(criteria);
+			}
+		});
+	}
+
+	/**
+	 * Interface method implementation.
+	 * @see AsyncPersistenceManager#findEntity(PersistentEntity)
+	 */
+	public CompletableFuture<PersistentEntity> findEntity(final PersistentEntity entity) {
+		return submit(new Callable<PersistentEntity>() {
+			public PersistentEntity call() throws Exception {
+				return persistenceManager.findEntity(entity);
+			}
+		});
+	}
+
+	/**
+	 * Interface method implementation.
+	 * @see AsyncPersistenceManager#findEntity(PersistentEntity[])
+	 */
+	public CompletableFuture<PersistentEntity[]> findEntity(final PersistentEntity[] entities) {
+		return submit(new Callable<PersistentEntity[]>() {
+			public PersistentEntity[] call() throws Exception {
+				return persistenceManager.findEntity(entities);
+			}
+		});
+	}
+
+	/**
+	 * Interface method implementation.
+	 * @see AsyncPersistenceManager#findEntities(Criteria)
+	 */
+	public CompletableFuture<Collection<PersistentEntity>> findEntities(final Criteria criteria) {
+		return submit(new Callable<Collection<PersistentEntity>>() {
+			public Collection<PersistentEntity> call() throws Exception {
+				return persistenceManager.findEntities(criteria);
+			}
+		});
+	}
+
+	/**
+	 * Interface method implementation.
+	 * @see AsyncPersistenceManager#update(Criteria)
+	 */
+	public CompletableFuture<Integer> update(final Criteria criteria) {
+		return submit(new Callable<Integer>() {
+			public Integer call() throws Exception {
+				return persistenceManager.update(criteria);
+			}
+		});
+	}
+
+	/**
+	 * Interface method implementation.
+	 * @see AsyncPersistenceManager#update(Criteria[])
+	 */
+	public CompletableFuture<int[]> update(final Criteria... criteria) {
+		return submit(new Callable<int[]>() {
+			public int[] call() throws Exception {
+				return persistenceManager.update(criteria);
+			}
+		});
+	}
+	
+	/** Getter/Setter methods*/
+	public PersistenceManager getPersistenceManager() {
+		return this.persistenceManager;
+	}
+	public void setPersistenceManager(PersistenceManager persistenceManager) {
+		this.persistenceManager = persistenceManager;
+	}
+	public Executor getExecutor() {
+		return this.executor;
+	}
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+	public int getConcurrency() {
+		return this.concurrency;
+	}
+	public void setConcurrency(int concurrency) {
+		this.concurrency = concurrency;
+	}
+	public int getQueueCapacity() {
+		return this.queueCapacity;
+	}
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+	
+	/**
+	 * Helper method to execute the specified persistence call on the executor, with a cleared shard context, and to complete the returned future 
+	 * with its outcome
+	 */
+	private <T> CompletableFuture<T> submit(final Callable<T> persistenceCall) {
+		final CompletableFuture<T> future = new CompletableFuture<T>();
+		try {
+			this.executor.execute(new Runnable() {
+				public void run() {
+					ShardedEntityContextHolder.clearShardedEntity();
+					try {
+						future.complete(persistenceCall.call());
+					} catch (RuntimeException e) {
+						future.completeExceptionally(e);
+					} catch (Error e) {
+						future.completeExceptionally(e);
+					} catch (Exception e) {
+						future.completeExceptionally(new PersistenceException("Error in persistence call", e));
+					} finally {
+						ShardedEntityContextHolder.clearShardedEntity();
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(new PersistenceException("Persistence call rejected by executor", e));
+		}
+		return future;
+	}
+	
+}
@@ -0,0 +1,463 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.core.impl.persistence;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.SerializationUtils;
+import org.trpr.platform.core.impl.logging.LogFactory;
+import org.trpr.platform.core.spi.logging.Logger;
+import org.trpr.platform.core.spi.management.jmx.AppInstanceAwareMBean;
+import org.trpr.platform.core.spi.persistence.Criteria;
+import org.trpr.platform.core.spi.persistence.EntityCursor;
+import org.trpr.platform.core.spi.persistence.PersistenceException;
+import org.trpr.platform.core.spi.persistence.PersistenceManager;
+import org.trpr.platform.core.spi.persistence.PersistentEntity;
+import org.trpr.platform.core.spi.persistence.sharding.MultiShardedEntity;
+import org.trpr.platform.core.spi.persistence.sharding.ShardedEntity;
+
+/**
+ * The <code>CachingPersistenceManager</code> is a {@link PersistenceManager} that decorates another, typically the {@link PersistenceManagerProvider},
+ * with an in-process cache of entities looked up by identifier using {@link #findEntity(PersistentEntity)} and {@link #findEntity(PersistentEntity[])}. 
+ * The cache is independent of the persistence provider of the entities and has the following behavior:
+ * <pre><ul>
+ * <li>Only entity types specified in {@link #setEntityCacheTtlMillis(Map)} are cached. Entities expire the specified number of milliseconds after 
+ * they are cached</li>
+ * <li>Entities are cached per entity type, keyed by shard hint and {@link PersistentEntity#getIdentifier()}. Each entity type holds at most 
+ * {@link #getCacheMaxSize()} entities and the least recently used entity is evicted when full</li>
+ * <li>Entities are invalidated when written using makePersistent or makeTransient, and all entities of a type are invalidated by 
+ * {@link #update(Criteria)} on the type. Entities read before an invalidation of the same type are not cached</li>
+ * <li>Cached entities are deep copies, made using Java serialization, of the ones looked up. A hit returns a new deep copy of the cached entity, just
+ * as a miss returns the entity looked up by the delegate, so that callers and the cache never share instances or property values. Entity types must
+ * therefore be Serializable, which is checked on startup, and looked up entities must not hold uninitialized lazy references</li>
+ * <li>Multi-sharded entities and entities without an identifier are not cached</li>
+ * </ul><pre>
+ * Writes made through other PersistenceManager instances, or directly to the data store, are visible only after the cached entities expire. All 
+ * other calls are delegated as-is.
+ * 
+ * @author Regunath B
+ * @version 1.0, 17/10/2026
+ */
+@ManagedResource(objectName = "spring.application:type=Trooper,application=Persistence,name=EntityCache-", description = "Trooper Persistence Entity Cache")
+public class CachingPersistenceManager extends AppInstanceAwareMBean implements PersistenceManager, InitializingBean {
+
+	/** The default max number of entities cached per entity type*/
+	public static final int DEFAULT_CACHE_MAX_SIZE = 10000;
+	
+	/** Logger instance for this class*/
+	private static final Logger LOGGER = LogFactory.getLogger(CachingPersistenceManager.class);
+	
+	/** The PersistenceManager that calls are delegated to*/
+	private PersistenceManager persistenceManager;
+	
+	/** The cache TTL in milliseconds keyed by entity class name*/
+	private Map<String, Long> entityCacheTtlMillis = new HashMap<String, Long>();
+	
+	/** The max number of entities cached per entity type*/
+	private int cacheMaxSize = DEFAULT_CACHE_MAX_SIZE;
+	
+	/** The cache regions keyed by entity class name*/
+	private ConcurrentMap<String, Region> regions = new ConcurrentHashMap<String, Region>();
+	
+	/** The cache metrics*/
+	private AtomicLong hitCount = new AtomicLong();
+	private AtomicLong missCount = new AtomicLong();
+	private AtomicLong evictionCount = new AtomicLong();
+	
+	/**
+	 * Interface method implementation. Checks for mandatory dependencies, checks that the cached entity types are Serializable and creates the cache regions
+	 * @see org.springframework.beans.factory.InitializingBean#afterPropertiesSet()
+	 */
+	public void afterPropertiesSet() throws Exception {
+		Assert.notNull(this.persistenceManager, "The 'persistenceManager' may not be null");
+		Assert.isTrue(this.cacheMaxSize > 0, "The 'cacheMaxSize' must be greater than zero");
+		for (Map.Entry<String, Long> ttl : this.entityCacheTtlMillis.entrySet()) {
+			Assert.isTrue(ttl.getValue() != null && ttl.getValue() > 0, "Cache TTL must be greater than zero for entity type : " + ttl.getKey());
+			Assert.isTrue(Serializable.class.isAssignableFrom(ClassUtils.forName(ttl.getKey(), ClassUtils.getDefaultClassLoader())), 
+					"Cached entity type must be Serializable : " + ttl.getKey());
+			this.regions.put(ttl.getKey(), new Region(this.cacheMaxSize, ttl.getValue()));
+		}
+	}
+	
+	/**
+	 * Overriden superclass method. Appends the bean key to the app instance suffix so that multiple caches may be exported
+	 * @see AppInstanceAwareMBean#getMBeanNameSuffix(Object, String)
+	 */
+	public String getMBeanNameSuffix(Object managedBean, String beanKey) {
+		return super.getMBeanNameSuffix(managedBean, beanKey) + ",cache=" + beanKey;
+	}
+
+	/**
+	 * Interface method implementation. Returns a copy of the cached entity if available, delegates the look up and caches a copy of the result otherwise
+	 * @see PersistenceManager#findEntity(PersistentEntity)
+	 */
+	public PersistentEntity findEntity(PersistentEntity entity) throws PersistenceException {
+		Region region = getRegion(entity);
+		if (region == null) {
+			return this.persistenceManager.findEntity(entity);
+		}
+		String key = getKey(entity);
+		PersistentEntity cachedEntity = copyEntity(region.get(key));
+		if (cachedEntity != null) {
+			this.hitCount.incrementAndGet();
+			return cachedEntity;
+		}
+		this.missCount.incrementAndGet();
+		long generation = region.generation.get();
+		PersistentEntity foundEntity = this.persistenceManager.findEntity(entity);
+		if (foundEntity != null) {
+			region.put(key, copyEntity(foundEntity), generation);
+		}
+		return foundEntity;
+	}
+
+	/**
+	 * Interface method implementation. Returns copies of the cached entities and delegates the look up of the rest as a batch
+	 * @see PersistenceManager#findEntity(PersistentEntity[])
+	 */
+	public PersistentEntity[] findEntity(PersistentEntity[] entities) throws PersistenceException {
+		PersistentEntity[] foundEntities = new PersistentEntity[entities.length];
+		List<Integer> missedIndices = new ArrayList<Integer>();
+		Map<Region, Long> generations = new HashMap<Region, Long>();
+		for (int i = 0; i < entities.length; i++) {
+			Region region = getRegion(entities[i]);
+			PersistentEntity cachedEntity = region == null ? null : copyEntity(region.get(getKey(entities[i])));
+			if (cachedEntity != null) {
+				this.hitCount.incrementAndGet();
+				foundEntities[i] = cachedEntity;
+			} else {
+				if (region != null) {
+					this.missCount.incrementAndGet();
+					generations.put(region, region.generation.get());
+				}
+				missedIndices.add(i);
+			}
+		}
+		if (missedIndices.isEmpty()) {
+			return foundEntities;
+		}
+		PersistentEntity[] missedEntities = new PersistentEntity[missedIndices.size()];
+		for (int i = 0; i < missedEntities.length; i++) {
+			missedEntities[i] = entities[missedIndices.get(i)];
+		}
+		PersistentEntity[] lookedUpEntities = this.persistenceManager.findEntity(missedEntities);
+		for (int i = 0; i < lookedUpEntities.length; i++) {
+			foundEntities[missedIndices.get(i)] = lookedUpEntities[i];
+			Region region = getRegion(missedEntities[i]);
+			if (region != null && lookedUpEntities[i] != null) {
+				region.put(getKey(missedEntities[i]), copyEntity(lookedUpEntities[i]), generations.get(region));
+			}
+		}
+		return foundEntities;
+	}
+
+	/**
+	 * Interface method implementation. Invalidates the cached entity after delegating the write
+	 * @see PersistenceManager#makePersistent(PersistentEntity)
+	 */
+	public PersistentEntity makePersistent(PersistentEntity entity) throws PersistenceException {
+		try {
+			return this.persistenceManager.makePersistent(entity);
+		} finally {
+			invalidate(new PersistentEntity[] {entity});
+		}
+	}
+
+	/**
+	 * Interface method implementation. Invalidates the cached entities after delegating the write
+	 * @see PersistenceManager#makePersistent(PersistentEntity[])
+	 */
+	public PersistentEntity[] makePersistent(PersistentEntity[] entities) throws PersistenceException {
+		try {
+			return this.persistenceManager.makePersistent(entities);
+		} finally {
+			invalidate(entities);
+		}
+	}
+
+	/**
+	 * Interface method implementation. Invalidates the cached entity after delegating the delete
+	 * @see PersistenceManager#makeTransient(PersistentEntity)
+	 */
+	public void makeTransient(PersistentEntity entity) throws PersistenceException {
+		try {
+			this.persistenceManager.makeTransient(entity);
+		} finally {
+			invalidate(new PersistentEntity[] {entity});
+		}
+	}
+
+	/**
+	 * Interface method implementation. Invalidates the cached entities after delegating the delete
+	 * @see PersistenceManager#makeTransient(PersistentEntity[])
+	 */
+	public void makeTransient(PersistentEntity[] entities) throws PersistenceException {
+		try {
+			this.persistenceManager.makeTransient(entities);
+		} finally {
+			invalidate(entities);
+		}
+	}
+
+	/**
+	 * Interface method implementation. Invalidates all cached entities of the managed class of the criteria after delegating the update
+	 * @see PersistenceManager#update(Criteria)
+	 */
+	public int update(Criteria criteria) throws PersistenceException {
+		try {
+			return this.persistenceManager.update(criteria);
+		} finally {
+			invalidate(new Criteria[] {criteria});
+		}
+	}
+
+	/**
+	 * Interface method implementation. Invalidates all cached entities of the managed classes of the criteria after delegating the update
+	 * @see PersistenceManager#update(Criteria[])
+	 */
+	public int[] update(Criteria... criteria) throws PersistenceException {
+		try {
+			return this.persistenceManager.update(criteria);
+		} finally {
+			invalidate(criteria);
+		}
+	}
+
+	/**
+	 * Interface method implementation. Delegates the call as-is
+	 * @see PersistenceManager#findEntity(Criteria)
+	 */
+	public PersistentEntity findEntity(Criteria criteria) throws PersistenceException {
+		return this.persistenceManager.findEntity(criteria);
+	}
+
+	/**
+	 * Interface method implementation. Delegates the call as-is
+	 * @see PersistenceManager#findEntities(Criteria)
+	 */
+	public Collection<PersistentEntity> findEntities(Criteria criteria) throws PersistenceException {
+		return this.persistenceManager.findEntities(criteria);
+	}
+
+	/**
+	 * Interface method implementation. Delegates the call as-is
+	 * @see PersistenceManager#streamEntities(Criteria)
+	 */
+	public EntityCursor streamEntities(Criteria criteria) throws PersistenceException {
+		return this.persistenceManager.streamEntities(criteria);
+	}
+
+	/**
+	 * Interface method implementation. Delegates the call as-is
+	 * @see PersistenceManager#flush()
+	 */
+	public void flush() throws PersistenceException {
+		this.persistenceManager.flush();
+	}
+	
+	/**
+	 * Removes all cached entities
+	 */
+	@ManagedOperation
+	public void clearCache() {
+		for (Region region : this.regions.values()) {
+			region.clear();
+		}
+	}
+	
+	/** JMX attributes for the cache metrics*/
+	@ManagedAttribute
+	public long getCacheHitCount() {
+		return this.hitCount.get();
+	}
+	@ManagedAttribute
+	public long getCacheMissCount() {
+		return this.missCount.get();
+	}
+	@ManagedAttribute
+	public long getCacheEvictionCount() {
+		return this.evictionCount.get();
+	}
+	@ManagedAttribute
+	public int getCacheSize() {
+		int size = 0;
+		for (Region region : this.regions.values()) {
+			size += region.size();
+		}
+		return size;
+	}
+
+	/** Getter/Setter methods*/
+	public PersistenceManager getPersistenceManager() {
+		return this.persistenceManager;
+	}
+	public void setPersistenceManager(PersistenceManager persistenceManager) {
+		this.persistenceManager = persistenceManager;
+	}
+	public Map<String, Long> getEntityCacheTtlMillis() {
+		return this.entityCacheTtlMillis;
+	}
+	public void setEntityCacheTtlMillis(Map<String, Long> entityCacheTtlMillis) {
+		this.entityCacheTtlMillis = entityCacheTtlMillis;
+	}
+	@ManagedAttribute
+	public int getCacheMaxSize() {
+		return this.cacheMaxSize;
+	}
+	public void setCacheMaxSize(int cacheMaxSize) {
+		this.cacheMaxSize = cacheMaxSize;
+	}
+	
+	/**
+	 * Helper method to return the cache region of the specified entity, null if the entity is not cacheable
+	 */
+	private Region getRegion(PersistentEntity entity) {
+		if (entity == null || entity.getIdentifier() == null || entity instanceof MultiShardedEntity) {
+			return null;
+		}
+		return this.regions.get(entity.getClass().getName());
+	}
+	
+	/**
+	 * Helper method to return the cache key i.e. shard hint and identifier, of the specified entity
+	 */
+	private String getKey(PersistentEntity entity) {
+		String shardHint = entity instanceof ShardedEntity ? ((ShardedEntity)entity).getShardHint() : ShardedEntity.DEFAULT_SHARD;
+		return shardHint + ":" + entity.getIdentifier().toString();
+	}
+	
+	/**
+	 * Helper method to invalidate the cached entries of the specified entities
+	 */
+	private void invalidate(PersistentEntity[] entities) {
+		for (PersistentEntity entity : entities) {
+			Region region = getRegion(entity);
+			if (region != null) {
+				region.remove(getKey(entity));
+			}
+		}
+	}
+	
+	/**
+	 * Helper method to invalidate all cached entities of the managed classes of the specified criteria
+	 */
+	private void invalidate(Criteria[] criteria) {
+		for (Criteria criterion : criteria) {
+			Region region = criterion.getManagedClass() == null ? null : this.regions.get(criterion.getManagedClass().getName());
+			if (region != null) {
+				region.clear();
+			}
+		}
+	}
+	
+	/**
+	 * Helper method to create a deep copy of the specified entity by serializing and deserializing it. Returns null if the entity is null or cannot be 
+	 * copied, in which case the entity is respectively looked up or not cached
+	 */
+	private PersistentEntity copyEntity(PersistentEntity entity) {
+		if (entity == null) {
+			return null;
+		}
+		try {
+			return (PersistentEntity)SerializationUtils.deserialize(SerializationUtils.serialize(entity));
+		} catch (RuntimeException e) {
+			// for e.g. non serializable property values or uninitialized lazy references
+			LOGGER.warn("Unable to copy entity for caching. Entity type is : " + entity.getClass().getName() + " . Error is : " + e.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * Cache region of an entity type. An access ordered LinkedHashMap guarded by the region's monitor. The generation changes each time an entity
+	 * of the region is invalidated
+	 */
+	class Region {
+		long ttlMillis;
+		AtomicLong generation = new AtomicLong();
+		Map<String, CachedEntity> entities;
+		
+		Region(final int maxSize, long ttlMillis) {
+			this.ttlMillis = ttlMillis;
+			this.entities = new LinkedHashMap<String, CachedEntity>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+				protected boolean removeEldestEntry(Map.Entry<String, CachedEntity> eldest) {
+					if (size() > maxSize) {
+						evictionCount.incrementAndGet();
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+		synchronized PersistentEntity get(String key) {
+			CachedEntity cachedEntity = this.entities.get(key);
+			if (cachedEntity == null) {
+				return null;
+			}
+			if (cachedEntity.expiresAt <= System.currentTimeMillis()) {
+				this.entities.remove(key);
+				evictionCount.incrementAndGet();
+				return null;
+			}
+			return cachedEntity.entity;
+		}
+		synchronized void put(String key, PersistentEntity entity, long generation) {
+			// do not cache entities read before an invalidation
+			if (entity != null && this.generation.get() == generation) {
+				this.entities.put(key, new CachedEntity(entity, System.currentTimeMillis() + this.ttlMillis));
+			}
+		}
+		synchronized void remove(String key) {
+			this.generation.incrementAndGet();
+			this.entities.remove(key);
+		}
+		synchronized void clear() {
+			this.generation.incrementAndGet();
+			this.entities.clear();
+		}
+		synchronized int size() {
+			return this.entities.size();
+		}
+	}
+	
+	/**
+	 * A cached entity and its expiry time
+	 */
+	static class CachedEntity {
+		PersistentEntity entity;
+		long expiresAt;
+		CachedEntity(PersistentEntity entity, long expiresAt) {
+			this.entity = entity;
+			this.expiresAt = expiresAt;
+		}
+	}
+	
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.core.impl.persistence;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+import org.trpr.platform.core.spi.persistence.EntityCursor;
+import org.trpr.platform.core.spi.persistence.PersistenceException;
+import org.trpr.platform.core.spi.persistence.PersistentEntity;
+
+/**
+ * The <code>IteratorEntityCursor</code> is an implementation of the {@link EntityCursor} over a Collection of {@link PersistentEntity} instances
+ * that have already been loaded into memory. Used to stream the results of persistence handlers that do not support streaming.
+ * 
+ * @author Regunath B
+ * @version 1.0, 17/10/2026
+ */
+public class IteratorEntityCursor implements EntityCursor {
+
+	/** The Iterator over the entities, null once this cursor is closed*/
+	private Iterator<PersistentEntity> iterator;
+	
+	/**
+	 * Constructor for this class
+	 * @param entities the PersistentEntity instances to iterate over
+	 */
+	public IteratorEntityCursor(Collection<PersistentEntity> entities) {
+		this.iterator = entities.iterator();
+	}
+	
+	/**
+	 * Interface method implementation. Returns false once this cursor is closed
+	 * @see java.util.Iterator#hasNext()
+	 */
+	public boolean hasNext() {
+		return this.iterator != null && this.iterator.hasNext();
+	}
+
+	/**
+	 * Interface method implementation.
+	 * @see java.util.Iterator#next()
+	 */
+	public PersistentEntity next() {
+		if (this.iterator == null) {
+			throw new IllegalStateException("Cursor is closed");
+		}
+		return this.iterator.next();
+	}
+
+	/**
+	 * Interface method implementation. Throws UnsupportedOperationException
+	 * @see java.util.Iterator#remove()
+	 */
+	public void remove() {
+		throw new UnsupportedOperationException("Remove is not supported by an EntityCursor");
+	}
+
+	/**
+	 * Interface method implementation. Releases the Iterator
+	 * @see EntityCursor#close()
+	 */
+	public void close() throws PersistenceException {
+		this.iterator = null;
+	}
+
+}
@@ -16,6 +16,7 @@
 
 package org.trpr.platform.core.impl.persistence;
 
+import org.trpr.platform.core.spi.persistence.BatchPersistenceProvider;
 import org.trpr.platform.core.spi.persistence.Criteria;
 import org.trpr.platform.core.spi.persistence.PersistenceException;
 import org.trpr.platform.core.spi.persistence.PersistenceProvider;
@@ -70,7 +71,7 @@ public class PersistenceDelegate {
 	
 	/**
 	 * Persists the specified PersistentEntity instances using the specified PersistenceProvider instances, matched by index positions. 
-	 * Note that this method is transactional by default.
+	 * Note that this method is transactional by default. The entities are persisted as a batch if all of them use the same {@link BatchPersistenceProvider}.
 	 * It is advisable to use {@link PersistenceManagerProvider#makePersistent(PersistentEntity[])} instead of calling this method directly.
 	 * @param entities the PersistentEntity instances to persist
 	 * @param providers the PersistenceProvider instances to use in persistence
@@ -79,15 +80,20 @@ public class PersistenceDelegate {
 	 */
 	@Transactional(readOnly = false, propagation = Propagation.REQUIRES_NEW,isolation=Isolation.DEFAULT ,rollbackForClassName={"Exception"})
 	public PersistentEntity[] makePersistent(PersistentEntity[] entities, PersistenceProvider[] providers) throws PersistenceException {
+		BatchPersistenceProvider batchProvider = getBatchProvider(providers);
+		if (batchProvider != null) {
+			return batchProvider.makePersistent(entities);
+		}
+		PersistentEntity[] persistedEntities = new PersistentEntity[entities.length];
 		for (int i=0; i<entities.length; i++) {
-			providers[i].makePersistent(entities[i]);
+			persistedEntities[i] = providers[i].makePersistent(entities[i]);
 		}
-		return entities;
+		return persistedEntities;
 	}
 	
 	/**
 	 * Deletes the specified PersistentEntity instances using the specified PersistenceProvider instances, matched by index positions. 
-	 * Note that this method is transactional by default.
+	 * Note that this method is transactional by default. The entities are deleted as a batch if all of them use the same {@link BatchPersistenceProvider}.
 	 * It is advisable to use {@link PersistenceManagerProvider#makeTransient(PersistentEntity[])} instead of calling this method directly.
 	 * @param entities the PersistentEntity instances to delete
 	 * @param providers the PersistenceProvider instances to use in delete
@@ -96,11 +102,37 @@ public class PersistenceDelegate {
 	 */
 	@Transactional(readOnly = false, propagation = Propagation.REQUIRES_NEW,isolation=Isolation.DEFAULT ,rollbackForClassName={"Exception"})
 	public void makeTransient(PersistentEntity[] entities, PersistenceProvider[] providers) throws PersistenceException {
+		BatchPersistenceProvider batchProvider = getBatchProvider(providers);
+		if (batchProvider != null) {
+			batchProvider.makeTransient(entities);
+			return;
+		}
 		for (int i=0; i<entities.length; i++) {
 			providers[i].makeTransient(entities[i]);
 		}
 	}
 
+	/**
+	 * Loads the specified PersistentEntity instances using the specified PersistenceProvider instances, matched by index positions. The entities
+	 * are loaded as a batch if all of them use the same {@link BatchPersistenceProvider}. This method is not transactional.
+	 * It is advisable to use {@link PersistenceManagerProvider#findEntity(PersistentEntity[])} instead of calling this method directly.
+	 * @param entities the PersistentEntity instances to load
+	 * @param providers the PersistenceProvider instances to use in loading
+	 * @return PersistentEntity instances that were loaded, matched by index positions. Contains null for entities that were not found
+	 * @throws PersistenceException in case of errors during load
+	 */
+	public PersistentEntity[] findEntity(PersistentEntity[] entities, PersistenceProvider[] providers) throws PersistenceException {
+		BatchPersistenceProvider batchProvider = getBatchProvider(providers);
+		if (batchProvider != null) {
+			return batchProvider.findEntity(entities);
+		}
+		PersistentEntity[] foundEntities = new PersistentEntity[entities.length];
+		for (int i=0; i<entities.length; i++) {
+			foundEntities[i] = providers[i].findEntity(entities[i]);
+		}
+		return foundEntities;
+	}
+
 	/**
 	 * Updates the underlying data store with information available in the specified Criteria using the specified PersistenceProvider
 	 * Note that this method is transactional by default.
@@ -133,4 +165,19 @@ public class PersistenceDelegate {
 		return returnValue;
 	}
 	
+	/**
+	 * Helper method to return the BatchPersistenceProvider if all the specified providers are the same BatchPersistenceProvider instance, null otherwise
+	 */
+	private BatchPersistenceProvider getBatchProvider(PersistenceProvider[] providers) {
+		if (providers.length == 0 || !BatchPersistenceProvider.class.isAssignableFrom(providers[0].getClass())) {
+			return null;
+		}
+		for (PersistenceProvider provider : providers) {
+			if (provider != providers[0]) {
+				return null;
+			}
+		}
+		return (BatchPersistenceProvider)providers[0];
+	}
+	
 }
@@ -18,18 +18,44 @@ package org.trpr.platform.core.impl.persistence;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.ClassUtils;
+import org.trpr.platform.core.impl.logging.LogFactory;
 import org.trpr.platform.core.impl.persistence.sharding.AbstractMultiShardedPersistentEntity;
+import org.trpr.platform.core.impl.persistence.sharding.MultiShardWriteResult;
 import org.trpr.platform.core.impl.persistence.sharding.ShardedEntityContextHolder;
+import org.trpr.platform.core.spi.logging.Logger;
+import org.trpr.platform.core.spi.persistence.BufferedPersistenceProvider;
 import org.trpr.platform.core.spi.persistence.Criteria;
+import org.trpr.platform.core.spi.persistence.EntityCursor;
 import org.trpr.platform.core.spi.persistence.PersistenceException;
 import org.trpr.platform.core.spi.persistence.PersistenceManager;
 import org.trpr.platform.core.spi.persistence.PersistenceProvider;
 import org.trpr.platform.core.spi.persistence.PersistentEntity;
+import org.trpr.platform.core.spi.persistence.ResumableEntityCursor;
+import org.trpr.platform.core.spi.persistence.StreamingPersistenceProvider;
 import org.trpr.platform.core.spi.persistence.sharding.MultiShardAwareCriteria;
 import org.trpr.platform.core.spi.persistence.sharding.ShardAwareCriteria;
 import org.trpr.platform.core.spi.persistence.sharding.ShardedEntity;
@@ -44,6 +70,30 @@ import org.trpr.platform.core.spi.persistence.sharding.ShardedPersistentEntity;
  * 
  * This PersistenceManager is shard-aware and supports persistence calls on sharded entities.
  * 
+ * The PersistenceProvider and the sharding type of each PersistentEntity type are held in a routing table keyed by Class. Entries are computed
+ * once per type, eagerly for the configured entity types and lazily for others, so that persistence calls do not repeat map look-ups by class name 
+ * or type checks.
+ * 
+ * Queries using a {@link MultiShardAwareCriteria} are executed on each shard one after the other by default. Shards may instead be queried 
+ * concurrently (scatter-gather) by setting {@link #setScatterGatherQueries(boolean)}. Each shard is then queried on a bounded pool of threads using
+ * a copy of the criteria created by {@link MultiShardAwareCriteria#copyForShard(String)}, and query latency is close to that of the slowest shard 
+ * rather than the sum of all. Results are collated in the order of completion of the shard queries, or ordered using 
+ * {@link MultiShardAwareCriteria#getResultsComparator()} if specified. Pending shard queries are cancelled once {@link Criteria#getMaxResults()}
+ * results are available from unordered queries.
+ * 
+ * Multi-sharded entities are similarly written to each shard one after the other by default. Shards may instead be written concurrently by setting
+ * {@link #setParallelShardWrites(boolean)}. Each shard is then written in its own transaction on a bounded pool of threads using copies of the entities
+ * created by {@link AbstractMultiShardedPersistentEntity#copyForShard(String)}. Use {@link #makePersistentInShards(PersistentEntity[])} and 
+ * {@link #makeTransientInShards(PersistentEntity[])} to obtain the outcome of each shard write. Successful writes may be undone by compensating deletes
+ * when writes to other shards fail, see {@link #setCompensateFailedShardWrites(boolean)}.
+ * 
+ * Results may be streamed using {@link #streamEntities(Criteria)}. The cursor of each shard is opened while the shard is set in the 
+ * {@link ShardedEntityContextHolder} and holds on to the data source of the shard until closed. The shards of a {@link MultiShardAwareCriteria} are 
+ * streamed one after the other, opening the cursor on a shard only after that of the previous shard is exhausted. The cursor is a 
+ * {@link ResumableEntityCursor} whose resume key is that of the shard cursor last read from, if the shard cursor is resumable. 
+ * 
+ * Writes buffered by providers that implement {@link BufferedPersistenceProvider} are written using {@link #flush()}.
+ * 
  * @see PersistenceManager
  * @see PersistentEntity
  * @see ShardedEntity
@@ -52,15 +102,50 @@ import org.trpr.platform.core.spi.persistence.sharding.ShardedPersistentEntity;
  * @version 1.0, 23/05/2012
  */
 
-public class PersistenceManagerProvider implements PersistenceManager {
+public class PersistenceManagerProvider implements PersistenceManager, DisposableBean {
+	
+	/** The default timeout for concurrent writes to all shards of multi-sharded entities*/
+	public static final long DEFAULT_SHARD_WRITE_TIMEOUT_MILLIS = 30000L;
+	
+	/**
+	 * The Log instance for this class
+	 */
+	private static final Logger LOGGER = LogFactory.getLogger(PersistenceManagerProvider.class);
 	
 	/**
 	 * Mapping between entities and it corresponding <code>PersistenceProvider</code> instances
 	 */
 	private Map<String, PersistenceProvider> m_EntityToProviders;
 	
+	/** The routing table i.e. EntityRoute instances keyed by PersistentEntity type. Replaced when the entity to provider mappings are set*/
+	private volatile EntityRoutes entityRoutes = new EntityRoutes(null);
+	
 	/** The PersistenceDelegate instance to use for all persistence calls involving PersistentEntity instances*/
 	private PersistenceDelegate persistenceDelegate;
+	
+	/** Flag to query shards of multi-sharded criteria concurrently*/
+	private boolean scatterGatherQueries;
+	
+	/** The max number of shards queried concurrently across all scatter-gather queries*/
+	private int scatterGatherConcurrency = Runtime.getRuntime().availableProcessors();
+	
+	/** The executor for scatter-gather queries. Created on first use*/
+	private ExecutorService scatterGatherExecutor;
+	
+	/** Flag to write shards of multi-sharded entities concurrently*/
+	private boolean parallelShardWrites;
+	
+	/** The max number of shards written concurrently across all persistence calls*/
+	private int shardWriteConcurrency = Runtime.getRuntime().availableProcessors();
+	
+	/** The max time to wait for concurrent writes to all shards of multi-sharded entities*/
+	private long shardWriteTimeoutMillis = DEFAULT_SHARD_WRITE_TIMEOUT_MILLIS;
+	
+	/** Flag to delete entities from shards that were written successfully when writes to other shards fail*/
+	private boolean compensateFailedShardWrites;
+	
+	/** The executor for concurrent shard writes. Created on first use*/
+	private ExecutorService shardWriteExecutor;
 
 	/**
 	 * no-arg constructor.
@@ -74,6 +159,45 @@ public class PersistenceManagerProvider implements PersistenceManager {
 	 */
 	public void setProvidersForEntity(Map<String, PersistenceProvider> entityToProviders) {
 		this.m_EntityToProviders = entityToProviders;
+		EntityRoutes routes = new EntityRoutes(entityToProviders);
+		// compute the routes of the configured entity types upfront
+		if (entityToProviders != null) {
+			for (String entityClassName : entityToProviders.keySet()) {
+				try {
+					routes.get(ClassUtils.forName(entityClassName, ClassUtils.getDefaultClassLoader()));
+				} catch (ClassNotFoundException e) {
+					LOGGER.warn("Unable to load entity type : " + entityClassName + " . Route will be computed on first use");
+				} catch (LinkageError e) {
+					LOGGER.warn("Unable to load entity type : " + entityClassName + " . Route will be computed on first use");
+				}
+			}
+		}
+		this.entityRoutes = routes;
+	}
+
+	/**
+	 * Returns the mapping between entities and their corresponding <code>PersistenceProvider</code> instances, as set by {@link #setProvidersForEntity(Map)}
+	 * @return the entity to PersistenceProvider mappings, may be null
+	 */
+	public Map<String, PersistenceProvider> getProvidersForEntity() {
+		return this.m_EntityToProviders;
+	}
+	
+	/**
+	 * DisposableBean method implementation. Stops the threads used for scatter-gather queries and concurrent shard writes
+	 * @see org.springframework.beans.factory.DisposableBean#destroy()
+	 */
+	public void destroy() throws Exception {
+		synchronized (this) {
+			if (this.scatterGatherExecutor != null) {
+				this.scatterGatherExecutor.shutdownNow();
+				this.scatterGatherExecutor = null;
+			}
+			if (this.shardWriteExecutor != null) {
+				this.shardWriteExecutor.shutdownNow();
+				this.shardWriteExecutor = null;
+			}
+		}
 	}
 	
 	/**
@@ -106,13 +230,21 @@ public class PersistenceManagerProvider implements PersistenceManager {
 		
 		for (PersistentEntity persistentEntity : entities) {
 			// For Multi sharded persistent entities, check if all are multi-sharded and have the same shard count and values
-			if (AbstractMultiShardedPersistentEntity.class.isAssignableFrom(persistentEntity.getClass())) {
+			if (this.entityRoutes.get(persistentEntity.getClass()).multiSharded) {
 				multiShardedEntity = (AbstractMultiShardedPersistentEntity)persistentEntity;
 				// check for validity of multi-sharded persistent entities
 				checkValidityOfMultiShardedPersistentities(multiShardedEntity, entities);
 			}
 		}
 		
+		if (multiShardedEntity != null && this.parallelShardWrites) {
+			// write the shards concurrently and return the entities persisted in the last shard, as is the case with sequential writes
+			MultiShardWriteResult result = writeShards(entities, multiShardedEntity, true);
+			checkShardWriteResult(result);
+			String[] succeededShards = result.getSucceededShards();
+			return succeededShards.length == 0 ? entities : result.getEntities(succeededShards[succeededShards.length - 1]);
+		}
+		
 		if (multiShardedEntity != null) {
 			// data is valid. Iterate through shards and invoke the persistence call on the delegate
 			// once for each retrieved shard hint
@@ -169,13 +301,19 @@ public class PersistenceManagerProvider implements PersistenceManager {
 		
 		for (PersistentEntity persistentEntity : entities) {
 			// For Multi sharded persistent entities, check if all are multi-sharded and have the same shard count and values
-			if (AbstractMultiShardedPersistentEntity.class.isAssignableFrom(persistentEntity.getClass())) {
+			if (this.entityRoutes.get(persistentEntity.getClass()).multiSharded) {
 				multiShardedEntity = (AbstractMultiShardedPersistentEntity)persistentEntity;
 				// check for validity of multi-sharded persistent entities
 				checkValidityOfMultiShardedPersistentities(multiShardedEntity, entities);
 			}
 		}
 		
+		if (multiShardedEntity != null && this.parallelShardWrites) {
+			// delete from the shards concurrently
+			checkShardWriteResult(writeShards(entities, multiShardedEntity, false));
+			return;
+		}
+		
 		if (multiShardedEntity != null) {
 			// data is valid. Iterate through shards and invoke the persistence call on the delegate
 			// once for each retrieved shard hint
@@ -201,6 +339,32 @@ public class PersistenceManagerProvider implements PersistenceManager {
 		checkAndUnsetShardedEntityContextHolder(entities[0]);		
 	}
 
+	/**
+	 * Persists the specified multi-sharded entities to each of their shards concurrently, each shard in its own transaction. Unlike 
+	 * {@link #makePersistent(PersistentEntity[])}, failures are not thrown but reported in the returned result. Successful writes are undone by
+	 * compensating deletes if writes to other shards fail and {@link #isCompensateFailedShardWrites()} is set. Note that writes to shards that time out
+	 * are reported as failed but may still complete, and are not compensated.
+	 * @param entities the multi-sharded entities to persist
+	 * @return the outcome of the write to each shard
+	 * @throws PersistenceException in case the entities are not valid multi-sharded entities or if interrupted
+	 */
+	public MultiShardWriteResult makePersistentInShards(PersistentEntity[] entities) throws PersistenceException {
+		entities = filterNullEntities(entities);
+		return writeShards(entities, getMultiShardedEntity(entities), true);
+	}
+	
+	/**
+	 * Deletes the specified multi-sharded entities from each of their shards concurrently, each shard in its own transaction. Unlike 
+	 * {@link #makeTransient(PersistentEntity[])}, failures are not thrown but reported in the returned result. 
+	 * @param entities the multi-sharded entities to delete
+	 * @return the outcome of the delete from each shard
+	 * @throws PersistenceException in case the entities are not valid multi-sharded entities or if interrupted
+	 */
+	public MultiShardWriteResult makeTransientInShards(PersistentEntity[] entities) throws PersistenceException {
+		entities = filterNullEntities(entities);
+		return writeShards(entities, getMultiShardedEntity(entities), false);
+	}
+	
 	/**
 	 * Interface method implementation. WARNING: this call does not support retrieval of the entity from shards i.e. this call is not shard-aware
 	 * and therefore returns data from the default configured datasource.
@@ -225,6 +389,47 @@ public class PersistenceManagerProvider implements PersistenceManager {
 		return entity;
 	}
 	
+	/**
+	 * Interface method implementation. Groups the specified entities by shard hint and loads each group using a single call to 
+	 * {@link PersistenceDelegate#findEntity(PersistentEntity[], PersistenceProvider[])}, thereby using batch lookups where supported by the PersistenceProvider.
+	 * @see PersistenceManager#findEntity(PersistentEntity[])
+	 */
+	public PersistentEntity[] findEntity(PersistentEntity[] entities) throws PersistenceException {
+		if (null == entities || entities.length == 0) {
+			// If no entities to look up then return whatever is passed and do not execute rest of the code.
+			return entities;
+		}
+		// group index positions of the entities by shard hint, so that results can be returned in the same order as the passed in entities
+		Map<String, List<Integer>> shardIndices = new LinkedHashMap<String, List<Integer>>();
+		for (int i=0; i<entities.length; i++) {
+			if (entities[i] == null) {
+				continue;
+			}
+			String shardHint = this.entityRoutes.get(entities[i].getClass()).sharded ? ((ShardedEntity)entities[i]).getShardHint() : ShardedEntity.DEFAULT_SHARD;
+			List<Integer> indices = shardIndices.get(shardHint);
+			if (indices == null) {
+				indices = new ArrayList<Integer>();
+				shardIndices.put(shardHint, indices);
+			}
+			indices.add(i);
+		}
+		PersistentEntity[] foundEntities = new PersistentEntity[entities.length];
+		for (List<Integer> indices : shardIndices.values()) {
+			PersistentEntity[] shardEntities = new PersistentEntity[indices.size()];
+			for (int i=0; i<shardEntities.length; i++) {
+				shardEntities[i] = entities[indices.get(i)];
+			}
+			checkAndPopulateShardedEntityContextHolder(shardEntities);
+			PersistentEntity[] shardResults = this.persistenceDelegate.findEntity(shardEntities, findSuitableProviders(shardEntities));
+			// unset the context using the first entity
+			checkAndUnsetShardedEntityContextHolder(shardEntities[0]);
+			for (int i=0; i<shardResults.length; i++) {
+				foundEntities[indices.get(i)] = shardResults[i];
+			}
+		}
+		return foundEntities;
+	}
+	
 	/**
 	 * Interface method implementation. 
 	 * For multi-sharded entities, returns data collected from each shard i.e. by execution of the query against each shard and collating the
@@ -234,36 +439,27 @@ public class PersistenceManagerProvider implements PersistenceManager {
 	@SuppressWarnings("unchecked")	
 	public Collection<PersistentEntity> findEntities(Criteria criteria) throws PersistenceException {
 
-		// Linked list to collate results from queries executed on multiple shards, if any
-		LinkedList returnedObjects = new LinkedList();
-		
 		if (MultiShardAwareCriteria.class.isAssignableFrom(criteria.getClass())) {
+			MultiShardAwareCriteria multiShardAwareCriteria = (MultiShardAwareCriteria)criteria;
+			if (this.scatterGatherQueries && multiShardAwareCriteria.getShardHints().length > 1) {
+				// query the shards concurrently
+				return findEntitiesInShards(multiShardAwareCriteria);
+			}
+			// Linked list to collate results from queries executed on multiple shards
+			List<PersistentEntity> returnedObjects = new LinkedList<PersistentEntity>();
 			// It is a multi-sharded criteria. Iterate through shards and invoke the persistence call on the delegate
 			// once for each retrieved shard hint. Return the results collated from each shard
-			MultiShardAwareCriteria multiShardAwareCriteria = (MultiShardAwareCriteria)criteria;
 			for (String shardHint : multiShardAwareCriteria.getShardHints()) {
 				// set the returned shards one at a time and make persistence calls on the delegate
-				multiShardAwareCriteria.setShardHint(shardHint);
-				checkAndPopulateShardedEntityContextHolder(new Criteria[]{multiShardAwareCriteria});
-				Collection lookedUpEntities = findSuitableProvider(multiShardAwareCriteria.getManagedClass()).findEntities(multiShardAwareCriteria);
-				for (Object entity : lookedUpEntities) {
-					// check to see if the returned object is a ShardedEntity. Set the shard hint to denote the data store it was loaded from.
-					// useful if the returned object is going to be persisted subsequently
-					if (ShardedEntity.class.isAssignableFrom(entity.getClass())) {
-						((ShardedEntity)entity).setShardHint(shardHint);
-					}
-				}
-				returnedObjects.addAll(lookedUpEntities);
-				// unset the context using the criteria
-				checkAndUnsetShardedEntityContextHolder(multiShardAwareCriteria);
-				// check to see if max results has been set and break loop if results count match or exceed this limit
-				if (criteria.getMaxResults() > 0 && returnedObjects.size() >= criteria.getMaxResults()) {
-					returnedObjects = (LinkedList)returnedObjects.subList(0, criteria.getMaxResults());
+				returnedObjects.addAll(findEntitiesInShard(multiShardAwareCriteria, shardHint));
+				// check to see if max results has been set and break loop if results count match or exceed this limit. Results are not ordered
+				// in this case as the limit is applied on the results in shard order
+				if (multiShardAwareCriteria.getResultsComparator() == null && criteria.getMaxResults() > 0 && returnedObjects.size() >= criteria.getMaxResults()) {
 					break;
 				}
 			}
 			// return the outcome of the multi-sharded criteria persistence call
-			return returnedObjects;
+			return collateResults(multiShardAwareCriteria, returnedObjects);
 		}
 		
 		// none of the passed in criteria are multi-sharded. Proceed to deal with single sharded (or none) entities		
@@ -274,6 +470,42 @@ public class PersistenceManagerProvider implements PersistenceManager {
 		return entities;		
 	}
 	
+	/**
+	 * Interface method implementation. Streams the results of a multi-sharded criteria from each of its shards in shard order. Results are not ordered
+	 * across shards i.e. {@link MultiShardAwareCriteria#getResultsComparator()} is not used, and {@link Criteria#getMaxResults()} limits the total
+	 * results streamed from all shards.
+	 * @see PersistenceManager#streamEntities(Criteria)
+	 */
+	public EntityCursor streamEntities(Criteria criteria) throws PersistenceException {
+		if (MultiShardAwareCriteria.class.isAssignableFrom(criteria.getClass())) {
+			return new MultiShardEntityCursor((MultiShardAwareCriteria)criteria);
+		}
+		checkAndPopulateShardedEntityContextHolder(new Criteria[]{criteria});
+		try {
+			return streamEntities(findSuitableProvider(criteria.getManagedClass()), criteria);
+		} finally {
+			// unset the context using the criteria. The cursor has acquired its data source by now
+			checkAndUnsetShardedEntityContextHolder(criteria);
+		}
+	}
+	
+	/**
+	 * Interface method implementation. Flushes each of the configured PersistenceProvider instances that buffer writes, once per instance. Providers
+	 * flush the buffered writes of all shards
+	 * @see PersistenceManager#flush()
+	 */
+	public void flush() throws PersistenceException {
+		if (this.m_EntityToProviders == null) {
+			return;
+		}
+		Set<PersistenceProvider> flushedProviders = Collections.newSetFromMap(new IdentityHashMap<PersistenceProvider, Boolean>());
+		for (PersistenceProvider provider : this.m_EntityToProviders.values()) {
+			if (BufferedPersistenceProvider.class.isAssignableFrom(provider.getClass()) && flushedProviders.add(provider)) {
+				((BufferedPersistenceProvider)provider).flush();
+			}
+		}
+	}
+	
 	/**
 	 * Interface method implementation. This method is transactional by default and implemented by calling {@link PersistenceDelegate#update(PersistenceProvider[], Criteria...)} 
 	 * For multi-sharded entities, the TX guarantee is limited to per shard and DOES NOT span across multiple shards.
@@ -337,8 +569,278 @@ public class PersistenceManagerProvider implements PersistenceManager {
 	public void setPersistenceDelegate(PersistenceDelegate persistenceDelegate) {
 		this.persistenceDelegate = persistenceDelegate;
 	}
+	public boolean isScatterGatherQueries() {
+		return this.scatterGatherQueries;
+	}
+	public void setScatterGatherQueries(boolean scatterGatherQueries) {
+		this.scatterGatherQueries = scatterGatherQueries;
+	}
+	public int getScatterGatherConcurrency() {
+		return this.scatterGatherConcurrency;
+	}
+	public void setScatterGatherConcurrency(int scatterGatherConcurrency) {
+		this.scatterGatherConcurrency = scatterGatherConcurrency;
+	}
+	public boolean isParallelShardWrites() {
+		return this.parallelShardWrites;
+	}
+	public void setParallelShardWrites(boolean parallelShardWrites) {
+		this.parallelShardWrites = parallelShardWrites;
+	}
+	public int getShardWriteConcurrency() {
+		return this.shardWriteConcurrency;
+	}
+	public void setShardWriteConcurrency(int shardWriteConcurrency) {
+		this.shardWriteConcurrency = shardWriteConcurrency;
+	}
+	public long getShardWriteTimeoutMillis() {
+		return this.shardWriteTimeoutMillis;
+	}
+	public void setShardWriteTimeoutMillis(long shardWriteTimeoutMillis) {
+		this.shardWriteTimeoutMillis = shardWriteTimeoutMillis;
+	}
+	public boolean isCompensateFailedShardWrites() {
+		return this.compensateFailedShardWrites;
+	}
+	public void setCompensateFailedShardWrites(boolean compensateFailedShardWrites) {
+		this.compensateFailedShardWrites = compensateFailedShardWrites;
+	}
 	/** End Java bean style setter-getter methods*/
 
+	/**
+	 * Helper method to query the shards of the specified multi-sharded criteria concurrently. Each shard is queried using a copy of the criteria
+	 * and results are collated as and when shard queries complete.
+	 */
+	private Collection<PersistentEntity> findEntitiesInShards(MultiShardAwareCriteria criteria) throws PersistenceException {
+		CompletionService<Collection<PersistentEntity>> completionService = new ExecutorCompletionService<Collection<PersistentEntity>>(getScatterGatherExecutor());
+		String[] shardHints = criteria.getShardHints();
+		List<Future<Collection<PersistentEntity>>> futures = new ArrayList<Future<Collection<PersistentEntity>>>(shardHints.length);
+		for (final String shardHint : shardHints) {
+			final MultiShardAwareCriteria shardCriteria = criteria.copyForShard(shardHint);
+			futures.add(completionService.submit(new Callable<Collection<PersistentEntity>>() {
+				public Collection<PersistentEntity> call() throws Exception {
+					return findEntitiesInShard(shardCriteria, shardHint);
+				}
+			}));
+		}
+		List<PersistentEntity> returnedObjects = new ArrayList<PersistentEntity>();
+		try {
+			for (int i = 0; i < futures.size(); i++) {
+				returnedObjects.addAll(completionService.take().get());
+				// stop waiting for the remaining shards if max results has been set and results count match or exceed this limit
+				if (criteria.getResultsComparator() == null && criteria.getMaxResults() > 0 && returnedObjects.size() >= criteria.getMaxResults()) {
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new PersistenceException("Interrupted while querying shards for : " + criteria.toConciseString(), e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof PersistenceException) {
+				throw (PersistenceException)e.getCause();
+			}
+			throw new PersistenceException("Error querying shards for : " + criteria.toConciseString(), e.getCause());
+		} finally {
+			// cancel pending shard queries, if any
+			for (Future<Collection<PersistentEntity>> future : futures) {
+				future.cancel(true);
+			}
+		}
+		return collateResults(criteria, returnedObjects);
+	}
+	
+	/**
+	 * Helper method to query the specified shard using the specified multi-sharded criteria. Sets the shard hint of the criteria and of the returned
+	 * ShardedEntity instances to the specified shard.
+	 */
+	@SuppressWarnings("unchecked")
+	private Collection<PersistentEntity> findEntitiesInShard(MultiShardAwareCriteria criteria, String shardHint) throws PersistenceException {
+		criteria.setShardHint(shardHint);
+		checkAndPopulateShardedEntityContextHolder(new Criteria[]{criteria});
+		try {
+			Collection lookedUpEntities = findSuitableProvider(criteria.getManagedClass()).findEntities(criteria);
+			for (Object entity : lookedUpEntities) {
+				// check to see if the returned object is a ShardedEntity. Set the shard hint to denote the data store it was loaded from.
+				// useful if the returned object is going to be persisted subsequently
+				if (this.entityRoutes.get(entity.getClass()).sharded) {
+					((ShardedEntity)entity).setShardHint(shardHint);
+				}
+			}
+			return lookedUpEntities;
+		} finally {
+			// unset the context using the criteria
+			checkAndUnsetShardedEntityContextHolder(criteria);
+		}
+	}
+	
+	/**
+	 * Helper method to stream the results of the specified criteria using the specified PersistenceProvider. The results are loaded into memory and
+	 * iterated over if the provider does not support streaming.
+	 */
+	private EntityCursor streamEntities(PersistenceProvider provider, Criteria criteria) throws PersistenceException {
+		if (StreamingPersistenceProvider.class.isAssignableFrom(provider.getClass())) {
+			return ((StreamingPersistenceProvider)provider).streamEntities(criteria);
+		}
+		return new IteratorEntityCursor(provider.findEntities(criteria));
+	}
+	
+	/**
+	 * Helper method to open a cursor on the specified shard using a copy of the specified multi-sharded criteria
+	 */
+	private EntityCursor streamEntitiesInShard(MultiShardAwareCriteria criteria, String shardHint) throws PersistenceException {
+		MultiShardAwareCriteria shardCriteria = criteria.copyForShard(shardHint);
+		checkAndPopulateShardedEntityContextHolder(new Criteria[]{shardCriteria});
+		try {
+			return streamEntities(findSuitableProvider(shardCriteria.getManagedClass()), shardCriteria);
+		} finally {
+			checkAndUnsetShardedEntityContextHolder(shardCriteria);
+		}
+	}
+	
+	/**
+	 * Helper method to order the specified results collated from multiple shards, if a results comparator is specified, and to limit them by 
+	 * max results, if specified.
+	 */
+	private Collection<PersistentEntity> collateResults(MultiShardAwareCriteria criteria, List<PersistentEntity> returnedObjects) {
+		if (criteria.getResultsComparator() != null) {
+			Collections.sort(returnedObjects, criteria.getResultsComparator());
+		}
+		if (criteria.getMaxResults() > 0 && returnedObjects.size() > criteria.getMaxResults()) {
+			return new LinkedList<PersistentEntity>(returnedObjects.subList(0, criteria.getMaxResults()));
+		}
+		return new LinkedList<PersistentEntity>(returnedObjects);
+	}
+	
+	/**
+	 * Helper method to return the executor for scatter-gather queries, creating one if required
+	 */
+	private synchronized ExecutorService getScatterGatherExecutor() {
+		if (this.scatterGatherExecutor == null) {
+			this.scatterGatherExecutor = createExecutor(this.scatterGatherConcurrency, "ShardScatterGather_");
+		}
+		return this.scatterGatherExecutor;
+	}
+	
+	/**
+	 * Helper method to write the specified multi-sharded entities to each of their shards concurrently and to compensate for failed writes, if 
+	 * configured to do so.
+	 */
+	private MultiShardWriteResult writeShards(PersistentEntity[] entities, AbstractMultiShardedPersistentEntity multiShardedEntity, final boolean persist) 
+			throws PersistenceException {
+		String[] shardHints = multiShardedEntity.getShardHints();
+		MultiShardWriteResult result = new MultiShardWriteResult(shardHints);
+		Map<String, Future<PersistentEntity[]>> futures = new LinkedHashMap<String, Future<PersistentEntity[]>>();
+		for (String shardHint : shardHints) {
+			// each shard is written using its own copies of the entities as handlers use the shard hint set on the entities
+			final PersistentEntity[] shardEntities = new PersistentEntity[entities.length];
+			for (int i = 0; i < entities.length; i++) {
+				shardEntities[i] = ((AbstractMultiShardedPersistentEntity)entities[i]).copyForShard(shardHint);
+			}
+			futures.put(shardHint, getShardWriteExecutor().submit(new Callable<PersistentEntity[]>() {
+				public PersistentEntity[] call() throws Exception {
+					return writeShard(shardEntities, persist);
+				}
+			}));
+		}
+		long deadline = System.currentTimeMillis() + this.shardWriteTimeoutMillis;
+		try {
+			for (Map.Entry<String, Future<PersistentEntity[]>> entry : futures.entrySet()) {
+				try {
+					result.addSuccess(entry.getKey(), entry.getValue().get(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS));
+				} catch (ExecutionException e) {
+					LOGGER.error("Error writing to shard : " + entry.getKey(), e.getCause());
+					result.addFailure(entry.getKey(), e.getCause());
+				} catch (TimeoutException e) {
+					entry.getValue().cancel(true);
+					result.addFailure(entry.getKey(), new PersistenceException("Timed out writing to shard : " + entry.getKey() + " after " 
+							+ this.shardWriteTimeoutMillis + " ms", e));
+				}
+			}
+		} catch (InterruptedException e) {
+			for (Future<PersistentEntity[]> future : futures.values()) {
+				future.cancel(true);
+			}
+			Thread.currentThread().interrupt();
+			throw new PersistenceException("Interrupted while writing to shards : " + result.toString(), e);
+		}
+		if (persist && this.compensateFailedShardWrites && !result.isSuccessful()) {
+			for (String shardHint : result.getSucceededShards()) {
+				try {
+					writeShard(result.getEntities(shardHint), false);
+					result.addCompensation(shardHint);
+				} catch (Exception e) {
+					LOGGER.error("Error deleting entities from shard : " + shardHint + " to compensate for failed writes to other shards", e);
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Helper method to persist or delete the specified entities, all belonging to the same shard, on the current thread
+	 */
+	private PersistentEntity[] writeShard(PersistentEntity[] entities, boolean persist) throws PersistenceException {
+		checkAndPopulateShardedEntityContextHolder(entities);
+		try {
+			if (persist) {
+				return this.persistenceDelegate.makePersistent(entities, findSuitableProviders(entities));
+			}
+			this.persistenceDelegate.makeTransient(entities, findSuitableProviders(entities));
+			return entities;
+		} finally {
+			// unset the context using the first entity
+			checkAndUnsetShardedEntityContextHolder(entities[0]);
+		}
+	}
+	
+	/**
+	 * Helper method to throw a PersistenceException if writes to any of the shards in the specified result failed
+	 */
+	private void checkShardWriteResult(MultiShardWriteResult result) throws PersistenceException {
+		if (!result.isSuccessful()) {
+			throw new PersistenceException("Error writing to one or more shards. " + result.toString(), result.getFailure(result.getFailedShards()[0]));
+		}
+	}
+	
+	/**
+	 * Helper method to return the first of the specified entities after validating all of them to be multi-sharded entities
+	 */
+	private AbstractMultiShardedPersistentEntity getMultiShardedEntity(PersistentEntity[] entities) throws PersistenceException {
+		if (entities.length == 0 || !this.entityRoutes.get(entities[0].getClass()).multiSharded) {
+			throw new PersistenceException("Multi-sharded persistent entities expected");
+		}
+		AbstractMultiShardedPersistentEntity multiShardedEntity = (AbstractMultiShardedPersistentEntity)entities[0];
+		checkValidityOfMultiShardedPersistentities(multiShardedEntity, entities);
+		return multiShardedEntity;
+	}
+	
+	/**
+	 * Helper method to return the executor for concurrent shard writes, creating one if required
+	 */
+	private synchronized ExecutorService getShardWriteExecutor() {
+		if (this.shardWriteExecutor == null) {
+			this.shardWriteExecutor = createExecutor(this.shardWriteConcurrency, "ShardWrite_");
+		}
+		return this.shardWriteExecutor;
+	}
+	
+	/**
+	 * Helper method to create an executor with the specified number of threads. The executor threads are daemon threads and time out when idle.
+	 */
+	private ExecutorService createExecutor(int concurrency, final String threadNamePrefix) {
+		ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS, 
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					private AtomicInteger threadCount = new AtomicInteger();
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		threadPoolExecutor.allowCoreThreadTimeOut(true);
+		return threadPoolExecutor;
+	}
+	
 	/**
 	 * Helper method to locate the PersistenceProvider for the specified PersistentEntity
 	 */
@@ -355,7 +857,7 @@ public class PersistenceManagerProvider implements PersistenceManager {
 	private void checkValidityOfMultiShardedPersistentities(AbstractMultiShardedPersistentEntity multiShardedEntity, PersistentEntity[] entities) 
 		throws PersistenceException {
 		for (PersistentEntity listPersistentEntity : entities) {
-			if (!AbstractMultiShardedPersistentEntity.class.isAssignableFrom(listPersistentEntity.getClass())) {
+			if (!this.entityRoutes.get(listPersistentEntity.getClass()).multiSharded) {
 				// attempt to mix multi sharded persistent entity with other types in same persistence call
 				throw new PersistenceException(
 						"Attempt to persist Multi-sharded persistent entity with other types. Multi-sharded entity found of type : (" + multiShardedEntity.getEntityName() + ")" +   
@@ -411,8 +913,13 @@ public class PersistenceManagerProvider implements PersistenceManager {
 	 */
 	private PersistenceProvider[] findSuitableProviders(PersistentEntity[] entities) throws PersistenceException {
 		PersistenceProvider[] providers = new PersistenceProvider[entities.length];
+		boolean sameProvider = true;
 		for (int i=0; i<entities.length; i++) {
 			providers[i] = findSuitableProvider(entities[i]);
+			sameProvider = sameProvider && providers[i] == providers[0];
+		}
+		if (sameProvider) {
+			return providers;
 		}
 		// check to see if all persistence providers are the same, else throw an exception as it could affect TX behavior for data sources
 		// that do not support semantics like distributed transactions
@@ -439,7 +946,7 @@ public class PersistenceManagerProvider implements PersistenceManager {
 	 * @throws PersistenceException - In case no provider was found.
 	 */
 	private PersistenceProvider findSuitableProvider(Class<?> clazz) throws PersistenceException {
-		PersistenceProvider provider = m_EntityToProviders.get(clazz.getName());
+		PersistenceProvider provider = this.entityRoutes.get(clazz).provider;
 		if (provider == null) {
 			throw new PersistenceException("No suitable provider found for: " + clazz.getName());
 		}
@@ -468,33 +975,24 @@ public class PersistenceManagerProvider implements PersistenceManager {
 	private void checkAndPopulateShardedEntityContextHolder(PersistentEntity[] entities) throws PersistenceException {
 		if(entities.length != 0){
 			// check to see if sharded and non-sharded entities are part of the same call
-			ShardedEntity shardedEntity = null;
-			PersistentEntity nonShardedEntity = null;
-			for (PersistentEntity entity : entities) {
-				if (ShardedEntity.class.isAssignableFrom(entity.getClass())) {
-					shardedEntity = (ShardedEntity)entity;
-				} else {
-					nonShardedEntity = entity;
-				}
-			}
-			if (shardedEntity != null && nonShardedEntity != null) {
-        		throw new PersistenceException("Attempt to use sharded and non-sharded persistent entities in the same call. " + 
-        				"Mixed types are : " + shardedEntity.getClass().getName() + "," + nonShardedEntity.getClass().getName());				
-			}			
 			PersistentEntity firstEntity = entities[0];
-			String shardHint = (ShardedEntity.class.isAssignableFrom(firstEntity.getClass())) ? ((ShardedEntity)firstEntity).getShardHint() : ShardedEntity.DEFAULT_SHARD;
+			boolean sharded = this.entityRoutes.get(firstEntity.getClass()).sharded;
+			String shardHint = sharded ? ((ShardedEntity)firstEntity).getShardHint() : ShardedEntity.DEFAULT_SHARD;
 			for (PersistentEntity entity : entities) {
-		        if (ShardedEntity.class.isAssignableFrom(entity.getClass())) {
-		        	if (!((ShardedEntity)entity).getShardHint().equals(shardHint)) {
-		        		throw new PersistenceException("Shard hints do not match for the specified ShardedEntity instances." + 
-		        				" Mismatched values are : " + shardHint + "," + ((ShardedEntity)entity).getShardHint());
-		        	}
-		        }
-		        // Set the PersistentEntity into the ShardedEntityContextHolder if the type is ShardedPersistentEntity. Will be used in Datasource resolution
-		        if (ShardedEntity.class.isAssignableFrom(firstEntity.getClass())) {
-		        	ShardedEntityContextHolder.setShardedEntity((ShardedEntity)firstEntity);
+				boolean entitySharded = this.entityRoutes.get(entity.getClass()).sharded;
+				if (entitySharded != sharded) {
+	        		throw new PersistenceException("Attempt to use sharded and non-sharded persistent entities in the same call. " + 
+	        				"Mixed types are : " + firstEntity.getClass().getName() + "," + entity.getClass().getName());				
+				}
+		        if (entitySharded && !((ShardedEntity)entity).getShardHint().equals(shardHint)) {
+	        		throw new PersistenceException("Shard hints do not match for the specified ShardedEntity instances." + 
+	        				" Mismatched values are : " + shardHint + "," + ((ShardedEntity)entity).getShardHint());
 		        }
 			}
+	        // Set the PersistentEntity into the ShardedEntityContextHolder if the type is ShardedPersistentEntity. Will be used in Datasource resolution
+	        if (sharded) {
+	        	ShardedEntityContextHolder.setShardedEntity((ShardedEntity)firstEntity);
+	        }
 		}
 	}
 	
@@ -599,4 +1097,102 @@ public class PersistenceManagerProvider implements PersistenceManager {
 		return entities;
 	}
 	
+	/**
+	 * Routing table entry of a PersistentEntity type i.e. its PersistenceProvider, null if none is configured, and its sharding type
+	 */
+	static class EntityRoute {
+		PersistenceProvider provider;
+		boolean sharded;
+		boolean multiSharded;
+		EntityRoute(Class<?> type, PersistenceProvider provider) {
+			this.provider = provider;
+			this.sharded = ShardedEntity.class.isAssignableFrom(type);
+			this.multiSharded = AbstractMultiShardedPersistentEntity.class.isAssignableFrom(type);
+		}
+	}
+	
+	/**
+	 * The routing table. Computes the EntityRoute of a type once, on first use, from the specified entity to provider mappings
+	 */
+	static class EntityRoutes extends ClassValue<EntityRoute> {
+		Map<String, PersistenceProvider> entityToProviders;
+		EntityRoutes(Map<String, PersistenceProvider> entityToProviders) {
+			this.entityToProviders = entityToProviders;
+		}
+		protected EntityRoute computeValue(Class<?> type) {
+			return new EntityRoute(type, this.entityToProviders == null ? null : this.entityToProviders.get(type.getName()));
+		}
+	}
+	
+	/**
+	 * EntityCursor over the results of a multi-sharded criteria. Opens the cursor on each shard only after that of the previous shard is exhausted 
+	 * and sets the shard hint of the returned ShardedEntity instances to the shard they were read from. The resume key is that of the shard cursor 
+	 * last read from and is therefore meaningful only for criteria with a single shard hint.
+	 */
+	private class MultiShardEntityCursor implements ResumableEntityCursor {
+		private MultiShardAwareCriteria criteria;
+		private int shardIndex;
+		private String shardHint;
+		private EntityCursor shardCursor;
+		private int count;
+		private boolean closed;
+		private Object resumeKey;
+		private String resumeKeyParameter;
+		MultiShardEntityCursor(MultiShardAwareCriteria criteria) {
+			this.criteria = criteria;
+		}
+		public boolean hasNext() {
+			if (this.closed || (this.criteria.getMaxResults() > 0 && this.count >= this.criteria.getMaxResults())) {
+				return false;
+			}
+			while (this.shardCursor == null || !this.shardCursor.hasNext()) {
+				if (this.shardCursor != null) {
+					this.shardCursor.close();
+					this.shardCursor = null;
+				}
+				if (this.shardIndex >= this.criteria.getShardHints().length) {
+					return false;
+				}
+				this.shardHint = this.criteria.getShardHints()[this.shardIndex++];
+				this.shardCursor = streamEntitiesInShard(this.criteria, this.shardHint);
+			}
+			return true;
+		}
+		public PersistentEntity next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException("No more entities in cursor");
+			}
+			PersistentEntity entity = this.shardCursor.next();
+			this.count += 1;
+			if (this.shardCursor instanceof ResumableEntityCursor) {
+				this.resumeKey = ((ResumableEntityCursor)this.shardCursor).getResumeKey();
+				this.resumeKeyParameter = ((ResumableEntityCursor)this.shardCursor).getResumeKeyParameter();
+			} else {
+				this.resumeKey = null;
+				this.resumeKeyParameter = null;
+			}
+			if (entityRoutes.get(entity.getClass()).sharded) {
+				((ShardedEntity)entity).setShardHint(this.shardHint);
+			}
+			return entity;
+		}
+		public void remove() {
+			throw new UnsupportedOperationException("Remove is not supported by an EntityCursor");
+		}
+		public Object getResumeKey() {
+			return this.resumeKey;
+		}
+		public String getResumeKeyParameter() {
+			return this.resumeKeyParameter;
+		}
+		public void close() throws PersistenceException {
+			this.closed = true;
+			if (this.shardCursor != null) {
+				EntityCursor cursor = this.shardCursor;
+				this.shardCursor = null;
+				cursor.close();
+			}
+		}
+	}
+	
 }
\ No newline at end of file
@@ -31,10 +31,13 @@ import org.trpr.platform.core.spi.persistence.sharding.ShardedPersistentEntity;
  * This class implements the {@link ShardedEntity#getShardHint()} as a simple Java Bean like getter method i.e. returns the value set using the corresponding
  * setter method.
  * 
+ * This class is Cloneable and {@link #copyForShard(String)} creates shallow copies of it. Copies are used when multiple shards are written concurrently.
+ * Sub-types holding mutable state that is modified during persistence must override this method to copy such state.
+ * 
  * @author Regunath B
  * @version 1.0, 23/05/2012
  */
-public abstract class AbstractMultiShardedPersistentEntity extends AbstractPersistentEntity implements MultiShardedPersistentEntity, ShardedPersistentEntity {
+public abstract class AbstractMultiShardedPersistentEntity extends AbstractPersistentEntity implements MultiShardedPersistentEntity, ShardedPersistentEntity, Cloneable {
 	
 	/** The current shard hint set on this ShardedEntity initialized to empty string i.e. "" to indicate default shard*/
 	private String currentShardHint = ShardedEntity.DEFAULT_SHARD;
@@ -81,4 +84,20 @@ public abstract class AbstractMultiShardedPersistentEntity extends AbstractPersi
 	public void setShardHint(String currentShardHint) {
 		this.currentShardHint = currentShardHint;
 	}
+	
+	/**
+	 * Creates a shallow copy of this entity with the current shard hint set to the specified value
+	 * @param shardHint the current shard hint of the copy
+	 * @return copy of this entity for the specified shard
+	 */
+	public AbstractMultiShardedPersistentEntity copyForShard(String shardHint) {
+		try {
+			AbstractMultiShardedPersistentEntity copy = (AbstractMultiShardedPersistentEntity)super.clone();
+			copy.setShardHint(shardHint);
+			return copy;
+		} catch (CloneNotSupportedException e) {
+			// will not happen as this class is Cloneable
+			throw new IllegalStateException("Error copying entity : " + getClass().getName(), e);
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trpr.platform.core.impl.persistence.sharding;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.trpr.platform.core.spi.persistence.sharding.KeyedShardingScheme;
+
+/**
+ * The <code>ConsistentHashShardingScheme</code> is an implementation of the {@link KeyedShardingScheme} that places the shard hints held by an
+ * instance of this class on a consistent hash ring. Each shard hint is placed at a number of points on the ring, called virtual nodes, and a key is
+ * mapped to the shard hint at the first point on or after the hash of the key. Virtual nodes spread the keys evenly across shards and adding a shard
+ * moves only about 1/N of the keys, all to the new shard.
+ *
+ * Keys are hashed using their {@link Object#toString()} value. The ring is rebuilt when shard hints or the number of virtual nodes are set and
+ * lookups read the current ring without locking. Falls back to the round-robin selection of {@link DistributedShardShardingScheme} when no key is
+ * specified.
+ *
+ * @author Regunath B
+ */
+public class ConsistentHashShardingScheme extends DistributedShardShardingScheme implements KeyedShardingScheme {
+
+	/** The default number of virtual nodes per shard hint*/
+	public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+	/** The charset for hashing keys*/
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/** The number of virtual nodes per shard hint*/
+	private int virtualNodes = DEFAULT_VIRTUAL_NODES;
+
+	/** The hash ring, replaced as a whole when rebuilt*/
+	private volatile Ring ring;
+
+	/**
+	 * Constructor for this class
+	 */
+	public ConsistentHashShardingScheme() {
+		this.ring = new Ring(getShardHints(), this.virtualNodes);
+	}
+
+	/**
+	 * Interface method implementation. Returns the shard hint at the first point on the ring on or after the hash of the specified key
+	 * @see KeyedShardingScheme#getShardHint(java.lang.Object)
+	 */
+	public String getShardHint(Object key) {
+		if (key == null) {
+			return getShardHint();
+		}
+		Ring currentRing = this.ring;
+		if (currentRing.points.length == 0) {
+			throw new IllegalStateException("No shard hints specified");
+		}
+		int index = Arrays.binarySearch(currentRing.points, hash(key.toString()));
+		if (index < 0) {
+			index = -index - 1;
+			if (index == currentRing.points.length) {
+				// wrap around the ring
+				index = 0;
+			}
+		}
+		return currentRing.shardHints[index];
+	}
+
+	/**
+	 * Overriden super type method. Rebuilds the ring for the specified shard hints
+	 * @see DistributedShardShardingScheme#setShardHints(java.lang.String[])
+	 */
+	public void setShardHints(String[] shardHints) {
+		super.setShardHints(shardHints);
+		this.ring = new Ring(shardHints, this.virtualNodes);
+	}
+
+	/** Getter/Setter methods*/
+	public int getVirtualNodes() {
+		return this.virtualNodes;
+	}
+	public void setVirtualNodes(int virtualNodes) {
+		if (virtualNodes < 1) {
+			throw new IllegalArgumentException("Virtual nodes must be at least 1. Specified value is : " + virtualNodes);
+		}
+		this.virtualNodes = virtualNodes;
+		this.ring = new Ring(getShardHints(), virtualNodes);
+	}
+
+	/**
+	 * Helper method to compute the 64 bit hash of the specified value. Uses FNV-1a followed by the 64 bit finalizer of MurmurHash3 to spread
+	 * similar values across the ring
+	 */
+	private static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : value.getBytes(UTF_8)) {
+			hash ^= (b & 0xff);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= (hash >>> 33);
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= (hash >>> 33);
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= (hash >>> 33);
+		return hash;
+	}
+
+	/**
+	 * Immutable hash ring i.e. points sorted by hash and the shard hints at each of the points
+	 */
+	static class Ring {
+		long[] points;
+		String[] shardHints;
+		Ring(String[] shards, int virtualNodes) {
+			long[][] entries = new long[shards.length * virtualNodes][];
+			for (int i = 0; i < shards.length; i++) {
+				for (int j = 0; j < virtualNodes; j++) {
+					entries[i * virtualNodes + j] = new long[] {hash(shards[i] + "#" + j), i};
+				}
+			}
+			Arrays.sort(entries, new Comparator<long[]>() {
+				public int compare(long[] entry1, long[] entry2) {
+					// order by hash and then by shard index, so that hash collisions resolve the same way on every rebuild
+					int result = entry1[0] < entry2[0] ? -1 : (entry1[0] == entry2[0] ? 0 : 1);
+					return result != 0 ? result : (int)(entry1[1] - entry2[1]);
+				}
+			});
+			this.points = new long[entries.length];
+			this.shardHints = new String[entries.length];
+			for (int i = 0; i < entries.length; i++) {
+				this.points[i] = entries[i][0];
+				this.shardHints[i] = shards[(int)entries[i][1]];
+			}
+		}
+	}
+}
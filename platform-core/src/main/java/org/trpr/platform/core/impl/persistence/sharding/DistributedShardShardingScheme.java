@@ -16,13 +16,16 @@
 
 package org.trpr.platform.core.impl.persistence.sharding;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.trpr.platform.core.spi.persistence.sharding.ShardedEntity;
 import org.trpr.platform.core.spi.persistence.sharding.ShardingScheme;
 
 /**
  * The <code>DistributedShardShardingScheme</code> is an implementation of the ShardingScheme that returns a shard from the list of shard hints
  * held by an instance of this class. This implementation does a round-robin selection of the shards held by the instance of this class.
- * Does not have any intelligence like load distribution based on number of entities contained by each shard or other factors.
+ * Does not have any intelligence like load distribution based on number of entities contained by each shard or other factors. Instances of this
+ * class are safe for use by multiple threads.
  * 
  * @author Regunath B
  * @version 1.0, 23/05/2012
@@ -30,19 +33,19 @@ import org.trpr.platform.core.spi.persistence.sharding.ShardingScheme;
 public class DistributedShardShardingScheme implements ShardingScheme {
 
 	/** Place holder for shard hints, initialized with the default shard value*/
-	private String[] shardHints = new String[] {ShardedEntity.DEFAULT_SHARD};
+	private volatile String[] shardHints = new String[] {ShardedEntity.DEFAULT_SHARD};
 	
-	/** Index to choose the shard hint*/
-	private int shardHintIndex = -1;
+	/** Counter to choose the shard hint*/
+	private AtomicInteger shardHintCounter = new AtomicInteger();
 	
 	/**
 	 * Interface method implementation. Returns a shard hint determined by round-robin selection from shard hints held by an instance of this class.
 	 * @see ShardingScheme#getShardHint()
 	 */
 	public String getShardHint() {
-		shardHintIndex += 1;
-		shardHintIndex = (shardHintIndex % getShardHints().length);
-		return getShardHints()[shardHintIndex];
+		String[] hints = getShardHints();
+		// mask the sign bit so that the index stays positive when the counter overflows
+		return hints[(this.shardHintCounter.getAndIncrement() & Integer.MAX_VALUE) % hints.length];
 	}
 
 	/** Getter/Setter methods*/
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trpr.platform.core.impl.persistence.sharding;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.trpr.platform.core.impl.persistence.PersistenceManagerProvider;
+import org.trpr.platform.core.spi.persistence.PersistentEntity;
+
+/**
+ * The <code>MultiShardWriteResult</code> is the outcome of writing multi-sharded persistent entities to each of their shards concurrently, using
+ * {@link PersistenceManagerProvider#makePersistentInShards(PersistentEntity[])} or {@link PersistenceManagerProvider#makeTransientInShards(PersistentEntity[])}.
+ * Each shard is written in its own transaction and this result identifies the shards that succeeded, along with the entities written to each, and
+ * the shards that failed, along with the cause of failure. Shards whose successful writes were subsequently undone by compensating deletes are
+ * also identified.
+ *
+ * @author Regunath B
+ */
+public class MultiShardWriteResult {
+
+	/** The shard hints in the order they were written*/
+	private String[] shardHints;
+
+	/** The entities written, keyed by the shard hints of successful writes*/
+	private Map<String, PersistentEntity[]> shardEntities = new LinkedHashMap<String, PersistentEntity[]>();
+
+	/** The causes of failure, keyed by the shard hints of failed writes*/
+	private Map<String, Throwable> shardFailures = new LinkedHashMap<String, Throwable>();
+
+	/** The shard hints of successful writes that were undone by compensating deletes*/
+	private Set<String> compensatedShards = new LinkedHashSet<String>();
+
+	/**
+	 * Constructor for this class
+	 * @param shardHints the shard hints that are written
+	 */
+	public MultiShardWriteResult(String[] shardHints) {
+		this.shardHints = shardHints;
+	}
+
+	/**
+	 * Records the successful write of the specified entities to the specified shard
+	 * @param shardHint the shard hint
+	 * @param entities the entities written to the shard
+	 */
+	public void addSuccess(String shardHint, PersistentEntity[] entities) {
+		this.shardEntities.put(shardHint, entities);
+	}
+
+	/**
+	 * Records the failed write to the specified shard
+	 * @param shardHint the shard hint
+	 * @param cause the cause of failure
+	 */
+	public void addFailure(String shardHint, Throwable cause) {
+		this.shardFailures.put(shardHint, cause);
+	}
+
+	/**
+	 * Records that the successful write to the specified shard was undone by a compensating delete
+	 * @param shardHint the shard hint
+	 */
+	public void addCompensation(String shardHint) {
+		this.compensatedShards.add(shardHint);
+	}
+
+	/**
+	 * Determines if writes to all shards succeeded
+	 * @return true if no shard write failed
+	 */
+	public boolean isSuccessful() {
+		return this.shardFailures.isEmpty();
+	}
+
+	/**
+	 * Returns the shard hints of the successful writes, in the order the shards were written
+	 * @return the shard hints of successful writes, including compensated ones
+	 */
+	public String[] getSucceededShards() {
+		return filterShards(this.shardEntities.keySet());
+	}
+
+	/**
+	 * Returns the shard hints of the failed writes, in the order the shards were written
+	 * @return the shard hints of failed writes
+	 */
+	public String[] getFailedShards() {
+		return filterShards(this.shardFailures.keySet());
+	}
+
+	/**
+	 * Returns the shard hints of the successful writes that were undone by compensating deletes
+	 * @return the shard hints of compensated writes
+	 */
+	public String[] getCompensatedShards() {
+		return filterShards(this.compensatedShards);
+	}
+
+	/**
+	 * Returns the entities written to the specified shard
+	 * @param shardHint the shard hint
+	 * @return the entities written to the shard, null if the write to the shard failed
+	 */
+	public PersistentEntity[] getEntities(String shardHint) {
+		return this.shardEntities.get(shardHint);
+	}
+
+	/**
+	 * Returns the cause of failure of the write to the specified shard
+	 * @param shardHint the shard hint
+	 * @return the cause of failure, null if the write to the shard succeeded
+	 */
+	public Throwable getFailure(String shardHint) {
+		return this.shardFailures.get(shardHint);
+	}
+
+	/**
+	 * Overriden superclass method. Returns a summary of the shard write outcomes
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		sb.append("Succeeded shards : ");
+		sb.append(this.shardEntities.keySet());
+		sb.append(",Failed shards : ");
+		sb.append(this.shardFailures.keySet());
+		sb.append(",Compensated shards : ");
+		sb.append(this.compensatedShards);
+		return sb.toString();
+	}
+
+	/**
+	 * Helper method to return the shard hints contained in the specified set, in the order the shards were written
+	 */
+	private String[] filterShards(Set<String> shards) {
+		List<String> filteredShards = new ArrayList<String>();
+		for (String shardHint : this.shardHints) {
+			if (shards.contains(shardHint)) {
+				filteredShards.add(shardHint);
+			}
+		}
+		return filteredShards.toArray(new String[filteredShards.size()]);
+	}
+}
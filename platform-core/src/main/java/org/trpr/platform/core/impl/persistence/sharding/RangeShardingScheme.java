@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trpr.platform.core.impl.persistence.sharding;
+
+import java.util.Arrays;
+
+import org.trpr.platform.core.spi.persistence.sharding.KeyedShardingScheme;
+
+/**
+ * The <code>RangeShardingScheme</code> is an implementation of the {@link KeyedShardingScheme} that maps keys to the shard hints held by an instance
+ * of this class using sorted range boundaries. For N shard hints, N-1 boundaries in ascending order are specified and the shard hint at index i holds
+ * keys that are greater than or equal to the boundary at index i-1 and less than the boundary at index i. For example, boundaries {100, 200} and
+ * shard hints {"s1", "s2", "s3"} map keys below 100 to "s1", keys from 100 to 199 to "s2" and keys from 200 to "s3".
+ *
+ * Keys must be {@link Comparable} with the boundaries. Boundaries and shard hints are replaced as a whole when set and lookups read them without
+ * locking. Falls back to the round-robin selection of {@link DistributedShardShardingScheme} when no key is specified.
+ *
+ * @author Regunath B
+ */
+public class RangeShardingScheme extends DistributedShardShardingScheme implements KeyedShardingScheme {
+
+	/** The range boundaries in ascending order*/
+	private Comparable<?>[] boundaries = new Comparable<?>[0];
+
+	/** The ranges i.e. boundaries and shard hints, replaced as a whole when either is set. Null if their counts do not match*/
+	private volatile Ranges ranges;
+
+	/**
+	 * Constructor for this class
+	 */
+	public RangeShardingScheme() {
+		this.ranges = Ranges.create(this.boundaries, getShardHints());
+	}
+
+	/**
+	 * Interface method implementation. Returns the shard hint of the range containing the specified key
+	 * @see KeyedShardingScheme#getShardHint(java.lang.Object)
+	 */
+	public String getShardHint(Object key) {
+		if (key == null) {
+			return getShardHint();
+		}
+		Ranges currentRanges = this.ranges;
+		if (currentRanges == null) {
+			throw new IllegalStateException("Shard hints count must be one more than boundaries count. Boundaries count is : "
+					+ this.boundaries.length + " , shard hints count is : " + getShardHints().length);
+		}
+		int index = Arrays.binarySearch(currentRanges.boundaries, key);
+		// a key equal to a boundary belongs to the range starting at the boundary
+		return currentRanges.shardHints[index >= 0 ? index + 1 : -index - 1];
+	}
+
+	/**
+	 * Overriden super type method. Updates the ranges for the specified shard hints
+	 * @see DistributedShardShardingScheme#setShardHints(java.lang.String[])
+	 */
+	public void setShardHints(String[] shardHints) {
+		super.setShardHints(shardHints);
+		this.ranges = Ranges.create(this.boundaries, shardHints);
+	}
+
+	/** Getter/Setter methods*/
+	public Comparable<?>[] getBoundaries() {
+		return this.boundaries;
+	}
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void setBoundaries(Comparable<?>[] boundaries) {
+		for (int i = 1; i < boundaries.length; i++) {
+			if (((Comparable)boundaries[i - 1]).compareTo(boundaries[i]) >= 0) {
+				throw new IllegalArgumentException("Boundaries must be in ascending order. Out of order values are : " + boundaries[i - 1] + "," + boundaries[i]);
+			}
+		}
+		this.boundaries = boundaries;
+		this.ranges = Ranges.create(boundaries, getShardHints());
+	}
+
+	/**
+	 * Immutable boundaries and shard hints of the ranges
+	 */
+	static class Ranges {
+		Object[] boundaries;
+		String[] shardHints;
+		static Ranges create(Comparable<?>[] boundaries, String[] shardHints) {
+			if (shardHints.length != boundaries.length + 1) {
+				return null;
+			}
+			Ranges ranges = new Ranges();
+			ranges.boundaries = boundaries.clone();
+			ranges.shardHints = shardHints.clone();
+			return ranges;
+		}
+	}
+}
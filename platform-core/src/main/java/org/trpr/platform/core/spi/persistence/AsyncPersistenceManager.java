@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.core.spi.persistence;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The <code>AsyncPersistenceManager</code> is the non-blocking variant of the {@link PersistenceManager}. Methods return immediately with a 
+ * {@link CompletableFuture} that is completed with the outcome of the persistence call, or completed exceptionally with the {@link PersistenceException} 
+ * raised by it. Independent persistence calls may therefore be issued concurrently without blocking a thread per call.
+ * 
+ * The shard of a call is determined by the {@link PersistentEntity} or {@link Criteria} passed in, and not by any context of the calling thread. 
+ * Entities and criteria passed in must not be modified until the returned future is complete. 
+ * 
+ * @author Regunath B
+ * @version 1.0, 17/10/2026
+ */
+public interface AsyncPersistenceManager {
+
+	/**
+	 * Asynchronous variant of {@link PersistenceManager#makePersistent(PersistentEntity)}
+	 * @param entity the PersistentEntity to be persisted
+	 * @return CompletableFuture for the PersistentEntity that was persisted
+	 */
+	public CompletableFuture<PersistentEntity> makePersistent(PersistentEntity entity);
+	
+	/**
+	 * Asynchronous variant of {@link PersistenceManager#makePersistent(PersistentEntity[])}
+	 * @param entities the PersistentEntity instances to be persisted
+	 * @return CompletableFuture for the PersistentEntity instances that were persisted
+	 */
+	public CompletableFuture<PersistentEntity[]> makePersistent(PersistentEntity[] entities);
+	
+	/**
+	 * Asynchronous variant of {@link PersistenceManager#makeTransient(PersistentEntity)}
+	 * @param entity the PersistentEntity to be deleted
+	 * @return CompletableFuture that is completed when the entity is deleted
+	 */
+	public CompletableFuture<Void> makeTransient(PersistentEntity entity);
+	
+	/**
+	 * Asynchronous variant of {@link PersistenceManager#makeTransient(PersistentEntity[])}
+	 * @param entities the PersistentEntity instances to be deleted
+	 * @return CompletableFuture that is completed when the entities are deleted
+	 */
+	public CompletableFuture<Void> makeTransient(PersistentEntity[] entities);
+	
+	/**
+	 * Asynchronous variant of {@link PersistenceManager#findEntity(Criteria)}
+	 * @param criteria the Criteria to use for retrieving the PersistentEntity from underlying data store
+	 * @return CompletableFuture for the PersistentEntity retrieved from the underlying data store
+	 */
+	public CompletableFuture<PersistentEntity> findEntity(Criteria criteria);
+	
+	/**
+	 * Asynchronous variant of {@link PersistenceManager#findEntity(PersistentEntity)}
+	 * @param entity the PersistentEntity to use for retrieving the PersistentEntity data from underlying data store
+	 * @return CompletableFuture for the PersistentEntity retrieved from the underlying data store
+	 */
+	public CompletableFuture<PersistentEntity> findEntity(PersistentEntity entity);
+	
+	/**
+	 * Asynchronous variant of {@link PersistenceManager#findEntity(PersistentEntity[])}
+	 * @param entities the PersistentEntity instances to use for retrieving data from underlying data store
+	 * @return CompletableFuture for the PersistentEntity instances retrieved, that contains null for entities that were not found
+	 */
+	public CompletableFuture<PersistentEntity[]> findEntity(PersistentEntity[] entities);
+	
+	/**
+	 * Asynchronous variant of {@link PersistenceManager#findEntities(Criteria)}
+	 * @param criteria the Criteria for loading entities from persistent store
+	 * @return CompletableFuture for the Collection of PersistentEntity instances
+	 */
+	public CompletableFuture<Collection<PersistentEntity>> findEntities(Criteria criteria);
+	
+	/**
+	 * Asynchronous variant of {@link PersistenceManager#update(Criteria)}
+	 * @param criteria the Criteria containing information for update operation
+	 * @return CompletableFuture for the count of records/documents/columns updated in the underlying data store
+	 */
+	public CompletableFuture<Integer> update(Criteria criteria);
+	
+	/**
+	 * Asynchronous variant of {@link PersistenceManager#update(Criteria[])}
+	 * @param criteria the Criteria instances containing information for the update operations
+	 * @return CompletableFuture for the counts of records/documents/columns updated in the underlying data store, one for each Criteria
+	 */
+	public CompletableFuture<int[]> update(Criteria... criteria);
+	
+}
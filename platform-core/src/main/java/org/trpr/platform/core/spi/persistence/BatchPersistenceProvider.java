@@ -0,0 +1,53 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.core.spi.persistence;
+
+/**
+ * The <code>BatchPersistenceProvider</code> is a sub-type of the {@link PersistenceProvider} for providers that can read/write a number of 
+ * {@link PersistentEntity} instances in a single (or a few) round trips to the underlying data store, instead of one call per entity.
+ * 
+ * All methods in this interface preserve the order of the PersistentEntity instances passed in i.e. the returned arrays match the input by index positions.
+ * 
+ * @author Regunath B
+ * @version 1.0, 17/10/2026
+ */
+public interface BatchPersistenceProvider extends PersistenceProvider {
+
+	/**
+	 * Variant of {@link #makePersistent(PersistentEntity)} that persists the specified PersistentEntity instances as a batch
+	 * @param entities the PersistentEntity instances to be persisted
+	 * @return the PersistentEntity instances that were persisted, in the same order as the input
+	 * @throws PersistenceException or one of its relevant sub-types in case of errors during persistence. See PersistenceException type hierarchy. 
+	 */
+	public PersistentEntity[] makePersistent(PersistentEntity[] entities) throws PersistenceException;
+	
+	/**
+	 * Variant of {@link #makeTransient(PersistentEntity)} that deletes the specified PersistentEntity instances as a batch
+	 * @param entities the PersistentEntity instances to be deleted
+	 * @throws PersistenceException or one of its relevant sub-types in case of errors during persistence. See PersistenceException type hierarchy. 
+	 */
+	public void makeTransient(PersistentEntity[] entities) throws PersistenceException;
+	
+	/**
+	 * Variant of {@link #findEntity(PersistentEntity)} that loads the specified PersistentEntity instances as a batch
+	 * @param entities the PersistentEntity instances to use for retrieving data from underlying data store
+	 * @return PersistentEntity instances retrieved from the underlying data store, in the same order as the input. Contains null at index positions
+	 * 	for which no data was found
+	 * @throws PersistenceException or one of its relevant sub-types in case of errors during persistence. See PersistenceException type hierarchy. 
+	 */
+	public PersistentEntity[] findEntity(PersistentEntity[] entities) throws PersistenceException;
+	
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.core.spi.persistence;
+
+/**
+ * The <code>BufferedPersistenceHandler</code> is a sub-type of the {@link PersistenceHandler} for handlers that may buffer writes on the client
+ * i.e. writes and deletes that have returned may not yet be visible in, or durable on, the underlying data store until they are flushed.
+ * 
+ * @author Regunath B
+ * @version 1.0, 17/10/2026
+ */
+public interface BufferedPersistenceHandler extends PersistenceHandler {
+
+	/**
+	 * Writes all buffered writes and deletes to the underlying data store. Returns quietly if there are none.
+	 * @throws PersistenceException or one of its relevant sub-types in case of errors during persistence. See PersistenceException type hierarchy.
+	 */
+	public void flush() throws PersistenceException;
+	
+}
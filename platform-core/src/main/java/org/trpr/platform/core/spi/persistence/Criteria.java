@@ -15,7 +15,7 @@
  */
 package org.trpr.platform.core.spi.persistence;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -52,8 +52,8 @@ public class Criteria {
 	/** The PersistentEntity that this Criteria works on*/
 	protected Class<? extends PersistentEntity> managedClass;
 
-	/** Names and values Map for parameterized queries*/
-	protected Map<String, Object> paramsMap = new HashMap<String, Object>();
+	/** Names and values Map for parameterized queries. Iterates in the order parameters were added*/
+	protected Map<String, Object> paramsMap = new LinkedHashMap<String, Object>();
 	
 	/** The first result set index. Default is 0. Useful during pagination*/
 	protected int firstResult = 0;
@@ -139,7 +139,7 @@ public class Criteria {
 	 * @return array of String parameter names
 	 */
 	public String[] getParamNamesArray() {
-		return this.getParamsMap().keySet().toArray(new String[0]);
+		return this.getParamsMap().keySet().toArray(new String[this.getParamsMap().size()]);
 	}
 	
 	/**
@@ -148,14 +148,7 @@ public class Criteria {
 	 * @return array of Object parameter values
 	 */
 	public Object[] getParamValuesArray() {
-		Object[] values = new Object[this.getParamsMap().size()];
-		// populate the values by going over the key set so that order is preserved
-		int index = 0;
-		for (String key : this.getParamsMap().keySet()) {
-			values[index] =  this.getParamsMap().get(key);
-			index++;
-		}
-		return values;
+		return this.getParamsMap().values().toArray();
 	}
 	
 	/** === Start getter/setter methods == */
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.core.spi.persistence;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * The <code>EntityCursor</code> is an {@link Iterator} over {@link PersistentEntity} instances that are read from the underlying data store as the
+ * cursor is advanced, instead of being loaded into memory all at once. A cursor holds resources like database connections while it is open and 
+ * must be closed once done with, typically in a finally block. Cursors are forward-only, do not support {@link #remove()} and are not thread-safe.
+ * 
+ * @author Regunath B
+ * @version 1.0, 17/10/2026
+ */
+public interface EntityCursor extends Iterator<PersistentEntity>, Closeable {
+
+	/**
+	 * Closes this cursor and releases the resources held by it. Closing an already closed cursor has no effect.
+	 * @throws PersistenceException or one of its relevant sub-types in case of errors releasing resources. See PersistenceException type hierarchy. 
+	 */
+	public void close() throws PersistenceException;
+	
+}
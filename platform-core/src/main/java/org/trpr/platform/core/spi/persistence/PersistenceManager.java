@@ -17,6 +17,8 @@ package org.trpr.platform.core.spi.persistence;
 
 import java.util.Collection;
 
+import org.trpr.platform.core.impl.persistence.IteratorEntityCursor;
+
 /**
  * The <code>PersistenceManager</code> is the primary client facing interface of the Persistence framework. Provides methods to perform mostly  
  * CRUDL (Create, Read, Update, Delete, List) operations on data. The operations listed is a superset for the framework and the ones actually supported 
@@ -76,6 +78,19 @@ public interface PersistenceManager {
 	 */
 	public PersistentEntity findEntity(PersistentEntity entity) throws PersistenceException;
 	
+	/**
+	 * Variant of {@link #findEntity(PersistentEntity)} that supports an array of PersistentEntity in method parameter and return type. The returned
+	 * array matches the specified array by index positions and contains null for entities that were not found. The default implementation loads
+	 * the entities one after the other using {@link #findEntity(PersistentEntity)}
+	 */
+	public default PersistentEntity[] findEntity(PersistentEntity[] entities) throws PersistenceException {
+		PersistentEntity[] foundEntities = new PersistentEntity[entities.length];
+		for (int i = 0; i < entities.length; i++) {
+			foundEntities[i] = findEntity(entities[i]);
+		}
+		return foundEntities;
+	}
+	
 	/**
 	 * Retrieves and returns a Collection of PersistentEntity instances from underlying data store using the specified Criteria.  
 	 * @param criteria the Criteria for loading entities from persistent store
@@ -84,6 +99,27 @@ public interface PersistenceManager {
 	 */
 	public Collection<PersistentEntity> findEntities(Criteria criteria) throws PersistenceException;
 	
+	/**
+	 * Variant of {@link #findEntities(Criteria)} that returns the results as an {@link EntityCursor} that reads them from the underlying data store
+	 * as it is advanced, instead of loading all of them into memory. The returned cursor must be closed by the caller. The default implementation
+	 * loads the results using {@link #findEntities(Criteria)} and iterates over them.
+	 * @param criteria the Criteria for loading entities from persistent store
+	 * @return EntityCursor over the PersistentEntity instances
+	 * @throws PersistenceException or one of its relevant sub-types in case of errors during persistence. See PersistenceException type hierarchy.
+	 */
+	public default EntityCursor streamEntities(Criteria criteria) throws PersistenceException {
+		return new IteratorEntityCursor(findEntities(criteria));
+	}
+	
+	/**
+	 * Writes all writes and deletes buffered by the underlying data stores, if any. Writes that have returned may otherwise not yet be visible in, or 
+	 * durable on, data stores that buffer writes on the client. The default implementation does nothing.
+	 * @throws PersistenceException or one of its relevant sub-types in case of errors during persistence. See PersistenceException type hierarchy.
+	 */
+	public default void flush() throws PersistenceException {
+		// no writes are buffered
+	}
+	
 	/**
 	 * Updates the underlying data store using data in the specified Criteria. This method violates Object-Persistence mapping by providing access
 	 * to the data store using query constructs as supported by the data store. Use of this method is generally discouraged.
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trpr.platform.core.spi.persistence;
+
+/**
+ * Class <code>PreparedCriteria</code> is a sub-type of {@link Criteria} whose parameter names are declared upfront, in order, when it is created.
+ * Parameter values are held in an array matching the declared names by position and may be set by position using {@link #setParameter(int, Object)}.
+ * Persistence handlers may therefore bind parameters by position, for queries that use positional parameters, or to the name declared at each 
+ * position, without iterating and copying the parameters Map. Handlers may also cache query metadata, such as the parameters declared by a query,
+ * for the query string. The declared names must be distinct and serve only as labels for queries with positional parameters.
+ * 
+ * This criteria also carries optional hints for query execution : the JDBC fetch size and whether the returned entities are read-only i.e. will not
+ * be modified and therefore need not be tracked for changes by the persistence framework.
+ *  
+ * @author Regunath B
+ */
+public class PreparedCriteria extends Criteria {
+
+	/** The parameter names, in order*/
+	private String[] paramNames;
+	
+	/** The parameter values, matched to the parameter names by position*/
+	private Object[] paramValues;
+	
+	/** The JDBC fetch size hint, 0 to use the default*/
+	private int fetchSize;
+	
+	/** The read-only hint*/
+	private boolean readOnly;
+	
+	/**
+	 * Constructor for this class
+	 * @param managedClass the PersistentEntity type
+	 * @param query the query string
+	 * @param type the query type
+	 * @param paramNames the names of the query parameters, in order
+	 * @throws IllegalArgumentException if the parameter names are not distinct
+	 */
+	public PreparedCriteria(Class<? extends PersistentEntity> managedClass, String query, int type, String... paramNames) {
+		super(managedClass, query, type);
+		for (int i = 0; i < paramNames.length; i++) {
+			for (int j = 0; j < i; j++) {
+				if (paramNames[j].equals(paramNames[i])) {
+					throw new IllegalArgumentException("Duplicate parameter : " + paramNames[i] + " for query : " + query);
+				}
+			}
+		}
+		this.paramNames = paramNames;
+		this.paramValues = new Object[paramNames.length];
+	}
+	
+	/**
+	 * Sets the value of the parameter at the specified position
+	 * @param position the position of the parameter in the names specified when creating this criteria
+	 * @param value the parameter value
+	 */
+	public void setParameter(int position, Object value) {
+		this.paramValues[position] = value;
+		this.paramsMap.put(this.paramNames[position], value);
+	}
+	
+	/**
+	 * Overriden superclass method. Sets the value of the parameter with the specified name
+	 * @throws IllegalArgumentException if the parameter name was not specified when creating this criteria
+	 * @see Criteria#addParameter(String, Object)
+	 */
+	public void addParameter(String param, Object value) {
+		for (int i = 0; i < this.paramNames.length; i++) {
+			if (this.paramNames[i].equals(param)) {
+				setParameter(i, value);
+				return;
+			}
+		}
+		throw new IllegalArgumentException("Undeclared parameter : " + param + " for query : " + this.query);
+	}
+	
+	/**
+	 * Overriden superclass method. Returns the declared parameter names without copying. The returned array must not be modified
+	 * @see Criteria#getParamNamesArray()
+	 */
+	public String[] getParamNamesArray() {
+		return this.paramNames;
+	}
+	
+	/**
+	 * Overriden superclass method. Returns the parameter values without copying. The returned array must not be modified
+	 * @see Criteria#getParamValuesArray()
+	 */
+	public Object[] getParamValuesArray() {
+		return this.paramValues;
+	}
+	
+	/** Getter/Setter methods*/
+	public int getFetchSize() {
+		return this.fetchSize;
+	}
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+	public boolean isReadOnly() {
+		return this.readOnly;
+	}
+	public void setReadOnly(boolean readOnly) {
+		this.readOnly = readOnly;
+	}
+	
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.core.spi.persistence;
+
+/**
+ * The <code>ResumableEntityCursor</code> is an {@link EntityCursor} that can provide a key for resuming a query after the entity last returned by
+ * {@link #next()}. A query for the next page of results is run by setting the resume key as the {@link Criteria} parameter named by 
+ * {@link #getResumeKeyParameter()}, instead of skipping the results already read using {@link Criteria#setFirstResult(int)}. This avoids re-reading
+ * the earlier results and is not affected by entities that are added or deleted before the resume key.
+ * 
+ * @author Regunath B
+ * @version 1.0, 17/10/2026
+ */
+public interface ResumableEntityCursor extends EntityCursor {
+
+	/**
+	 * Returns the key for resuming the query after the entity last returned by {@link #next()}. The key is Serializable and may be stored in checkpoints.
+	 * @return the resume key, null if no entity has been returned
+	 */
+	public Object getResumeKey();
+	
+	/**
+	 * Returns the name of the Criteria parameter to set the resume key as
+	 * @return the resume key Criteria parameter name
+	 */
+	public String getResumeKeyParameter();
+	
+}
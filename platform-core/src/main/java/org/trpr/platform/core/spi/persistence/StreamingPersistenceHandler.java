@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.core.spi.persistence;
+
+/**
+ * The <code>StreamingPersistenceHandler</code> is a sub-type of the {@link PersistenceHandler} for handlers that can stream the results of a
+ * {@link Criteria} from the underlying data store, using memory that does not grow with the number of results.
+ * 
+ * @author Regunath B
+ * @version 1.0, 17/10/2026
+ */
+public interface StreamingPersistenceHandler extends PersistenceHandler {
+
+	/**
+	 * Variant of {@link #findEntities(Criteria)} that returns the results as an {@link EntityCursor} that reads them from the data store as it is advanced.
+	 * The returned cursor must be closed by the caller.  
+	 * @param criteria the Criteria for loading entities from persistent store
+	 * @return EntityCursor over the PersistentEntity instances
+	 * @throws PersistenceException or one of its relevant sub-types in case of errors during persistence. See PersistenceException type hierarchy.
+	 */
+	public EntityCursor streamEntities(Criteria criteria) throws PersistenceException;
+	
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trpr.platform.core.spi.persistence.sharding;
+
+/**
+ * The <code>KeyedShardingScheme</code> is a {@link ShardingScheme} that determines the shard from a key of the {@link ShardedEntity} being persisted,
+ * such as the value of its identifier. Implementations return the same shard hint for equal keys and may therefore be used in implementations 
+ * of {@link ShardedEntity#getShardHint()} to route entities deterministically.
+ * 
+ * Implementations must be safe for use by multiple threads.
+ * 
+ * @author Regunath B
+ */
+public interface KeyedShardingScheme extends ShardingScheme {
+
+	/**
+	 * Returns the shard hint for the specified key
+	 * @param key the key of the ShardedEntity
+	 * @return String indicating the shard
+	 */
+	public String getShardHint(Object key);
+	
+}
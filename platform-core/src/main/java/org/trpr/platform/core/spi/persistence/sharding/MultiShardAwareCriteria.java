@@ -16,6 +16,9 @@
 
 package org.trpr.platform.core.spi.persistence.sharding;
 
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+
 import org.trpr.platform.core.spi.persistence.Criteria;
 import org.trpr.platform.core.spi.persistence.PersistentEntity;
 
@@ -27,16 +30,26 @@ import org.trpr.platform.core.spi.persistence.PersistentEntity;
  * This MultiShardAwareCriteria is initialized with an array of shards of size one containing the default shard i.e. {@link ShardedEntity#DEFAULT_SHARD}}.
  * Sub-types may override the {@link #getShardHints()} to provide more meaningful and invocation specific values, as required.
  * 
+ * Results collated from multiple shards may be ordered by specifying a {@link #setResultsComparator(Comparator)}. Shards may be queried concurrently
+ * using copies of this criteria created by {@link #copyForShard(String)}. This class is Cloneable and copies are clones, so that they retain the
+ * runtime type and state of sub-types. Sub-types holding mutable state that is modified during query execution must override this method to copy
+ * such state.
+ * 
  * @author Regunath B
  * @version 1.0, 23/05/2012
  */
-public class MultiShardAwareCriteria extends ShardAwareCriteria implements MultiShardedEntity {
+public class MultiShardAwareCriteria extends ShardAwareCriteria implements MultiShardedEntity, Cloneable {
 	
 	/**
 	 * The Shard hints
 	 */
 	private String[] shardHints = new String[]{ShardedEntity.DEFAULT_SHARD};
 	
+	/**
+	 * The Comparator for ordering results collated from multiple shards, optional
+	 */
+	private Comparator<? super PersistentEntity> resultsComparator;
+	
 	/**
 	 * Constructor for this class
 	 * @see {@link Criteria}
@@ -61,5 +74,33 @@ public class MultiShardAwareCriteria extends ShardAwareCriteria implements Multi
 		return this.shardHints;
 	}
 	
+	/** == Setter and Getter for results comparator. */	
+	public void setResultsComparator(Comparator<? super PersistentEntity> resultsComparator) {
+		this.resultsComparator = resultsComparator;
+	}
+	public Comparator<? super PersistentEntity> getResultsComparator() {
+		return this.resultsComparator;
+	}
+	
+	/**
+	 * Creates a copy of this criteria for querying the specified shard. The copy is a clone of this criteria, of the same runtime type, with its own 
+	 * parameters Map and with the specified shard as its shard hint and only shard hint.
+	 * @param shardHint the shard hint of the copy
+	 * @return copy of this criteria for the specified shard
+	 */
+	public MultiShardAwareCriteria copyForShard(String shardHint) {
+		try {
+			MultiShardAwareCriteria shardCriteria = (MultiShardAwareCriteria)super.clone();
+			// copies are queried concurrently, do not share the parameters
+			shardCriteria.paramsMap = new LinkedHashMap<String, Object>(this.paramsMap);
+			shardCriteria.setShardHints(new String[] {shardHint});
+			shardCriteria.setShardHint(shardHint);
+			return shardCriteria;
+		} catch (CloneNotSupportedException e) {
+			// will not happen as this class is Cloneable
+			throw new IllegalStateException("Error copying criteria : " + getClass().getName(), e);
+		}
+	}
+	
 	
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.core.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.trpr.platform.core.impl.persistence.sharding.ConsistentHashShardingScheme;
+
+/**
+ * Test class for {@link ConsistentHashShardingScheme}
+ * 
+ * @author Regunath B
+ */
+public class ConsistentHashShardingSchemeTest {
+
+	/** The number of keys mapped by the tests*/
+	private static final int KEY_COUNT = 40000;
+
+	/**
+	 * Tests that a key maps to the same shard hint on every look up and on every instance with the same shard hints
+	 */
+	@Test
+	public void testStableMapping() {
+		ConsistentHashShardingScheme scheme1 = createScheme("s1", "s2", "s3");
+		ConsistentHashShardingScheme scheme2 = createScheme("s1", "s2", "s3");
+		for (int i = 0; i < 1000; i++) {
+			String hint = scheme1.getShardHint("key" + i);
+			assertEquals(hint, scheme1.getShardHint("key" + i));
+			assertEquals(hint, scheme2.getShardHint("key" + i));
+		}
+	}
+
+	/**
+	 * Tests that keys are spread evenly across shard hints
+	 */
+	@Test
+	public void testEvenDistribution() {
+		String[] shardHints = {"s1", "s2", "s3", "s4"};
+		ConsistentHashShardingScheme scheme = createScheme(shardHints);
+		Map<String, Integer> counts = new HashMap<String, Integer>();
+		for (int i = 0; i < KEY_COUNT; i++) {
+			String hint = scheme.getShardHint(Long.valueOf(i));
+			counts.put(hint, counts.containsKey(hint) ? counts.get(hint) + 1 : 1);
+		}
+		assertEquals(shardHints.length, counts.size());
+		for (Map.Entry<String, Integer> count : counts.entrySet()) {
+			// each shard is expected to hold 25% of the keys
+			assertTrue("Uneven distribution : " + counts, count.getValue() > KEY_COUNT * 0.18 && count.getValue() < KEY_COUNT * 0.32);
+		}
+	}
+
+	/**
+	 * Tests that adding a shard hint moves about 1/N of the keys, all to the new shard hint
+	 */
+	@Test
+	public void testMinimalMovementOnAddingShard() {
+		ConsistentHashShardingScheme scheme = createScheme("s1", "s2", "s3", "s4");
+		String[] hints = new String[KEY_COUNT];
+		for (int i = 0; i < KEY_COUNT; i++) {
+			hints[i] = scheme.getShardHint("key" + i);
+		}
+		scheme.setShardHints(new String[] {"s1", "s2", "s3", "s4", "s5"});
+		int moved = 0;
+		for (int i = 0; i < KEY_COUNT; i++) {
+			String hint = scheme.getShardHint("key" + i);
+			if (!hint.equals(hints[i])) {
+				assertEquals("Key moved between existing shards", "s5", hint);
+				moved++;
+			}
+		}
+		// the new shard is expected to hold 20% of the keys
+		assertTrue("Unexpected number of moved keys : " + moved, moved > KEY_COUNT * 0.12 && moved < KEY_COUNT * 0.28);
+	}
+
+	/**
+	 * Tests the fall back to round-robin selection when no key is specified
+	 */
+	@Test
+	public void testNullKey() {
+		ConsistentHashShardingScheme scheme = createScheme("s1", "s2");
+		assertTrue(Arrays.asList("s1", "s2").contains(scheme.getShardHint(null)));
+	}
+
+	/**
+	 * Tests that look ups fail when there are no shard hints
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testNoShardHints() {
+		createScheme().getShardHint("key");
+	}
+
+	/**
+	 * Tests that the number of virtual nodes must be positive
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidVirtualNodes() {
+		createScheme("s1").setVirtualNodes(0);
+	}
+
+	/**
+	 * Helper method to create a scheme with the specified shard hints
+	 */
+	private ConsistentHashShardingScheme createScheme(String... shardHints) {
+		ConsistentHashShardingScheme scheme = new ConsistentHashShardingScheme();
+		scheme.setShardHints(shardHints);
+		return scheme;
+	}
+
+}
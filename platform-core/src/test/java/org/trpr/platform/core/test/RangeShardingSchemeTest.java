@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.core.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.trpr.platform.core.impl.persistence.sharding.RangeShardingScheme;
+import org.trpr.platform.core.spi.persistence.sharding.ShardedEntity;
+
+/**
+ * Test class for {@link RangeShardingScheme}
+ * 
+ * @author Regunath B
+ */
+public class RangeShardingSchemeTest {
+
+	/**
+	 * Tests that keys map to the range containing them, and that keys equal to a boundary map to the range starting at the boundary
+	 */
+	@Test
+	public void testRanges() {
+		RangeShardingScheme scheme = createScheme(new Comparable<?>[] {100, 200}, "s1", "s2", "s3");
+		assertEquals("s1", scheme.getShardHint(Integer.MIN_VALUE));
+		assertEquals("s1", scheme.getShardHint(99));
+		assertEquals("s2", scheme.getShardHint(100));
+		assertEquals("s2", scheme.getShardHint(199));
+		assertEquals("s3", scheme.getShardHint(200));
+		assertEquals("s3", scheme.getShardHint(Integer.MAX_VALUE));
+	}
+
+	/**
+	 * Tests ranges on String keys
+	 */
+	@Test
+	public void testStringRanges() {
+		RangeShardingScheme scheme = createScheme(new Comparable<?>[] {"g", "n"}, "a-f", "g-m", "n-z");
+		assertEquals("a-f", scheme.getShardHint("alpha"));
+		assertEquals("g-m", scheme.getShardHint("g"));
+		assertEquals("g-m", scheme.getShardHint("mike"));
+		assertEquals("n-z", scheme.getShardHint("november"));
+	}
+
+	/**
+	 * Tests that all keys map to the default shard when no boundaries or shard hints are specified
+	 */
+	@Test
+	public void testDefaults() {
+		assertEquals(ShardedEntity.DEFAULT_SHARD, new RangeShardingScheme().getShardHint("key"));
+	}
+
+	/**
+	 * Tests that the boundaries can be set before the shard hints
+	 */
+	@Test
+	public void testBoundariesBeforeShardHints() {
+		RangeShardingScheme scheme = new RangeShardingScheme();
+		scheme.setBoundaries(new Comparable<?>[] {10L});
+		scheme.setShardHints(new String[] {"low", "high"});
+		assertEquals("low", scheme.getShardHint(9L));
+		assertEquals("high", scheme.getShardHint(10L));
+	}
+
+	/**
+	 * Tests that look ups fail when the number of shard hints is not one more than the number of boundaries
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testMismatchedCounts() {
+		createScheme(new Comparable<?>[] {100, 200}, "s1", "s2").getShardHint(150);
+	}
+
+	/**
+	 * Tests that boundaries must be in ascending order
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnorderedBoundaries() {
+		new RangeShardingScheme().setBoundaries(new Comparable<?>[] {200, 100});
+	}
+
+	/**
+	 * Helper method to create a scheme with the specified boundaries and shard hints
+	 */
+	private RangeShardingScheme createScheme(Comparable<?>[] boundaries, String... shardHints) {
+		RangeShardingScheme scheme = new RangeShardingScheme();
+		scheme.setShardHints(shardHints);
+		scheme.setBoundaries(boundaries);
+		return scheme;
+	}
+
+}
@@ -16,20 +16,22 @@
 package org.trpr.platform.impl.task;
 
 import org.trpr.platform.model.common.BusinessEntity;
+import org.trpr.platform.spi.task.DependentTask;
 import org.trpr.platform.spi.task.Task;
 import org.trpr.platform.spi.task.TaskContext;
 import org.trpr.platform.spi.task.TaskData;
 import org.trpr.platform.spi.task.TaskResult;
 
 /**
- * The <code>AbstractTask</code> is an implementation of the {@link Task} interface.
+ * The <code>AbstractTask</code> is an implementation of the {@link Task} interface. Dependencies on other tasks may be set using
+ * {@link #setDependencies(String[])} and are honored by task managers that support {@link DependentTask}.
  * 
  * @author Regunath B
  * @version 1.0, 17/08/2012
  */
 
 @SuppressWarnings("rawtypes")
-public abstract class AbstractTask implements Task {
+public abstract class AbstractTask implements DependentTask {
 
 	/** The default serial version UID */
 	private static final long serialVersionUID = 1L;
@@ -39,6 +41,7 @@ public abstract class AbstractTask implements Task {
 	protected TaskData data;
 	protected TaskResult result;
 	protected String taskId;
+	protected String[] dependencies = new String[0];
 	
 	/**
 	 * Constructor for this class
@@ -73,6 +76,22 @@ public abstract class AbstractTask implements Task {
 		this.data = data;
 	}
 	
+	/**
+	 * Interface method implementation. Returns the identifiers of tasks that this Task depends on
+	 * @see org.trpr.platform.spi.task.DependentTask#getDependencies()
+	 */
+	public String[] getDependencies() {
+		return this.dependencies;
+	}
+
+	/**
+	 * Sets the identifiers of tasks that this Task depends on
+	 * @param dependencies task identifiers of the tasks that must complete before this Task executes
+	 */
+	public void setDependencies(String... dependencies) {
+		this.dependencies = dependencies;
+	}
+
 	/**
 	 * Returns the TaskData for this Task
 	 * @return the TaskData set on this Task
@@ -82,7 +101,8 @@ public abstract class AbstractTask implements Task {
 	}
 
 	/**
-	 * Interface method implementation. Executes this Task
+	 * Interface method implementation. Executes this Task and adds the result to the TaskContext. The TaskManager executing this Task may add the 
+	 * result again, which has no effect
 	 * @see java.lang.Runnable#run()
 	 */
 	@SuppressWarnings("unchecked")
@@ -0,0 +1,415 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.impl.task;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.trpr.platform.core.PlatformException;
+import org.trpr.platform.model.common.BusinessEntity;
+import org.trpr.platform.model.event.PlatformEvent;
+import org.trpr.platform.spi.task.DependentTask;
+import org.trpr.platform.spi.task.Resource;
+import org.trpr.platform.spi.task.Task;
+import org.trpr.platform.spi.task.TaskContext;
+import org.trpr.platform.spi.task.TaskData;
+import org.trpr.platform.spi.task.TaskManager;
+import org.trpr.platform.spi.task.TaskResult;
+
+/**
+ * The <code>ParallelTaskManager</code> class is an implementation of {@link org.trpr.platform.spi.task.TaskManager} that executes tasks in parallel
+ * as per their dependencies. Tasks that implement {@link DependentTask} execute only after the tasks they depend on have completed, while tasks that
+ * do not depend on each other execute concurrently on the {@link ExecutorService} set on this manager or, if none is set, on a {@link ForkJoinPool}
+ * created by this manager. Task dependencies are checked for unknown task IDs and cycles before any task is executed. 
+ * 
+ * Execution is fail-fast : the first task that fails or exceeds its timeout cancels execution of all other tasks. Tasks that have not started are not
+ * executed, running tasks are interrupted, results of incomplete tasks are marked as failed in the TaskContext and a {@link PlatformException} is thrown
+ * to the caller. Tasks are executed in-process i.e. within the same JVM.
+ * 
+ * Results are added to the {@link TaskContextImpl} as soon as each task completes. Tasks may therefore also wait for results of tasks they do not depend on,
+ * using {@link TaskContext#getTaskResult(String, long, java.util.concurrent.TimeUnit)}, provided the ExecutorService has enough threads to execute the
+ * tasks being waited for.
+ *  
+ * @author Regunath B
+ * @version 1.0, 17/10/2026
+ */
+public class ParallelTaskManager<T extends TaskData<BusinessEntity, Resource>, S extends TaskResult<BusinessEntity>,
+		R extends TaskContext<S, PlatformEvent>> implements TaskManager<T,S,R>, DisposableBean {
+
+	/** Dependencies of tasks that do not declare any*/
+	private static final String[] NO_DEPENDENCIES = new String[0];
+	
+	/** Visit states of tasks when checking for dependency cycles*/
+	private static final int NOT_VISITED = 0, VISITING = 1, VISITED = 2;
+	
+	/** The ExecutorService for executing tasks, optional*/
+	private ExecutorService executorService;
+	
+	/** The parallelism of the ForkJoinPool created when no ExecutorService is set*/
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	
+	/** The default task execution timeout in milliseconds, zero or less for no timeout*/
+	private long taskTimeoutMillis;
+	
+	/** Task execution timeouts in milliseconds, keyed by task ID. Override the default task timeout*/
+	private Map<String, Long> taskTimeoutsMillis = new HashMap<String, Long>();
+	
+	/** The ForkJoinPool and timeout scheduler created by this manager, as required*/
+	private ExecutorService defaultExecutorService;
+	private ScheduledThreadPoolExecutor timeoutScheduler;
+	
+	/**
+	 * Interface method implementation. Executes the tasks in parallel as per their dependencies and waits for all of them to complete. Creates a 
+	 * TaskContextImpl prior to task execution and passes it to each task being executed. 
+	 * @see org.trpr.platform.spi.task.TaskManager#execute(org.trpr.platform.spi.task.Task<T,S,R>[])
+	 * @throws IllegalArgumentException in case of duplicate task IDs, dependencies on unknown tasks or cyclic dependencies
+	 * @throws PlatformException in case a task fails or times out, or the calling thread is interrupted
+	 */
+	@SuppressWarnings("unchecked")
+	public R execute(Task<T,S,R>[] tasks) {
+		TaskContextImpl<S,PlatformEvent> taskContext = new TaskContextImpl<S,PlatformEvent>();
+		if (tasks.length > 0) {
+			TaskGraph taskGraph = new TaskGraph(tasks, taskContext);
+			taskGraph.start();
+			taskGraph.await();
+		}
+		return (R)taskContext;
+	}
+	
+	/**
+	 * Interface method implementation. Shuts down the ForkJoinPool and timeout scheduler, if created by this manager
+	 * @see org.springframework.beans.factory.DisposableBean#destroy()
+	 */
+	public synchronized void destroy() throws Exception {
+		if (this.defaultExecutorService != null) {
+			this.defaultExecutorService.shutdown();
+			this.defaultExecutorService = null;
+		}
+		if (this.timeoutScheduler != null) {
+			this.timeoutScheduler.shutdown();
+			this.timeoutScheduler = null;
+		}
+	}
+	
+	/**
+	 * Helper method to return the ExecutorService for executing tasks. Creates a ForkJoinPool if none is set on this manager
+	 */
+	private synchronized ExecutorService getTaskExecutorService() {
+		if (this.executorService != null) {
+			return this.executorService;
+		}
+		if (this.defaultExecutorService == null) {
+			this.defaultExecutorService = new ForkJoinPool(this.parallelism);
+		}
+		return this.defaultExecutorService;
+	}
+	
+	/**
+	 * Helper method to return the scheduler for task timeouts. Creates one if required
+	 */
+	private synchronized ScheduledThreadPoolExecutor getTimeoutScheduler() {
+		if (this.timeoutScheduler == null) {
+			this.timeoutScheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "TaskTimeout");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			// timeouts are cancelled for most tasks, remove them right away rather than when they would have expired
+			this.timeoutScheduler.setRemoveOnCancelPolicy(true);
+		}
+		return this.timeoutScheduler;
+	}
+	
+	/**
+	 * Helper method to return the execution timeout in milliseconds for the specified task ID
+	 */
+	private long getTimeoutMillis(String taskId) {
+		Long timeoutMillis = this.taskTimeoutsMillis.get(taskId);
+		return timeoutMillis != null ? timeoutMillis : this.taskTimeoutMillis;
+	}
+	
+	/** Getter/Setter methods*/
+	public ExecutorService getExecutorService() {
+		return this.executorService;
+	}
+	public void setExecutorService(ExecutorService executorService) {
+		this.executorService = executorService;
+	}
+	public int getParallelism() {
+		return this.parallelism;
+	}
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+	public long getTaskTimeoutMillis() {
+		return this.taskTimeoutMillis;
+	}
+	public void setTaskTimeoutMillis(long taskTimeoutMillis) {
+		this.taskTimeoutMillis = taskTimeoutMillis;
+	}
+	public Map<String, Long> getTaskTimeoutsMillis() {
+		return this.taskTimeoutsMillis;
+	}
+	public void setTaskTimeoutsMillis(Map<String, Long> taskTimeoutsMillis) {
+		this.taskTimeoutsMillis = taskTimeoutsMillis;
+	}
+	/** End getter/setter methods */
+	
+	/**
+	 * The dependency graph of the tasks passed to a single {@link ParallelTaskManager#execute(Task[])} call, along with the state of their execution
+	 */
+	private class TaskGraph {
+		
+		/** The TaskContext passed to the tasks*/
+		private TaskContextImpl<S,PlatformEvent> taskContext;
+		
+		/** The task nodes, keyed by task ID*/
+		private Map<String, TaskNode> taskNodes = new LinkedHashMap<String, TaskNode>();
+		
+		/** The number of tasks that are yet to complete*/
+		private AtomicInteger pendingCount;
+		
+		/** Completes when all tasks complete or exceptionally on the first failure*/
+		private CompletableFuture<Void> completion = new CompletableFuture<Void>();
+		
+		/** Constructor for this class. Creates the task nodes and validates their dependencies*/
+		TaskGraph(Task<T,S,R>[] tasks, TaskContextImpl<S,PlatformEvent> taskContext) {
+			this.taskContext = taskContext;
+			for (Task<T,S,R> task : tasks) {
+				if (this.taskNodes.containsKey(task.getTaskId())) {
+					throw new IllegalArgumentException("Duplicate task ID : " + task.getTaskId());
+				}
+				this.taskNodes.put(task.getTaskId(), new TaskNode(task));
+			}
+			for (TaskNode taskNode : this.taskNodes.values()) {
+				for (String dependency : getDependencies(taskNode.task)) {
+					TaskNode dependencyNode = this.taskNodes.get(dependency);
+					if (dependencyNode == null) {
+						throw new IllegalArgumentException("Task : " + taskNode.task.getTaskId() + " depends on unknown task : " + dependency);
+					}
+					taskNode.dependencies.add(dependencyNode);
+					dependencyNode.dependents.add(taskNode);
+				}
+				taskNode.remainingDependencies.set(taskNode.dependencies.size());
+			}
+			for (TaskNode taskNode : this.taskNodes.values()) {
+				checkForCycles(taskNode, new LinkedList<String>());
+			}
+			this.pendingCount = new AtomicInteger(this.taskNodes.size());
+		}
+		
+		/** Starts execution of tasks that do not have dependencies*/
+		void start() {
+			for (TaskNode taskNode : this.taskNodes.values()) {
+				if (taskNode.dependencies.isEmpty()) {
+					submit(taskNode);
+				}
+			}
+		}
+		
+		/** Waits for all tasks to complete. Fails execution of tasks if the calling thread is interrupted*/
+		void await() {
+			try {
+				this.completion.get();
+			} catch (ExecutionException e) {
+				throw (PlatformException)e.getCause();
+			} catch (InterruptedException e) {
+				PlatformException cause = new PlatformException("Interrupted while waiting for task execution to complete", e);
+				fail(cause);
+				Thread.currentThread().interrupt();
+				throw cause;
+			}
+		}
+		
+		/** Submits the specified task node for execution, unless execution has failed*/
+		void submit(TaskNode taskNode) {
+			if (this.completion.isDone()) {
+				return;
+			}
+			try {
+				getTaskExecutorService().execute(taskNode);
+			} catch (RejectedExecutionException e) {
+				fail(new PlatformException("Error submitting task : " + taskNode.task.getTaskId() + " for execution", e));
+			}
+		}
+		
+		/** Marks the specified task node as complete and submits dependent tasks that are ready for execution*/
+		void complete(TaskNode taskNode) {
+			for (TaskNode dependent : taskNode.dependents) {
+				if (dependent.remainingDependencies.decrementAndGet() == 0) {
+					submit(dependent);
+				}
+			}
+			if (this.pendingCount.decrementAndGet() == 0) {
+				this.completion.complete(null);
+			}
+		}
+		
+		/** Fails execution with the specified cause and cancels execution of all tasks. Subsequent failures are ignored*/
+		void fail(PlatformException cause) {
+			if (this.completion.completeExceptionally(cause)) {
+				cancel();
+				// signal tasks waiting on results that will not be available. Has no effect on results added already
+				for (String taskId : this.taskNodes.keySet()) {
+					this.taskContext.addFailure(taskId, cause);
+				}
+			}
+		}
+		
+		/** Cancels execution of all tasks*/
+		void cancel() {
+			for (TaskNode taskNode : this.taskNodes.values()) {
+				taskNode.cancel();
+			}
+		}
+		
+		/** Checks for cycles in dependencies of the specified task node, using a depth first search*/
+		void checkForCycles(TaskNode taskNode, LinkedList<String> path) {
+			if (taskNode.visitState == VISITED) {
+				return;
+			}
+			if (taskNode.visitState == VISITING) {
+				StringBuffer cycle = new StringBuffer();
+				for (String taskId : path.subList(path.indexOf(taskNode.task.getTaskId()), path.size())) {
+					cycle.append(taskId).append(" -> ");
+				}
+				cycle.append(taskNode.task.getTaskId());
+				throw new IllegalArgumentException("Cyclic task dependencies : " + cycle);
+			}
+			taskNode.visitState = VISITING;
+			path.addLast(taskNode.task.getTaskId());
+			for (TaskNode dependency : taskNode.dependencies) {
+				checkForCycles(dependency, path);
+			}
+			path.removeLast();
+			taskNode.visitState = VISITED;
+		}
+		
+		/** Returns the dependencies of the specified task*/
+		@SuppressWarnings("rawtypes")
+		String[] getDependencies(Task<T,S,R> task) {
+			String[] dependencies = null;
+			if (task instanceof DependentTask) {
+				dependencies = ((DependentTask)task).getDependencies();
+			}
+			return dependencies != null ? dependencies : NO_DEPENDENCIES;
+		}
+		
+		/**
+		 * A task in the graph, executed on the ExecutorService once all tasks it depends on have completed
+		 */
+		private class TaskNode implements Runnable {
+			
+			/** The task*/
+			private Task<T,S,R> task;
+			
+			/** The task nodes that this one depends on and the ones that depend on it*/
+			private List<TaskNode> dependencies = new LinkedList<TaskNode>();
+			private List<TaskNode> dependents = new LinkedList<TaskNode>();
+			
+			/** The number of dependencies that are yet to complete*/
+			private AtomicInteger remainingDependencies = new AtomicInteger();
+			
+			/** The visit state of this node when checking for cycles*/
+			private int visitState = NOT_VISITED;
+			
+			/** The thread executing the task, guarded by this node*/
+			private Thread runner;
+			
+			/** Flag to indicate that the task is cancelled, guarded by this node*/
+			private boolean cancelled;
+			
+			/** Constructor for this class*/
+			TaskNode(Task<T,S,R> task) {
+				this.task = task;
+			}
+			
+			/**
+			 * Interface method implementation. Executes the task, unless cancelled, and adds its result to the TaskContext
+			 * @see java.lang.Runnable#run()
+			 */
+			@SuppressWarnings("unchecked")
+			public void run() {
+				synchronized (this) {
+					if (this.cancelled) {
+						return;
+					}
+					this.runner = Thread.currentThread();
+				}
+				ScheduledFuture<?> timeout = scheduleTimeout();
+				try {
+					this.task.init((R)taskContext);
+					this.task.run();
+					taskContext.addResult(this.task.getTaskId(), this.task.getResult());
+				} catch (RuntimeException e) {
+					fail(new PlatformException("Error executing task : " + this.task.getTaskId(), e));
+					return;
+				} catch (Error e) {
+					fail(new PlatformException("Error executing task : " + this.task.getTaskId(), e));
+					return;
+				} finally {
+					if (timeout != null) {
+						timeout.cancel(false);
+					}
+					synchronized (this) {
+						this.runner = null;
+					}
+					// clear the interrupt, if any, from cancellation as the pool thread is reused for other tasks
+					Thread.interrupted();
+				}
+				complete(this);
+			}
+			
+			/** Cancels this task. Interrupts the task if it is executing*/
+			synchronized void cancel() {
+				this.cancelled = true;
+				if (this.runner != null && this.runner != Thread.currentThread()) {
+					this.runner.interrupt();
+				}
+			}
+			
+			/** Schedules the failure of execution when this task exceeds its timeout, if any*/
+			private ScheduledFuture<?> scheduleTimeout() {
+				final long timeoutMillis = getTimeoutMillis(this.task.getTaskId());
+				if (timeoutMillis <= 0) {
+					return null;
+				}
+				return getTimeoutScheduler().schedule(new Runnable() {
+					public void run() {
+						fail(new PlatformException("Task : " + task.getTaskId() + " timed out after " + timeoutMillis + " ms", new TimeoutException()));
+					}
+				}, timeoutMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+}
@@ -29,7 +29,8 @@ import org.trpr.platform.spi.task.TaskResult;
  * 
  * The <code>SimpleTaskManager</code> class is an implementation of {@link org.trpr.platform.spi.task.TaskManager}.
  * SimpleTaskManager executes the tasks in a sequential manner where the order of execution 
- * is the order in which they are passed. Tasks are executed in-process i.e. within the same JVM.
+ * is the order in which they are passed. Tasks are executed in-process i.e. within the same JVM. A task may therefore wait only for results of tasks
+ * passed before it.
  *  
  * @author Regunath B
  * @version 1.0, 04/06/2012
@@ -40,7 +41,7 @@ public class SimpleTaskManager<T extends TaskData<BusinessEntity, Resource>, S e
 
 	/**
 	 * Interface method implementation. Executes the tasks sequentially in the order passed in. Creates a TaskContextImpl prior to task execution and
-	 * passes it to each task being executed. 
+	 * passes it to each task being executed. Adds the result of each task to the TaskContextImpl once the task completes.
 	 * @see org.trpr.platform.spi.task.TaskManager#execute(org.trpr.platform.spi.task.Task<T,S,R>[])
 	 */
 	@SuppressWarnings("unchecked")
@@ -48,7 +49,13 @@ public class SimpleTaskManager<T extends TaskData<BusinessEntity, Resource>, S e
 		TaskContextImpl<S,PlatformEvent> taskContext = new TaskContextImpl<S,PlatformEvent>();
 		for (Task<T,S,R> t : tasks) {
 			t.init((R)taskContext);
-			t.run();
+			try {
+				t.run();
+			} catch (Throwable e) {
+				// signal tasks waiting on the result, for e.g. from other threads, before propagating
+				taskContext.addFailure(t.getTaskId(), e);
+				throw e;
+			}
 			taskContext.addResult(t.getTaskId(), t.getResult());
 		}
 		return (R)taskContext;
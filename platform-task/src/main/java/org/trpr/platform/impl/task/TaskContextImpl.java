@@ -16,8 +16,12 @@
 
 package org.trpr.platform.impl.task;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.trpr.platform.core.spi.event.PlatformEventProducer;
 import org.trpr.platform.model.common.BusinessEntity;
@@ -27,16 +31,17 @@ import org.trpr.platform.spi.task.TaskResult;
 
 /**
  * The <code>TaskContextImpl</code> is the default implementation for TaskContext. 
- * This implementation stores the task execution results in an in-memory collection. This class also publishes events published to it using
- * the {@link PlatformEventProducer} instance set on it.
+ * This implementation stores the task execution results in an in-memory collection of futures, one per task, that complete when the result of the task
+ * is added. Task execution results may therefore be added, read and waited for concurrently by tasks executing in parallel. This class also publishes
+ * events published to it using the {@link PlatformEventProducer} instance set on it.
  * 
  * @author Regunath B
  * @version 1.0, 04/06/2012
  */
 public class TaskContextImpl <T extends TaskResult<BusinessEntity>, S extends PlatformEvent> implements TaskContext<T,S> {
 
-	/** Collection for holding the task execution results*/
-	private Map<String, T> results = new LinkedHashMap<String, T>();
+	/** Collection for holding the futures of task execution results, keyed by task ID*/
+	private ConcurrentMap<String, CompletableFuture<T>> results = new ConcurrentHashMap<String, CompletableFuture<T>>();
 	
 	/** The PlatformEventProducer to use for event publishing*/
 	private PlatformEventProducer eventProducer;
@@ -46,16 +51,47 @@ public class TaskContextImpl <T extends TaskResult<BusinessEntity>, S extends Pl
 	 * @see org.trpr.platform.spi.task.TaskContext#getTaskResult(java.lang.String)
 	 */
 	public T getTaskResult(String taskId) {
-		return this.results.get(taskId);
+		CompletableFuture<T> result = this.results.get(taskId);
+		if (result == null || !result.isDone() || result.isCompletedExceptionally()) {
+			return null;
+		}
+		return result.getNow(null);
+	}
+	
+	/**
+	 * Interface method implementation. Returns the future for the task result of the task with the specified task ID.
+	 * @see org.trpr.platform.spi.task.TaskContext#getTaskResultFuture(java.lang.String)
+	 */
+	public CompletableFuture<T> getTaskResultFuture(String taskId) {
+		return this.getResultFuture(taskId);
+	}
+	
+	/**
+	 * Interface method implementation. Waits for and returns the task result for the task with the specified task ID.
+	 * @see org.trpr.platform.spi.task.TaskContext#getTaskResult(java.lang.String, long, java.util.concurrent.TimeUnit)
+	 */
+	public T getTaskResult(String taskId, long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		return this.getResultFuture(taskId).get(timeout, unit);
 	}
 	
 	/**
-	 * Adds the specified TaskResult against the task Id specified.
+	 * Adds the specified TaskResult against the task Id specified. Has no effect if a result or failure has been added already for the task Id, as 
+	 * tasks waiting for the result may have observed it.
 	 * @param taskId Id of the Task that was executed
 	 * @param taskResult the TaskResult from execution of the Task identified by the specified Id
 	 */
 	public void addResult(String taskId, T taskResult) {
-		this.results.put(taskId, taskResult);
+		this.getResultFuture(taskId).complete(taskResult);
+	}
+	
+	/**
+	 * Records the failure of execution of the Task identified by the specified Id. Tasks waiting for its result are signalled with the specified cause.
+	 * Has no effect if the result of the Task has been added already.
+	 * @param taskId Id of the Task that failed or was cancelled
+	 * @param cause the cause of failure
+	 */
+	public void addFailure(String taskId, Throwable cause) {
+		this.getResultFuture(taskId).completeExceptionally(cause);
 	}
 
 	/**
@@ -68,6 +104,21 @@ public class TaskContextImpl <T extends TaskResult<BusinessEntity>, S extends Pl
 		}
 	}
 	
+	/**
+	 * Helper method to return the future for the result of the Task identified by the specified Id. Creates one if required
+	 */
+	private CompletableFuture<T> getResultFuture(String taskId) {
+		CompletableFuture<T> result = this.results.get(taskId);
+		if (result == null) {
+			result = new CompletableFuture<T>();
+			CompletableFuture<T> existingResult = this.results.putIfAbsent(taskId, result);
+			if (existingResult != null) {
+				result = existingResult;
+			}
+		}
+		return result;
+	}
+	
 	/** Setter/Getter methods*/
 	public PlatformEventProducer getEventProducer() {
 		return this.eventProducer;
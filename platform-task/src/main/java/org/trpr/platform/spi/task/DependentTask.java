@@ -0,0 +1,38 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.spi.task;
+
+import org.trpr.platform.model.common.BusinessEntity;
+import org.trpr.platform.model.event.PlatformEvent;
+
+/**
+ * The <code>DependentTask</code> is a {@link Task} that depends on the outcome of other tasks. A {@link TaskManager} that supports dependencies
+ * executes this Task only after the tasks identified by {@link #getDependencies()} have completed execution, and their results are then available from the
+ * {@link TaskContext}.
+ * 
+ * @author Regunath B
+ * @version 1.0, 17/10/2026
+ */
+public interface DependentTask <T extends TaskData<BusinessEntity, Resource>, S extends TaskResult<BusinessEntity>,
+				R extends TaskContext<S, PlatformEvent>> extends Task<T,S,R> {
+
+	/**
+	 * Gets the identifiers of tasks that this Task depends on
+	 * @return task identifiers of the tasks that must complete before this Task executes, empty or null if none
+	 */
+	public String[] getDependencies();
+	
+}
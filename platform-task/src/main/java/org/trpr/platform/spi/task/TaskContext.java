@@ -15,11 +15,18 @@
  */
 package org.trpr.platform.spi.task;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import org.trpr.platform.model.common.BusinessEntity;
 import org.trpr.platform.model.event.PlatformEvent;
 
 /**
- * The <code>TaskContext</code> provides methods for a {@link Task} to communicate with its environment/container. 
+ * The <code>TaskContext</code> provides methods for a {@link Task} to communicate with its environment/container. Implementations that support
+ * concurrent task execution let a Task wait for the result of another Task, using {@link #getTaskResultFuture(String)} or
+ * {@link #getTaskResult(String, long, TimeUnit)}. The default implementations of these methods support only results that are already available.
  * 
  * @author Regunath B
  * @version 1.0, 04/06/2012
@@ -34,6 +41,41 @@ public interface TaskContext <T extends TaskResult<BusinessEntity>, S extends Pl
 	 */
 	public T getTaskResult(String taskId);
 	
+	/**
+	 * Returns a future for the {@link TaskResult} from execution of a {@link Task} identified by the specified task ID. The future completes when the
+	 * task result is available and completes exceptionally if execution of the task fails or is cancelled. The default implementation returns a 
+	 * future completed with the result from {@link #getTaskResult(String)} if available, completed exceptionally with an 
+	 * {@link UnsupportedOperationException} otherwise.
+	 * @param taskId the task identifier
+	 * @return CompletableFuture for the TaskResult from execution of a Task
+	 */
+	public default CompletableFuture<T> getTaskResultFuture(String taskId) {
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		T result = getTaskResult(taskId);
+		if (result != null) {
+			future.complete(result);
+		} else {
+			future.completeExceptionally(new UnsupportedOperationException("Waiting for results of tasks is not supported by : " + getClass().getName() 
+					+ ". No result is available for task : " + taskId));
+		}
+		return future;
+	}
+	
+	/**
+	 * Returns the {@link TaskResult} from execution of a {@link Task} identified by the specified task ID, waiting for at most the specified time
+	 * for it to be available. The default implementation waits on the future returned by {@link #getTaskResultFuture(String)}.
+	 * @param taskId the task identifier
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout argument
+	 * @return TaskResult from execution of a Task
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 * @throws TimeoutException if the task result is not available within the specified time
+	 * @throws ExecutionException if execution of the task failed or was cancelled
+	 */
+	public default T getTaskResult(String taskId, long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		return getTaskResultFuture(taskId).get(timeout, unit);
+	}
+	
 	/**
 	 * Publishes the specified events to the specified URI endpoints
 	 * @param endpoint the URI endpoint for event publishing
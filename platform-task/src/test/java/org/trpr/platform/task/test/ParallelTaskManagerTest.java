@@ -0,0 +1,245 @@
+/*
+ * Copyright 2012-2015, the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trpr.platform.task.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.trpr.platform.core.PlatformException;
+import org.trpr.platform.impl.task.AbstractTask;
+import org.trpr.platform.impl.task.ParallelTaskManager;
+import org.trpr.platform.spi.task.Task;
+import org.trpr.platform.spi.task.TaskContext;
+
+/**
+ * Test class for {@link ParallelTaskManager}
+ * 
+ * @author Regunath B
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class ParallelTaskManagerTest {
+
+	/** The time in milliseconds within which fail-fast execution is expected to complete*/
+	private static final long FAIL_FAST_MILLIS = 5000;
+
+	/** The task manager under test*/
+	private ParallelTaskManager taskManager;
+
+	/** The IDs of tasks in the order of their completion*/
+	private List<String> completedTaskIds = Collections.synchronizedList(new ArrayList<String>());
+
+	/**
+	 * Creates the task manager
+	 */
+	@Before
+	public void setUp() {
+		this.taskManager = new ParallelTaskManager();
+		this.taskManager.setParallelism(4);
+	}
+
+	/**
+	 * Shuts down the task manager
+	 */
+	@After
+	public void tearDown() throws Exception {
+		this.taskManager.destroy();
+	}
+
+	/**
+	 * Tests that tasks execute after the tasks they depend on and that all results are added to the TaskContext
+	 */
+	@Test
+	public void testDependencyOrder() {
+		TaskContext context = this.taskManager.execute(new Task[] {new TestTask("d", "b", "c"), new TestTask("b", "a"), new TestTask("c", "a"), new TestTask("a")});
+		assertEquals(4, this.completedTaskIds.size());
+		assertEquals("a", this.completedTaskIds.get(0));
+		assertEquals("d", this.completedTaskIds.get(3));
+		for (String taskId : new String[] {"a", "b", "c", "d"}) {
+			assertNotNull(context.getTaskResult(taskId));
+		}
+	}
+
+	/**
+	 * Tests that tasks that do not depend on each other execute concurrently
+	 */
+	@Test
+	public void testIndependentTasksRunConcurrently() {
+		final CountDownLatch latch = new CountDownLatch(2);
+		Task[] tasks = new Task[2];
+		for (int i = 0; i < tasks.length; i++) {
+			tasks[i] = new TestTask("task" + i) {
+				protected void doExecute() {
+					latch.countDown();
+					try {
+						if (!latch.await(FAIL_FAST_MILLIS, TimeUnit.MILLISECONDS)) {
+							throw new IllegalStateException("Tasks did not execute concurrently");
+						}
+					} catch (InterruptedException e) {
+						throw new IllegalStateException(e);
+					}
+					super.doExecute();
+				}
+			};
+		}
+		this.taskManager.execute(tasks);
+		assertEquals(2, this.completedTaskIds.size());
+	}
+
+	/**
+	 * Tests that cyclic dependencies are detected before any task is executed
+	 */
+	@Test
+	public void testCycleDetection() {
+		try {
+			this.taskManager.execute(new Task[] {new TestTask("start"), new TestTask("a", "c"), new TestTask("b", "a"), new TestTask("c", "b")});
+			fail("Cyclic dependencies were not detected");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Cyclic task dependencies"));
+		}
+		assertTrue(this.completedTaskIds.isEmpty());
+	}
+
+	/**
+	 * Tests that a task may not depend on itself
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testSelfDependency() {
+		this.taskManager.execute(new Task[] {new TestTask("a", "a")});
+	}
+
+	/**
+	 * Tests that dependencies on unknown tasks are rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownDependency() {
+		this.taskManager.execute(new Task[] {new TestTask("a", "unknown")});
+	}
+
+	/**
+	 * Tests that duplicate task IDs are rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicateTaskId() {
+		this.taskManager.execute(new Task[] {new TestTask("a"), new TestTask("a")});
+	}
+
+	/**
+	 * Tests that a failed task cancels execution of other tasks : running tasks are interrupted and dependent tasks are not executed
+	 */
+	@Test
+	public void testFailFast() {
+		final CountDownLatch slowTaskStarted = new CountDownLatch(1);
+		final List<String> interruptedTaskIds = Collections.synchronizedList(new ArrayList<String>());
+		Task slowTask = new TestTask("slow") {
+			protected void doExecute() {
+				slowTaskStarted.countDown();
+				try {
+					Thread.sleep(FAIL_FAST_MILLIS * 2);
+				} catch (InterruptedException e) {
+					interruptedTaskIds.add(getTaskId());
+					return;
+				}
+				super.doExecute();
+			}
+		};
+		Task failingTask = new TestTask("failing") {
+			protected void doExecute() {
+				try {
+					slowTaskStarted.await(FAIL_FAST_MILLIS, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					// fail anyway
+				}
+				throw new IllegalStateException("Task failure");
+			}
+		};
+		long start = System.currentTimeMillis();
+		try {
+			this.taskManager.execute(new Task[] {slowTask, failingTask, new TestTask("dependent", "failing")});
+			fail("Task failure was not reported");
+		} catch (PlatformException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertTrue("Execution did not fail fast", System.currentTimeMillis() - start < FAIL_FAST_MILLIS * 2);
+		assertTrue(this.completedTaskIds.isEmpty());
+		waitForInterrupt(interruptedTaskIds, "slow");
+	}
+
+	/**
+	 * Tests that a task that exceeds its timeout fails execution
+	 */
+	@Test
+	public void testTaskTimeout() {
+		this.taskManager.setTaskTimeoutMillis(100);
+		Task slowTask = new TestTask("slow") {
+			protected void doExecute() {
+				try {
+					Thread.sleep(FAIL_FAST_MILLIS * 2);
+				} catch (InterruptedException e) {
+					return;
+				}
+				super.doExecute();
+			}
+		};
+		long start = System.currentTimeMillis();
+		try {
+			this.taskManager.execute(new Task[] {slowTask, new TestTask("dependent", "slow")});
+			fail("Task timeout was not reported");
+		} catch (PlatformException e) {
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		assertTrue("Execution did not fail fast", System.currentTimeMillis() - start < FAIL_FAST_MILLIS);
+		assertFalse(this.completedTaskIds.contains("dependent"));
+	}
+
+	/**
+	 * Helper method to wait for the specified task to record that it was interrupted
+	 */
+	private void waitForInterrupt(List<String> interruptedTaskIds, String taskId) {
+		long deadline = System.currentTimeMillis() + FAIL_FAST_MILLIS;
+		while (!interruptedTaskIds.contains(taskId) && System.currentTimeMillis() < deadline) {
+			Thread.yield();
+		}
+		assertTrue("Task was not interrupted : " + taskId, interruptedTaskIds.contains(taskId));
+	}
+
+	/**
+	 * Task that records its completion
+	 */
+	private class TestTask extends AbstractTask {
+		private static final long serialVersionUID = 1L;
+		TestTask(String taskId, String... dependencies) {
+			super(taskId);
+			setDependencies(dependencies);
+		}
+		protected void doExecute() {
+			completedTaskIds.add(getTaskId());
+		}
+	}
+
+}
@@ -22,7 +22,9 @@ import org.trpr.platform.model.event.PlatformNotification;
 import org.trpr.platform.service.model.common.platformservicerequest.PlatformServiceRequest;
 import org.trpr.platform.service.model.common.platformserviceresponse.PlatformServiceResponse;
 import org.trpr.platform.servicefw.common.ServiceException;
+import org.trpr.platform.servicefw.impl.ServiceCompartmentImpl;
 import org.trpr.platform.servicefw.impl.ServiceKeyImpl;
+import org.trpr.platform.servicefw.spi.ServiceCompartment;
 import org.trpr.platform.servicefw.spi.ServiceContainer;
 import org.trpr.platform.servicefw.spi.ServiceKey;
 import org.trpr.platform.servicefw.spi.ServiceRequest;
@@ -63,8 +65,7 @@ public class ServiceContext<T,S,P extends PlatformServiceRequest,R extends Platf
 	 * @param request the ServiceRequest that is being executed
 	 */
 	public void notifyServiceExecutionStart(ServiceRequest<P> request) {
-		ServiceKey key = new ServiceKeyImpl(request.getServiceName(), request.getServiceVersion());
-		this.serviceContainer.getCompartment(key).notifyServiceExecutionStart(request);
+		getCompartment(request).notifyServiceExecutionStart(request);
 	}
 	
 	/**
@@ -76,8 +77,7 @@ public class ServiceContext<T,S,P extends PlatformServiceRequest,R extends Platf
 	 */
 	public void notifyServiceExecutionEnd(ServiceRequest<P> request, ServiceResponse<R> response,
 			long executionStartTime, long executionEndTime) {
-		ServiceKey key = new ServiceKeyImpl(request.getServiceName(), request.getServiceVersion());
-		this.serviceContainer.getCompartment(key).notifyServiceExecutionEnd(request, response, executionStartTime, executionEndTime);		
+		getCompartment(request).notifyServiceExecutionEnd(request, response, executionStartTime, executionEndTime);		
 	}
 	
 	/**
@@ -125,6 +125,22 @@ public class ServiceContext<T,S,P extends PlatformServiceRequest,R extends Platf
 		return this.serviceContainer.isServiceExecutionCheckPointingRequired();
 	}
 	
+	/**
+	 * Helper method to return the ServiceCompartment for the specified request. Returns the compartment executing the request on the current thread
+	 * if it is for the service of the request, looks up the compartment from the ServiceContainer otherwise
+	 */
+	@SuppressWarnings("unchecked")
+	private ServiceCompartment<P,R> getCompartment(ServiceRequest<P> request) {
+		ServiceCompartment<P,R> compartment = ServiceCompartmentImpl.getCurrentCompartment();
+		if (compartment != null) {
+			ServiceKey key = compartment.getServiceInfo().getServiceKey();
+			if (key.getName().equals(request.getServiceName()) && key.getVersion().equals(request.getServiceVersion())) {
+				return compartment;
+			}
+		}
+		return this.serviceContainer.getCompartment(new ServiceKeyImpl(request.getServiceName(), request.getServiceVersion()));
+	}
+	
 	/** Setter/Getter methods*/
 	
 	/**
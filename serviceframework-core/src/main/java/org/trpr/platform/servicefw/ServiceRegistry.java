@@ -16,8 +16,11 @@
 
 package org.trpr.platform.servicefw;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.trpr.platform.servicefw.common.ServiceFrameworkConstants;
 import org.trpr.platform.servicefw.impl.ServiceInfoImpl;
@@ -30,13 +33,17 @@ import org.trpr.platform.servicefw.spi.ServiceKey;
  * The <code>ServiceRegistry</code> discovers and maintains a registry of all services deployed in a given {@link ServiceContainer}.
  * Provides lookup methods to find {@link ServiceInfo} using a {@link ServiceKey}
  * 
+ * ServiceInfo instances are indexed by service name and version, along with the latest version of each service. The index is an immutable snapshot
+ * that is replaced as a whole when services are added or removed, for e.g. on hot reload of service definitions. Look-ups therefore read the current
+ * snapshot without locking and do not depend on the number of services deployed.
+ * 
  * @author Regunath B
  * @version 1.0, 14/08/2012
  */
 public class ServiceRegistry {
 
-	/** List of ServiceInfo instances that form this registry*/
-	private LinkedList<ServiceInfo> serviceInfoList = new LinkedList<ServiceInfo>();
+	/** The current snapshot of ServiceInfo instances that form this registry*/
+	private volatile Snapshot snapshot = new Snapshot(new ArrayList<ServiceInfo>());
 
     /**
      * Checks whether a Service is present in the registry
@@ -53,10 +60,12 @@ public class ServiceRegistry {
     /**
      * Removes a Service with the specified ServiceKey from the registry, if found
      */
-    public void remove(ServiceKey key) {
+    public synchronized void remove(ServiceKey key) {
         ServiceInfo toRemove = this.getServiceInfo(key);
         if(toRemove!=null) {
-            this.serviceInfoList.remove(toRemove);
+        	List<ServiceInfo> serviceInfos = new ArrayList<ServiceInfo>(this.snapshot.serviceInfos);
+        	serviceInfos.remove(toRemove);
+        	this.snapshot = new Snapshot(serviceInfos);
         }
     }
 	/**
@@ -66,17 +75,19 @@ public class ServiceRegistry {
 	 * @param projectName project/module name that the service belongs to
 	 * @param domainName name of the domain that the service is hosted on
 	 */
-	public void addServiceInfoToRegistry(String serviceName, String serviceVersion, String projectName, String domainName) {
-		this.serviceInfoList.add(new ServiceInfoImpl(projectName, domainName, !domainName.equals(ServiceFrameworkConstants.DEFAULT_DOMAIN), 
+	public synchronized void addServiceInfoToRegistry(String serviceName, String serviceVersion, String projectName, String domainName) {
+		List<ServiceInfo> serviceInfos = new ArrayList<ServiceInfo>(this.snapshot.serviceInfos);
+		serviceInfos.add(new ServiceInfoImpl(projectName, domainName, !domainName.equals(ServiceFrameworkConstants.DEFAULT_DOMAIN), 
 				new ServiceKeyImpl(serviceName, serviceVersion)));		
+		this.snapshot = new Snapshot(serviceInfos);
 	}
 	
 	/**
 	 * Returns a list of all ServiceInfo instances loaded by this service registry
-	 * @return List containing ServiceInfo instances
+	 * @return unmodifiable List containing ServiceInfo instances
 	 */
 	public List<ServiceInfo> getAllServiceInfos() {
-		return this.serviceInfoList;
+		return this.snapshot.serviceInfos;
 	}
 	
 	/**
@@ -88,24 +99,71 @@ public class ServiceRegistry {
 	 * @return null or the ServiceInfo identified by the specified service key
 	 */
 	public ServiceInfo getServiceInfo(ServiceKey serviceKey) {
-		for (ServiceInfo serviceInfo : this.serviceInfoList) {
-			if (serviceInfo.getServiceKey().getName().equals(serviceKey.getName())) {
-				if (ServiceKey.LATEST_VERSION.equalsIgnoreCase(serviceKey.getVersion())) {
-					// If latest version is being requested, then, loop through rest of service info and find the one
-					// with highest service version
-					if (serviceInfo == null || (Float.parseFloat(serviceInfo.getServiceKey().getVersion()) >= 
-						Float.parseFloat(serviceInfo.getServiceKey().getVersion())) ) {
-							return serviceInfo;
-					}
+		ServiceVersions serviceVersions = this.snapshot.services.get(serviceKey.getName());
+		if (serviceVersions == null) {
+			return null;
+		}
+		if (ServiceKey.LATEST_VERSION.equalsIgnoreCase(serviceKey.getVersion())) {
+			return serviceVersions.latestVersion;
+		}
+		return serviceVersions.versions.get(serviceKey.getVersion());
+	}	
+	
+	/**
+	 * Helper method to compare the specified service versions numerically. Versions that are not numbers are lower than those that are
+	 */
+	private static int compareVersions(String version1, String version2) {
+		Float value1 = parseVersion(version1);
+		Float value2 = parseVersion(version2);
+		if (value1 == null || value2 == null) {
+			return value1 == null ? (value2 == null ? 0 : -1) : 1;
+		}
+		return value1.compareTo(value2);
+	}
+	
+	/**
+	 * Helper method to parse the specified version as a number, returns null if it is not one
+	 */
+	private static Float parseVersion(String version) {
+		try {
+			return Float.parseFloat(version);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Immutable index of ServiceInfo instances by service name
+	 */
+	static class Snapshot {
+		List<ServiceInfo> serviceInfos;
+		Map<String, ServiceVersions> services = new HashMap<String, ServiceVersions>();
+		Snapshot(List<ServiceInfo> serviceInfos) {
+			this.serviceInfos = Collections.unmodifiableList(serviceInfos);
+			for (ServiceInfo serviceInfo : serviceInfos) {
+				ServiceKey serviceKey = serviceInfo.getServiceKey();
+				ServiceVersions serviceVersions = this.services.get(serviceKey.getName());
+				if (serviceVersions == null) {
+					serviceVersions = new ServiceVersions();
+					this.services.put(serviceKey.getName(), serviceVersions);
+				}
+				// first registered ServiceInfo of a version is returned in look-ups, as was the case with the list based registry
+				if (!serviceVersions.versions.containsKey(serviceKey.getVersion())) {
+					serviceVersions.versions.put(serviceKey.getVersion(), serviceInfo);
 				}
-				else {
-					// If specific version is being requested, then, return break from loop if version matches.
-					if (serviceInfo.getServiceKey().getVersion().equals(serviceKey.getVersion())) {
-						return serviceInfo;
-					}
+				if (serviceVersions.latestVersion == null || 
+						compareVersions(serviceKey.getVersion(), serviceVersions.latestVersion.getServiceKey().getVersion()) > 0) {
+					serviceVersions.latestVersion = serviceInfo;
 				}
 			}
 		}
-		return null;
-	}	
+	}
+	
+	/**
+	 * The ServiceInfo instances of a service keyed by version, and its latest version
+	 */
+	static class ServiceVersions {
+		Map<String, ServiceInfo> versions = new HashMap<String, ServiceInfo>();
+		ServiceInfo latestVersion;
+	}
 }
@@ -16,6 +16,8 @@
 package org.trpr.platform.servicefw.impl;
 
 import java.net.InetAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.trpr.platform.servicefw.ServiceRegistry;
 import org.trpr.platform.servicefw.common.ServiceException;
@@ -31,6 +33,8 @@ import org.trpr.platform.servicefw.spi.ServiceKey;
  * to determine if the service invoked indeed exists.
  * This factory creates a suitable Broker instance for services that are within the same project i.e. visible by the same class loader, local machine
  * or in relevant cases - a client side proxy to a remote service.
+ * Brokers are cached by the service key they were requested for. The cache is cleared when services are (re)loaded or the ServiceContainer is reset
+ * i.e. via {@link #clearBrokerCache()}. Service keys used for look up must therefore not be modified after the call.
  * 
  * @author  Regunath B
  * @version 1.0, 14/08/2012
@@ -53,13 +57,33 @@ public class BrokerFactory {
 	/** The ServiceRegistry instance for looking up ServiceInfo details*/
 	private static ServiceRegistry serviceRegistry;
 	
+	/** Cache of Broker instances, keyed by the service key they were requested for*/
+	private static final ConcurrentMap<ServiceKey, Broker> BROKER_CACHE = new ConcurrentHashMap<ServiceKey, Broker>();
+	
 	/**
 	 * Returns a Broker implementation that is relevant to the specified service key.
 	 * @param ServiceKey based on which a Broker instance is returned
 	 * @return Broker implementation relevant to the service key specified
 	 */
 	public static Broker getBroker(ServiceKey serviceKey) throws ServiceException {
-		return findBroker(serviceKey);
+		Broker broker = BROKER_CACHE.get(serviceKey);
+		if (broker == null) {
+			broker = findBroker(serviceKey);
+			// brokers are stateless, a duplicate created by a concurrent call is harmless and is simply discarded
+			Broker existingBroker = BROKER_CACHE.putIfAbsent(serviceKey, broker);
+			if (existingBroker != null) {
+				broker = existingBroker;
+			}
+		}
+		return broker;
+	}
+	
+	/**
+	 * Clears the cached Broker instances. Called when services are (re)loaded or removed, so that subsequent look ups resolve the current
+	 * ServiceInfo details
+	 */
+	public static void clearBrokerCache() {
+		BROKER_CACHE.clear();
 	}
 
 	/** Helper method to get broker that is relevant to the specified service request */
@@ -82,9 +106,11 @@ public class BrokerFactory {
 	/** Static Setter methods */
 	public static void setServiceContainer(ServiceContainer serviceContainer) {
 		BrokerFactory.serviceContainer = serviceContainer;
+		BrokerFactory.clearBrokerCache();
 	}	
 	public static void setServiceRegistry(ServiceRegistry serviceRegistry) {
 		BrokerFactory.serviceRegistry = serviceRegistry;
+		BrokerFactory.clearBrokerCache();
 	}	
 	/** End getter/setter methods */
 	
@@ -60,12 +60,7 @@ public class BrokerImpl<T extends PlatformServiceRequest, S extends PlatformServ
 	public ServiceResponse<? extends PlatformServiceResponse> invokeService(ServiceRequest<? extends PlatformServiceRequest> request)
 			throws ServiceException {
 
-		ServiceResponse<? extends PlatformServiceResponse> response = null;		
-		ServiceKey serviceKey = new ServiceKeyImpl(request.getServiceName(),
-				request.getServiceVersion());
-		
-		response = getServiceResponse(request,serviceKey);
-		return response;
+		return getServiceResponse(request);
 	}
 	
 	/** Setter/Getter methods */
@@ -84,25 +79,24 @@ public class BrokerImpl<T extends PlatformServiceRequest, S extends PlatformServ
 	 * @return ServiceResponse
 	 * @throws ServiceException
 	 */
-	private ServiceResponse<? extends PlatformServiceResponse> getServiceResponse(ServiceRequest<? extends PlatformServiceRequest> request,ServiceKey serviceKey)
+	private ServiceResponse<? extends PlatformServiceResponse> getServiceResponse(ServiceRequest<? extends PlatformServiceRequest> request)
 			throws ServiceException {
 
 		// Set the invoking service key into the service hierarchy.
 		setServiceHierarchy(serviceInfo.getServiceKey());
-		
-		ServiceResponse<? extends PlatformServiceResponse> response = this.serviceContainer.invokeService(serviceInfo, request);
-		
-		// Unset the invoking service key from the service hierarchy.
-		resetServiceHierarchy(serviceInfo.getServiceKey());
-		
-		return response;
+		try {
+			return this.serviceContainer.invokeService(serviceInfo, request);
+		} finally {
+			// Unset the invoking service key from the service hierarchy, even if the service invocation failed
+			resetServiceHierarchy(serviceInfo.getServiceKey());
+		}
 	}
 
 	/**
-	 * Sets the service key into Service Hierarchy Linked List.
+	 * Sets the service key into the service invocation hierarchy.
 	 * 
-	 * @param request
-	 *            Service Request for determining service key.
+	 * @param serviceKey
+	 *            Service key of the service being invoked.
 	 */
 	private void setServiceHierarchy(ServiceKey serviceKey) {
 		CallContext callContext = CallContext.getCurrentCallContext();
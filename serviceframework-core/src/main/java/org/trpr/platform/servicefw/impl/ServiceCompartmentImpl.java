@@ -15,7 +15,10 @@
  */
 package org.trpr.platform.servicefw.impl;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.trpr.platform.core.PlatformException;
 import org.trpr.platform.core.impl.logging.LogFactory;
@@ -34,13 +37,17 @@ import org.trpr.platform.servicefw.spi.ServiceRequest;
 import org.trpr.platform.servicefw.spi.ServiceResponse;
 
 import com.yammer.metrics.Metrics;
-import com.yammer.metrics.core.Counter;
 import com.yammer.metrics.core.Gauge;
 import com.yammer.metrics.core.Meter;
 
 /**
  * The <code>ServiceCompartmentImpl</code> class is an implementation of the {@link ServiceCompartment} interface. 
  * 
+ * All calls to a service are routed through a single instance of this class. Service invocation statistics are therefore kept without locking - 
+ * request counts in striped {@link LongAdder} counters that are published as {@link Gauge} metrics, and timestamps in volatile fields that hold the
+ * value written last. The request counters are shared by all compartments created for a service key, so that counts are retained across service 
+ * reloads and the Gauges registered by the first compartment continue to publish them.
+ * 
  * @see ServiceCompartment
  * @author Regunath B, devashishshankar
  * @version 1.1, 11/03/2013
@@ -54,6 +61,12 @@ public class ServiceCompartmentImpl<T extends PlatformServiceRequest, S extends
 	/** Constant for invalid response time in milliseconds execution counts*/
 	public static final long INVALID_STATISTICS_VALUE = -1L;
 	
+	/** The ServiceCompartment of the service request being executed by the current thread*/
+	private static final ThreadLocal<ServiceCompartment> CURRENT_COMPARTMENT = new ThreadLocal<ServiceCompartment>();
+	
+	/** The request counters, keyed by metric name*/
+	private static final ConcurrentMap<String, LongAdder> REQUEST_COUNTERS = new ConcurrentHashMap<String, LongAdder>();
+	
 	/** The Service instance */
 	private Service<T,S> service;
 
@@ -65,27 +78,27 @@ public class ServiceCompartmentImpl<T extends PlatformServiceRequest, S extends
 	/**
 	 * Stores timeStamp when Service is last used.
 	 */
-	private long lastUsageTimeStamp = INVALID_STATISTICS_VALUE;
+	private volatile long lastUsageTimeStamp = INVALID_STATISTICS_VALUE;
 	
 	/**
 	 * Stores total requests processed.
 	 */
-	private final Counter totalUsageCount;
+	private final LongAdder totalUsageCount;
 
 	/**
 	 * Stores active request count.
 	 */
-	private final Counter currentUsageCount;
+	private final LongAdder currentUsageCount;
 
 	/**
 	 * The last serviced request's response time
 	 */
-	private long lastServiceRequestResponseTime = INVALID_STATISTICS_VALUE;
+	private volatile long lastServiceRequestResponseTime = INVALID_STATISTICS_VALUE;
 	
 	/**
 	 * Counts of service requests that failed - either due to validations or underlying exceptions
 	 */
-	private final Counter errorRequestCount;
+	private final LongAdder errorRequestCount;
 	
 	/**
 	 * The ServiceInfo that describes the Service routed through this
@@ -102,16 +115,37 @@ public class ServiceCompartmentImpl<T extends PlatformServiceRequest, S extends
 	public ServiceCompartmentImpl(ServiceInfo serviceInfo, Service<T,S> service) {
 		this.serviceInfo = serviceInfo; 
 		this.service = service;
-		//Initialize the counters
-		this.totalUsageCount = Metrics.newCounter(ServiceCompartmentImpl.class, 
-				ServiceStatisticsGatherer.getMetricName(ServiceStatisticsGatherer.TOTAL_REQUEST_COUNT_ATTR_INDEX, serviceInfo.getServiceKey().toString()));
-		this.currentUsageCount = Metrics.newCounter(ServiceCompartmentImpl.class,
-				ServiceStatisticsGatherer.getMetricName(ServiceStatisticsGatherer.ACTIVE_REQUEST_COUNT_ATTR_INDEX, serviceInfo.getServiceKey().toString()));
-		this.errorRequestCount = Metrics.newCounter(ServiceCompartmentImpl.class, 
-				ServiceStatisticsGatherer.getMetricName(ServiceStatisticsGatherer.ERROR_REQUEST_COUNT_ATTR_INDEX, serviceInfo.getServiceKey().toString()));
 		this.errorRequestRate = Metrics.newMeter(ServiceCompartmentImpl.class,
 				ServiceStatisticsGatherer.getMetricName(ServiceStatisticsGatherer.ERROR_REQUEST_RATE_ATTR_INDEX, serviceInfo.getServiceKey().toString()),"errorRequests",TimeUnit.SECONDS);
-		//Initialize the Gauges
+		//Initialize the counters. Shared with earlier compartments of the service, if any
+		String totalRequestCountName = ServiceStatisticsGatherer.getMetricName(ServiceStatisticsGatherer.TOTAL_REQUEST_COUNT_ATTR_INDEX, serviceInfo.getServiceKey().toString());
+		String activeRequestCountName = ServiceStatisticsGatherer.getMetricName(ServiceStatisticsGatherer.ACTIVE_REQUEST_COUNT_ATTR_INDEX, serviceInfo.getServiceKey().toString());
+		String errorRequestCountName = ServiceStatisticsGatherer.getMetricName(ServiceStatisticsGatherer.ERROR_REQUEST_COUNT_ATTR_INDEX, serviceInfo.getServiceKey().toString());
+		this.totalUsageCount = getRequestCounter(totalRequestCountName);
+		this.currentUsageCount = getRequestCounter(activeRequestCountName);
+		this.errorRequestCount = getRequestCounter(errorRequestCountName);
+		//Initialize the Gauges. Request counts are published as Gauges over the LongAdder counters. The Gauges are registered only once per metric name
+		Metrics.newGauge(ServiceCompartmentImpl.class, totalRequestCountName,
+				new Gauge<Long>() {
+		    @Override
+		    public Long value() {
+		        return totalUsageCount.sum();
+		    }
+		});
+		Metrics.newGauge(ServiceCompartmentImpl.class, activeRequestCountName,
+				new Gauge<Long>() {
+		    @Override
+		    public Long value() {
+		        return currentUsageCount.sum();
+		    }
+		});
+		Metrics.newGauge(ServiceCompartmentImpl.class, errorRequestCountName,
+				new Gauge<Long>() {
+		    @Override
+		    public Long value() {
+		        return errorRequestCount.sum();
+		    }
+		});
 		Metrics.newGauge(ServiceCompartmentImpl.class, 
 				ServiceStatisticsGatherer.getMetricName(ServiceStatisticsGatherer.STARTUP_TIME_ATTR_INDEX, serviceInfo.getServiceKey().toString()),
 				new Gauge<Long>() {
@@ -158,6 +192,30 @@ public class ServiceCompartmentImpl<T extends PlatformServiceRequest, S extends
 		return invokeService(request);
 	}
 
+	/**
+	 * Helper method to return the request counter for the specified metric name. Creates one if required
+	 */
+	private static LongAdder getRequestCounter(String metricName) {
+		LongAdder counter = REQUEST_COUNTERS.get(metricName);
+		if (counter == null) {
+			counter = new LongAdder();
+			LongAdder existingCounter = REQUEST_COUNTERS.putIfAbsent(metricName, counter);
+			if (existingCounter != null) {
+				counter = existingCounter;
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * Returns the ServiceCompartment of the service request being executed by the current thread. Used by the ServiceContext to avoid looking up
+	 * the compartment again when notified of service execution. 
+	 * @return null or the ServiceCompartment executing a service request on the current thread
+	 */
+	public static ServiceCompartment getCurrentCompartment() {
+		return CURRENT_COMPARTMENT.get();
+	}
+
 	/**
 	 * Interface method implementation
 	 * 
@@ -181,15 +239,12 @@ public class ServiceCompartmentImpl<T extends PlatformServiceRequest, S extends
 	 */
 	public void notifyServiceExecutionEnd(ServiceRequest request, ServiceResponse response, long executionStartTime, long executionEndTime) {
 		decrementUsageCounter();		
-		// synchronized block as this is a single instance through for all service bean instances
-		// This class is not thread safe as a consequence and the instance variables need to be modified inside a synchronized block
-		synchronized(this) {
-			this.lastServiceRequestResponseTime = executionEndTime - executionStartTime;
-			if (String.valueOf(ServiceFrameworkConstants.FAILURE_STATUS_CODE).equalsIgnoreCase(((ServiceResponseImpl)response).getStatusCode())) {
-				this.errorRequestCount.inc();
-				this.errorRequestRate.mark();
-			}
-		}		
+		// concurrent calls may overwrite each other's value. The value of any one of the last few requests is good enough
+		this.lastServiceRequestResponseTime = executionEndTime - executionStartTime;
+		if (String.valueOf(ServiceFrameworkConstants.FAILURE_STATUS_CODE).equalsIgnoreCase(((ServiceResponseImpl)response).getStatusCode())) {
+			this.errorRequestCount.increment();
+			this.errorRequestRate.mark();
+		}
 	}
 
 	/**
@@ -203,6 +258,9 @@ public class ServiceCompartmentImpl<T extends PlatformServiceRequest, S extends
 	protected ServiceResponse invokeService(ServiceRequest<T> request) {
 		ServiceResponse serviceResponse = null;
 		request.setServiceVersion(this.serviceInfo.getServiceKey().getVersion());
+		// bind this compartment to the current thread for the duration of the call. Services may call other services on the same thread
+		ServiceCompartment previousCompartment = CURRENT_COMPARTMENT.get();
+		CURRENT_COMPARTMENT.set(this);
 		try {
 			serviceResponse = this.service.processRequest(request);
 		} catch (Exception e) {
@@ -210,31 +268,32 @@ public class ServiceCompartmentImpl<T extends PlatformServiceRequest, S extends
 			// catch and return a ServiceResponse for all kinds of exceptions
 			// that might arise when invoking a remote service
 			return constructServiceResponseFromException(e);
+		} finally {
+			if (previousCompartment == null) {
+				CURRENT_COMPARTMENT.remove();
+			} else {
+				CURRENT_COMPARTMENT.set(previousCompartment);
+			}
 		}
 		return serviceResponse;
 	}
 
 	/**
 	 * Method which updates active request count and total request count.
-	 * Method is synchronized as this is a single instance through which all calls to the associated service bean is routed.
-	 * All modifications to instance variables of this class are synchronized.  
+	 * Method is not synchronized as this is a single instance through which all calls to the associated service bean is routed. The counters
+	 * are striped and the timestamp is a volatile value that concurrent calls may overwrite.
 	 */
-	private synchronized void incrementUsageCounter() {
+	private void incrementUsageCounter() {
 		lastUsageTimeStamp = System.currentTimeMillis();
-		currentUsageCount.inc();
-		totalUsageCount.inc();
+		currentUsageCount.increment();
+		totalUsageCount.increment();
 	}
 
 	/**
-	 * Method which updates active request count.
-	 * Method is synchronized as this is a single instance through which all calls to the associated service bean is routed.
-	 * All modifications to instance variables of this class are synchronized.  
+	 * Method which updates active request count. Each decrement matches an earlier increment, see {@link #incrementUsageCounter()}
 	 */
-	private synchronized void decrementUsageCounter() {
-		// decrement only if use count is greater than zero. It might have been set to zero if #resetServiceStatistics() is called
-		if (currentUsageCount.count() > 0) {
-			currentUsageCount.dec();
-		}
+	private void decrementUsageCounter() {
+		currentUsageCount.decrement();
 	}
 
 	/**
@@ -109,11 +109,11 @@ public class ServiceStatisticsGatherer extends AppInstanceAwareMBean {
 					getMetricName(LAST_CALLED_TIME_ATTR_INDEX, serviceKeys[i].toString())));
 			Gauge lastResponseTime = (Gauge) metricsMap.get(new MetricName(ServiceCompartmentImpl.class,
 					getMetricName(LAST_SERVICE_TIME_ATTR_INDEX, serviceKeys[i].toString())));
-			Counter totalRequestCount = (Counter) metricsMap.get(new MetricName(ServiceCompartmentImpl.class,
+			Metric totalRequestCount = metricsMap.get(new MetricName(ServiceCompartmentImpl.class,
 					getMetricName(TOTAL_REQUEST_COUNT_ATTR_INDEX, serviceKeys[i].toString())));
-			Counter activeRequestCount = (Counter) metricsMap.get(new MetricName(ServiceCompartmentImpl.class,
+			Metric activeRequestCount = metricsMap.get(new MetricName(ServiceCompartmentImpl.class,
 					getMetricName(ACTIVE_REQUEST_COUNT_ATTR_INDEX, serviceKeys[i].toString())));
-			Counter errorRequestCount = (Counter) metricsMap.get(new MetricName(ServiceCompartmentImpl.class,
+			Metric errorRequestCount = metricsMap.get(new MetricName(ServiceCompartmentImpl.class,
 					getMetricName(ERROR_REQUEST_COUNT_ATTR_INDEX, serviceKeys[i].toString())));
 			Timer responseTimes = (Timer) metricsMap.get(new MetricName(ServiceCompartmentImpl.class,
 					getMetricName(RESPONSE_TIME_ATTR_INDEX, serviceKeys[i].toString())));
@@ -135,9 +135,9 @@ public class ServiceStatisticsGatherer extends AppInstanceAwareMBean {
 			} else {
 				servicesStatistics[i].setLastCalledTimestamp(lastCalledTimeStamp);
 			}
-			servicesStatistics[i].setTotalRequestsCount((Long) totalRequestCount.count());
-			servicesStatistics[i].setActiveRequestsCount((Long) activeRequestCount.count());
-			servicesStatistics[i].setErrorRequestsCount((Long) errorRequestCount.count());
+			servicesStatistics[i].setTotalRequestsCount(getCount(totalRequestCount));
+			servicesStatistics[i].setActiveRequestsCount(getCount(activeRequestCount));
+			servicesStatistics[i].setErrorRequestsCount(getCount(errorRequestCount));
 			if(responseTimes!=null) {
 				servicesStatistics[i].setP50ResponseTime((Double) responseTimes.getSnapshot().getMedian());
 				servicesStatistics[i].setP75ResponseTime((Double) responseTimes.getSnapshot().get75thPercentile());
@@ -174,6 +174,15 @@ public class ServiceStatisticsGatherer extends AppInstanceAwareMBean {
 	public static String getMetricName(int attributeID, String serviceName) {
 		return ServiceStatisticsGatherer.ATTRIBUTE_NAMES[attributeID]+ServiceStatisticsGatherer.SERVICE_NAME_ATTRIBUTE_SEP+serviceName;
 	}
+	
+	/** Helper method that returns the value of a count metric, published either as a Counter or as a Gauge of Long */
+	@SuppressWarnings("rawtypes")
+	private static long getCount(Metric metric) {
+		if (metric instanceof Counter) {
+			return ((Counter) metric).count();
+		}
+		return (Long) ((Gauge) metric).value();
+	}
 	/** Getter setter methods*/
 	@SuppressWarnings("rawtypes")
 	public ServiceContainer getServiceContainer() {
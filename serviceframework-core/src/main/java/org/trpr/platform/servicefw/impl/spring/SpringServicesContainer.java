@@ -20,12 +20,12 @@ import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
@@ -112,11 +112,11 @@ public class SpringServicesContainer<T extends PlatformServiceRequest, S extends
     /** The common batch beans context*/
     private static AbstractApplicationContext commonServiceBeansContext;    	
     		
-	/** Collection of ServiceCompartments */
-	private HashMap<ServiceKey, ServiceCompartment<T,S>> serviceCompartments = null;
+	/** Collection of ServiceCompartments. Concurrent as services may be reloaded while requests are being served */
+	private ConcurrentHashMap<ServiceKey, ServiceCompartment<T,S>> serviceCompartments = null;
 	
 	/** Collection of ServiceInfos */
-	private HashMap<ServiceKey, ServiceInfo> serviceInfos = null;
+	private ConcurrentHashMap<ServiceKey, ServiceInfo> serviceInfos = null;
 	
     /** Local reference for all BootstrapExtensionS loaded by the Container and set on this ComponentContainer*/
     private BootstrapExtension[] loadedBootstrapExtensions;	
@@ -178,8 +178,8 @@ public class SpringServicesContainer<T extends PlatformServiceRequest, S extends
         this.configurationService = SpringServicesContainer.commonServiceBeansContext.getBean(ConfigurationServiceImpl.class);
         this.configurationService.setSpringServicesContainer(this);
 
-        this.serviceCompartments = new HashMap<ServiceKey, ServiceCompartment<T,S>>();
-        this.serviceInfos = new HashMap<ServiceKey, ServiceInfo>();
+        this.serviceCompartments = new ConcurrentHashMap<ServiceKey, ServiceCompartment<T,S>>();
+        this.serviceInfos = new ConcurrentHashMap<ServiceKey, ServiceInfo>();
         
         // load the service bean contexts
         this.loadServiceContexts();
@@ -212,10 +212,11 @@ public class SpringServicesContainer<T extends PlatformServiceRequest, S extends
 	 */
 	public ServiceCompartment<T,S> getCompartment(ServiceKey serviceKey) {
 		// always get the service key resolved from the service registry
-		if (this.serviceRegistry.getServiceInfo(serviceKey) == null) {
+		ServiceInfo serviceInfo = this.serviceRegistry.getServiceInfo(serviceKey);
+		if (serviceInfo == null) {
 			throw new ServiceException(BrokerFactory.getMissingServiceMessage(serviceKey));
 		}
-		return (ServiceCompartment<T,S>)serviceCompartments.get(this.serviceRegistry.getServiceInfo(serviceKey).getServiceKey());
+		return (ServiceCompartment<T,S>)serviceCompartments.get(serviceInfo.getServiceKey());
 	}
 
 	/**
@@ -365,6 +366,8 @@ public class SpringServicesContainer<T extends PlatformServiceRequest, S extends
                 throw new ServiceException("Invalid service bean name? Convention is <serviceName>_<serviceVersion>. Offending bean name is : " + serviceBeanId, ex);
             }
         }				
+        // clear cached brokers as the services and their ServiceInfo details may have changed
+        BrokerFactory.clearBrokerCache();
 	}
 	
 	/**
@@ -372,6 +375,7 @@ public class SpringServicesContainer<T extends PlatformServiceRequest, S extends
 	 * @throws PlatformException
 	 */
 	protected void resetContainer() throws PlatformException {
+		BrokerFactory.clearBrokerCache();
 		for (Iterator<ServiceKey> it = serviceCompartments.keySet().iterator(); it.hasNext();) { 
 			ServiceKey key = (ServiceKey) it.next(); 
 			ServiceCompartment<T,S> serviceCompartment = (ServiceCompartment<T,S>) serviceCompartments.get(key); 
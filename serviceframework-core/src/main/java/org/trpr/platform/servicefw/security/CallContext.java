@@ -40,8 +40,14 @@ public final class CallContext implements SecurityContext {
 	/** new Thread local*/
 	private static ThreadLocal<CallContext> currentThreadLocal = new ThreadLocal<CallContext>();
 	
-    /** The Linked List holds a list of serviceHierarchy */
-	private LinkedList<ServiceKey> serviceHierarchy = new LinkedList<ServiceKey>();
+	/** The initial capacity of the service hierarchy stack*/
+	private static final int INITIAL_HIERARCHY_CAPACITY = 8;
+	
+	/** The service hierarchy stack i.e. service keys of services in the invocation hierarchy, outermost first. Grown only when full */
+	private ServiceKey[] serviceHierarchy = new ServiceKey[INITIAL_HIERARCHY_CAPACITY];
+	
+	/** The number of service keys in the service hierarchy stack*/
+	private int serviceHierarchyDepth;
 	
 	/**
 	 * Default constructor.
@@ -65,11 +71,15 @@ public final class CallContext implements SecurityContext {
 	
 	/**
 	 * The method returns a LinkedList containing service keys of services within a service
-	 * invocation hierarchy. 
+	 * invocation hierarchy. The returned list is a copy and changes to it do not affect this CallContext. 
 	 * @return LinkedList containing service keys
 	 */
 	public LinkedList<ServiceKey> getServiceHierarchy() {
-		return serviceHierarchy;
+		LinkedList<ServiceKey> hierarchy = new LinkedList<ServiceKey>();
+		for (int i = 0; i < this.serviceHierarchyDepth; i++) {
+			hierarchy.add(this.serviceHierarchy[i]);
+		}
+		return hierarchy;
 	}
 	
 	/**
@@ -77,7 +87,16 @@ public final class CallContext implements SecurityContext {
 	 * @param serviceHierarchy non null LinkedList containing service keys
 	 */
 	public void setServiceHierarchy(LinkedList<ServiceKey> serviceHierarchy) {
-		this.serviceHierarchy = serviceHierarchy;
+		this.serviceHierarchy = serviceHierarchy.toArray(new ServiceKey[Math.max(serviceHierarchy.size(), INITIAL_HIERARCHY_CAPACITY)]);
+		this.serviceHierarchyDepth = serviceHierarchy.size();
+	}
+	
+	/**
+	 * Returns the number of services in the service invocation hierarchy
+	 * @return the service invocation hierarchy depth, zero if the call is not inside a service invocation
+	 */
+	public int getServiceHierarchyDepth() {
+		return this.serviceHierarchyDepth;
 	}
 	
 	/**
@@ -85,15 +104,28 @@ public final class CallContext implements SecurityContext {
 	 * @param ServiceKey of the service that is going to be executed 
 	 */
 	public void addToServiceHierarchy(ServiceKey serviceKey){
-		this.serviceHierarchy.add(serviceKey);
+		if (this.serviceHierarchyDepth == this.serviceHierarchy.length) {
+			ServiceKey[] grownHierarchy = new ServiceKey[this.serviceHierarchy.length * 2];
+			System.arraycopy(this.serviceHierarchy, 0, grownHierarchy, 0, this.serviceHierarchyDepth);
+			this.serviceHierarchy = grownHierarchy;
+		}
+		this.serviceHierarchy[this.serviceHierarchyDepth++] = serviceKey;
 	}
 
 	/**
-	 * Removes the specified Service Key from the service invocation hierarchy.
+	 * Removes the specified Service Key from the service invocation hierarchy. The key is typically the last one added and is looked up
+	 * from the top of the hierarchy.
 	 * @param ServiceKey of the service that has completed execution
 	 */
 	public void removeFromServiceHierarchy(ServiceKey serviceKey){
-		this.serviceHierarchy.remove(serviceKey);
+		for (int i = this.serviceHierarchyDepth - 1; i >= 0; i--) {
+			if (this.serviceHierarchy[i] == serviceKey || this.serviceHierarchy[i].equals(serviceKey)) {
+				System.arraycopy(this.serviceHierarchy, i + 1, this.serviceHierarchy, i, this.serviceHierarchyDepth - i - 1);
+				// clear the freed slot so that the key is not retained by this thread's CallContext
+				this.serviceHierarchy[--this.serviceHierarchyDepth] = null;
+				return;
+			}
+		}
 	}
 	
 	/**